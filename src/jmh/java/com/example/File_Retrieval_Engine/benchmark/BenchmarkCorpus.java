@@ -0,0 +1,100 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.index.IndexView;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The corpora the benchmarks run on, and helpers to index them.
+ * <p>
+ * A corpus is named by a benchmark parameter: {@code DataSet} is the bundled data set, and
+ * {@code synthetic-<size>} (for example {@code synthetic-1GB}) a corpus made by {@link CorpusGenerator}
+ * under {@code target/corpus}, generated on first use and reused by later runs.
+ */
+final class BenchmarkCorpus {
+
+    static final String DATASET = "DataSet";
+    private static final String SYNTHETIC = "synthetic-";
+    private static final Path SYNTHETIC_ROOT = Path.of("target", "corpus");
+    private static final long SEED = 42;
+
+    private BenchmarkCorpus() {}
+
+    /**
+     * Resolves a corpus name to its folder, generating a synthetic corpus if it does not exist yet.
+     *
+     * @param name The corpus name.
+     * @return The folder holding the corpus files.
+     * @throws IOException if a synthetic corpus cannot be written.
+     */
+    static File folder(String name) throws IOException {
+        if (name.equals(DATASET)) {
+            return new File(DATASET);
+        }
+        if (!name.startsWith(SYNTHETIC)) {
+            throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+        String size = name.substring(SYNTHETIC.length());
+        Path folder = SYNTHETIC_ROOT.resolve(size);
+        Path complete = folder.resolve(".complete");
+        if (!Files.exists(complete)) {
+            new CorpusGenerator(SEED).generate(folder, CorpusGenerator.parseSize(size));
+            Files.createFile(complete);
+        }
+        return folder.toFile();
+    }
+
+    /**
+     * Lists the files of a corpus, largest first.
+     *
+     * @param folder The corpus folder.
+     * @return The regular, non-hidden files.
+     */
+    static List<File> files(File folder) {
+        File[] files = folder.listFiles(file -> file.isFile() && !file.isHidden());
+        if (files == null) {
+            return List.of();
+        }
+        List<File> sorted = new ArrayList<>(Arrays.asList(files));
+        sorted.sort(Comparator.comparingLong(File::length).reversed());
+        return sorted;
+    }
+
+    /**
+     * Creates an engine with every indexing strategy and without a result cache.
+     *
+     * @return The engine.
+     */
+    static ProcessingEngine engine() {
+        return new ProcessingEngine(List.of(new NameIndexingStrategy(), new SizeIndexingStrategy(), new ContentIndexingStrategy()));
+    }
+
+    /**
+     * Removes every file from the shared index, so that the next build starts from an empty index.
+     */
+    static void clearIndex() {
+        IndexStore indexStore = IndexStore.getInstance();
+        IndexStore.Build build = indexStore.beginBuild();
+        try {
+            for (IndexView view : indexStore.currentGeneration().views()) {
+                for (int ordinal = 0; ordinal < view.metadata().fileCount(); ordinal++) {
+                    indexStore.removeFile(view.metadata().file(ordinal).getPath());
+                }
+            }
+        } finally {
+            indexStore.finishBuild(build);
+        }
+    }
+}
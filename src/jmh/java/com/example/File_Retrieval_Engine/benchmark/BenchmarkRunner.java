@@ -0,0 +1,26 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line, always writing the results as JSON
+ * (to {@code target/jmh-results.json}, or to the file named by the {@code benchmark.results}
+ * system property) so that runs of different builds can be compared.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmark.results", "target/jmh-results.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
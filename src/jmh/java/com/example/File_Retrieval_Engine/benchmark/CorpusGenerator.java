@@ -0,0 +1,202 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Generates a synthetic newsgroup corpus of a given size, for benchmarks larger than the bundled DataSet.
+ * <p>
+ * Files are made of concatenated posts, each opened by a "From:" and a "Subject:" line, like the
+ * DataSet files, so they are indexed message by message. Words are drawn from a Zipf distribution
+ * over a fixed vocabulary: the most frequent ranks are common English and computing words also found
+ * in the DataSet, so the same queries hit both corpora, and the long tail is made of pseudo-words.
+ * A corpus is fully determined by its size and seed, and each file is generated by its own task.
+ * <p>
+ * Usage: {@code java -cp target/classes com.example.File_Retrieval_Engine.benchmark.CorpusGenerator <folder> <size> [seed]},
+ * where size is a number of bytes with an optional KB, MB or GB suffix, from {@code 10MB} to {@code 10GB}.
+ */
+public final class CorpusGenerator {
+
+    /**
+     * The largest size of a generated file; larger corpora get more files.
+     */
+    public static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+    private static final int MIN_FILES = 8;
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final List<String> COMMON_WORDS = List.of(
+            "the", "to", "of", "and", "a", "in", "is", "that", "it", "for", "i", "you", "on", "be", "with",
+            "this", "are", "have", "not", "as", "or", "was", "if", "but", "can", "from", "at", "by", "an",
+            "my", "would", "there", "any", "what", "all", "so", "do", "one", "will", "about", "has", "they",
+            "know", "like", "use", "which", "some", "me", "get", "just", "does", "out", "we", "more", "when",
+            "system", "windows", "file", "program", "image", "graphics", "card", "video", "memory", "mac",
+            "software", "data", "version", "problem", "drive", "disk", "display", "driver", "server", "code",
+            "color", "screen", "mode", "window", "help", "mail", "information", "files", "available", "support",
+            "monitor", "format", "images", "ftp", "interface", "application", "keyboard", "mouse", "network",
+            "virtual", "reality", "hardware", "board", "chip", "bus", "port", "printer", "font", "user",
+            "space", "time", "work", "used", "need", "email", "phone", "list", "point", "number");
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ne", "ru", "ta", "so", "vi", "de", "po", "ga", "be", "zu", "fe", "hi", "jo",
+            "ar", "el", "in", "on", "ul", "ex", "or", "an", "st", "tr", "pl", "qu", "br", "ch", "th", "gr"};
+
+    private final String[] vocabulary;
+    private final double[] cumulative;
+    private final long seed;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed The seed of the random word and message choices.
+     */
+    public CorpusGenerator(long seed) {
+        this.seed = seed;
+        this.vocabulary = vocabulary(new Random(seed));
+        this.cumulative = new double[vocabulary.length];
+        double total = 0;
+        for (int rank = 0; rank < vocabulary.length; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < vocabulary.length; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        Set<String> seen = new HashSet<>(COMMON_WORDS);
+        for (int rank = 0; rank < words.length; rank++) {
+            if (rank < COMMON_WORDS.size()) {
+                words[rank] = COMMON_WORDS.get(rank);
+                continue;
+            }
+            String word;
+            do {
+                StringBuilder builder = new StringBuilder();
+                for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                    builder.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                word = builder.toString();
+            } while (!seen.add(word));
+            words[rank] = word;
+        }
+        return words;
+    }
+
+    /**
+     * Generates a corpus into a folder, replacing the files of an earlier corpus of the same name.
+     *
+     * @param folder The folder receiving the files; created if missing.
+     * @param size   The total size of the corpus in bytes.
+     * @return The generated files.
+     * @throws IOException if a file cannot be written.
+     */
+    public List<Path> generate(Path folder, long size) throws IOException {
+        Files.createDirectories(folder);
+        int fileCount = (int) Math.max(MIN_FILES, (size + MAX_FILE_SIZE - 1) / MAX_FILE_SIZE);
+        long fileSize = size / fileCount;
+        List<Path> files = IntStream.range(0, fileCount)
+                .mapToObj(i -> folder.resolve(String.format(Locale.ROOT, "synthetic.group%03d.txt", i)))
+                .toList();
+        try {
+            IntStream.range(0, fileCount).parallel().forEach(i -> {
+                try {
+                    writeFile(files.get(i), fileSize, new Random(seed * 31 + i));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return files;
+    }
+
+    private void writeFile(Path file, long size, Random random) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            long written = 0;
+            StringBuilder message = new StringBuilder(4096);
+            while (written < size) {
+                message.setLength(0);
+                message.append("From: user").append(random.nextInt(5000))
+                        .append("@host").append(random.nextInt(300)).append(".example.com\n");
+                message.append("Subject: ");
+                appendWords(message, 3 + random.nextInt(5), random);
+                message.append("\n\n");
+                for (int line = 5 + random.nextInt(40); line > 0; line--) {
+                    appendWords(message, 6 + random.nextInt(10), random);
+                    message.append('\n');
+                }
+                message.append('\n');
+                byte[] bytes = message.toString().getBytes(StandardCharsets.US_ASCII);
+                out.write(bytes);
+                written += bytes.length;
+            }
+        }
+    }
+
+    private void appendWords(StringBuilder line, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(word(random));
+        }
+    }
+
+    private String word(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return vocabulary[rank >= 0 ? rank : Math.min(-rank - 1, vocabulary.length - 1)];
+    }
+
+    /**
+     * Parses a size such as {@code 512KB}, {@code 10MB} or {@code 10GB}.
+     *
+     * @param text The size, in bytes without a suffix.
+     * @return The number of bytes.
+     * @throws IllegalArgumentException if the size is malformed.
+     */
+    public static long parseSize(String text) {
+        String upper = text.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (upper.endsWith("KB")) {
+            unit = 1024;
+        } else if (upper.endsWith("MB")) {
+            unit = 1024 * 1024;
+        } else if (upper.endsWith("GB")) {
+            unit = 1024L * 1024 * 1024;
+        }
+        String number = unit == 1 ? upper : upper.substring(0, upper.length() - 2);
+        try {
+            return Long.parseLong(number.trim()) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid corpus size: " + text);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusGenerator <folder> <size> [seed]");
+            System.exit(1);
+        }
+        long size = parseSize(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        long start = System.nanoTime();
+        List<Path> files = new CorpusGenerator(seed).generate(Path.of(args[0]), size);
+        System.out.printf("Generated %d files (%d MB) in %.1f s%n",
+                files.size(), size / (1024 * 1024), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
+import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexes a whole corpus from an empty index, with every strategy and with each strategy alone.
+ * Every measurement is a single full build, including the merge and the publication of the generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IndexingBenchmark {
+
+    @Param({BenchmarkCorpus.DATASET})
+    public String corpus;
+
+    private String folder;
+    private ProcessingEngine allStrategies;
+    private ProcessingEngine contentOnly;
+    private ProcessingEngine nameOnly;
+    private ProcessingEngine sizeOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchmarkCorpus.folder(corpus).getPath();
+        allStrategies = BenchmarkCorpus.engine();
+        contentOnly = new ProcessingEngine(List.of(new ContentIndexingStrategy()));
+        nameOnly = new ProcessingEngine(List.of(new NameIndexingStrategy()));
+        sizeOnly = new ProcessingEngine(List.of(new SizeIndexingStrategy()));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearIndex() {
+        BenchmarkCorpus.clearIndex();
+    }
+
+    @Benchmark
+    public void allStrategies() throws EmptyDataSetException {
+        allStrategies.index(folder);
+    }
+
+    @Benchmark
+    public void contentStrategy() throws EmptyDataSetException {
+        contentOnly.index(folder);
+    }
+
+    @Benchmark
+    public void nameStrategy() throws EmptyDataSetException {
+        nameOnly.index(folder);
+    }
+
+    @Benchmark
+    public void sizeStrategy() throws EmptyDataSetException {
+        sizeOnly.index(folder);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.analysis.AnalyzerType;
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.analysis.TokenizedMessage;
+import com.example.File_Retrieval_Engine.index.LocalSegment;
+import com.example.File_Retrieval_Engine.index.MemorySegment;
+import com.example.File_Retrieval_Engine.index.SegmentMerger;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the thread-local segments of an index build into the segment that gets published.
+ * <p>
+ * Index updates no longer contend on shared maps: every worker thread fills its own
+ * {@link LocalSegment} and the build pays for it once, when {@link MemorySegment#merge} combines them.
+ * The corpus is tokenized once and its messages dealt round-robin to the given number of local
+ * segments, as if that many worker threads had indexed it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MergeBenchmark {
+
+    @Param({BenchmarkCorpus.DATASET})
+    public String corpus;
+
+    @Param({"1", "4", "16"})
+    public int localSegments;
+
+    private List<LocalSegment> segments;
+    private SegmentMerger merger;
+
+    @Setup
+    public void setUp() throws IOException {
+        segments = new ArrayList<>();
+        for (int i = 0; i < localSegments; i++) {
+            segments.add(new LocalSegment());
+        }
+        ParallelMessageTokenizer tokenizer = new ParallelMessageTokenizer(
+                ForkJoinPool.commonPool(), ContentIndexingStrategy.DEFAULT_CHUNK_SIZE, AnalyzerType.BYTE);
+        int next = 0;
+        for (File file : BenchmarkCorpus.files(BenchmarkCorpus.folder(corpus))) {
+            FileInfo fileInfo = new FileInfo(file.getName(), file.getPath(), file.length(), file.lastModified());
+            for (TokenizedMessage message : tokenizer.tokenize(file)) {
+                segments.get(next++ % localSegments).addDocument(fileInfo, message.terms());
+            }
+        }
+        merger = new SegmentMerger(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public MemorySegment merge() {
+        return MemorySegment.merge(segments, merger);
+    }
+}
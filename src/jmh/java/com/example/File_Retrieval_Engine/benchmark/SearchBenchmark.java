@@ -0,0 +1,111 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches an indexed corpus with single-term, multi-term, size-range and combined criteria, plus
+ * phrase, boolean and ranked queries. The engine has no result cache, so every call runs the search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    @Param({BenchmarkCorpus.DATASET})
+    public String corpus;
+
+    private ProcessingEngine engine;
+    private SearchingCriteria singleTerm;
+    private SearchingCriteria multiTerm;
+    private SearchingCriteria sizeRange;
+    private SearchingCriteria combined;
+    private SearchingCriteria phrase;
+    private SearchingCriteria booleanQuery;
+    private SearchingCriteria ranked;
+
+    @Setup
+    public void setUp() throws Exception {
+        File folder = BenchmarkCorpus.folder(corpus);
+        BenchmarkCorpus.clearIndex();
+        engine = BenchmarkCorpus.engine();
+        engine.index(folder.getPath());
+
+        // The smaller half of the files, by size
+        List<File> files = BenchmarkCorpus.files(folder);
+        long median = files.get(files.size() / 2).length();
+
+        singleTerm = content("graphics");
+        multiTerm = content("graphics card video");
+        sizeRange = new SearchingCriteria();
+        sizeRange.setMaxSize(median);
+        combined = content("image");
+        combined.setMaxSize(median);
+        combined.setFileType("txt");
+        phrase = content("\"video card\"");
+        booleanQuery = new SearchingCriteria();
+        booleanQuery.setQuery("(graphics OR video) AND NOT mac");
+        ranked = content("graphics card");
+        ranked.setRanked(true);
+    }
+
+    private static SearchingCriteria content(String terms) {
+        SearchingCriteria criteria = new SearchingCriteria();
+        criteria.setContentSearchTerm(terms);
+        return criteria;
+    }
+
+    @Benchmark
+    public SearchResult singleTerm() {
+        return engine.search(singleTerm);
+    }
+
+    @Benchmark
+    public SearchResult multiTerm() {
+        return engine.search(multiTerm);
+    }
+
+    @Benchmark
+    public SearchResult sizeRange() {
+        return engine.search(sizeRange);
+    }
+
+    @Benchmark
+    public SearchResult combined() {
+        return engine.search(combined);
+    }
+
+    @Benchmark
+    public SearchResult phrase() {
+        return engine.search(phrase);
+    }
+
+    @Benchmark
+    public SearchResult booleanQuery() {
+        return engine.search(booleanQuery);
+    }
+
+    @Benchmark
+    public SearchResult ranked() {
+        return engine.search(ranked);
+    }
+}
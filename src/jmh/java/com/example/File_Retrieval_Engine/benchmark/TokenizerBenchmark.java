@@ -0,0 +1,63 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.analysis.AnalyzerType;
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.analysis.TokenizedMessage;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits and tokenizes the largest file of a corpus into messages, with each analyzer, on one
+ * thread and on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({BenchmarkCorpus.DATASET})
+    public String corpus;
+
+    @Param({"BYTE", "REGEX"})
+    public AnalyzerType analyzer;
+
+    private File file;
+    private ParallelMessageTokenizer sequential;
+    private ParallelMessageTokenizer parallel;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = BenchmarkCorpus.files(BenchmarkCorpus.folder(corpus)).getFirst();
+        sequential = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), Integer.MAX_VALUE, analyzer);
+        parallel = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), ContentIndexingStrategy.DEFAULT_CHUNK_SIZE, analyzer);
+    }
+
+    @Benchmark
+    public List<TokenizedMessage> singleThread() throws IOException {
+        return sequential.tokenize(file);
+    }
+
+    @Benchmark
+    public List<TokenizedMessage> chunked() throws IOException {
+        return parallel.tokenize(file);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.File_Retrieval_Engine.benchmark;
+
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-indexes a changed file over and over while other threads search, as the folder watcher does.
+ * <p>
+ * Each update runs a build: the file is removed, indexed again into a local segment, merged and
+ * published as a new generation, compacting the segments it leaves heavily deleted. The searching
+ * threads read whichever generation is current, so their latency shows what publishing costs them.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UpdateBenchmark {
+
+    @Param({BenchmarkCorpus.DATASET})
+    public String corpus;
+
+    private ProcessingEngine engine;
+    private List<String> changed;
+    private SearchingCriteria criteria;
+
+    @Setup
+    public void setUp() throws Exception {
+        File folder = BenchmarkCorpus.folder(corpus);
+        BenchmarkCorpus.clearIndex();
+        engine = BenchmarkCorpus.engine();
+        engine.index(folder.getPath());
+        changed = List.of(BenchmarkCorpus.files(folder).getLast().getPath());
+        criteria = new SearchingCriteria();
+        criteria.setContentSearchTerm("graphics card");
+    }
+
+    @Benchmark
+    @Group("searchWhileUpdating")
+    @GroupThreads(3)
+    public SearchResult search() {
+        return engine.search(criteria);
+    }
+
+    @Benchmark
+    @Group("searchWhileUpdating")
+    @GroupThreads(1)
+    public void update() {
+        engine.update(changed);
+    }
+}
@@ -1,21 +1,54 @@
 package com.example.File_Retrieval_Engine;
 
+import com.example.File_Retrieval_Engine.index.DataSetFingerprint;
+import com.example.File_Retrieval_Engine.index.MappedSegment;
 import com.example.File_Retrieval_Engine.service.Engine;
-import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
-import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
-import com.example.File_Retrieval_Engine.strategy.IndexingStrategy;
-import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
-import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.impl.IndexWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
 
 @SpringBootApplication
 public class FileRetrievalEngineApplication implements CommandLineRunner {
 
+	private static final Logger logger = LoggerFactory.getLogger(FileRetrievalEngineApplication.class);
+
+	@Value("${app.data}")
+	private String dataPath;
+
+	@Value("${app.index.segment}")
+	private String segmentPath;
+
+	@Value("${app.index.positions:true}")
+	private boolean positions;
+
+	@Value("${app.index.startup:true}")
+	private boolean indexOnStartup;
+
+	@Value("${app.shards.count:1}")
+	private int shardCount;
+
+	@Value("${app.shards.remote:}")
+	private String remoteShards;
+
+	@Value("${app.watch.enabled:true}")
+	private boolean watchEnabled;
+
+	@Value("${app.watch.debounce-ms:500}")
+	private long watchDebounceMillis;
+
+	private final Engine processingEngine;
+
+	public FileRetrievalEngineApplication(Engine processingEngine) {
+		this.processingEngine = processingEngine;
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(FileRetrievalEngineApplication.class, args);
 	}
@@ -23,14 +56,33 @@ public class FileRetrievalEngineApplication implements CommandLineRunner {
 	@Override
 	public void run(String... args) throws Exception {
 		try {
+			// A remote shard starts empty, its files are indexed by the engine it serves
+			if (!indexOnStartup) {
+				logger.info("Indexing on startup is disabled, waiting for files to index");
+				return;
+			}
 
-			List<IndexingStrategy> strategies = new ArrayList<>();
-			strategies.add(new ContentIndexingStrategy());
-			strategies.add(new SizeIndexingStrategy());
-			strategies.add(new NameIndexingStrategy());
-			Engine processingEngine = new ProcessingEngine(strategies);
-			processingEngine.index("./DataSet");
+			// Reuse the segment written by a previous run unless the dataset or the posting format changed since;
+			// the segment holds a single index, so a sharded index is rebuilt instead
+			if (shardCount > 1 || !remoteShards.isBlank()) {
+				processingEngine.index(dataPath);
+			} else {
+				long fingerprint = DataSetFingerprint.of(dataPath);
+				MappedSegment segment = MappedSegment.openIfFresh(Path.of(segmentPath), fingerprint);
+				if (segment != null && segment.isPositional() == positions) {
+					IndexStore.getInstance().openSegment(segment);
+					logger.info("Opened index segment {}, skipping indexing", segmentPath);
+				} else {
+					processingEngine.index(dataPath);
+					IndexStore.getInstance().writeSegment(Path.of(segmentPath), fingerprint);
+					logger.info("Wrote index segment {}", segmentPath);
+				}
+			}
 
+			// Later changes are applied in memory; the next startup rebuilds the stale segment
+			if (watchEnabled) {
+				new IndexWatcher(processingEngine, Path.of(dataPath), watchDebounceMillis).start();
+			}
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
@@ -0,0 +1,34 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.util.function.Supplier;
+
+/**
+ * The available term analyzers, selected with the "app.index.analyzer" property.
+ */
+public enum AnalyzerType {
+
+    /**
+     * Scans bytes and looks terms up by their bytes, building no String, see {@link ByteTermAnalyzer}.
+     */
+    BYTE(ByteTermAnalyzer::new),
+
+    /**
+     * Decodes lines and splits them with a regular expression, see {@link RegexTermAnalyzer}.
+     */
+    REGEX(RegexTermAnalyzer::new);
+
+    private final Supplier<TermAnalyzer> factory;
+
+    AnalyzerType(Supplier<TermAnalyzer> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a new analyzer of this type.
+     *
+     * @return The analyzer, to be used by a single thread.
+     */
+    public TermAnalyzer create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Analyzer scanning the bytes of a line directly, without decoding it or running a regular expression.
+ * <p>
+ * Each byte is classified and lowercased through a 128-entry table; bytes outside ASCII are separators,
+ * as they are for the regular expression. The lowercased term is copied into a reused buffer and looked
+ * up by hash in an open-addressing dictionary of the terms this analyzer has seen, so the shared
+ * {@link TermIdDictionary} is only asked for the id of a term the first time it occurs, and no String is
+ * built. Positions are collected in reused arrays indexed by local term id and copied into the single
+ * position array of the term vector once per message.
+ */
+public class ByteTermAnalyzer implements TermAnalyzer {
+
+    private static final byte[] LOWERCASE = new byte[128]; // 0 for separators
+    private static final int INITIAL_CAPACITY = 1024;
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            LOWERCASE[c] = (byte) c;
+            LOWERCASE[c - 'a' + 'A'] = (byte) c;
+        }
+        for (int c = '0'; c <= '9'; c++) {
+            LOWERCASE[c] = (byte) c;
+        }
+        LOWERCASE['_'] = '_';
+    }
+
+    private byte[] token = new byte[64];
+    private int[] slots = new int[INITIAL_CAPACITY * 2];  // Term id + 1, 0 for empty slots
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];  // Ids in the shared dictionary, by local term id
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[][] positions = new int[INITIAL_CAPACITY][];
+    private int[] touched = new int[INITIAL_CAPACITY];  // Ids of the terms counted in the current message
+    private byte[] arena = new byte[INITIAL_CAPACITY * 8];
+    private int arenaSize;
+    private int termCount;
+    private int touchedCount;
+    private int position;
+    private final TermIdDictionary dictionary = TermIdDictionary.getInstance();
+
+    @Override
+    public void line(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int tokenLength = 0;
+            int hash = 0;
+            for (; i < end; i++) {
+                int b = data[i];
+                byte lower = b >= 0 ? LOWERCASE[b] : 0;
+                if (lower == 0) {
+                    break;
+                }
+                if (tokenLength == token.length) {
+                    token = Arrays.copyOf(token, tokenLength * 2);
+                }
+                token[tokenLength++] = lower;
+                hash = 31 * hash + lower;
+            }
+            if (tokenLength > 0) {
+                count(hash, tokenLength);
+            }
+            i++; // Skip the separator
+        }
+    }
+
+    @Override
+    public TermVector endMessage() {
+        int[] termIds = new int[touchedCount];
+        int[] termOffsets = new int[touchedCount + 1];
+        int[] termPositions = new int[position];  // Every token is one position of one term
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            termIds[i] = ids[id];
+            System.arraycopy(positions[id], 0, termPositions, termOffsets[i], counts[id]);
+            termOffsets[i + 1] = termOffsets[i] + counts[id];
+            counts[id] = 0;
+        }
+        TermVector vector = new TermVector(termIds, termOffsets, termPositions, position);
+        touchedCount = 0;
+        position = 0;
+        return vector;
+    }
+
+    private void count(int hash, int length) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        int id;
+        while (true) {
+            id = slots[slot] - 1;
+            if (id < 0) {
+                id = addTerm(hash, length);
+                slots[slot] = id + 1;
+                if (termCount * 2 > slots.length) {
+                    rehash();
+                }
+                break;
+            }
+            if (hashes[id] == hash && lengths[id] == length
+                    && Arrays.equals(arena, starts[id], starts[id] + length, token, 0, length)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int count = counts[id]++;
+        if (count == 0) {
+            touched[touchedCount++] = id;
+        }
+        if (count == positions[id].length) {
+            positions[id] = Arrays.copyOf(positions[id], count * 2);
+        }
+        positions[id][count] = position++;
+    }
+
+    private int addTerm(int hash, int length) {
+        int id = termCount++;
+        if (id == ids.length) {
+            int capacity = id * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+        }
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(token, 0, arena, arenaSize, length);
+        hashes[id] = hash;
+        starts[id] = arenaSize;
+        lengths[id] = length;
+        ids[id] = dictionary.id(token, 0, length, hash);
+        positions[id] = new int[2];
+        arenaSize += length;
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < termCount; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
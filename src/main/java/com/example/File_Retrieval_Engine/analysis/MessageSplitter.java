@@ -0,0 +1,160 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits a file made of concatenated newsgroup posts into messages.
+ * A message starts at a "From:" line immediately followed by a "Subject:" line; a "From:" line
+ * anywhere else (quoted text, forwarded headers) is ordinary content.
+ * <p>
+ * Lines are handed out as byte ranges of the input, so that no String is built per line; only
+ * subjects are decoded, as ISO-8859-1, where every char maps to exactly one byte. Offsets are byte
+ * offsets whatever the file encoding is. An instance splits a single input, which may be a byte
+ * range of a larger file starting at a known offset.
+ */
+public class MessageSplitter {
+
+    private static final byte[] FROM_HEADER = "From:".getBytes(StandardCharsets.ISO_8859_1);
+    static final String SUBJECT_HEADER = "Subject:";
+    private static final byte[] SUBJECT_BYTES = SUBJECT_HEADER.getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * Receives the messages found by the splitter, in file order.
+     */
+    public interface MessageHandler {
+
+        /**
+         * Called for every line of the current message, headers included.
+         * The bytes are only valid during the call.
+         *
+         * @param data   The buffer holding the line.
+         * @param offset The start of the line in the buffer.
+         * @param length The length of the line, without its terminator.
+         */
+        void line(byte[] data, int offset, int length);
+
+        /**
+         * Called when the current message ends.
+         *
+         * @param offset  The byte offset of the message in the file.
+         * @param length  The length of the message in bytes.
+         * @param subject The subject of the message, or null for text preceding the first header.
+         */
+        void endMessage(long offset, long length, String subject);
+    }
+
+    private final long startOffset;
+    private long messageOffset;
+    private String subject;
+    private boolean messageOpen;
+
+    /**
+     * Constructs a splitter for input starting at the beginning of a file.
+     */
+    public MessageSplitter() {
+        this(0);
+    }
+
+    /**
+     * Constructs a splitter for input starting at the given offset of a file,
+     * so that the reported offsets are relative to the file rather than the input.
+     *
+     * @param startOffset The offset of the first byte of the input in the file.
+     */
+    public MessageSplitter(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    /**
+     * Reads the stream to its end and reports each message to the handler.
+     *
+     * @param in      The stream to split, read entirely into memory.
+     * @param handler The handler receiving lines and message boundaries.
+     * @throws IOException if the stream cannot be read.
+     * @see #split(byte[], int, MessageHandler)
+     */
+    public void split(InputStream in, MessageHandler handler) throws IOException {
+        byte[] data = in.readAllBytes();
+        split(data, data.length, handler);
+    }
+
+    /**
+     * Reports each message of the input to the handler.
+     * Text without any message header is reported as a single message with a null subject.
+     *
+     * @param data    The buffer holding the input.
+     * @param length  The length of the input, starting at the beginning of the buffer.
+     * @param handler The handler receiving lines and message boundaries.
+     */
+    public void split(byte[] data, int length, MessageHandler handler) {
+        int pending = -1;
+        int pendingEnd = 0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int next = lineStart;
+            while (next < length && data[next] != '\n') {
+                next++;
+            }
+            int lineEnd = next > lineStart && data[next - 1] == '\r' ? next - 1 : next;
+            if (next < length) {
+                next++; // Skip the terminator
+            }
+
+            if (pending >= 0) {
+                if (startsWith(data, lineStart, lineEnd, SUBJECT_BYTES)) {
+                    endMessage(handler, pending);
+                    int subjectStart = lineStart + SUBJECT_BYTES.length;
+                    startMessage(pending, new String(data, subjectStart, lineEnd - subjectStart,
+                            StandardCharsets.ISO_8859_1).trim());
+                }
+                contentLine(handler, data, pending, pendingEnd);
+                pending = -1;
+            }
+            if (startsWith(data, lineStart, lineEnd, FROM_HEADER)) {
+                pending = lineStart;
+                pendingEnd = lineEnd;
+            } else {
+                contentLine(handler, data, lineStart, lineEnd);
+            }
+            lineStart = next;
+        }
+        if (pending >= 0) {
+            contentLine(handler, data, pending, pendingEnd);
+        }
+        endMessage(handler, length);
+    }
+
+    private void contentLine(MessageHandler handler, byte[] data, int lineStart, int lineEnd) {
+        if (!messageOpen) {
+            startMessage(lineStart, null);
+        }
+        handler.line(data, lineStart, lineEnd - lineStart);
+    }
+
+    private void startMessage(int offset, String subject) {
+        this.messageOffset = startOffset + offset;
+        this.subject = subject;
+        this.messageOpen = true;
+    }
+
+    private void endMessage(MessageHandler handler, int end) {
+        if (messageOpen) {
+            handler.endMessage(messageOffset, startOffset + end - messageOffset, subject);
+            messageOpen = false;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the newsgroup document ids listed in the "list.csv" file of a dataset folder.
+ * The file has a "newsgroup,document_id" header followed by one line per message, in the order
+ * the messages appear in the newsgroup file, so the n-th message of "comp.graphics.txt" gets the
+ * n-th document id listed for "comp.graphics".
+ */
+public class NewsgroupCatalog {
+
+    private static final String CATALOG_FILE = "list.csv";
+    private static final Logger logger = LoggerFactory.getLogger(NewsgroupCatalog.class);
+    private static final Map<File, NewsgroupCatalog> catalogs = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Long>> documentIds;
+    private final long lastModified;
+
+    private NewsgroupCatalog(Map<String, List<Long>> documentIds, long lastModified) {
+        this.documentIds = documentIds;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the catalog of a dataset folder, loading it on first use and again whenever "list.csv" changes.
+     * A folder without a readable "list.csv" gets an empty catalog.
+     *
+     * @param folder The folder containing the newsgroup files.
+     * @return The catalog of the folder.
+     */
+    public static NewsgroupCatalog forFolder(File folder) {
+        long lastModified = new File(folder, CATALOG_FILE).lastModified();
+        return catalogs.compute(folder.getAbsoluteFile(), (key, catalog) ->
+                catalog != null && catalog.lastModified == lastModified ? catalog : load(key, lastModified));
+    }
+
+    /**
+     * Gets the document id of a message.
+     *
+     * @param file         The newsgroup file containing the message.
+     * @param messageIndex The position of the message in the file, starting from 0.
+     * @return The document id, or null if the catalog does not list it.
+     */
+    public Long documentId(File file, int messageIndex) {
+        String name = file.getName();
+        int extension = name.lastIndexOf('.');
+        List<Long> ids = documentIds.get(extension > 0 ? name.substring(0, extension) : name);
+        return ids != null && messageIndex < ids.size() ? ids.get(messageIndex) : null;
+    }
+
+    private static NewsgroupCatalog load(File folder, long lastModified) {
+        Map<String, List<Long>> documentIds = new HashMap<>();
+        File catalogFile = new File(folder, CATALOG_FILE);
+        if (catalogFile.isFile()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(catalogFile))) {
+                br.readLine(); // Skip the header
+                String line;
+                while ((line = br.readLine()) != null) {
+                    String[] columns = line.split(",");
+                    if (columns.length == 2) {
+                        documentIds.computeIfAbsent(columns[0].trim(), group -> new ArrayList<>())
+                                .add(Long.parseLong(columns[1].trim()));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Error reading newsgroup catalog {}: {}", catalogFile.getPath(), e.getMessage());
+            }
+        }
+        return new NewsgroupCatalog(documentIds, lastModified);
+    }
+}
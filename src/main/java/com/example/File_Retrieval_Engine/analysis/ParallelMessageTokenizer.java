@@ -0,0 +1,326 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits a file into messages and counts the terms of each message, tokenizing large files in parallel.
+ * <p>
+ * The file is cut into byte ranges of about the chunk size, each starting at the beginning of a line.
+ * A range never starts at a "Subject:" line, so the "From:" and "Subject:" lines opening a message
+ * always fall into the same range. The ranges are split and tokenized on a fork/join pool; when two
+ * adjacent ranges are joined, the headerless text at the start of the right range is appended to the
+ * last message of the left one, which gives the same messages and term counts as a sequential pass.
+ * <p>
+ * The steps are also available one by one, for an indexing pipeline that reads the ranges on I/O
+ * threads and tokenizes them on CPU threads: {@link #chunkBoundaries(FileChannel)},
+ * {@link #readRange(FileChannel, long, long)}, {@link #tokenizeRange(byte[], int, long)} and
+ * {@link Chunk#join(Chunk)}. Content that can only be read in order, such as a decompressed archive
+ * entry, is cut into the same ranges by {@link #readRanges(InputStream, RangeSink)}.
+ */
+public class ParallelMessageTokenizer {
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+    private static final byte[] SUBJECT_PREFIX = MessageSplitter.SUBJECT_HEADER.getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final AnalyzerType analyzerType;
+
+    /**
+     * Constructs a tokenizer.
+     *
+     * @param pool         The pool tokenizing the byte ranges.
+     * @param chunkSize    The approximate size of a byte range; smaller files are tokenized in a single task.
+     * @param analyzerType The analyzer extracting the terms of each line.
+     */
+    public ParallelMessageTokenizer(ForkJoinPool pool, int chunkSize, AnalyzerType analyzerType) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.analyzerType = analyzerType;
+    }
+
+    /**
+     * Tokenizes a file.
+     *
+     * @param file The file to tokenize.
+     * @return The messages of the file in file order, or a single message without subject
+     * covering the whole file if it has no message header.
+     * @throws IOException if the file cannot be read.
+     */
+    public List<TokenizedMessage> tokenize(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            return pool.invoke(new ChunkTask(this, channel, boundaries, 0, boundaries.length - 1)).messages();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Computes the byte ranges a file is tokenized in.
+     *
+     * @param channel The file.
+     * @return The start offsets of the byte ranges, followed by the file size.
+     * @throws IOException if the file cannot be read.
+     */
+    public long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long boundary = chunkSize;
+        while (boundary < size) {
+            boundary = lineStart(channel, boundary, size);
+            while (boundary < size && startsWith(channel, boundary, SUBJECT_PREFIX)) {
+                boundary = lineStart(channel, boundary + 1, size);
+            }
+            if (boundary < size) {
+                boundaries.add(boundary);
+            }
+            boundary += chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Finds the first line starting at or after a position.
+     *
+     * @return The offset of the line, or the file size if there is none.
+     */
+    private static long lineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from - 1; // A line starts right after a '\n'
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static boolean startsWith(FileChannel channel, long position, byte[] prefix) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(prefix.length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+            // Keep reading until the prefix length is reached or the file ends
+        }
+        return !buffer.hasRemaining() && buffer.flip().equals(ByteBuffer.wrap(prefix));
+    }
+
+    /**
+     * Reads a byte range of a file.
+     *
+     * @param channel The file.
+     * @param start   The offset of the first byte.
+     * @param end     The offset after the last byte.
+     * @return The bytes read, fewer than requested if the file ends before.
+     * @throws IOException if the file cannot be read.
+     */
+    public static ByteBuffer readRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) > 0) {
+            // Positional reads let the ranges share the channel
+        }
+        return bytes;
+    }
+
+    /**
+     * Receives the byte ranges of a stream.
+     */
+    @FunctionalInterface
+    public interface RangeSink {
+
+        /**
+         * Takes a byte range.
+         *
+         * @param start The offset of the range in the stream.
+         * @param bytes The bytes of the range, up to the position of the buffer.
+         * @throws InterruptedException if the reading was stopped.
+         */
+        void accept(long start, ByteBuffer bytes) throws InterruptedException;
+    }
+
+    /**
+     * Cuts a stream into the byte ranges {@link #chunkBoundaries(FileChannel)} gives for a file of the
+     * same content, reading it once in order and holding a single range at a time.
+     *
+     * @param in   The stream, read to its end but not closed.
+     * @param sink The receiver of the ranges, in stream order; an empty stream gives one empty range.
+     * @return The number of bytes read.
+     * @throws IOException          if the stream cannot be read.
+     * @throws InterruptedException if the sink was interrupted.
+     */
+    public long readRanges(InputStream in, RangeSink sink) throws IOException, InterruptedException {
+        byte[] buffer = new byte[chunkSize + SCAN_BUFFER_SIZE];
+        int filled = 0;
+        long start = 0;
+        boolean ended = false;
+        do {
+            while (filled < chunkSize && !ended) {
+                int read = in.read(buffer, filled, buffer.length - filled);
+                ended = read < 0;
+                filled += Math.max(read, 0);
+            }
+            if (filled == 0 && start > 0) {
+                break;
+            }
+            int boundary = filled;
+            if (filled > chunkSize) {
+                int from = chunkSize;
+                while (true) {
+                    int line = lineStart(buffer, from, filled);
+                    if (line < 0 || line + SUBJECT_PREFIX.length > filled) {
+                        // The boundary lies beyond the bytes read so far
+                        if (ended) {
+                            boundary = line < 0 ? filled : line;
+                            break;
+                        }
+                        if (filled == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        }
+                        int read = in.read(buffer, filled, buffer.length - filled);
+                        ended = read < 0;
+                        filled += Math.max(read, 0);
+                        continue;
+                    }
+                    if (!Arrays.equals(buffer, line, line + SUBJECT_PREFIX.length, SUBJECT_PREFIX, 0, SUBJECT_PREFIX.length)) {
+                        boundary = line;
+                        break;
+                    }
+                    from = line + 1;
+                }
+            }
+            sink.accept(start, ByteBuffer.wrap(Arrays.copyOf(buffer, boundary)).position(boundary));
+            System.arraycopy(buffer, boundary, buffer, 0, filled - boundary);
+            filled -= boundary;
+            start += boundary;
+        } while (filled > 0 || !ended);
+        return start;
+    }
+
+    /**
+     * Finds the first line starting at or after a position of a buffer.
+     *
+     * @return The offset of the line, or -1 if no line starts before the end of the bytes.
+     */
+    private static int lineStart(byte[] buffer, int from, int end) {
+        for (int i = from - 1; i < end; i++) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a byte range of a file into messages and extracts their terms.
+     *
+     * @param bytes  The bytes of the range.
+     * @param length The number of bytes.
+     * @param start  The offset of the range in the file.
+     * @return The messages of the range.
+     */
+    public Chunk tokenizeRange(byte[] bytes, int length, long start) {
+        List<TokenizedMessage> messages = new ArrayList<>();
+        TermAnalyzer analyzer = analyzerType.create();
+        new MessageSplitter(start).split(bytes, length, new MessageSplitter.MessageHandler() {
+            @Override
+            public void line(byte[] data, int offset, int length) {
+                analyzer.line(data, offset, length);
+            }
+
+            @Override
+            public void endMessage(long offset, long length, String subject) {
+                messages.add(new TokenizedMessage(offset, length, subject, analyzer.endMessage()));
+            }
+        });
+        boolean continued = start > 0 && !messages.isEmpty() && messages.getFirst().subject() == null;
+        return new Chunk(continued, messages);
+    }
+
+    /**
+     * The messages found in a run of adjacent byte ranges.
+     *
+     * @param continued Whether the first message continues a message of the preceding range.
+     * @param messages  The messages, in file order.
+     */
+    public record Chunk(boolean continued, List<TokenizedMessage> messages) {
+
+        /**
+         * Joins the messages of the following run of byte ranges.
+         *
+         * @param right The run starting where this one ends.
+         * @return The messages of both runs, the message continued across them joined.
+         */
+        public Chunk join(Chunk right) {
+            List<TokenizedMessage> joined = new ArrayList<>(messages.size() + right.messages.size());
+            joined.addAll(messages);
+            List<TokenizedMessage> rest = right.messages;
+            if (right.continued && !joined.isEmpty() && !rest.isEmpty()) {
+                joined.add(joined.removeLast().append(rest.getFirst()));
+                rest = rest.subList(1, rest.size());
+            }
+            joined.addAll(rest);
+            return new Chunk(continued, joined);
+        }
+    }
+
+    /**
+     * Tokenizes the byte ranges between two boundaries, forking halves until a single range is left.
+     */
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+
+        private final ParallelMessageTokenizer tokenizer;
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(ParallelMessageTokenizer tokenizer, FileChannel channel, long[] boundaries, int from, int to) {
+            this.tokenizer = tokenizer;
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(tokenizer, channel, boundaries, from, middle);
+                left.fork();
+                Chunk right = new ChunkTask(tokenizer, channel, boundaries, middle, to).compute();
+                return left.join().join(right);
+            }
+            try {
+                ByteBuffer bytes = readRange(channel, boundaries[from], boundaries[to]);
+                return tokenizer.tokenizeRange(bytes.array(), bytes.position(), boundaries[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The original analyzer: decodes every line and splits it with a regular expression.
+ * Kept for comparison with {@link ByteTermAnalyzer}.
+ */
+public class RegexTermAnalyzer implements TermAnalyzer {
+
+    private Map<String, List<Integer>> localIndex = new HashMap<>();  // Term positions for the current message
+    private int position;
+
+    @Override
+    public void line(byte[] data, int offset, int length) {
+        String[] words = extractTerms(new String(data, offset, length, StandardCharsets.ISO_8859_1));
+
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                localIndex.computeIfAbsent(word, w -> new ArrayList<>()).add(position++);
+            }
+        }
+    }
+
+    @Override
+    public TermVector endMessage() {
+        Map<String, int[]> positions = HashMap.newHashMap(localIndex.size());
+        localIndex.forEach((term, termPositions) ->
+                positions.put(term, termPositions.stream().mapToInt(Integer::intValue).toArray()));
+        TermVector terms = TermVector.of(positions, position);
+        localIndex = new HashMap<>();
+        position = 0;
+        return terms;
+    }
+
+    /**
+     * Extracts words/terms from a line of text, splitting by non-alphanumeric characters.
+     *
+     * @param line The input line of text.
+     * @return An array of extracted words.
+     */
+    private String[] extractTerms(String line) {
+        return line.toLowerCase().split("\\W+");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+/**
+ * Turns the lines of a message into terms and their positions.
+ * Terms are the maximal runs of ASCII letters, digits and underscores, lowercased.
+ * An analyzer keeps state between calls and is used by a single thread.
+ */
+public interface TermAnalyzer {
+
+    /**
+     * Adds the terms of a line to the current message.
+     *
+     * @param data   The buffer holding the line.
+     * @param offset The start of the line in the buffer.
+     * @param length The length of the line.
+     */
+    void line(byte[] data, int offset, int length);
+
+    /**
+     * Ends the current message and starts a new one.
+     *
+     * @return The terms of the message that ended, with their positions in the message.
+     */
+    TermVector endMessage();
+}
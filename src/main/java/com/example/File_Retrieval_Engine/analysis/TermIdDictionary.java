@@ -0,0 +1,218 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Process-wide dictionary giving every distinct content term a stable int id while indexing.
+ * <p>
+ * Terms are kept as bytes in arenas of plain byte arrays, found by hash in open-addressing tables of ids,
+ * so looking up a term allocates nothing and a term is stored once however many files contain it.
+ * The dictionary is split into stripes by hash, each guarded by its own lock, so the analyzers of
+ * several threads rarely wait for each other; an id holds its stripe in its low bits and its rank in
+ * the stripe above them. The String of a term is only built when asked for, once, when a build merges
+ * its segments into the sorted term dictionary searches read.
+ * <p>
+ * Ids are never reused or forgotten, so the dictionary grows with the vocabulary of everything indexed
+ * since the process started. Its size is reported under {@code index.dictionary.terms} and its
+ * estimated footprint under {@code index.dictionary.bytes}.
+ */
+public final class TermIdDictionary {
+
+    private static final TermIdDictionary INSTANCE = new TermIdDictionary();
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private TermIdDictionary() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        MetricsRegistry.getInstance().gauge("index.dictionary.terms", this::size);
+        MetricsRegistry.getInstance().gauge("index.dictionary.bytes", this::memoryBytes);
+    }
+
+    /**
+     * Gets the dictionary of the process.
+     *
+     * @return The dictionary shared by every analyzer and index build.
+     */
+    public static TermIdDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the id of a term, adding the term if it is new.
+     *
+     * @param term   The buffer holding the lowercased term.
+     * @param offset The start of the term in the buffer.
+     * @param length The length of the term.
+     * @param hash   The hash of the term, as computed by {@link #hash(byte[], int, int)}.
+     * @return The id of the term.
+     */
+    public int id(byte[] term, int offset, int length, int hash) {
+        int spread = spread(hash);
+        int stripe = spread & (STRIPES - 1);
+        return stripes[stripe].id(term, offset, length, hash, spread >>> STRIPE_BITS) << STRIPE_BITS | stripe;
+    }
+
+    /**
+     * Gets the id of a term, adding the term if it is new.
+     *
+     * @param term The term, made of ASCII characters.
+     * @return The id of the term.
+     */
+    public int id(String term) {
+        byte[] bytes = term.getBytes(StandardCharsets.ISO_8859_1);
+        return id(bytes, 0, bytes.length, hash(bytes, 0, bytes.length));
+    }
+
+    /**
+     * Gets the term of an id.
+     *
+     * @param id An id given by this dictionary.
+     * @return The term, the same String instance on every call.
+     */
+    public String term(int id) {
+        return stripes[id & (STRIPES - 1)].term(id >>> STRIPE_BITS);
+    }
+
+    /**
+     * Computes the hash of a term, equal to the hash code of its String.
+     *
+     * @param term   The buffer holding the term.
+     * @param offset The start of the term in the buffer.
+     * @param length The length of the term.
+     * @return The hash.
+     */
+    public static int hash(byte[] term, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + term[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the number of terms in the dictionary.
+     *
+     * @return The number of distinct terms seen so far.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap used by the dictionary: its arenas, tables and the Strings built from it.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.memoryBytes();
+        }
+        return bytes;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * One lock-guarded part of the dictionary: an arena of term bytes, the start, length and hash of
+     * each term, and the table finding a term's rank by hash.
+     */
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 256;
+        private static final int STRING_OVERHEAD = 56;  // String header, byte array header and reference
+
+        private byte[] arena = new byte[INITIAL_CAPACITY * 8];
+        private int[] slots = new int[INITIAL_CAPACITY * 2];  // Rank + 1, 0 for empty slots
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] lengths = new int[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private String[] strings = new String[INITIAL_CAPACITY];
+        private int arenaSize;
+        private int count;
+        private long stringBytes;
+
+        synchronized int id(byte[] term, int offset, int length, int hash, int probe) {
+            int mask = slots.length - 1;
+            for (int slot = probe & mask; ; slot = (slot + 1) & mask) {
+                int rank = slots[slot] - 1;
+                if (rank < 0) {
+                    rank = add(term, offset, length, hash);
+                    slots[slot] = rank + 1;
+                    if (count * 2 > slots.length) {
+                        rehash();
+                    }
+                    return rank;
+                }
+                if (hashes[rank] == hash && lengths[rank] == length
+                        && Arrays.equals(arena, starts[rank], starts[rank] + length, term, offset, offset + length)) {
+                    return rank;
+                }
+            }
+        }
+
+        synchronized String term(int rank) {
+            String term = strings[rank];
+            if (term == null) {
+                term = new String(arena, starts[rank], lengths[rank], StandardCharsets.ISO_8859_1);
+                strings[rank] = term;
+                stringBytes += STRING_OVERHEAD + lengths[rank];
+            }
+            return term;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized long memoryBytes() {
+            return arena.length + 4L * (slots.length + starts.length + lengths.length + hashes.length)
+                    + 8L * strings.length + stringBytes;
+        }
+
+        private int add(byte[] term, int offset, int length, int hash) {
+            int rank = count++;
+            if (rank == starts.length) {
+                int capacity = rank * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+                strings = Arrays.copyOf(strings, capacity);
+            }
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+            }
+            System.arraycopy(term, offset, arena, arenaSize, length);
+            starts[rank] = arenaSize;
+            lengths[rank] = length;
+            hashes[rank] = hash;
+            arenaSize += length;
+            return rank;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int rank = 0; rank < count; rank++) {
+                int slot = (spread(hashes[rank]) >>> STRIPE_BITS) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = rank + 1;
+            }
+        }
+    }
+}
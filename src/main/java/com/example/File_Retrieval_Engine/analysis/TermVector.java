@@ -0,0 +1,161 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The terms of a message with their positions, counted in tokens from the start of the message.
+ * Terms are identified by their id in the {@link TermIdDictionary}, so a vector holds no String, and
+ * the positions of all its terms are laid out one term after the other in a single array.
+ *
+ * @param termIds       The ids of the distinct terms of the message.
+ * @param termOffsets   The start of the positions of each term in {@code termPositions}, in the order of
+ *                      the ids, followed by the number of positions; the frequency of term {@code i} is
+ *                      {@code termOffsets[i + 1] - termOffsets[i]}.
+ * @param termPositions The sorted positions of each term, term after term.
+ * @param length        The number of tokens in the message.
+ */
+public record TermVector(int[] termIds, int[] termOffsets, int[] termPositions, int length) {
+
+    /**
+     * Builds the vector of terms given as Strings.
+     *
+     * @param positions The sorted positions of each term.
+     * @param length    The number of tokens in the message.
+     * @return The vector, with the ids of the terms.
+     */
+    public static TermVector of(Map<String, int[]> positions, int length) {
+        TermIdDictionary dictionary = TermIdDictionary.getInstance();
+        Map<Integer, int[]> byId = LinkedHashMap.newLinkedHashMap(positions.size());
+        positions.forEach((term, termPositions) -> byId.put(dictionary.id(term), termPositions));
+        return ofIds(byId, length);
+    }
+
+    private static TermVector ofIds(Map<Integer, int[]> byId, int length) {
+        int[] termIds = new int[byId.size()];
+        int[] termOffsets = new int[byId.size() + 1];
+        int[] termPositions = new int[byId.values().stream().mapToInt(positions -> positions.length).sum()];
+        int i = 0;
+        for (Map.Entry<Integer, int[]> entry : byId.entrySet()) {
+            termIds[i] = entry.getKey();
+            System.arraycopy(entry.getValue(), 0, termPositions, termOffsets[i], entry.getValue().length);
+            termOffsets[i + 1] = termOffsets[i] + entry.getValue().length;
+            i++;
+        }
+        return new TermVector(termIds, termOffsets, termPositions, length);
+    }
+
+    /**
+     * Gets the number of distinct terms.
+     *
+     * @return The number of terms.
+     */
+    public int size() {
+        return termIds.length;
+    }
+
+    /**
+     * Gets the positions of each term, by term.
+     *
+     * @return The positions by term.
+     */
+    public Map<String, int[]> positions() {
+        TermIdDictionary dictionary = TermIdDictionary.getInstance();
+        Map<String, int[]> positions = HashMap.newHashMap(termIds.length);
+        for (int i = 0; i < termIds.length; i++) {
+            positions.put(dictionary.term(termIds[i]), positions(i));
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the number of occurrences of a term.
+     *
+     * @param index The index of the term in the vector.
+     * @return The frequency of the term.
+     */
+    public int frequency(int index) {
+        return termOffsets[index + 1] - termOffsets[index];
+    }
+
+    private int[] positions(int index) {
+        return Arrays.copyOfRange(termPositions, termOffsets[index], termOffsets[index + 1]);
+    }
+
+    /**
+     * Gets the number of occurrences of each term.
+     *
+     * @return The term frequencies.
+     */
+    public Map<String, Integer> frequencies() {
+        TermIdDictionary dictionary = TermIdDictionary.getInstance();
+        Map<String, Integer> frequencies = HashMap.newHashMap(termIds.length);
+        for (int i = 0; i < termIds.length; i++) {
+            frequencies.put(dictionary.term(termIds[i]), frequency(i));
+        }
+        return frequencies;
+    }
+
+    /**
+     * Joins the terms of the text following this message, whose positions are shifted past this message's tokens.
+     *
+     * @param continuation The terms of the following text.
+     * @return The terms of both parts.
+     */
+    TermVector append(TermVector continuation) {
+        Map<Integer, int[]> joined = byId();
+        for (int i = 0; i < continuation.termIds.length; i++) {
+            int[] termPositions = continuation.positions(i);
+            int[] before = joined.getOrDefault(continuation.termIds[i], new int[0]);
+            int[] after = Arrays.copyOf(before, before.length + termPositions.length);
+            for (int p = 0; p < termPositions.length; p++) {
+                after[before.length + p] = termPositions[p] + length;
+            }
+            joined.put(continuation.termIds[i], after);
+        }
+        return ofIds(joined, length + continuation.length);
+    }
+
+    private Map<Integer, int[]> byId() {
+        Map<Integer, int[]> byId = LinkedHashMap.newLinkedHashMap(termIds.length);
+        for (int i = 0; i < termIds.length; i++) {
+            byId.put(termIds[i], positions(i));
+        }
+        return byId;
+    }
+
+    /**
+     * Compares the terms and positions of two vectors, whatever the order of their terms.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TermVector other) || length != other.length || termIds.length != other.termIds.length) {
+            return false;
+        }
+        Map<Integer, int[]> otherPositions = other.byId();
+        for (int i = 0; i < termIds.length; i++) {
+            if (!Arrays.equals(positions(i), otherPositions.get(termIds[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = length;
+        for (int i = 0; i < termIds.length; i++) {
+            hash += termIds[i] ^ Arrays.hashCode(positions(i));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("TermVector[length=").append(length).append(", positions={");
+        positions().forEach((term, termPositions) -> text.append(term).append('=').append(Arrays.toString(termPositions)).append(", "));
+        return text.append("}]").toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import java.util.Map;
+
+/**
+ * A message of a file with the terms it contains.
+ *
+ * @param offset  The byte offset of the message in the file.
+ * @param length  The length of the message in bytes.
+ * @param subject The subject of the message, or null for text without a message header.
+ * @param terms   The terms of the message with their positions.
+ */
+public record TokenizedMessage(long offset, long length, String subject, TermVector terms) {
+
+    /**
+     * Gets the number of occurrences of each term in the message.
+     *
+     * @return The term frequencies.
+     */
+    public Map<String, Integer> termFrequencies() {
+        return terms.frequencies();
+    }
+
+    /**
+     * Joins the part of this message that continues in the next byte range of the file.
+     *
+     * @param continuation The headerless text following this message.
+     * @return The message spanning both parts.
+     */
+    TokenizedMessage append(TokenizedMessage continuation) {
+        return new TokenizedMessage(offset, length + continuation.length, subject, terms.append(continuation.terms));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.File_Retrieval_Engine.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gzip and zip archives, indexed without being extracted.
+ * <p>
+ * Every entry of an archive is indexed as a file of its own, addressed by the path of the archive
+ * followed by {@value #SEPARATOR} and the name of the entry, such as {@code dumps/news.zip!/comp.graphics.txt}.
+ * A gzip file holds a single entry, named after the file without its {@code .gz} extension. Removing or
+ * updating the path of an archive applies to every entry indexed from it.
+ */
+public final class Archives {
+
+    public static final String SEPARATOR = "!/";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The archive formats read by the indexer.
+     */
+    public enum Format {
+        GZIP, ZIP
+    }
+
+    private Archives() {
+    }
+
+    /**
+     * Finds the archive format of a file from its extension, in any case.
+     *
+     * @param path The path or name of the file.
+     * @return The format, or null if the file is not an archive.
+     */
+    public static Format formatOf(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz")) {
+            return Format.GZIP;
+        }
+        if (lower.endsWith(".zip")) {
+            return Format.ZIP;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a path is the path of an archive file, rather than of a plain file or of an entry.
+     *
+     * @param path The path.
+     * @return true for the path of a gzip or zip file.
+     */
+    public static boolean isArchive(String path) {
+        return !path.contains(SEPARATOR) && formatOf(path) != null;
+    }
+
+    /**
+     * Gets the path of an entry of an archive.
+     *
+     * @param archivePath The path of the archive.
+     * @param entryName   The name of the entry in the archive.
+     * @return The path of the entry.
+     */
+    public static String entryPath(String archivePath, String entryName) {
+        return archivePath + SEPARATOR + entryName;
+    }
+
+    /**
+     * Gets the path of the file on disk holding a file of the index.
+     *
+     * @param path The path of a plain file or of an entry of an archive.
+     * @return The path of the archive for an entry, or the path itself.
+     */
+    public static String fileOf(String path) {
+        int separator = path.indexOf(SEPARATOR);
+        return separator < 0 ? path : path.substring(0, separator);
+    }
+
+    /**
+     * Gets the name of the single entry of a gzip file.
+     *
+     * @param archiveName The name of the gzip file.
+     * @return The name without its {@code .gz} extension.
+     */
+    public static String gzipEntryName(String archiveName) {
+        return archiveName.length() > 3 ? archiveName.substring(0, archiveName.length() - 3) : archiveName;
+    }
+
+    /**
+     * Reads the size of the content of a gzip file from its trailer, without decompressing it.
+     * The trailer only holds the size modulo 2^32, and only of the last member of a multi-member file,
+     * so the size is an estimate until the file is read.
+     *
+     * @param archive The gzip file.
+     * @return The size of the uncompressed content, or 0 if the file is too short to have a trailer.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long gzipSize(File archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < 4) {
+                return 0;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining() && channel.read(trailer, channel.size() - 4 + trailer.position()) > 0) {
+                // Keep reading until the 4 bytes are in
+            }
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+
+    /**
+     * Opens the decompressed content of a gzip file.
+     *
+     * @param archive The gzip file.
+     * @return The stream of the content, decompressed as it is read.
+     * @throws IOException if the file cannot be opened or is not in the gzip format.
+     */
+    public static InputStream openGzip(File archive) throws IOException {
+        InputStream file = Files.newInputStream(archive.toPath());
+        try {
+            return new GZIPInputStream(file, GZIP_BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.File_Retrieval_Engine.cache;
+
+/**
+ * Counters of a {@link TinyLfuCache}.
+ *
+ * @param hits       The requests answered from the cache.
+ * @param misses     The requests not found in the cache.
+ * @param evictions  The entries removed to make room for new ones.
+ * @param rejections The values not cached, because they were too heavy or not requested often enough.
+ * @param entries    The number of cached entries.
+ * @param weight     The total weight of the cached values.
+ */
+public record CacheStats(long hits, long misses, long evictions, long rejections, int entries, long weight) {
+}
@@ -0,0 +1,88 @@
+package com.example.File_Retrieval_Engine.cache;
+
+/**
+ * Approximate access frequencies of cache keys, as a count-min sketch of small saturating counters.
+ * <p>
+ * Each key increments one counter in each of {@value #DEPTH} rows and its frequency is the smallest
+ * of those counters, so collisions can only overestimate it. Once the number of increments reaches
+ * the sample size every counter is halved, so the sketch follows recent popularity rather than
+ * all-time counts. Not thread-safe; the owning cache guards it.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0x4f1bbcdd, 0x2545f491, 0x68e31da5};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int increments;
+
+    /**
+     * Constructs a sketch.
+     *
+     * @param capacity The number of keys the cache can hold, which sizes the rows and the sample.
+     */
+    FrequencySketch(int capacity) {
+        int keys = Math.max(16, capacity);
+        int width = Integer.highestOneBit(4 * keys - 1) << 1;
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * keys;
+    }
+
+    /**
+     * Records an access to a key.
+     *
+     * @param key The accessed key.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++increments >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimates how often a key was accessed recently.
+     *
+     * @param key The key.
+     * @return The estimated frequency, at most {@value #MAX_COUNT}.
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        increments /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 15);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.File_Retrieval_Engine.cache;
+
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Cache of fixed-size pages of indexed files, read with positional reads to build the snippets of
+ * search results.
+ * <p>
+ * A page is keyed by the path of its file together with the modification time the file was indexed
+ * with, so a file changed since is never served from pages of its former content. The cache is bounded
+ * by the total size of its pages and admits them like the result cache does, so the pages of the files
+ * that keep matching stay while those read once are the first to go. Pages served from the cache and
+ * from disk are counted under {@code snippets.pages}, and the bytes read from disk under {@code snippets.bytes}.
+ */
+@Component
+public class PageCache {
+
+    public static final int PAGE_SIZE = 4 * 1024;
+    private static final long PAGE_OVERHEAD = 96;
+    private static final long MIN_PAGE_WEIGHT = 1024;  // Partial pages at the end of files, for the entry bound
+
+    private final TinyLfuCache<PageKey, byte[]> cache;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    /**
+     * Identifies a page.
+     *
+     * @param path         The path of the file.
+     * @param lastModified The modification time of the file when it was indexed.
+     * @param page         The index of the page in the file, counted in {@value #PAGE_SIZE} bytes.
+     */
+    public record PageKey(String path, long lastModified, long page) {
+    }
+
+    /**
+     * Constructs a page cache.
+     *
+     * @param maxBytes The maximum total size of the cached pages, in bytes; 0 disables the cache.
+     */
+    public PageCache(@Value("${app.snippets.cache-bytes:16777216}") long maxBytes) {
+        this.cache = new TinyLfuCache<>((int) Math.min(Integer.MAX_VALUE, maxBytes / MIN_PAGE_WEIGHT), maxBytes,
+                page -> PAGE_OVERHEAD + page.length);
+    }
+
+    /**
+     * Gets a cached page.
+     *
+     * @param key The page.
+     * @return The bytes of the page, fewer than {@value #PAGE_SIZE} at the end of the file, or null if it is not cached.
+     */
+    public byte[] get(PageKey key) {
+        byte[] page = cache.get(key);
+        if (page != null) {
+            metrics.counter("snippets.pages", "source", "cache").increment();
+        }
+        return page;
+    }
+
+    /**
+     * Reads a page from its file and caches it.
+     *
+     * @param key     The page.
+     * @param channel The file the page belongs to.
+     * @return The bytes of the page, fewer than {@value #PAGE_SIZE} at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public byte[] load(PageKey key, FileChannel channel) throws IOException {
+        long start = key.page() * PAGE_SIZE;
+        ByteBuffer buffer = ParallelMessageTokenizer.readRange(channel, start, start + PAGE_SIZE);
+        byte[] page = buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        metrics.counter("snippets.pages", "source", "disk").increment();
+        metrics.counter("snippets.bytes").add(page.length);
+        cache.put(key, page);
+        return page;
+    }
+
+    /**
+     * Gets the cache counters.
+     *
+     * @return The counters since the cache was created.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.File_Retrieval_Engine.cache;
+
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.BooleanQuery;
+import com.example.File_Retrieval_Engine.query.ContentQuery;
+
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Normalized form of a {@link SearchingCriteria}, so that criteria giving the same results share a cache entry.
+ * <p>
+ * The content search is reduced to the canonical form of its parsed query: single terms are lowercased,
+ * deduplicated and sorted, as every term must match regardless of order, while phrases keep their term
+ * order. The boolean query is printed back with the operands of each AND and OR sorted. Empty strings count as absent, and the ranked flag only matters when content terms are given.
+ * File names are kept as they are, since they are matched case-sensitively.
+ *
+ * @param fileName      The file name, or null.
+ * @param minSize       The minimum file size, or null.
+ * @param maxSize       The maximum file size, or null.
+ * @param content       The canonical content query, or null without a content search.
+ * @param query         The canonical boolean query, or null without one.
+ * @param createdAfter  The lower creation time bound in milliseconds, or null.
+ * @param createdBefore The upper creation time bound in milliseconds, or null.
+ * @param fileType      The lowercase file type, or null.
+ * @param limit         The result limit, or null.
+ * @param ranked        Whether the content terms are ranked.
+ */
+public record QueryKey(String fileName, Long minSize, Long maxSize, String content, String query,
+                       Long createdAfter, Long createdBefore, String fileType, Integer limit, boolean ranked) {
+
+    /**
+     * Normalizes search criteria.
+     *
+     * @param criteria The criteria.
+     * @return The key of the criteria.
+     */
+    public static QueryKey of(SearchingCriteria criteria) {
+        String content = criteria.getContentSearchTerm();
+        String query = content == null || content.isEmpty() ? null : ContentQuery.parse(content).normalized();
+        String booleanQuery = emptyToNull(criteria.getQuery());
+        String fileType = emptyToNull(criteria.getFileType());
+        return new QueryKey(
+                emptyToNull(criteria.getFileName()),
+                criteria.getMinSize(),
+                criteria.getMaxSize(),
+                query,
+                booleanQuery != null ? BooleanQuery.parse(booleanQuery).toString() : null,
+                millis(criteria.getCreatedAfter()),
+                millis(criteria.getCreatedBefore()),
+                fileType != null ? fileType.toLowerCase(Locale.ROOT) : null,
+                criteria.getLimit(),
+                criteria.isRanked() && query != null);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static Long millis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.File_Retrieval_Engine.cache;
+
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of search results, valid for a single index generation.
+ * <p>
+ * Results are only reused within the generation they were computed from: the first lookup made
+ * against a newer generation drops every cached result, and a result computed from an older
+ * generation than the latest one seen is not cached at all.
+ */
+@Component
+public class QueryResultCache {
+
+    private static final long RESULT_OVERHEAD = 160;
+    private static final long HIT_WEIGHT = 48;
+
+    private final TinyLfuCache<QueryKey, SearchResult> cache;
+    private final AtomicLong generation = new AtomicLong(-1);
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructs a result cache.
+     *
+     * @param maxEntries The maximum number of cached results; 0 disables the cache.
+     * @param maxBytes   The maximum estimated size of the cached results, in bytes.
+     */
+    public QueryResultCache(@Value("${app.cache.max-entries:10000}") int maxEntries,
+                            @Value("${app.cache.max-bytes:67108864}") long maxBytes) {
+        this.cache = new TinyLfuCache<>(maxEntries, maxBytes,
+                result -> RESULT_OVERHEAD + HIT_WEIGHT * result.getHits().size());
+    }
+
+    /**
+     * Gets the cached result of a search.
+     *
+     * @param key        The normalized search criteria.
+     * @param generation The number of the index generation the search would read.
+     * @return The result computed from that generation, or null if there is none.
+     */
+    public SearchResult get(QueryKey key, long generation) {
+        advance(generation);
+        SearchResult result = cache.get(key);
+        return result != null && result.getGeneration() == generation ? result : null;
+    }
+
+    /**
+     * Caches the result of a search, if it was computed from the latest generation seen.
+     *
+     * @param key    The normalized search criteria.
+     * @param result The result of the search.
+     */
+    public void put(QueryKey key, SearchResult result) {
+        advance(result.getGeneration());
+        if (result.getGeneration() == generation.get()) {
+            cache.put(key, result);
+        }
+    }
+
+    /**
+     * Gets the cache counters.
+     *
+     * @return The counters, together with the generation the cached results belong to.
+     */
+    public QueryCacheStats stats() {
+        return new QueryCacheStats(generation.get(), invalidations.get(), cache.stats());
+    }
+
+    /**
+     * Drops the cached results once a newer generation shows up.
+     */
+    private void advance(long next) {
+        long seen = generation.get();
+        while (next > seen) {
+            if (generation.compareAndSet(seen, next)) {
+                cache.clear();
+                invalidations.incrementAndGet();
+                return;
+            }
+            seen = generation.get();
+        }
+    }
+
+    /**
+     * Counters of the result cache.
+     *
+     * @param generation    The index generation the cached results belong to.
+     * @param invalidations The number of times the cache was dropped for a newer generation.
+     * @param cache         The counters of the underlying cache.
+     */
+    public record QueryCacheStats(long generation, long invalidations, CacheStats cache) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.File_Retrieval_Engine.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache bounded both by its number of entries and by the total weight of its values.
+ * <p>
+ * Entries are kept in least recently used order. When a new entry needs room, the least recently
+ * used entries are its eviction candidates, but the new entry is only admitted if it was requested
+ * more often than each of them (TinyLFU admission, see {@link FrequencySketch}). A burst of one-off
+ * queries therefore cannot flush the entries that are requested over and over.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Lock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    /**
+     * Constructs a cache.
+     *
+     * @param maxEntries The maximum number of entries; 0 disables caching.
+     * @param maxWeight  The maximum total weight of the values.
+     * @param weigher    The weight of a value, such as its estimated size in bytes.
+     */
+    public TinyLfuCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        if (maxEntries < 0 || maxWeight < 0) {
+            throw new IllegalArgumentException("Cache bounds must not be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * Gets the value cached for a key, counting the request towards the key's frequency.
+     *
+     * @param key The key.
+     * @return The cached value, or null if there is none.
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            sketch.increment(key);
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a value, unless it is too heavy or requested less often than the entries it would evict.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        lock.lock();
+        try {
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            if (maxEntries == 0 || valueWeight > maxWeight) {
+                rejections++;
+                return;
+            }
+
+            List<K> victims = new ArrayList<>();
+            int frequency = sketch.frequency(key);
+            int size = entries.size();
+            long freed = 0;
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (size - victims.size() >= maxEntries || weight - freed + valueWeight > maxWeight) {
+                Map.Entry<K, Entry<V>> victim = eldest.next();
+                if (previous == null && sketch.frequency(victim.getKey()) >= frequency) {
+                    rejections++;
+                    return;
+                }
+                victims.add(victim.getKey());
+                freed += victim.getValue().weight();
+            }
+            for (K victim : victims) {
+                weight -= entries.remove(victim).weight();
+                evictions++;
+            }
+            entries.put(key, new Entry<>(value, valueWeight));
+            weight += valueWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry. Access frequencies are kept, as they describe the traffic, not the values.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return The counters since the cache was created.
+     */
+    public CacheStats stats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits, misses, evictions, rejections, entries.size(), weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry<V>(V value, long weight) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.File_Retrieval_Engine.controller;
+
+import com.example.File_Retrieval_Engine.model.IndexingJob;
+import com.example.File_Retrieval_Engine.service.impl.IndexingJobManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller that starts, follows and cancels indexing jobs.
+ * Each job indexes one folder in the background, and searches see its files once it succeeded.
+ */
+@RestController
+@RequestMapping("/api/index")
+public class IndexController {
+
+    private final IndexingJobManager jobManager;
+    private static final Logger logger = LoggerFactory.getLogger(IndexController.class);
+
+    /**
+     * Constructor to initialize the index controller with the job manager.
+     *
+     * @param jobManager The manager running the indexing jobs.
+     */
+    public IndexController(IndexingJobManager jobManager) {
+        this.jobManager = jobManager;
+    }
+
+    /**
+     * The body of a request starting an indexing job.
+     *
+     * @param path The folder to index.
+     */
+    public record IndexRequest(String path) {
+    }
+
+    /**
+     * Starts indexing a folder.
+     *
+     * @param request The folder to index.
+     * @return ResponseEntity containing the started job, a conflict if a running job indexes an
+     * overlapping folder, or an error message if the path is not a folder.
+     */
+    @PostMapping
+    public ResponseEntity<?> start(@RequestBody IndexRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobManager.start(request.path()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Error starting an indexing job: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the running jobs and the most recent finished ones.
+     *
+     * @return ResponseEntity containing the jobs, oldest first.
+     */
+    @GetMapping
+    public ResponseEntity<List<IndexingJob>> list() {
+        return ResponseEntity.ok(jobManager.list());
+    }
+
+    /**
+     * Reports the progress of a job: its state, the files and bytes found and indexed, and the
+     * estimated time left.
+     *
+     * @param id The identifier of the job.
+     * @return ResponseEntity containing the job, or not found.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<IndexingJob> get(@PathVariable long id) {
+        IndexingJob job = jobManager.get(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Cancels a running job; nothing it indexed is published.
+     *
+     * @param id The identifier of the job.
+     * @return ResponseEntity containing the job, cancelling until its tasks stopped, or not found.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<IndexingJob> cancel(@PathVariable long id) {
+        IndexingJob job = jobManager.cancel(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.File_Retrieval_Engine.controller;
+
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.service.Engine;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST Controller exposing the engine's meters and the size of the index, for monitoring and heap sizing.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private final Engine processingEngine;
+
+    /**
+     * Constructor to initialize the metrics controller with the engine.
+     *
+     * @param processingEngine The engine whose index is reported.
+     */
+    public MetricsController(Engine processingEngine) {
+        this.processingEngine = processingEngine;
+    }
+
+    /**
+     * Reports every counter, gauge and timer of the engine: indexing throughput per strategy,
+     * tokenization rate, build lock waits, executor backlog and search latencies per clause type.
+     *
+     * @return ResponseEntity containing the current value of every meter.
+     */
+    @GetMapping
+    public ResponseEntity<List<MetricsRegistry.MeterSnapshot>> metrics() {
+        return ResponseEntity.ok(MetricsRegistry.getInstance().snapshot());
+    }
+
+    /**
+     * Reports the size of the current index generation: documents, terms, posting bytes and the
+     * estimated heap of each segment, and their totals. A sharded index reports the totals over all its
+     * shards, remote ones included, with the segments of every shard and the sum of their generation numbers.
+     *
+     * @return ResponseEntity containing the index statistics.
+     */
+    @GetMapping("/index")
+    public ResponseEntity<IndexGeneration.Stats> indexStats() {
+        return ResponseEntity.ok(processingEngine.indexStats());
+    }
+}
@@ -1,12 +1,31 @@
 package com.example.File_Retrieval_Engine.controller;
 
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.exception.CursorExpiredException;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchResult;
 import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.ContentQuery;
+import com.example.File_Retrieval_Engine.query.SpanQuery;
+import com.example.File_Retrieval_Engine.query.TermPattern;
 import com.example.File_Retrieval_Engine.service.Engine;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+import com.example.File_Retrieval_Engine.snippet.SnippetExtractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,31 +36,275 @@ import java.util.List;
 @RequestMapping("/api/search")
 public class SearchController {
 
+    static final String GENERATION_HEADER = "X-Index-Generation";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String SNIPPETS_TRUNCATED_HEADER = "X-Snippets-Truncated";
+    static final String NDJSON = "application/x-ndjson";
+    static final int MAX_BATCH_SIZE = 100;
+
     private final Engine processingEngine;
+    private final QueryResultCache resultCache;
+    private final ObjectMapper objectMapper;
+    private final SnippetExtractor snippetExtractor;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
     private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
 
     /**
      * Constructor to initialize the search controller with the processing engine.
      *
      * @param processingEngine The engine responsible for executing search operations.
+     * @param resultCache      The cache of search results used by the engine.
+     * @param objectMapper     The mapper writing streamed results.
+     * @param snippetExtractor The extractor of the snippets of results.
      */
-    public SearchController(Engine processingEngine) {
+    public SearchController(Engine processingEngine, QueryResultCache resultCache, ObjectMapper objectMapper,
+                            SnippetExtractor snippetExtractor) {
         this.processingEngine = processingEngine;
+        this.resultCache = resultCache;
+        this.objectMapper = objectMapper;
+        this.snippetExtractor = snippetExtractor;
     }
 
     /**
      * Handles search requests based on user-defined criteria.
+     * The number of the index generation the results were read from is returned in the
+     * {@value #GENERATION_HEADER} header. Explained searches return an object holding the generation,
+     * the results and the stages of the search plan instead of the bare list of results.
+     * When the limit cut the results, the cursor to pass as {@code after} for the next page is returned
+     * in the {@value #NEXT_CURSOR_HEADER} header; a cursor whose index generation is no longer kept is gone.
+     * A remote shard that cannot be reached fails the search with a bad gateway.
+     * When snippets are asked for, they are read for the results once the search is done; if the
+     * snippet budget of the request ran out before every result got its snippets, the
+     * {@value #SNIPPETS_TRUNCATED_HEADER} header is set.
+     * The latency of every search is recorded under {@code search.latency}, once for each type of
+     * clause it uses, and failed searches under {@code search.errors}.
      *
      * @param criteria The criteria used for searching files.
      * @return ResponseEntity containing the search results or an error message in case of failure.
      */
     @PostMapping
     public ResponseEntity<?> search(@RequestBody SearchingCriteria criteria){
+        long start = System.nanoTime();
         try {
-            return ResponseEntity.ok(processingEngine.search(criteria));
+            SnippetExtractor.requested(criteria);
+            SearchResult result = processingEngine.search(criteria);
+            recordLatency(criteria, start);
+            SnippetExtractor.Budget budget = snippetExtractor.budget();
+            result = result.withHits(snippetExtractor.annotate(result.getHits(), criteria, budget));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(GENERATION_HEADER, String.valueOf(result.getGeneration()));
+            if (result.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, result.getNextCursor());
+            }
+            if (budget.isExhausted()) {
+                response.header(SNIPPETS_TRUNCATED_HEADER, "true");
+            }
+            return response.body(criteria.isExplain() ? result : result.getHits());
+        } catch (UncheckedIOException e) {
+            metrics.counter("search.errors").increment();
+            logger.warn("Error reaching a shard: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+        } catch (CursorExpiredException e) {
+            metrics.counter("search.errors").increment();
+            return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
         } catch (Exception e) {
+            metrics.counter("search.errors").increment();
             logger.warn("Error processing a search operation with criteria: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * Streams the results of a search as newline-delimited JSON, one result per line, written as soon
+     * as the search finds it, so the first results arrive before the search ends however many files match.
+     * The criteria are those of {@link #search(SearchingCriteria)}, including the limit and cursor; the
+     * generation read is returned in the {@value #GENERATION_HEADER} header, sent before the results.
+     * Snippets are read for each result before it is written, within one budget for the whole stream.
+     * Errors found before the first result are reported like those of a plain search, an unreachable
+     * shard included; once results were sent, the response is broken off instead.
+     *
+     * @param criteria The criteria used for searching files.
+     * @param response The response the results are written to.
+     * @throws IOException if the results cannot be written.
+     */
+    @PostMapping(path = "/stream", produces = NDJSON)
+    public void stream(@RequestBody SearchingCriteria criteria, HttpServletResponse response) throws IOException {
+        long start = System.nanoTime();
+        ObjectWriter writer = objectMapper.writerFor(SearchHit.class);
+        try {
+            int snippets = SnippetExtractor.requested(criteria);
+            List<TermPattern> highlighted = snippets > 0 ? SnippetExtractor.queryTerms(criteria) : List.of();
+            SnippetExtractor.Budget budget = snippetExtractor.budget();
+            processingEngine.search(criteria, new SearchHitSink() {
+                @Override
+                public void start(long generation) {
+                    response.setContentType(NDJSON);
+                    response.setHeader(GENERATION_HEADER, String.valueOf(generation));
+                }
+
+                @Override
+                public void accept(SearchHit hit) {
+                    try {
+                        ServletOutputStream output = response.getOutputStream();
+                        SearchHit written = highlighted.isEmpty() ? hit : snippetExtractor.annotate(hit, highlighted, snippets, budget);
+                        output.write(writer.writeValueAsBytes(written));
+                        output.write('\n');
+                        if (!response.isCommitted()) {
+                            response.flushBuffer();  // Send the first result right away, later ones as the buffer fills
+                        }
+                    } catch (IOException e) {
+                        throw new ResponseWriteException(e);
+                    }
+                }
+            });
+            recordLatency(criteria, start);
+        } catch (ResponseWriteException e) {
+            throw e.getCause();
+        } catch (UncheckedIOException e) {
+            metrics.counter("search.errors").increment();
+            if (response.isCommitted()) {
+                throw e;
+            }
+            logger.warn("Error reaching a shard: {}", e.getMessage());
+            writeError(response, HttpStatus.BAD_GATEWAY, e.getMessage());
+        } catch (Exception e) {
+            metrics.counter("search.errors").increment();
+            if (response.isCommitted()) {
+                throw e;
+            }
+            logger.warn("Error processing a streamed search operation with criteria: {}", e.getMessage());
+            writeError(response, e instanceof CursorExpiredException ? HttpStatus.GONE : HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces a response not sent yet by an error.
+     */
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.reset();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(String.valueOf(message));
+    }
+
+    /**
+     * Runs a batch of searches against one index generation. The searches run in parallel and share
+     * the lookups of the terms and file-level filters they have in common, so a dashboard issuing
+     * many searches at once sends one request and has each posting list read once.
+     * Every entry of the response is the result of the criteria at the same index, in the shape of an
+     * explained search without its plan unless explain is set, or holds the error of that search alone.
+     * Snippets are read for the results of every search that asks for them, within one budget for the batch.
+     * The batch is timed under {@code search.batch} and its size counted under {@code search.batch.queries}.
+     *
+     * @param batch The criteria of the searches, at most {@value #MAX_BATCH_SIZE}.
+     * @return ResponseEntity containing the results in request order, or an error message if the batch
+     * is empty or too large, or asks for an invalid number of snippets.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> searchBatch(@RequestBody List<SearchingCriteria> batch) {
+        if (batch == null || batch.isEmpty() || batch.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("A batch holds 1 to " + MAX_BATCH_SIZE + " searches");
+        }
+        try {
+            batch.forEach(SnippetExtractor::requested);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        long start = System.nanoTime();
+        List<SearchResult> results = processingEngine.search(batch);
+        metrics.timer("search.batch").record(System.nanoTime() - start);
+        metrics.counter("search.batch.queries").add(batch.size());
+        long failed = results.stream().filter(result -> result.getError() != null).count();
+        if (failed > 0) {
+            metrics.counter("search.errors").add(failed);
+        }
+        SnippetExtractor.Budget budget = snippetExtractor.budget();
+        List<SearchResult> annotated = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult result = results.get(i);
+            annotated.add(result.getError() != null ? result
+                    : result.withHits(snippetExtractor.annotate(result.getHits(), batch.get(i), budget)));
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(GENERATION_HEADER, String.valueOf(results.getFirst().getGeneration()));
+        if (budget.isExhausted()) {
+            response.header(SNIPPETS_TRUNCATED_HEADER, "true");
+        }
+        return response.body(annotated);
+    }
+
+    /**
+     * Records the latency of a search under {@code search.latency}, once for each type of clause it uses.
+     */
+    private void recordLatency(SearchingCriteria criteria, long start) {
+        long latency = System.nanoTime() - start;
+        for (String clause : clauseTypes(criteria)) {
+            metrics.timer("search.latency", "clause", clause).record(latency);
+        }
+    }
+
+    /**
+     * Lists the types of clauses a search uses: term, pattern, phrase, near, boolean, ranked, name,
+     * size, date and type, or "all" for a search without any criteria.
+     */
+    private static List<String> clauseTypes(SearchingCriteria criteria) {
+        List<String> types = new ArrayList<>();
+        if (criteria.getContentSearchTerm() != null && !criteria.getContentSearchTerm().isEmpty()) {
+            ContentQuery query = ContentQuery.parse(criteria.getContentSearchTerm());
+            if (!query.terms().isEmpty()) {
+                types.add("term");
+            }
+            if (!query.patterns().isEmpty()) {
+                types.add("pattern");
+            }
+            if (query.clauses().stream().anyMatch(clause -> clause instanceof SpanQuery.Phrase)) {
+                types.add("phrase");
+            }
+            if (query.clauses().stream().anyMatch(clause -> clause instanceof SpanQuery.Near)) {
+                types.add("near");
+            }
+            if (criteria.isRanked()) {
+                types.add("ranked");
+            }
+        }
+        if (criteria.getQuery() != null && !criteria.getQuery().isEmpty()) {
+            types.add("boolean");
+        }
+        if (criteria.getFileName() != null && !criteria.getFileName().isEmpty()) {
+            types.add("name");
+        }
+        if (criteria.getMinSize() != null || criteria.getMaxSize() != null) {
+            types.add("size");
+        }
+        if (criteria.getCreatedAfter() != null || criteria.getCreatedBefore() != null) {
+            types.add("date");
+        }
+        if (criteria.getFileType() != null && !criteria.getFileType().isEmpty()) {
+            types.add("type");
+        }
+        if (types.isEmpty()) {
+            types.add("all");
+        }
+        return types;
+    }
+
+    /**
+     * Reports the hit, miss and eviction counters of the search result cache.
+     *
+     * @return ResponseEntity containing the cache counters.
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<QueryResultCache.QueryCacheStats> cacheStats() {
+        return ResponseEntity.ok(resultCache.stats());
+    }
+
+    /**
+     * A failure to write a streamed result to the client, told apart from the failure of a shard.
+     */
+    private static final class ResponseWriteException extends UncheckedIOException {
+
+        private ResponseWriteException(IOException cause) {
+            super(cause);
+        }
+    }
 }
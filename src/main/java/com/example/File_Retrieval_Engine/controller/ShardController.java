@@ -0,0 +1,203 @@
+package com.example.File_Retrieval_Engine.controller;
+
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.service.Engine;
+import com.example.File_Retrieval_Engine.service.impl.ShardedEngine;
+import com.example.File_Retrieval_Engine.shard.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST Controller of sharding.
+ * The {@code /api/shard} endpoints let another engine use this one as a remote shard: it indexes,
+ * removes and lists the files it is given. The {@code /api/shards} endpoints list, add and rebalance the
+ * shards of this engine, when it is sharded.
+ */
+@RestController
+@RequestMapping("/api")
+public class ShardController {
+
+    private final Engine processingEngine;
+    private final Optional<ShardedEngine> shardedEngine;
+    private static final Logger logger = LoggerFactory.getLogger(ShardController.class);
+
+    /**
+     * Constructor to initialize the shard controller with the engine.
+     *
+     * @param processingEngine The engine serving this process's files.
+     * @param shardedEngine    The same engine when it is sharded.
+     */
+    public ShardController(Engine processingEngine, Optional<ShardedEngine> shardedEngine) {
+        this.processingEngine = processingEngine;
+        this.shardedEngine = shardedEngine;
+    }
+
+    /**
+     * The body of a request naming files.
+     *
+     * @param paths The paths of the files.
+     */
+    public record PathsRequest(List<String> paths) {
+    }
+
+    /**
+     * The body of a request adding a shard.
+     *
+     * @param url The base URL of the engine serving the shard, or null for a shard in this process.
+     */
+    public record ShardRequest(String url) {
+    }
+
+    /**
+     * A shard of this engine.
+     *
+     * @param name       The name of the shard.
+     * @param generation The number of the index generation the shard searches.
+     * @param files      The number of files the shard holds.
+     */
+    public record ShardStatus(String name, long generation, int files) {
+    }
+
+    /**
+     * Indexes files, replacing the ones already indexed; files missing from disk are removed.
+     * The response is sent once the files are searchable.
+     *
+     * @param request The files to index.
+     * @return ResponseEntity without body, or an error message in case of failure.
+     */
+    @PostMapping("/shard/update")
+    public ResponseEntity<?> update(@RequestBody PathsRequest request) {
+        try {
+            processingEngine.update(request.paths());
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            logger.warn("Error indexing files of a shard: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Removes files from the index, whether or not they still exist on disk.
+     *
+     * @param request The files to remove.
+     * @return ResponseEntity without body, or an error message in case of failure.
+     */
+    @PostMapping("/shard/remove")
+    public ResponseEntity<?> remove(@RequestBody PathsRequest request) {
+        try {
+            processingEngine.remove(request.paths());
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            logger.warn("Error removing files of a shard: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the indexed files.
+     *
+     * @return ResponseEntity containing the paths of the files.
+     */
+    @GetMapping("/shard/files")
+    public ResponseEntity<Collection<String>> files() {
+        return ResponseEntity.ok(processingEngine.indexedPaths());
+    }
+
+    /**
+     * Gets the number of the index generation searches currently read.
+     *
+     * @return ResponseEntity containing the generation number.
+     */
+    @GetMapping("/shard/generation")
+    public ResponseEntity<Long> generation() {
+        return ResponseEntity.ok(processingEngine.generation());
+    }
+
+    /**
+     * Gets the statistics a ranked search would score with, for the engine this one is a shard of to add
+     * them up over its shards.
+     *
+     * @param criteria The criteria of a ranked search.
+     * @return ResponseEntity containing the statistics, or an error message in case of failure.
+     */
+    @PostMapping("/shard/statistics")
+    public ResponseEntity<?> statistics(@RequestBody SearchingCriteria criteria) {
+        try {
+            return ResponseEntity.ok(processingEngine.statistics(criteria));
+        } catch (Exception e) {
+            logger.warn("Error gathering the statistics of a shard: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the shards of this engine.
+     *
+     * @return ResponseEntity containing the shards in search order, or not found if the engine is not sharded.
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<?> list() {
+        if (shardedEngine.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("The engine is not sharded");
+        }
+        try {
+            return ResponseEntity.ok(shardedEngine.get().shards().stream().map(ShardController::status).toList());
+        } catch (Exception e) {
+            logger.warn("Error listing the shards: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a shard, served by another engine process or by this one. Existing files move to it on the
+     * next rebalance.
+     *
+     * @param request The base URL of the engine serving the shard, or none for a shard in this process.
+     * @return ResponseEntity containing the added shard, or not found if the engine is not sharded.
+     */
+    @PostMapping("/shards")
+    public ResponseEntity<?> add(@RequestBody ShardRequest request) {
+        if (shardedEngine.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("The engine is not sharded");
+        }
+        try {
+            Shard shard = shardedEngine.get().addShard(request.url());
+            return ResponseEntity.status(HttpStatus.CREATED).body(status(shard));
+        } catch (Exception e) {
+            logger.warn("Error adding a shard: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Moves every file to the shard it is assigned to, after shards were added.
+     *
+     * @return ResponseEntity containing the moves made, or not found if the engine is not sharded.
+     */
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<?> rebalance() {
+        if (shardedEngine.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("The engine is not sharded");
+        }
+        try {
+            return ResponseEntity.ok(shardedEngine.get().rebalance());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Rebalancing was interrupted");
+        } catch (Exception e) {
+            logger.warn("Error rebalancing the shards: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+        }
+    }
+
+    private static ShardStatus status(Shard shard) {
+        return new ShardStatus(shard.name(), shard.generation(), shard.paths().size());
+    }
+}
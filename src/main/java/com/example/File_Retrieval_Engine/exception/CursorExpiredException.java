@@ -0,0 +1,13 @@
+package com.example.File_Retrieval_Engine.exception;
+
+/**
+ * Thrown when a search is given a cursor whose index generation is no longer kept: the pages that
+ * follow it cannot be listed consistently any more, and the search must start again from its first page.
+ */
+public class CursorExpiredException extends RuntimeException {
+
+    public CursorExpiredException(String msg) {
+        super(msg);
+    }
+
+}
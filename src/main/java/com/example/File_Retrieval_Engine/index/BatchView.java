@@ -0,0 +1,160 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A view of a segment shared by the searches of a batch, which looks up each term and each file-level
+ * filter once for the whole batch.
+ * <p>
+ * Posting lists are looked up in the segment the first time a search of the batch asks for their term,
+ * and their doc ids are decoded the first time a search drives with them; the other searches reuse both,
+ * copying the decoded doc ids rather than decoding them again.
+ * File-level filters are computed once per distinct criterion and copied for every search, as searches
+ * intersect them in place. The view is meant to live as long as its batch, and is safe for the searches
+ * of the batch to share from several threads.
+ */
+public class BatchView implements IndexView {
+
+    private final IndexView base;
+    private final Map<String, Optional<PostingList>> postings = new ConcurrentHashMap<>();
+    private final Map<String, BitSet> fileFilters = new ConcurrentHashMap<>();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+
+    /**
+     * Constructs a view sharing the lookups of a batch over a segment.
+     *
+     * @param base The segment, as read by the batch.
+     */
+    public BatchView(IndexView base) {
+        this.base = base;
+    }
+
+    @Override
+    public PostingList postings(String term) {
+        lookups.incrementAndGet();
+        return postings.computeIfAbsent(term, key -> {
+            fetches.incrementAndGet();
+            return Optional.ofNullable(base.postings(key)).map(SharedPostingList::new);
+        }).orElse(null);
+    }
+
+    /**
+     * Gets a file-level filter, computed the first time a search of the batch asks for it.
+     *
+     * @param criterion The description of the filter, equal for equal filters.
+     * @param lookup    Computes the ordinals of the files matching the filter.
+     * @return A copy of the ordinals of the matching files, which the caller may modify.
+     */
+    public BitSet fileFilter(String criterion, Supplier<BitSet> lookup) {
+        lookups.incrementAndGet();
+        return (BitSet) fileFilters.computeIfAbsent(criterion, key -> {
+            fetches.incrementAndGet();
+            return lookup.get();
+        }).clone();
+    }
+
+    /**
+     * Gets the number of term and filter lookups asked by the searches of the batch.
+     *
+     * @return The number of lookups.
+     */
+    public long lookups() {
+        return lookups.get();
+    }
+
+    /**
+     * Gets the number of lookups that reached the segment, one per distinct term or filter.
+     *
+     * @return The number of lookups not answered by an earlier search of the batch.
+     */
+    public long fetches() {
+        return fetches.get();
+    }
+
+    @Override
+    public TermDictionary contentTerms() {
+        return base.contentTerms();
+    }
+
+    @Override
+    public TermDictionary fileNames() {
+        return base.fileNames();
+    }
+
+    @Override
+    public DocumentTable documents() {
+        return base.documents();
+    }
+
+    @Override
+    public boolean isLive(int docId) {
+        return base.isLive(docId);
+    }
+
+    @Override
+    public MetadataColumns metadata() {
+        return base.metadata();
+    }
+
+    @Override
+    public boolean isLiveFile(int fileOrdinal) {
+        return base.isLiveFile(fileOrdinal);
+    }
+
+    @Override
+    public List<FileInfo> filesByName(String name) {
+        return base.filesByName(name);
+    }
+
+    @Override
+    public List<FileInfo> filesBySize(Long minSize, Long maxSize) {
+        return base.filesBySize(minSize, maxSize);
+    }
+
+    @Override
+    public int[] documentsOf(String path) {
+        return base.documentsOf(path);
+    }
+
+    @Override
+    public SegmentStats stats() {
+        return base.stats();
+    }
+
+    /**
+     * A posting list of a batch, read over the encoded postings of the segment's list, which decodes
+     * its doc ids once for every search.
+     */
+    private static final class SharedPostingList extends PostingList {
+
+        private volatile int[] docIds;
+
+        SharedPostingList(PostingList postingList) {
+            super(postingList.encoded(), postingList.size(), postingList.maxFrequency(), postingList.minDocLength(),
+                    postingList.isPositional());
+        }
+
+        /**
+         * Decodes the doc ids on the first call, and copies them on every call, as some callers
+         * intersect them in place.
+         */
+        @Override
+        public int[] docIds() {
+            int[] decoded = docIds;
+            if (decoded == null) {
+                decoded = super.docIds();
+                docIds = decoded;
+            }
+            return decoded.clone();
+        }
+    }
+}
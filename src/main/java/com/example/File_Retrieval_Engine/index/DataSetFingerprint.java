@@ -0,0 +1,39 @@
+package com.example.File_Retrieval_Engine.index;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Computes a fingerprint of a dataset folder from the path, size and modification time of
+ * every file the indexer would read. A segment whose fingerprint differs is stale.
+ */
+public final class DataSetFingerprint {
+
+    private DataSetFingerprint() {}
+
+    /**
+     * Computes the fingerprint of a dataset folder and of its direct sub-folders.
+     *
+     * @param path The dataset folder.
+     * @return The fingerprint, identical as long as no file is added, removed or modified.
+     */
+    public static long of(String path) {
+        long hash = MappedSegment.VERSION;
+        File[] files = new File(path).listFiles();
+        if (files == null) {
+            return hash;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getPath));
+        for (File file : files) {
+            if (file.isDirectory()) {
+                hash = 31 * hash + of(file.getPath());
+            } else {
+                hash = 31 * hash + file.getPath().hashCode();
+                hash = 31 * hash + file.length();
+                hash = 31 * hash + file.lastModified();
+            }
+        }
+        return hash;
+    }
+}
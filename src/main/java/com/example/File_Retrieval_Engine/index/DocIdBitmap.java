@@ -0,0 +1,490 @@
+package com.example.File_Retrieval_Engine.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed set of doc ids, split into containers of 65536 ids (Roaring layout).
+ * <p>
+ * The high 16 bits of an id select a container and the low 16 bits are stored in it: a sorted
+ * {@code char[]} while the container holds at most {@value #ARRAY_MAX} ids, a 65536-bit {@code long[]}
+ * beyond that. Boolean operations walk the two sorted container lists together and combine matching
+ * containers directly (merging arrays, probing a bitmap with an array, or AND-ing words), so no
+ * operation ever expands a bitmap to individual ids.
+ */
+public final class DocIdBitmap {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    private static final DocIdBitmap EMPTY = new DocIdBitmap(new char[0], new Object[0], 0);
+
+    private final char[] keys;
+    private final Object[] containers; // char[] array containers or long[] bitmap containers
+    private final int count;
+
+    private DocIdBitmap(char[] keys, Object[] containers, int count) {
+        this.keys = keys;
+        this.containers = containers;
+        this.count = count;
+    }
+
+    /**
+     * Gets the empty set.
+     *
+     * @return A bitmap without any id.
+     */
+    public static DocIdBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a bitmap from sorted doc ids, such as those of a posting list.
+     *
+     * @param docIds The distinct non-negative doc ids, in increasing order.
+     * @return The bitmap holding them.
+     */
+    public static DocIdBitmap of(int[] docIds) {
+        Builder builder = new Builder();
+        int start = 0;
+        while (start < docIds.length) {
+            int high = docIds[start] >>> 16;
+            int end = start;
+            while (end < docIds.length && docIds[end] >>> 16 == high) {
+                end++;
+            }
+            if (end - start <= ARRAY_MAX) {
+                char[] values = new char[end - start];
+                for (int i = start; i < end; i++) {
+                    values[i - start] = (char) docIds[i];
+                }
+                builder.add((char) high, values, values.length);
+            } else {
+                long[] words = new long[WORDS];
+                for (int i = start; i < end; i++) {
+                    words[(docIds[i] & 0xFFFF) >>> 6] |= 1L << docIds[i];
+                }
+                builder.add((char) high, words, end - start);
+            }
+            start = end;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the bitmap of every doc id in a range, such as all the documents of an index.
+     *
+     * @param from The first id.
+     * @param to   The id after the last one.
+     * @return The bitmap holding [from, to).
+     */
+    public static DocIdBitmap range(int from, int to) {
+        Builder builder = new Builder();
+        for (int high = from >>> 16; from < to && high <= (to - 1) >>> 16; high++) {
+            int low = high == from >>> 16 ? from & 0xFFFF : 0;
+            int end = high == (to - 1) >>> 16 ? ((to - 1) & 0xFFFF) + 1 : 1 << 16;
+            long[] words = new long[WORDS];
+            for (int value = low; value < end; value++) {
+                words[value >>> 6] |= 1L << value;
+            }
+            builder.addWords((char) high, words, end - low);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of ids.
+     *
+     * @return The cardinality.
+     */
+    public int cardinality() {
+        return count;
+    }
+
+    /**
+     * Checks whether the set is empty.
+     *
+     * @return true without any id.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Checks whether an id belongs to the set.
+     *
+     * @param docId The doc id.
+     * @return true if the set holds it.
+     */
+    public boolean contains(int docId) {
+        int index = Arrays.binarySearch(keys, (char) (docId >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) docId;
+        return containers[index] instanceof long[] words
+                ? (words[low >>> 6] & 1L << low) != 0
+                : Arrays.binarySearch((char[]) containers[index], low) >= 0;
+    }
+
+    /**
+     * Calls an action for every id, in increasing order.
+     *
+     * @param action The action.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            int base = keys[i] << 16;
+            if (containers[i] instanceof long[] words) {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        action.accept(base | w << 6 | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) containers[i]) {
+                    action.accept(base | low);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the ids.
+     *
+     * @return The ids in increasing order.
+     */
+    public int[] toArray() {
+        int[] docIds = new int[count];
+        int[] next = {0};
+        forEach(docId -> docIds[next[0]++] = docId);
+        return docIds;
+    }
+
+    /**
+     * Lists the ids from a given one on, a block at a time, skipping the containers before it.
+     *
+     * @param from The smallest id to list.
+     * @param max  The maximum number of ids to list.
+     * @return The first ids greater than or equal to {@code from}, in increasing order.
+     */
+    public int[] toArray(int from, int max) {
+        int[] docIds = new int[Math.min(max, count)];
+        int n = 0;
+        int index = Arrays.binarySearch(keys, (char) (from >>> 16));
+        for (int i = index >= 0 ? index : -index - 1; i < keys.length && n < docIds.length; i++) {
+            int base = keys[i] << 16;
+            int low = keys[i] == from >>> 16 ? from & 0xFFFF : 0;
+            if (containers[i] instanceof long[] words) {
+                for (int w = low >>> 6; w < WORDS && n < docIds.length; w++) {
+                    long word = w == low >>> 6 ? words[w] & -1L << low : words[w];
+                    while (word != 0 && n < docIds.length) {
+                        docIds[n++] = base | w << 6 | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) containers[i];
+                int j = Arrays.binarySearch(values, (char) low);
+                for (j = j >= 0 ? j : -j - 1; j < values.length && n < docIds.length; j++) {
+                    docIds[n++] = base | values[j];
+                }
+            }
+        }
+        return n == docIds.length ? docIds : Arrays.copyOf(docIds, n);
+    }
+
+    /**
+     * Intersects two sets.
+     *
+     * @param other The other set.
+     * @return The ids present in both sets.
+     */
+    public DocIdBitmap and(DocIdBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                and(keys[i], containers[i], other.containers[j], builder);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Unites two sets.
+     *
+     * @param other The other set.
+     * @return The ids present in either set.
+     */
+    public DocIdBitmap or(DocIdBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                builder.copy(keys[i], containers[i]);
+                i++;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                builder.copy(other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                or(keys[i], containers[i], other.containers[j], builder);
+                i++;
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Subtracts a set from this one.
+     *
+     * @param other The ids to remove.
+     * @return The ids of this set absent from the other one.
+     */
+    public DocIdBitmap andNot(DocIdBitmap other) {
+        Builder builder = new Builder();
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                andNot(keys[i], containers[i], other.containers[j], builder);
+            } else {
+                builder.copy(keys[i], containers[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void and(char key, Object a, Object b, Builder builder) {
+        if (a instanceof long[] wordsA && b instanceof long[] wordsB) {
+            long[] words = new long[WORDS];
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = wordsA[w] & wordsB[w];
+            }
+            builder.addWords(key, words, -1);
+        } else if (a instanceof char[] values && b instanceof long[] words) {
+            builder.addFiltered(key, values, words, true);
+        } else if (a instanceof long[] words && b instanceof char[] values) {
+            builder.addFiltered(key, values, words, true);
+        } else {
+            char[] valuesA = (char[]) a;
+            char[] valuesB = (char[]) b;
+            char[] values = new char[Math.min(valuesA.length, valuesB.length)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < valuesA.length && j < valuesB.length) {
+                if (valuesA[i] < valuesB[j]) {
+                    i++;
+                } else if (valuesA[i] > valuesB[j]) {
+                    j++;
+                } else {
+                    values[n++] = valuesA[i];
+                    i++;
+                    j++;
+                }
+            }
+            builder.add(key, values, n);
+        }
+    }
+
+    private static void or(char key, Object a, Object b, Builder builder) {
+        if (a instanceof char[] valuesA && b instanceof char[] valuesB) {
+            char[] values = new char[valuesA.length + valuesB.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < valuesA.length || j < valuesB.length) {
+                if (j == valuesB.length || (i < valuesA.length && valuesA[i] < valuesB[j])) {
+                    values[n++] = valuesA[i++];
+                } else if (i == valuesA.length || valuesA[i] > valuesB[j]) {
+                    values[n++] = valuesB[j++];
+                } else {
+                    values[n++] = valuesA[i];
+                    i++;
+                    j++;
+                }
+            }
+            if (n <= ARRAY_MAX) {
+                builder.add(key, values, n);
+            } else {
+                builder.addWords(key, toWords(values, n), n);
+            }
+            return;
+        }
+        long[] words = a instanceof long[] wordsA ? wordsA.clone() : toWords((char[]) a, ((char[]) a).length);
+        if (b instanceof long[] wordsB) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= wordsB[w];
+            }
+        } else {
+            for (char value : (char[]) b) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+        builder.addWords(key, words, -1);
+    }
+
+    private static void andNot(char key, Object a, Object b, Builder builder) {
+        if (a instanceof char[] values) {
+            if (b instanceof long[] words) {
+                builder.addFiltered(key, values, words, false);
+                return;
+            }
+            char[] removed = (char[]) b;
+            char[] kept = new char[values.length];
+            int n = 0;
+            int j = 0;
+            for (char value : values) {
+                while (j < removed.length && removed[j] < value) {
+                    j++;
+                }
+                if (j == removed.length || removed[j] != value) {
+                    kept[n++] = value;
+                }
+            }
+            builder.add(key, kept, n);
+            return;
+        }
+        long[] words = ((long[]) a).clone();
+        if (b instanceof long[] removed) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= ~removed[w];
+            }
+        } else {
+            for (char value : (char[]) b) {
+                words[value >>> 6] &= ~(1L << value);
+            }
+        }
+        builder.addWords(key, words, -1);
+    }
+
+    private static long[] toWords(char[] values, int length) {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < length; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DocIdBitmap other && count == other.count && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "DocIdBitmap[cardinality=" + count + ", containers=" + keys.length + "]";
+    }
+
+    /**
+     * Collects containers in increasing key order, dropping empty ones and converting bitmaps that
+     * became small back to arrays.
+     */
+    private static class Builder {
+
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int size;
+        private int count;
+
+        void add(char key, char[] values, int length) {
+            if (length > 0) {
+                append(key, length == values.length ? values : Arrays.copyOf(values, length), length);
+            }
+        }
+
+        void add(char key, long[] words, int cardinality) {
+            append(key, words, cardinality);
+        }
+
+        /**
+         * Adds a bitmap container, counting its bits when the cardinality is unknown (-1).
+         */
+        void addWords(char key, long[] words, int cardinality) {
+            if (cardinality < 0) {
+                cardinality = 0;
+                for (long word : words) {
+                    cardinality += Long.bitCount(word);
+                }
+            }
+            if (cardinality == 0) {
+                return;
+            }
+            if (cardinality > ARRAY_MAX) {
+                append(key, words, cardinality);
+                return;
+            }
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            append(key, values, cardinality);
+        }
+
+        /**
+         * Adds the values present (or absent) in a bitmap.
+         */
+        void addFiltered(char key, char[] values, long[] words, boolean present) {
+            char[] kept = new char[values.length];
+            int n = 0;
+            for (char value : values) {
+                if (((words[value >>> 6] & 1L << value) != 0) == present) {
+                    kept[n++] = value;
+                }
+            }
+            add(key, kept, n);
+        }
+
+        /**
+         * Adds a container of an immutable bitmap as is; containers are never modified, so they can be shared.
+         */
+        void copy(char key, Object container) {
+            append(key, container, container instanceof char[] values ? values.length : cardinality((long[]) container));
+        }
+
+        private static int cardinality(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            return cardinality;
+        }
+
+        private void append(char key, Object container, int cardinality) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = key;
+            containers[size++] = container;
+            count += cardinality;
+        }
+
+        DocIdBitmap build() {
+            return size == 0 ? EMPTY : new DocIdBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), count);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense int ids to indexed documents, so that posting lists can refer to documents
+ * by a primitive id instead of holding {@link FileInfo} references.
+ * Ids are handed out in increasing order starting from 0.
+ */
+public class DocIdTable implements DocumentTable {
+
+    private FileInfo[] documents = new FileInfo[64];
+    private int[] lengths = new int[64];
+    private long totalLength;
+    private int size;
+
+    /**
+     * Registers a document and assigns it the next free id.
+     *
+     * @param fileInfo The document to register.
+     * @param length   The number of tokens in the document.
+     * @return The id assigned to the document.
+     */
+    public int register(FileInfo fileInfo, int length) {
+        if (size == documents.length) {
+            documents = Arrays.copyOf(documents, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        documents[size] = fileInfo;
+        lengths[size] = length;
+        totalLength += length;
+        return size++;
+    }
+
+    /**
+     * Registers all documents of another table, keeping their order.
+     *
+     * @param other The documents to register.
+     * @return The id assigned to the first document of the other table.
+     */
+    public int registerAll(DocumentTable other) {
+        int base = size;
+        for (int docId = 0; docId < other.size(); docId++) {
+            register(other.get(docId), other.length(docId));
+        }
+        return base;
+    }
+
+    @Override
+    public FileInfo get(int docId) {
+        return documents[docId];
+    }
+
+    @Override
+    public int length(int docId) {
+        return lengths[docId];
+    }
+
+    @Override
+    public double averageLength() {
+        return size == 0 ? 0 : (double) totalLength / size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
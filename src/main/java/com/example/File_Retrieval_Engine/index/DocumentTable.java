@@ -0,0 +1,39 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+/**
+ * Read access to the documents of an index, addressed by their dense doc ids.
+ */
+public interface DocumentTable {
+
+    /**
+     * Gets the document registered under the given id.
+     *
+     * @param docId The document id.
+     * @return The document metadata.
+     */
+    FileInfo get(int docId);
+
+    /**
+     * Gets the number of tokens of the document registered under the given id.
+     *
+     * @param docId The document id.
+     * @return The document length.
+     */
+    int length(int docId);
+
+    /**
+     * Gets the average number of tokens per document.
+     *
+     * @return The average document length, or 0 if the table is empty.
+     */
+    double averageLength();
+
+    /**
+     * Gets the number of registered documents.
+     *
+     * @return The number of documents.
+     */
+    int size();
+}
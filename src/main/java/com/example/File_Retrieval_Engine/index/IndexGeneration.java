@@ -0,0 +1,112 @@
+package com.example.File_Retrieval_Engine.index;
+
+import java.util.List;
+
+/**
+ * An immutable state of the whole index: the segments searches read, each masked by the files
+ * removed from it. Writers derive the next generation and publish it with a single reference swap,
+ * while searches keep reading the generation they started with.
+ */
+public class IndexGeneration {
+
+    private final long number;
+    private final List<MaskedView> segments;
+
+    private IndexGeneration(long number, List<MaskedView> segments) {
+        this.number = number;
+        this.segments = List.copyOf(segments);
+    }
+
+    /**
+     * Gets the generation of an index holding nothing yet.
+     *
+     * @return The generation numbered 0.
+     */
+    public static IndexGeneration empty() {
+        return new IndexGeneration(0, List.of());
+    }
+
+    /**
+     * Derives the next generation.
+     *
+     * @param segments The segments of the next generation.
+     * @return The generation with the next number.
+     */
+    public IndexGeneration next(List<MaskedView> segments) {
+        return new IndexGeneration(number + 1, segments);
+    }
+
+    /**
+     * Gets the number of this generation, increased by every published change.
+     *
+     * @return The generation number.
+     */
+    public long number() {
+        return number;
+    }
+
+    /**
+     * Gets the segments of this generation.
+     *
+     * @return The masked segments; every live file is in exactly one of them.
+     */
+    public List<MaskedView> segments() {
+        return segments;
+    }
+
+    /**
+     * Gets the indexes searches should read from.
+     *
+     * @return The segments as index views.
+     */
+    public List<IndexView> views() {
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Gets the size statistics of this generation.
+     *
+     * @return The statistics of every segment and their totals.
+     */
+    public Stats stats() {
+        List<SegmentStats> segmentStats = segments.stream().map(MaskedView::stats).toList();
+        return new Stats(number,
+                segmentStats.stream().mapToInt(SegmentStats::liveDocuments).sum(),
+                segmentStats.stream().mapToLong(SegmentStats::terms).sum(),
+                segmentStats.stream().mapToLong(SegmentStats::postingBytes).sum(),
+                segmentStats.stream().mapToLong(SegmentStats::heapBytes).sum(),
+                segmentStats.stream().mapToLong(SegmentStats::mappedBytes).sum(),
+                segmentStats);
+    }
+
+    /**
+     * Size statistics of a generation. Terms occurring in several segments are counted once per segment.
+     *
+     * @param generation    The generation number.
+     * @param liveDocuments The number of searchable documents.
+     * @param terms         The number of terms summed over the segments.
+     * @param postingBytes  The size of all encoded posting lists.
+     * @param heapBytes     The estimated heap used by all segments.
+     * @param mappedBytes   The size of all mapped segment files.
+     * @param segments      The statistics of each segment.
+     */
+    public record Stats(long generation, int liveDocuments, long terms, long postingBytes, long heapBytes,
+                        long mappedBytes, List<SegmentStats> segments) {
+
+        /**
+         * Adds up the statistics of the generations of several indexes, such as the shards of an index.
+         *
+         * @param stats The statistics of each index.
+         * @return The totals, with the sum of the generation numbers and the segments of every index.
+         */
+        public static Stats sum(List<Stats> stats) {
+            return new Stats(stats.stream().mapToLong(Stats::generation).sum(),
+                    stats.stream().mapToInt(Stats::liveDocuments).sum(),
+                    stats.stream().mapToLong(Stats::terms).sum(),
+                    stats.stream().mapToLong(Stats::postingBytes).sum(),
+                    stats.stream().mapToLong(Stats::heapBytes).sum(),
+                    stats.stream().mapToLong(Stats::mappedBytes).sum(),
+                    stats.stream().flatMap(s -> s.segments().stream()).toList());
+        }
+    }
+}
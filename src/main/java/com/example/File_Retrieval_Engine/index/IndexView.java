@@ -0,0 +1,99 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.List;
+
+/**
+ * Read access to a complete index: the content postings, the documents they refer to,
+ * and the file name and size indexes. Searches only go through this interface, so they run
+ * the same way over in-memory segments and over a memory-mapped segment.
+ */
+public interface IndexView {
+
+    /**
+     * Gets the posting list of a content term.
+     *
+     * @param term The lowercase term.
+     * @return The posting list, or null if no document contains the term.
+     */
+    PostingList postings(String term);
+
+    /**
+     * Gets the content terms of the index.
+     *
+     * @return The sorted terms that have a posting list.
+     */
+    TermDictionary contentTerms();
+
+    /**
+     * Gets the file names of the index, including those of files removed since the index was built.
+     *
+     * @return The sorted file names.
+     */
+    TermDictionary fileNames();
+
+    /**
+     * Gets the documents referred to by the posting lists.
+     *
+     * @return The document table.
+     */
+    DocumentTable documents();
+
+    /**
+     * Checks whether a document is still part of the index.
+     * Documents of removed or re-indexed files stay in the posting lists until their segment is
+     * compacted, so every match must be checked.
+     *
+     * @param docId The document id.
+     * @return false if the document was deleted.
+     */
+    boolean isLive(int docId);
+
+    /**
+     * Gets the metadata columns of the files of the index, live or not.
+     *
+     * @return The metadata columns.
+     */
+    MetadataColumns metadata();
+
+    /**
+     * Checks whether a file is still part of the index.
+     *
+     * @param fileOrdinal The ordinal of the file in the {@link #metadata()} columns.
+     * @return false if the file was removed.
+     */
+    boolean isLiveFile(int fileOrdinal);
+
+    /**
+     * Gets the live files with the given name.
+     *
+     * @param name The exact file name.
+     * @return The matching files, possibly empty.
+     */
+    List<FileInfo> filesByName(String name);
+
+    /**
+     * Gets the live files whose size lies in the given range.
+     *
+     * @param minSize The minimum size in bytes, or null for no lower bound.
+     * @param maxSize The maximum size in bytes, or null for no upper bound.
+     * @return The matching files, possibly empty.
+     */
+    List<FileInfo> filesBySize(Long minSize, Long maxSize);
+
+    /**
+     * Gets the documents of a file, live or not.
+     *
+     * @param path The path of the file.
+     * @return The doc ids of the whole file or of its messages, possibly empty.
+     */
+    int[] documentsOf(String path);
+
+    /**
+     * Gets the size statistics of the index.
+     *
+     * @return The number of documents, terms and posting bytes, and the estimated memory use.
+     */
+    SegmentStats stats();
+}
@@ -0,0 +1,192 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.analysis.TermIdDictionary;
+import com.example.File_Retrieval_Engine.analysis.TermVector;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index built by a single worker thread during an index build, without any locking.
+ * Doc ids are local to the segment; {@link SegmentMerger} shifts them when the segments of a build
+ * are merged into the shared index.
+ * Posting lists are kept in an array in the order their terms were first added, found through an
+ * open-addressing table from the id of the term in the {@link TermIdDictionary} to its slot, so adding a
+ * document neither hashes nor compares any String, and the segment only holds the terms it has however
+ * large the process-wide dictionary grew.
+ */
+public class LocalSegment {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TermIdDictionary dictionary = TermIdDictionary.getInstance();
+    private int[] slots = new int[INITIAL_CAPACITY * 2];  // Local slot + 1 by hash of the term id, 0 for empty slots
+    private int[] termIds = new int[INITIAL_CAPACITY];  // By local slot
+    private PostingList[] postings = new PostingList[INITIAL_CAPACITY];  // By local slot
+    private int termCount;
+    private final DocIdTable documents = new DocIdTable();
+    private final Map<String, List<FileInfo>> names = new HashMap<>();
+    private final Map<Long, List<FileInfo>> sizes = new HashMap<>();
+
+    /**
+     * Adds a document with the positions of its terms, indexed in positional posting lists.
+     *
+     * @param document The indexed document.
+     * @param terms    The terms of the document with their positions.
+     */
+    public void addDocument(FileInfo document, TermVector terms) {
+        addDocument(document, terms, true);
+    }
+
+    /**
+     * Adds a document with the positions of its terms, indexed with or without them.
+     *
+     * @param document   The indexed document.
+     * @param terms      The terms of the document with their positions.
+     * @param positional Whether the positions are indexed, for phrase and proximity queries.
+     */
+    public void addDocument(FileInfo document, TermVector terms, boolean positional) {
+        int docLength = terms.length();
+        int docId = documents.register(document, docLength);
+        int[] ids = terms.termIds();
+        int[] offsets = terms.termOffsets();
+        for (int i = 0; i < ids.length; i++) {
+            PostingList postingList = postingList(ids[i], positional);
+            if (positional) {
+                postingList.add(docId, terms.termPositions(), offsets[i], offsets[i + 1], docLength);
+            } else {
+                postingList.add(docId, terms.frequency(i), docLength);
+            }
+        }
+    }
+
+    /**
+     * Adds a document with its term frequencies.
+     *
+     * @param document   The indexed document.
+     * @param localIndex The term frequencies of the document.
+     */
+    public void addDocument(FileInfo document, Map<String, Integer> localIndex) {
+        int docLength = localIndex.values().stream().mapToInt(Integer::intValue).sum();
+        int docId = documents.register(document, docLength);
+        localIndex.forEach((term, frequency) ->
+                postingList(dictionary.id(term), false).add(docId, frequency, docLength));
+    }
+
+    private PostingList postingList(int termId, boolean positional) {
+        int mask = slots.length - 1;
+        int slot = spread(termId) & mask;
+        while (slots[slot] != 0) {
+            int local = slots[slot] - 1;
+            if (termIds[local] == termId) {
+                return postings[local];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (termCount == termIds.length) {
+            termIds = Arrays.copyOf(termIds, termCount * 2);
+            postings = Arrays.copyOf(postings, termCount * 2);
+        }
+        PostingList postingList = new PostingList(positional);
+        termIds[termCount] = termId;
+        postings[termCount] = postingList;
+        slots[slot] = ++termCount;
+        if (termCount * 2 > slots.length) {
+            rehash();
+        }
+        return postingList;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int local = 0; local < termCount; local++) {
+            int slot = spread(termIds[local]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = local + 1;
+        }
+    }
+
+    /**
+     * Mixes a term id, whose low bits only hold its stripe in the dictionary, into a hash.
+     */
+    private static int spread(int termId) {
+        int hash = termId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Adds files to the name index.
+     *
+     * @param localIndex The files by name.
+     */
+    public void addNames(Map<String, List<FileInfo>> localIndex) {
+        localIndex.forEach((name, files) -> names.computeIfAbsent(name, n -> new ArrayList<>()).addAll(files));
+    }
+
+    /**
+     * Adds files to the size index.
+     *
+     * @param localIndex The files by size.
+     */
+    public void addSizes(Map<Long, List<FileInfo>> localIndex) {
+        localIndex.forEach((size, files) -> sizes.computeIfAbsent(size, s -> new ArrayList<>()).addAll(files));
+    }
+
+    /**
+     * Gets the ids of the terms of the segment.
+     *
+     * @return The term ids, in the order the terms were first added.
+     */
+    public int[] termIds() {
+        return Arrays.copyOf(termIds, termCount);
+    }
+
+    /**
+     * Gets the posting list of a term.
+     *
+     * @param termId The id of the term.
+     * @return The posting list, or null if no document of the segment has the term.
+     */
+    public PostingList postings(int termId) {
+        int mask = slots.length - 1;
+        for (int slot = spread(termId) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int local = slots[slot] - 1;
+            if (termIds[local] == termId) {
+                return postings[local];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the posting lists by term, resolving the term ids.
+     *
+     * @return A new map of the posting lists.
+     */
+    public Map<String, PostingList> getPostings() {
+        Map<String, PostingList> byTerm = HashMap.newHashMap(termCount);
+        for (int i = 0; i < termCount; i++) {
+            byTerm.put(dictionary.term(termIds[i]), postings[i]);
+        }
+        return byTerm;
+    }
+
+    public DocIdTable getDocuments() {
+        return documents;
+    }
+
+    public Map<String, List<FileInfo>> getNames() {
+        return names;
+    }
+
+    public Map<Long, List<FileInfo>> getSizes() {
+        return sizes;
+    }
+}
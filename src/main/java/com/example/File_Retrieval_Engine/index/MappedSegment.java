@@ -0,0 +1,357 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only index segment memory-mapped from a file written by {@link SegmentWriter}.
+ * <p>
+ * Only the file table is loaded on open, so that every search sees the same FileInfo instance per file,
+ * together with the metadata columns derived from it.
+ * Terms, posting lists, documents and the name and size indexes are read in place from the mapping:
+ * terms and names are found by binary search over fixed-size records, sizes by binary search over
+ * sorted values, and posting lists are decoded straight from the mapped bytes. The sorted term and
+ * name records also serve as the term dictionaries, without any copy.
+ * <p>
+ * The segment is immutable: files removed or re-indexed after it was written are masked by the
+ * index generation it belongs to, see {@link MaskedView}.
+ * <p>
+ * Layout: a header, then the file, document, term, name and size sections, a shared string section
+ * (length-prefixed UTF-8) and the encoded postings. A segment is limited to 2 GB.
+ */
+public class MappedSegment implements IndexView {
+
+    static final int MAGIC = 0x46524553; // "FRES"
+    static final int VERSION = 2;
+    static final int FLAG_POSITIONS = 1;
+    static final int HEADER_SIZE = 104;
+    static final int FILE_RECORD_SIZE = 24;
+    static final int DOC_RECORD_SIZE = 36;
+    static final int TERM_RECORD_SIZE = 24;
+    static final int NAME_RECORD_SIZE = 12;
+    static final int SIZE_RECORD_SIZE = 16;
+    static final int NO_STRING = -1;
+    static final long WHOLE_FILE = -1;
+    static final long NO_DOCUMENT_ID = Long.MIN_VALUE;
+
+    // Rough heap sizes of the file table and metadata columns, the only parts loaded on the heap
+    private static final int FILE_OVERHEAD = 200;
+    private static final int DOCUMENT_OVERHEAD = 8;
+
+    private final ByteBuffer buffer;
+    private final long fingerprint;
+    private final boolean positional;
+    private final int docCount;
+    private final int termCount;
+    private final int nameCount;
+    private final int sizeCount;
+    private final long totalDocLength;
+    private final int docsOffset;
+    private final int termsOffset;
+    private final int namesOffset;
+    private final int sizesOffset;
+    private final int stringsOffset;
+    private final int postingsOffset;
+    private final FileInfo[] files;
+    private final MetadataColumns metadata;
+    private final DocumentTable documents = new MappedDocuments();
+    private final TermDictionary contentTerms = new RecordDictionary(true);
+    private final TermDictionary fileNames = new RecordDictionary(false);
+
+    private MappedSegment(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a segment file of version " + VERSION);
+        }
+        this.fingerprint = buffer.getLong(8);
+        int fileCount = buffer.getInt(16);
+        this.docCount = buffer.getInt(20);
+        this.termCount = buffer.getInt(24);
+        this.nameCount = buffer.getInt(28);
+        this.sizeCount = buffer.getInt(32);
+        this.positional = (buffer.getInt(36) & FLAG_POSITIONS) != 0;
+        this.totalDocLength = buffer.getLong(40);
+        int filesOffset = (int) buffer.getLong(48);
+        this.docsOffset = (int) buffer.getLong(56);
+        this.termsOffset = (int) buffer.getLong(64);
+        this.namesOffset = (int) buffer.getLong(72);
+        this.sizesOffset = (int) buffer.getLong(80);
+        this.stringsOffset = (int) buffer.getLong(88);
+        this.postingsOffset = (int) buffer.getLong(96);
+
+        this.files = new FileInfo[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            int record = filesOffset + i * FILE_RECORD_SIZE;
+            files[i] = new FileInfo(
+                    readString(buffer.getInt(record)),
+                    readString(buffer.getInt(record + 4)),
+                    buffer.getLong(record + 8),
+                    buffer.getLong(record + 16));
+        }
+        this.metadata = new MetadataColumns(files, docCount, docId -> buffer.getInt(docsOffset + docId * DOC_RECORD_SIZE));
+    }
+
+    /**
+     * Maps a segment file into memory.
+     *
+     * @param path The segment file.
+     * @return The opened segment.
+     * @throws IOException if the file cannot be read or is not a valid segment.
+     */
+    public static MappedSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new MappedSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid segment file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps a segment file into memory if it exists and was written for the given dataset state.
+     *
+     * @param path        The segment file.
+     * @param fingerprint The fingerprint of the current dataset.
+     * @return The opened segment, or null if it is missing, unreadable or stale.
+     */
+    public static MappedSegment openIfFresh(Path path, long fingerprint) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            MappedSegment segment = open(path);
+            return segment.fingerprint() == fingerprint ? segment : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the fingerprint of the dataset the segment was built from.
+     *
+     * @return The dataset fingerprint.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Indicates whether the posting lists of the segment store term positions.
+     *
+     * @return true for a positional segment.
+     */
+    public boolean isPositional() {
+        return positional;
+    }
+
+    @Override
+    public SegmentStats stats() {
+        long heapBytes = (long) files.length * FILE_OVERHEAD + (long) docCount * DOCUMENT_OVERHEAD;
+        return new SegmentStats("mapped", docCount, docCount, files.length, termCount, buffer.capacity() - postingsOffset,
+                nameCount, sizeCount, heapBytes, buffer.capacity());
+    }
+
+    @Override
+    public PostingList postings(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = termsOffset + mid * TERM_RECORD_SIZE;
+            int cmp = readString(buffer.getInt(record)).compareTo(term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                ByteBuffer encoded = buffer.slice(postingsOffset + buffer.getInt(record + 4), buffer.getInt(record + 8));
+                return new PostingList(encoded, buffer.getInt(record + 12), buffer.getInt(record + 16), buffer.getInt(record + 20), positional);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public TermDictionary contentTerms() {
+        return contentTerms;
+    }
+
+    @Override
+    public TermDictionary fileNames() {
+        return fileNames;
+    }
+
+    @Override
+    public DocumentTable documents() {
+        return documents;
+    }
+
+    @Override
+    public boolean isLive(int docId) {
+        return true;
+    }
+
+    @Override
+    public MetadataColumns metadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean isLiveFile(int fileOrdinal) {
+        return true;
+    }
+
+    @Override
+    public int[] documentsOf(String path) {
+        BitSet ordinals = new BitSet();
+        for (int ordinal = 0; ordinal < files.length; ordinal++) {
+            if (files[ordinal].getPath().equals(path)) {
+                ordinals.set(ordinal);
+            }
+        }
+        if (ordinals.isEmpty()) {
+            return new int[0];
+        }
+        return IntStream.range(0, docCount)
+                .filter(docId -> ordinals.get(buffer.getInt(docsOffset + docId * DOC_RECORD_SIZE)))
+                .toArray();
+    }
+
+    @Override
+    public List<FileInfo> filesByName(String name) {
+        int low = 0;
+        int high = nameCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = namesOffset + mid * NAME_RECORD_SIZE;
+            int cmp = readString(buffer.getInt(record)).compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                int ordinals = namesOffset + nameCount * NAME_RECORD_SIZE;
+                return readFiles(ordinals, buffer.getInt(record + 4), buffer.getInt(record + 8));
+            }
+        }
+        return List.of();
+    }
+
+    @Override
+    public List<FileInfo> filesBySize(Long minSize, Long maxSize) {
+        long from = minSize != null ? minSize : Long.MIN_VALUE;
+        long to = maxSize != null ? maxSize : Long.MAX_VALUE;
+
+        // Lower bound: first size record >= from
+        int low = 0;
+        int high = sizeCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(sizesOffset + mid * SIZE_RECORD_SIZE) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<FileInfo> result = new ArrayList<>();
+        int ordinals = sizesOffset + sizeCount * SIZE_RECORD_SIZE;
+        for (int i = low; i < sizeCount; i++) {
+            int record = sizesOffset + i * SIZE_RECORD_SIZE;
+            if (buffer.getLong(record) > to) {
+                break;
+            }
+            result.addAll(readFiles(ordinals, buffer.getInt(record + 8), buffer.getInt(record + 12)));
+        }
+        return result;
+    }
+
+    private List<FileInfo> readFiles(int ordinalsOffset, int first, int count) {
+        List<FileInfo> result = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            result.add(files[buffer.getInt(ordinalsOffset + i * Integer.BYTES)]);
+        }
+        return result;
+    }
+
+    private String readString(int reference) {
+        if (reference == NO_STRING) {
+            return null;
+        }
+        int position = stringsOffset + reference;
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Dictionary reading the key of the term or name records on demand.
+     */
+    private class RecordDictionary implements TermDictionary {
+
+        private final boolean terms;
+
+        private RecordDictionary(boolean terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public int size() {
+            return terms ? termCount : nameCount;
+        }
+
+        @Override
+        public String term(int ordinal) {
+            int record = terms ? termsOffset + ordinal * TERM_RECORD_SIZE : namesOffset + ordinal * NAME_RECORD_SIZE;
+            return readString(buffer.getInt(record));
+        }
+    }
+
+    /**
+     * Document table decoding fixed-size document records on demand.
+     */
+    private class MappedDocuments implements DocumentTable {
+
+        @Override
+        public FileInfo get(int docId) {
+            int record = docsOffset + docId * DOC_RECORD_SIZE;
+            FileInfo file = files[buffer.getInt(record)];
+            long offset = buffer.getLong(record + 8);
+            if (offset == WHOLE_FILE) {
+                return file;
+            }
+            long documentId = buffer.getLong(record + 24);
+            return new MessageInfo(file, offset, buffer.getLong(record + 16),
+                    documentId == NO_DOCUMENT_ID ? null : documentId,
+                    readString(buffer.getInt(record + 32)));
+        }
+
+        @Override
+        public int length(int docId) {
+            return buffer.getInt(docsOffset + docId * DOC_RECORD_SIZE + 4);
+        }
+
+        @Override
+        public double averageLength() {
+            return docCount == 0 ? 0 : (double) totalDocLength / docCount;
+        }
+
+        @Override
+        public int size() {
+            return docCount;
+        }
+    }
+}
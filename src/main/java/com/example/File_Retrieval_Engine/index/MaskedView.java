@@ -0,0 +1,167 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.archive.Archives;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable segment together with the files removed from it since it was built.
+ * Removing files returns a new view, so a published index generation never changes.
+ */
+public class MaskedView implements IndexView {
+
+    private final IndexView base;
+    private final BitSet deletedDocs;
+    private final Set<String> deletedPaths;
+
+    /**
+     * Constructs a view of a segment from which nothing was removed.
+     *
+     * @param base The segment.
+     */
+    public MaskedView(IndexView base) {
+        this(base, new BitSet(), Set.of());
+    }
+
+    private MaskedView(IndexView base, BitSet deletedDocs, Set<String> deletedPaths) {
+        this.base = base;
+        this.deletedDocs = deletedDocs;
+        this.deletedPaths = deletedPaths;
+    }
+
+    /**
+     * Removes files from the view. Removing an archive removes every entry indexed from it.
+     *
+     * @param paths The paths of the files to remove.
+     * @return A view without the files, or this view if none of them was in it.
+     */
+    public MaskedView without(Collection<String> paths) {
+        BitSet docs = (BitSet) deletedDocs.clone();
+        Set<String> removed = new HashSet<>(deletedPaths);
+        boolean changed = false;
+        Set<String> archives = new HashSet<>();
+        for (String path : paths) {
+            if (Archives.isArchive(path)) {
+                archives.add(path);
+            }
+            if (!removed.contains(path) && containsFile(path)) {
+                remove(path, removed, docs);
+                changed = true;
+            }
+        }
+        if (!archives.isEmpty()) {
+            // The path of an archive stands for every entry indexed from it
+            MetadataColumns metadata = base.metadata();
+            for (int ordinal = 0; ordinal < metadata.fileCount(); ordinal++) {
+                String path = metadata.file(ordinal).getPath();
+                if (archives.contains(Archives.fileOf(path)) && !removed.contains(path)) {
+                    remove(path, removed, docs);
+                    changed = true;
+                }
+            }
+        }
+        return changed ? new MaskedView(base, docs, Set.copyOf(removed)) : this;
+    }
+
+    private void remove(String path, Set<String> removed, BitSet docs) {
+        removed.add(path);
+        for (int docId : base.documentsOf(path)) {
+            docs.set(docId);
+        }
+    }
+
+    private boolean containsFile(String path) {
+        if (base.documentsOf(path).length > 0) {
+            return true;
+        }
+        // Files without content are only listed in the name and size indexes
+        String name = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+        return base.filesByName(name).stream().anyMatch(file -> file.getPath().equals(path))
+                || base.filesBySize(null, null).stream().anyMatch(file -> file.getPath().equals(path));
+    }
+
+    /**
+     * Gets the segment under the view.
+     *
+     * @return The segment.
+     */
+    public IndexView getBase() {
+        return base;
+    }
+
+    /**
+     * Gets the number of removed documents still present in the segment.
+     *
+     * @return The number of deleted documents.
+     */
+    public int deletedDocCount() {
+        return deletedDocs.cardinality();
+    }
+
+    @Override
+    public PostingList postings(String term) {
+        return base.postings(term);
+    }
+
+    @Override
+    public SegmentStats stats() {
+        return base.stats().withDeleted(deletedDocCount());
+    }
+
+    @Override
+    public TermDictionary contentTerms() {
+        return base.contentTerms();
+    }
+
+    @Override
+    public TermDictionary fileNames() {
+        return base.fileNames();
+    }
+
+    @Override
+    public DocumentTable documents() {
+        return base.documents();
+    }
+
+    @Override
+    public boolean isLive(int docId) {
+        return !deletedDocs.get(docId) && base.isLive(docId);
+    }
+
+    @Override
+    public MetadataColumns metadata() {
+        return base.metadata();
+    }
+
+    @Override
+    public boolean isLiveFile(int fileOrdinal) {
+        return !deletedPaths.contains(base.metadata().file(fileOrdinal).getPath()) && base.isLiveFile(fileOrdinal);
+    }
+
+    @Override
+    public int[] documentsOf(String path) {
+        return deletedPaths.contains(path) ? new int[0] : base.documentsOf(path);
+    }
+
+    @Override
+    public List<FileInfo> filesByName(String name) {
+        return live(base.filesByName(name));
+    }
+
+    @Override
+    public List<FileInfo> filesBySize(Long minSize, Long maxSize) {
+        return live(base.filesBySize(minSize, maxSize));
+    }
+
+    private List<FileInfo> live(List<FileInfo> files) {
+        if (deletedPaths.isEmpty()) {
+            return files;
+        }
+        return files.stream().filter(file -> !deletedPaths.contains(file.getPath())).toList();
+    }
+}
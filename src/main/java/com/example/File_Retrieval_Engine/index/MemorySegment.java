@@ -0,0 +1,220 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable in-memory index segment, produced by an index build or by compacting other segments.
+ * Once constructed nothing modifies it, so searches read it without any locking.
+ */
+public class MemorySegment implements IndexView {
+
+    // Rough heap sizes of the objects held per term, document, file and name or size entry
+    private static final int TERM_OVERHEAD = 136;
+    private static final int DOCUMENT_OVERHEAD = 120;
+    private static final int FILE_OVERHEAD = 200;
+    private static final int ENTRY_OVERHEAD = 80;
+
+    private final NavigableMap<String, PostingList> postings;
+    private final DocIdTable documents;
+    private final NavigableMap<String, List<FileInfo>> names;
+    private final NavigableMap<Long, List<FileInfo>> sizes;
+    private final Map<String, int[]> documentsByPath = new HashMap<>();
+    private final TermDictionary contentTerms;
+    private final TermDictionary fileNames;
+    private final MetadataColumns metadata;
+
+    private MemorySegment(NavigableMap<String, PostingList> postings, DocIdTable documents,
+                          NavigableMap<String, List<FileInfo>> names, NavigableMap<Long, List<FileInfo>> sizes) {
+        this.postings = Collections.unmodifiableNavigableMap(postings);
+        this.documents = documents;
+        this.names = Collections.unmodifiableNavigableMap(names);
+        this.sizes = Collections.unmodifiableNavigableMap(sizes);
+        this.contentTerms = TermDictionary.of(postings.keySet().toArray(String[]::new));
+        this.fileNames = TermDictionary.of(names.keySet().toArray(String[]::new));
+
+        Set<FileInfo> files = new LinkedHashSet<>();
+        sizes.values().forEach(files::addAll);
+        names.values().forEach(files::addAll);
+        Map<String, List<Integer>> docIds = new HashMap<>();
+        for (int docId = 0; docId < documents.size(); docId++) {
+            files.add(documents.get(docId).getFile());
+            docIds.computeIfAbsent(documents.get(docId).getPath(), path -> new ArrayList<>()).add(docId);
+        }
+        FileInfo[] fileTable = files.toArray(FileInfo[]::new);
+        Map<FileInfo, Integer> fileOrdinals = new IdentityHashMap<>();
+        for (int ordinal = 0; ordinal < fileTable.length; ordinal++) {
+            fileOrdinals.put(fileTable[ordinal], ordinal);
+        }
+        int[] docFiles = new int[documents.size()];
+        for (int docId = 0; docId < documents.size(); docId++) {
+            docFiles[docId] = fileOrdinals.get(documents.get(docId).getFile());
+        }
+        this.metadata = new MetadataColumns(fileTable, docFiles.length, docId -> docFiles[docId]);
+        docIds.forEach((path, ids) -> documentsByPath.put(path, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Builds a segment from the thread-local segments of an index build.
+     * The documents of each local segment get consecutive doc ids, in list order.
+     *
+     * @param segments The local segments, no longer modified.
+     * @param merger   The merger combining their posting lists.
+     * @return The merged segment.
+     */
+    public static MemorySegment merge(List<LocalSegment> segments, SegmentMerger merger) {
+        DocIdTable documents = new DocIdTable();
+        int[] docIdBases = new int[segments.size()];
+        TreeMap<String, List<FileInfo>> names = new TreeMap<>();
+        TreeMap<Long, List<FileInfo>> sizes = new TreeMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            LocalSegment segment = segments.get(i);
+            docIdBases[i] = documents.registerAll(segment.getDocuments());
+            segment.getNames().forEach((name, files) -> names.computeIfAbsent(name, n -> new ArrayList<>()).addAll(files));
+            segment.getSizes().forEach((size, files) -> sizes.computeIfAbsent(size, s -> new ArrayList<>()).addAll(files));
+        }
+        return new MemorySegment(merger.mergePostings(segments, docIdBases), documents, names, sizes);
+    }
+
+    /**
+     * Compacts several segments into one holding only their live documents and files.
+     * Doc ids are renumbered, so the posting lists are rewritten posting by posting.
+     *
+     * @param segments The segments to compact, each masked by its deletions.
+     * @return The compacted segment.
+     */
+    public static MemorySegment compact(List<MaskedView> segments) {
+        DocIdTable documents = new DocIdTable();
+        TreeMap<String, PostingList> postings = new TreeMap<>();
+        TreeMap<String, List<FileInfo>> names = new TreeMap<>();
+        TreeMap<Long, List<FileInfo>> sizes = new TreeMap<>();
+        for (MaskedView segment : segments) {
+            MemorySegment base = (MemorySegment) segment.getBase();
+            int[] newDocIds = new int[base.documents.size()];
+            for (int docId = 0; docId < newDocIds.length; docId++) {
+                newDocIds[docId] = segment.isLive(docId)
+                        ? documents.register(base.documents.get(docId), base.documents.length(docId))
+                        : -1;
+            }
+            base.postings.forEach((term, postingList) -> {
+                PostingList.Cursor cursor = postingList.cursor();
+                while (cursor.next()) {
+                    int docId = newDocIds[cursor.docId()];
+                    if (docId >= 0) {
+                        postings.computeIfAbsent(term, t -> new PostingList(postingList.isPositional()))
+                                .add(docId, cursor, documents.length(docId));
+                    }
+                }
+            });
+            base.names.keySet().forEach(name -> names.computeIfAbsent(name, n -> new ArrayList<>()).addAll(segment.filesByName(name)));
+            for (FileInfo file : segment.filesBySize(null, null)) {
+                sizes.computeIfAbsent(file.getSize(), size -> new ArrayList<>()).add(file);
+            }
+        }
+        postings.values().forEach(PostingList::trim);
+        names.values().removeIf(List::isEmpty);
+        return new MemorySegment(postings, documents, names, sizes);
+    }
+
+    /**
+     * Gets the posting lists of the segment, for writing it to a segment file.
+     *
+     * @return The posting lists by term.
+     */
+    public SortedMap<String, PostingList> getPostings() {
+        return postings;
+    }
+
+    public SortedMap<String, List<FileInfo>> getNames() {
+        return names;
+    }
+
+    public SortedMap<Long, List<FileInfo>> getSizes() {
+        return sizes;
+    }
+
+    @Override
+    public PostingList postings(String term) {
+        return postings.get(term);
+    }
+
+    @Override
+    public SegmentStats stats() {
+        long postingBytes = 0;
+        long termBytes = 0;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            postingBytes += entry.getValue().byteSize();
+            termBytes += TERM_OVERHEAD + entry.getKey().length();
+        }
+        long heapBytes = postingBytes + termBytes
+                + (long) documents.size() * DOCUMENT_OVERHEAD
+                + (long) metadata.fileCount() * FILE_OVERHEAD
+                + (long) (names.size() + sizes.size()) * ENTRY_OVERHEAD;
+        return new SegmentStats("memory", documents.size(), documents.size(), metadata.fileCount(), postings.size(),
+                postingBytes, names.size(), sizes.size(), heapBytes, 0);
+    }
+
+    @Override
+    public TermDictionary contentTerms() {
+        return contentTerms;
+    }
+
+    @Override
+    public TermDictionary fileNames() {
+        return fileNames;
+    }
+
+    @Override
+    public DocumentTable documents() {
+        return documents;
+    }
+
+    @Override
+    public boolean isLive(int docId) {
+        return true;
+    }
+
+    @Override
+    public MetadataColumns metadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean isLiveFile(int fileOrdinal) {
+        return true;
+    }
+
+    @Override
+    public int[] documentsOf(String path) {
+        return documentsByPath.getOrDefault(path, new int[0]).clone();
+    }
+
+    @Override
+    public List<FileInfo> filesByName(String name) {
+        return names.getOrDefault(name, List.of());
+    }
+
+    @Override
+    public List<FileInfo> filesBySize(Long minSize, Long maxSize) {
+        long from = minSize != null ? minSize : Long.MIN_VALUE;
+        long to = maxSize != null ? maxSize : Long.MAX_VALUE;
+        if (from > to) {
+            return List.of();
+        }
+        return sizes.subMap(from, true, to, true)
+                .values().stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Column store of the file metadata of a segment, addressed by file ordinal.
+ * <p>
+ * Sizes and modification times are kept as primitive columns, each with a copy sorted by value and
+ * the file ordinals in that order, so a range filter is two binary searches followed by one bit per
+ * match. File types are dictionary-encoded: each distinct lowercase type holds the sorted ordinals of
+ * its files. Filters return bitsets of file ordinals, which combine with AND and test documents
+ * through {@link #fileOf(int)}. The sorted doc ids of each file are kept too, so that a selective
+ * file filter can list the documents it matches.
+ */
+public class MetadataColumns {
+
+    private final FileInfo[] files;
+    private final Map<FileInfo, Integer> ordinals = new IdentityHashMap<>();
+    private final IntUnaryOperator fileOfDoc;
+    private final int[] docOffsets;
+    private final int[] docsByFile;
+    private final long[] sortedSizes;
+    private final int[] filesBySize;
+    private final long[] sortedModifications;
+    private final int[] filesByModification;
+    private final String[] types;
+    private final int[][] filesByType;
+
+    /**
+     * Builds the columns of a segment.
+     *
+     * @param files     The files of the segment, each with its ordinal as index.
+     * @param docCount  The number of documents of the segment.
+     * @param fileOfDoc Gives the ordinal of the file of each document of the segment.
+     */
+    public MetadataColumns(FileInfo[] files, int docCount, IntUnaryOperator fileOfDoc) {
+        this.files = files;
+        this.fileOfDoc = fileOfDoc;
+        for (int ordinal = 0; ordinal < files.length; ordinal++) {
+            ordinals.put(files[ordinal], ordinal);
+        }
+
+        // Doc ids grouped by file: the documents of file f are docsByFile[docOffsets[f]..docOffsets[f + 1])
+        this.docOffsets = new int[files.length + 1];
+        for (int docId = 0; docId < docCount; docId++) {
+            docOffsets[fileOfDoc.applyAsInt(docId) + 1]++;
+        }
+        for (int ordinal = 0; ordinal < files.length; ordinal++) {
+            docOffsets[ordinal + 1] += docOffsets[ordinal];
+        }
+        this.docsByFile = new int[docCount];
+        int[] next = Arrays.copyOf(docOffsets, files.length);
+        for (int docId = 0; docId < docCount; docId++) {
+            docsByFile[next[fileOfDoc.applyAsInt(docId)]++] = docId;
+        }
+
+        long[] sizes = new long[files.length];
+        long[] modifications = new long[files.length];
+        String[] fileTypes = new String[files.length];
+        for (int ordinal = 0; ordinal < files.length; ordinal++) {
+            sizes[ordinal] = files[ordinal].getSize();
+            modifications[ordinal] = files[ordinal].getLast_modification();
+            fileTypes[ordinal] = files[ordinal].getType().toLowerCase(Locale.ROOT);
+        }
+        this.filesBySize = sortedOrdinals(sizes);
+        this.sortedSizes = Arrays.stream(filesBySize).mapToLong(ordinal -> sizes[ordinal]).toArray();
+        this.filesByModification = sortedOrdinals(modifications);
+        this.sortedModifications = Arrays.stream(filesByModification).mapToLong(ordinal -> modifications[ordinal]).toArray();
+
+        this.types = new TreeSet<>(Arrays.asList(fileTypes)).toArray(String[]::new);
+        this.filesByType = new int[types.length][];
+        for (int type = 0; type < types.length; type++) {
+            String value = types[type];
+            filesByType[type] = IntStream.range(0, files.length).filter(ordinal -> fileTypes[ordinal].equals(value)).toArray();
+        }
+    }
+
+    private static int[] sortedOrdinals(long[] values) {
+        return IntStream.range(0, values.length)
+                .boxed()
+                .sorted(Comparator.comparingLong(ordinal -> values[ordinal]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Gets the number of files.
+     *
+     * @return The number of file ordinals.
+     */
+    public int fileCount() {
+        return files.length;
+    }
+
+    /**
+     * Gets a file by its ordinal.
+     *
+     * @param ordinal The file ordinal.
+     * @return The file.
+     */
+    public FileInfo file(int ordinal) {
+        return files[ordinal];
+    }
+
+    /**
+     * Gets the ordinal of a file of the segment.
+     *
+     * @param file The file, as returned by the segment.
+     * @return The ordinal, or -1 if the file does not belong to the segment.
+     */
+    public int ordinalOf(FileInfo file) {
+        return ordinals.getOrDefault(file, -1);
+    }
+
+    /**
+     * Gets the ordinal of the file a document belongs to.
+     *
+     * @param docId The document id.
+     * @return The file ordinal.
+     */
+    public int fileOf(int docId) {
+        return fileOfDoc.applyAsInt(docId);
+    }
+
+    /**
+     * Counts the documents of a set of files.
+     *
+     * @param fileOrdinals The file ordinals.
+     * @return The number of documents (whole files or messages) they hold.
+     */
+    public int documentCount(BitSet fileOrdinals) {
+        int count = 0;
+        for (int ordinal = fileOrdinals.nextSetBit(0); ordinal >= 0; ordinal = fileOrdinals.nextSetBit(ordinal + 1)) {
+            count += docOffsets[ordinal + 1] - docOffsets[ordinal];
+        }
+        return count;
+    }
+
+    /**
+     * Lists the documents of a set of files.
+     *
+     * @param fileOrdinals The file ordinals.
+     * @return The sorted doc ids of their documents.
+     */
+    public int[] documentsOf(BitSet fileOrdinals) {
+        int[] docIds = new int[documentCount(fileOrdinals)];
+        int n = 0;
+        for (int ordinal = fileOrdinals.nextSetBit(0); ordinal >= 0; ordinal = fileOrdinals.nextSetBit(ordinal + 1)) {
+            int length = docOffsets[ordinal + 1] - docOffsets[ordinal];
+            System.arraycopy(docsByFile, docOffsets[ordinal], docIds, n, length);
+            n += length;
+        }
+        Arrays.sort(docIds);
+        return docIds;
+    }
+
+    /**
+     * Lists the documents of a set of files a block at a time, merging the sorted documents of each
+     * file in doc id order rather than sorting them all up front.
+     *
+     * @param fileOrdinals The file ordinals.
+     * @param after        The doc id to list the documents after, or -1 for all of them.
+     * @return A function listing the next sorted doc ids, at most as many as it is given, and none once
+     * every document is listed.
+     */
+    public IntFunction<int[]> documentsOf(BitSet fileOrdinals, int after) {
+        int[] positions = new int[files.length];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Comparator.comparingInt(ordinal -> docsByFile[positions[ordinal]]));
+        for (int ordinal = fileOrdinals.nextSetBit(0); ordinal >= 0; ordinal = fileOrdinals.nextSetBit(ordinal + 1)) {
+            int position = Arrays.binarySearch(docsByFile, docOffsets[ordinal], docOffsets[ordinal + 1], after + 1);
+            positions[ordinal] = position >= 0 ? position : -position - 1;
+            if (positions[ordinal] < docOffsets[ordinal + 1]) {
+                heads.add(ordinal);
+            }
+        }
+        return max -> {
+            int[] docIds = new int[Math.min(max, docsByFile.length)];
+            int n = 0;
+            while (n < docIds.length && !heads.isEmpty()) {
+                int ordinal = heads.poll();
+                docIds[n++] = docsByFile[positions[ordinal]++];
+                if (positions[ordinal] < docOffsets[ordinal + 1]) {
+                    heads.add(ordinal);
+                }
+            }
+            return n == docIds.length ? docIds : Arrays.copyOf(docIds, n);
+        };
+    }
+
+    /**
+     * Finds the files whose size lies in a range.
+     *
+     * @param minSize The minimum size in bytes, or null for no lower bound.
+     * @param maxSize The maximum size in bytes, or null for no upper bound.
+     * @return The ordinals of the matching files.
+     */
+    public BitSet sizeBetween(Long minSize, Long maxSize) {
+        return range(sortedSizes, filesBySize,
+                minSize != null ? minSize : Long.MIN_VALUE, maxSize != null ? maxSize : Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the files last modified in a half-open time range.
+     *
+     * @param from  The first included time in milliseconds, or null for no lower bound.
+     * @param until The first excluded time in milliseconds, or null for no upper bound.
+     * @return The ordinals of the matching files.
+     */
+    public BitSet modifiedBetween(Long from, Long until) {
+        if (until != null && until == Long.MIN_VALUE) {
+            return new BitSet();
+        }
+        return range(sortedModifications, filesByModification,
+                from != null ? from : Long.MIN_VALUE, until != null ? until - 1 : Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the files of a type.
+     *
+     * @param type The file type (extension), in any case.
+     * @return The ordinals of the matching files.
+     */
+    public BitSet ofType(String type) {
+        BitSet matches = new BitSet(files.length);
+        int index = Arrays.binarySearch(types, type.toLowerCase(Locale.ROOT));
+        if (index >= 0) {
+            for (int ordinal : filesByType[index]) {
+                matches.set(ordinal);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Sets the ordinals of the values within [from, to], from the first value >= from to the last value <= to.
+     */
+    private BitSet range(long[] sortedValues, int[] ordinalsByValue, long from, long to) {
+        BitSet matches = new BitSet(files.length);
+        for (int i = lowerBound(sortedValues, from); i < sortedValues.length && sortedValues[i] <= to; i++) {
+            matches.set(ordinalsByValue[i]);
+        }
+        return matches;
+    }
+
+    private static int lowerBound(long[] sortedValues, long key) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedValues[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,489 @@
+package com.example.File_Retrieval_Engine.index;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed posting list of a single term.
+ * Postings are kept sorted by doc id and stored as (doc id delta, term frequency) pairs,
+ * both variable-byte encoded, so a posting usually costs two bytes instead of a boxed map entry.
+ * Postings must be appended in increasing doc id order.
+ * <p>
+ * A positional list also stores the positions of the term in each document, after its frequency:
+ * the byte length of the positions, then the positions as variable-byte gaps. The length lets a cursor
+ * skip the positions of every posting it does not ask them for, so doc id and frequency scans cost
+ * about the same as on a list without positions.
+ * <p>
+ * A list is either built on the heap through {@link #add}, or opened read-only over encoded postings
+ * stored elsewhere, such as a memory-mapped segment file.
+ */
+public class PostingList {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final boolean positional;
+    private byte[] data;
+    private ByteBuffer encoded;
+    private int length;
+    private int size;
+    private int lastDocId = -1;
+    private int maxFrequency;
+    private int minDocLength = Integer.MAX_VALUE;
+
+    /**
+     * Constructs an empty list without positions, to be filled through {@link #add}.
+     */
+    public PostingList() {
+        this(false);
+    }
+
+    /**
+     * Constructs an empty list to be filled through {@link #add}.
+     *
+     * @param positional Whether the list stores the positions of the term.
+     */
+    public PostingList(boolean positional) {
+        this.positional = positional;
+        this.data = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Opens a read-only list over already encoded postings.
+     *
+     * @param encoded      The encoded postings, from index 0 to the buffer limit.
+     * @param size         The number of postings.
+     * @param maxFrequency The highest term frequency in the list.
+     * @param minDocLength The length of the shortest document in the list.
+     * @param positional   Whether the postings include positions.
+     */
+    public PostingList(ByteBuffer encoded, int size, int maxFrequency, int minDocLength, boolean positional) {
+        this.positional = positional;
+        this.encoded = encoded;
+        this.length = encoded.limit();
+        this.size = size;
+        this.maxFrequency = maxFrequency;
+        this.minDocLength = minDocLength;
+    }
+
+    /**
+     * Appends a posting to the end of the list.
+     *
+     * @param docId     The document id, greater than every id already in the list.
+     * @param frequency The number of occurrences of the term in the document.
+     * @param docLength The number of tokens in the document, tracked for score upper bounds.
+     */
+    public void add(int docId, int frequency, int docLength) {
+        if (positional) {
+            throw new IllegalStateException("A positional list needs the positions of the term");
+        }
+        appendHeader(docId, frequency, docLength, 0);
+    }
+
+    /**
+     * Appends a posting with the positions of the term in the document.
+     * A list without positions only keeps their number.
+     *
+     * @param docId     The document id, greater than every id already in the list.
+     * @param positions The sorted positions of the term in the document.
+     * @param docLength The number of tokens in the document, tracked for score upper bounds.
+     */
+    public void add(int docId, int[] positions, int docLength) {
+        add(docId, positions, 0, positions.length, docLength);
+    }
+
+    /**
+     * Appends a posting with the positions of the term in the document, read from a range of an array.
+     * A list without positions only keeps their number.
+     *
+     * @param docId     The document id, greater than every id already in the list.
+     * @param positions The array holding the sorted positions of the term in the document.
+     * @param from      The start of the positions in the array.
+     * @param to        The end of the positions in the array, exclusive.
+     * @param docLength The number of tokens in the document, tracked for score upper bounds.
+     */
+    public void add(int docId, int[] positions, int from, int to, int docLength) {
+        if (!positional) {
+            appendHeader(docId, to - from, docLength, 0);
+            return;
+        }
+        int positionsLength = 0;
+        for (int i = from; i < to; i++) {
+            positionsLength += VByte.size(i == from ? positions[from] : positions[i] - positions[i - 1]);
+        }
+        appendHeader(docId, to - from, docLength, VByte.MAX_BYTES + positionsLength);
+        length = VByte.write(positionsLength, data, length);
+        for (int i = from; i < to; i++) {
+            length = VByte.write(i == from ? positions[from] : positions[i] - positions[i - 1], data, length);
+        }
+    }
+
+    /**
+     * Appends the posting a cursor of another list with the same format is on, under a new doc id.
+     * Positions are copied without being decoded.
+     *
+     * @param docId     The document id, greater than every id already in the list.
+     * @param source    The cursor on the posting to copy.
+     * @param docLength The number of tokens in the document, tracked for score upper bounds.
+     */
+    public void add(int docId, Cursor source, int docLength) {
+        if (source.positional != positional) {
+            throw new IllegalArgumentException("Cannot copy postings between lists with and without positions");
+        }
+        int positionsLength = source.position - source.positionsStart;
+        appendHeader(docId, source.frequency(), docLength, positionsLength);
+        source.data.get(source.positionsStart, data, length, positionsLength);
+        length += positionsLength;
+    }
+
+    /**
+     * Writes the doc id delta and frequency of a new posting, leaving room for the given number of bytes after them.
+     */
+    private void appendHeader(int docId, int frequency, int docLength, int extra) {
+        if (encoded != null) {
+            throw new UnsupportedOperationException("Cannot append to a read-only posting list");
+        }
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Doc ids must be appended in increasing order: " + docId + " after " + lastDocId);
+        }
+        ensureCapacity(2 * VByte.MAX_BYTES + extra);
+        length = VByte.write(docId - lastDocId - 1, data, length);
+        length = VByte.write(frequency, data, length);
+        lastDocId = docId;
+        maxFrequency = Math.max(maxFrequency, frequency);
+        minDocLength = Math.min(minDocLength, docLength);
+        size++;
+    }
+
+    /**
+     * Appends all postings of another list, shifting their doc ids.
+     * Only the first doc id delta has to be re-encoded; the other postings are copied as they are.
+     *
+     * @param other       The list to append.
+     * @param docIdOffset The value added to the doc ids of the other list, which must then all be
+     *                    greater than every id already in this list.
+     */
+    public void addAll(PostingList other, int docIdOffset) {
+        if (encoded != null) {
+            throw new UnsupportedOperationException("Cannot append to a read-only posting list");
+        }
+        if (other.positional != positional) {
+            throw new IllegalArgumentException("Cannot merge lists with and without positions");
+        }
+        if (other.size == 0) {
+            return;
+        }
+        ByteBuffer source = other.encoded();
+        Cursor cursor = new Cursor(source, positional);
+        cursor.next();
+        int firstDocId = cursor.docId() + docIdOffset;
+        if (firstDocId <= lastDocId) {
+            throw new IllegalArgumentException("Doc ids must be appended in increasing order: " + firstDocId + " after " + lastDocId);
+        }
+        int remaining = source.limit() - cursor.positionsStart;
+        ensureCapacity(2 * VByte.MAX_BYTES + remaining);
+        length = VByte.write(firstDocId - lastDocId - 1, data, length);
+        length = VByte.write(cursor.frequency(), data, length);
+        source.get(cursor.positionsStart, data, length, remaining);
+        length += remaining;
+        lastDocId = other.lastDocId() + docIdOffset;
+        maxFrequency = Math.max(maxFrequency, other.maxFrequency);
+        minDocLength = Math.min(minDocLength, other.minDocLength);
+        size += other.size;
+    }
+
+    /**
+     * Indicates whether the list stores the positions of the term.
+     *
+     * @return true for a positional list.
+     */
+    public boolean isPositional() {
+        return positional;
+    }
+
+    /**
+     * Gets the number of documents in the list (the document frequency of the term).
+     *
+     * @return The number of postings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the highest term frequency in the list.
+     *
+     * @return The maximum frequency.
+     */
+    public int maxFrequency() {
+        return maxFrequency;
+    }
+
+    /**
+     * Gets the length of the shortest document in the list.
+     *
+     * @return The minimum document length.
+     */
+    public int minDocLength() {
+        return minDocLength;
+    }
+
+    /**
+     * Gets the number of bytes used by the encoded postings.
+     *
+     * @return The encoded size in bytes.
+     */
+    public int byteSize() {
+        return length;
+    }
+
+    /**
+     * Releases the spare capacity of the underlying buffer.
+     */
+    public void trim() {
+        if (encoded == null && data.length != length) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+
+    /**
+     * Opens a cursor positioned before the first posting.
+     *
+     * @return A new cursor over this list.
+     */
+    public Cursor cursor() {
+        return new Cursor(encoded(), positional);
+    }
+
+    /**
+     * Gets the encoded postings.
+     *
+     * @return A read-only buffer holding the encoded postings from index 0 to its limit.
+     */
+    public ByteBuffer encoded() {
+        return encoded != null ? encoded.duplicate() : ByteBuffer.wrap(data, 0, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Decodes all doc ids of the list.
+     *
+     * @return The sorted doc ids.
+     */
+    public int[] docIds() {
+        int[] docIds = new int[size];
+        Cursor cursor = cursor();
+        for (int i = 0; cursor.next(); i++) {
+            docIds[i] = cursor.docId();
+        }
+        return docIds;
+    }
+
+    /**
+     * Copies the postings of the documents accepted by a predicate into a new list.
+     *
+     * @param keep      Predicate selecting the doc ids to keep.
+     * @param documents The document table providing document lengths.
+     * @return A new, trimmed list; empty if no posting was kept.
+     */
+    public PostingList retain(IntPredicate keep, DocumentTable documents) {
+        PostingList retained = new PostingList(positional);
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (keep.test(cursor.docId())) {
+                retained.add(cursor.docId(), cursor, documents.length(cursor.docId()));
+            }
+        }
+        retained.trim();
+        return retained;
+    }
+
+    /**
+     * Merges several posting lists into one without positions, as if their terms were a single term:
+     * the frequency of a document is the sum of its frequencies in the lists containing it.
+     *
+     * @param lists The posting lists to merge.
+     * @return A new, trimmed list of every doc id present in any of the lists.
+     */
+    public static PostingList union(List<PostingList> lists) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, lists.size()), Comparator.comparingInt(Cursor::docId));
+        int minDocLength = Integer.MAX_VALUE;
+        for (PostingList list : lists) {
+            Cursor cursor = list.cursor();
+            if (cursor.next()) {
+                cursors.add(cursor);
+                minDocLength = Math.min(minDocLength, list.minDocLength());
+            }
+        }
+
+        PostingList union = new PostingList();
+        while (!cursors.isEmpty()) {
+            int docId = cursors.peek().docId();
+            int frequency = 0;
+            while (!cursors.isEmpty() && cursors.peek().docId() == docId) {
+                Cursor cursor = cursors.poll();
+                frequency += cursor.frequency();
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+            union.add(docId, frequency, minDocLength); // Document lengths are unknown here; the smallest bounds them all
+        }
+        union.trim();
+        return union;
+    }
+
+    /**
+     * Intersects several posting lists, decoding the shortest one and probing the others with cursors.
+     *
+     * @param lists The posting lists to intersect.
+     * @return The sorted doc ids present in every list.
+     */
+    public static int[] intersect(List<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        List<PostingList> ordered = new ArrayList<>(lists);
+        ordered.sort(Comparator.comparingInt(PostingList::size));
+
+        int[] candidates = ordered.getFirst().docIds();
+        int count = candidates.length;
+        for (int i = 1; i < ordered.size() && count > 0; i++) {
+            Cursor cursor = ordered.get(i).cursor();
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (!cursor.advance(candidates[j])) {
+                    break;
+                }
+                if (cursor.docId() == candidates[j]) {
+                    candidates[kept++] = candidates[j];
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private int lastDocId() {
+        if (encoded == null) {
+            return lastDocId;
+        }
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            // Read-only lists do not track their last id
+        }
+        return cursor.docId();
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    /**
+     * Forward-only decoder over an encoded posting list.
+     * Positions are skipped unless {@link #positions()} is called.
+     */
+    public static class Cursor {
+
+        private final ByteBuffer data;
+        private final boolean positional;
+        private final int limit;
+        private int position;
+        private int positionsStart;
+        private int docId = -1;
+        private int frequency;
+        private boolean exhausted;
+
+        private Cursor(ByteBuffer data, boolean positional) {
+            this.data = data;
+            this.positional = positional;
+            this.limit = data.limit();
+        }
+
+        /**
+         * Moves to the next posting.
+         *
+         * @return false once the list is exhausted.
+         */
+        public boolean next() {
+            if (position >= limit) {
+                exhausted = true;
+                return false;
+            }
+            docId += readVInt() + 1;
+            frequency = readVInt();
+            positionsStart = position;
+            if (positional) {
+                int positionsLength = readVInt();
+                position += positionsLength;
+            }
+            return true;
+        }
+
+        /**
+         * Moves to the first posting whose doc id is greater than or equal to the target.
+         *
+         * @param target The doc id to advance to.
+         * @return false if no such posting exists.
+         */
+        public boolean advance(int target) {
+            if (exhausted) {
+                return false;
+            }
+            while (docId < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int docId() {
+            return docId;
+        }
+
+        public int frequency() {
+            return frequency;
+        }
+
+        /**
+         * Decodes the positions of the term in the current document.
+         *
+         * @return The sorted positions.
+         * @throws IllegalStateException if the list has no positions.
+         */
+        public int[] positions() {
+            if (!positional) {
+                throw new IllegalStateException("The posting list has no positions");
+            }
+            int end = position;
+            position = positionsStart;
+            readVInt();
+            int[] positions = new int[frequency];
+            int previous = 0;
+            for (int i = 0; i < frequency; i++) {
+                previous += readVInt();
+                positions[i] = previous;
+            }
+            position = end;
+            return positions;
+        }
+
+        private int readVInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.analysis.TermIdDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Merges the posting lists of the {@link LocalSegment}s of a build with a parallel k-way merge.
+ * <p>
+ * The segments get consecutive doc id ranges in list order, so the merged list of a term is the
+ * concatenation of the segments' lists in that order, each shifted by the base of its segment.
+ * The terms of every segment are sorted in parallel, the term space is cut into partitions at terms
+ * sampled from all segments, and each partition is merged independently through a heap of cursors.
+ * Segments identify terms by their id in the {@link TermIdDictionary}, so equal terms are found by id,
+ * and the String of a term, which sorting needs, is built once by the dictionary for every build.
+ */
+public class SegmentMerger {
+
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a merger.
+     *
+     * @param pool The pool sorting and merging the partitions.
+     */
+    public SegmentMerger(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Merges the posting lists of several segments.
+     *
+     * @param segments   The segments to merge.
+     * @param docIdBases The merged doc id of the first document of each segment, increasing in list order.
+     * @return The merged, trimmed posting lists by term.
+     */
+    public TreeMap<String, PostingList> mergePostings(List<LocalSegment> segments, int[] docIdBases) {
+        List<Callable<SortedTerms>> sorts = new ArrayList<>();
+        for (LocalSegment segment : segments) {
+            sorts.add(() -> SortedTerms.of(segment.termIds()));
+        }
+        List<SortedTerms> sortedTerms = join(pool.invokeAll(sorts));
+
+        String[] splitters = splitters(sortedTerms.stream().map(SortedTerms::terms).toList(),
+                pool.getParallelism() * PARTITIONS_PER_THREAD);
+        List<Callable<Partition>> merges = new ArrayList<>();
+        for (int p = 0; p <= splitters.length; p++) {
+            String lower = p > 0 ? splitters[p - 1] : null;
+            String upper = p < splitters.length ? splitters[p] : null;
+            merges.add(() -> mergePartition(segments, sortedTerms, docIdBases, lower, upper));
+        }
+
+        TreeMap<String, PostingList> merged = new TreeMap<>();
+        for (Partition partition : join(pool.invokeAll(merges))) {
+            for (int i = 0; i < partition.terms().length; i++) {
+                merged.put(partition.terms()[i], partition.lists()[i]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the terms in [lower, upper) of every segment; a null bound is unbounded.
+     */
+    private static Partition mergePartition(List<LocalSegment> segments, List<SortedTerms> sortedTerms,
+                                            int[] docIdBases, String lower, String upper) {
+        PriorityQueue<TermCursor> heap = new PriorityQueue<>(Math.max(1, segments.size()),
+                Comparator.comparing(TermCursor::term).thenComparingInt(TermCursor::segment));
+        for (int s = 0; s < segments.size(); s++) {
+            SortedTerms terms = sortedTerms.get(s);
+            int from = lower != null ? lowerBound(terms.terms(), lower) : 0;
+            int to = upper != null ? lowerBound(terms.terms(), upper) : terms.terms().length;
+            if (from < to) {
+                heap.add(new TermCursor(s, terms, from, to));
+            }
+        }
+
+        List<String> terms = new ArrayList<>();
+        List<PostingList> lists = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            String term = heap.peek().term();
+            int termId = heap.peek().termId();
+            PostingList merged = null;
+            // Equal terms come out in segment order, which is doc id order
+            while (!heap.isEmpty() && heap.peek().termId() == termId) {
+                TermCursor cursor = heap.poll();
+                PostingList postingList = segments.get(cursor.segment()).postings(termId);
+                if (merged == null) {
+                    merged = new PostingList(postingList.isPositional());
+                }
+                merged.addAll(postingList, docIdBases[cursor.segment()]);
+                if (++cursor.position < cursor.end) {
+                    heap.add(cursor);
+                }
+            }
+            merged.trim();
+            terms.add(term);
+            lists.add(merged);
+        }
+        return new Partition(terms.toArray(String[]::new), lists.toArray(PostingList[]::new));
+    }
+
+    /**
+     * Picks partition bounds among terms sampled evenly from every segment.
+     */
+    private static String[] splitters(List<String[]> sortedTerms, int partitions) {
+        TreeSet<String> samples = new TreeSet<>();
+        for (String[] terms : sortedTerms) {
+            int step = Math.max(1, terms.length / partitions);
+            for (int i = step; i < terms.length; i += step) {
+                samples.add(terms[i]);
+            }
+        }
+        String[] sampled = samples.toArray(String[]::new);
+        int count = Math.min(partitions - 1, sampled.length);
+        String[] splitters = new String[count];
+        for (int i = 0; i < count; i++) {
+            splitters[i] = sampled[(int) ((long) (i + 1) * sampled.length / (count + 1))];
+        }
+        return Arrays.stream(splitters).distinct().toArray(String[]::new);
+    }
+
+    private static int lowerBound(String[] terms, String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static <T> List<T> join(List<Future<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Segment merge failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Segment merge interrupted", e);
+            }
+        }
+        return results;
+    }
+
+    private record Partition(String[] terms, PostingList[] lists) {
+    }
+
+    /**
+     * The terms of one segment in term order, with their ids.
+     */
+    private record SortedTerms(String[] terms, int[] ids) {
+
+        static SortedTerms of(int[] termIds) {
+            TermIdDictionary dictionary = TermIdDictionary.getInstance();
+            Integer[] order = new Integer[termIds.length];
+            String[] unsorted = new String[termIds.length];
+            for (int i = 0; i < termIds.length; i++) {
+                order[i] = i;
+                unsorted[i] = dictionary.term(termIds[i]);
+            }
+            Arrays.sort(order, Comparator.comparing(i -> unsorted[i]));
+            String[] terms = new String[termIds.length];
+            int[] ids = new int[termIds.length];
+            for (int i = 0; i < order.length; i++) {
+                terms[i] = unsorted[order[i]];
+                ids[i] = termIds[order[i]];
+            }
+            return new SortedTerms(terms, ids);
+        }
+    }
+
+    /**
+     * Position in the sorted terms of one segment, within a partition.
+     */
+    private static class TermCursor {
+
+        private final int segment;
+        private final SortedTerms terms;
+        private final int end;
+        private int position;
+
+        private TermCursor(int segment, SortedTerms terms, int position, int end) {
+            this.segment = segment;
+            this.terms = terms;
+            this.position = position;
+            this.end = end;
+        }
+
+        private int segment() {
+            return segment;
+        }
+
+        private String term() {
+            return terms.terms()[position];
+        }
+
+        private int termId() {
+            return terms.ids()[position];
+        }
+    }
+}
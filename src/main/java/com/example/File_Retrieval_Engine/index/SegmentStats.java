@@ -0,0 +1,34 @@
+package com.example.File_Retrieval_Engine.index;
+
+/**
+ * Size statistics of an index segment, for sizing heaps.
+ * <p>
+ * Heap sizes are estimates from the number and typical size of the objects a segment holds on a
+ * 64-bit JVM with compressed references; mapped segments keep their terms, postings and documents
+ * off-heap in the page cache, reported as mapped bytes.
+ *
+ * @param kind          "memory" for an in-memory segment, "mapped" for a memory-mapped segment file.
+ * @param documents     The number of documents (whole files or messages), live or not.
+ * @param liveDocuments The number of documents not removed since the segment was built.
+ * @param files         The number of files.
+ * @param terms         The number of distinct content terms.
+ * @param postingBytes  The size of the encoded posting lists.
+ * @param names         The number of distinct file names.
+ * @param sizes         The number of distinct file sizes.
+ * @param heapBytes     The estimated heap used by the segment.
+ * @param mappedBytes   The size of the mapped segment file, 0 for an in-memory segment.
+ */
+public record SegmentStats(String kind, int documents, int liveDocuments, int files, int terms, long postingBytes,
+                           int names, int sizes, long heapBytes, long mappedBytes) {
+
+    /**
+     * Gets the statistics of the segment with some of its documents removed.
+     *
+     * @param deletedDocuments The number of removed documents.
+     * @return The statistics with fewer live documents.
+     */
+    public SegmentStats withDeleted(int deletedDocuments) {
+        return new SegmentStats(kind, documents, documents - deletedDocuments, files, terms, postingBytes,
+                names, sizes, heapBytes, mappedBytes);
+    }
+}
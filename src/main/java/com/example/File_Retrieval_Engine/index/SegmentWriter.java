@@ -0,0 +1,188 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Writes an in-memory index to a segment file that {@link MappedSegment} maps back at startup.
+ * The file is written next to its destination and moved into place once complete, so a crash
+ * while writing never leaves a truncated segment behind.
+ */
+public class SegmentWriter {
+
+    private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+    private final Map<FileInfo, Integer> fileOrdinals = new IdentityHashMap<>();
+    private final List<FileInfo> files = new ArrayList<>();
+
+    /**
+     * Writes a segment file.
+     *
+     * @param path         The destination file.
+     * @param fingerprint  The fingerprint of the dataset the index was built from.
+     * @param contentIndex The content index, sorted by term; its lists either all store positions or none does.
+     * @param documents    The documents referred to by the postings.
+     * @param nameIndex    The file name index, sorted by name.
+     * @param sizeIndex    The file size index, sorted by size.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path path, long fingerprint,
+                      SortedMap<String, PostingList> contentIndex, DocumentTable documents,
+                      SortedMap<String, List<FileInfo>> nameIndex, SortedMap<Long, List<FileInfo>> sizeIndex) throws IOException {
+        nameIndex.values().forEach(list -> list.forEach(this::fileOrdinal));
+        for (int docId = 0; docId < documents.size(); docId++) {
+            fileOrdinal(documents.get(docId).getFile());
+        }
+
+        ByteArrayOutputStream sections = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(sections);
+        long totalDocLength = 0;
+
+        // Files
+        long filesOffset = MappedSegment.HEADER_SIZE;
+        for (FileInfo file : files) {
+            out.writeInt(string(file.getName()));
+            out.writeInt(string(file.getPath()));
+            out.writeLong(file.getSize());
+            out.writeLong(file.getLast_modification());
+        }
+
+        // Documents
+        long docsOffset = filesOffset + out.size();
+        for (int docId = 0; docId < documents.size(); docId++) {
+            FileInfo document = documents.get(docId);
+            totalDocLength += documents.length(docId);
+            out.writeInt(fileOrdinals.get(document.getFile()));
+            out.writeInt(documents.length(docId));
+            if (document instanceof MessageInfo message) {
+                out.writeLong(message.getOffset());
+                out.writeLong(message.getLength());
+                out.writeLong(message.getDocumentId() != null ? message.getDocumentId() : MappedSegment.NO_DOCUMENT_ID);
+                out.writeInt(string(message.getSubject()));
+            } else {
+                out.writeLong(MappedSegment.WHOLE_FILE);
+                out.writeLong(document.getSize());
+                out.writeLong(MappedSegment.NO_DOCUMENT_ID);
+                out.writeInt(MappedSegment.NO_STRING);
+            }
+        }
+
+        // Terms
+        long termsOffset = filesOffset + out.size();
+        int postingsPosition = 0;
+        for (Map.Entry<String, PostingList> entry : contentIndex.entrySet()) {
+            PostingList postingList = entry.getValue();
+            out.writeInt(string(entry.getKey()));
+            out.writeInt(postingsPosition);
+            out.writeInt(postingList.byteSize());
+            out.writeInt(postingList.size());
+            out.writeInt(postingList.maxFrequency());
+            out.writeInt(postingList.minDocLength());
+            postingsPosition += postingList.byteSize();
+        }
+
+        // Names, then the file ordinals they point to
+        long namesOffset = filesOffset + out.size();
+        writeFileIndex(out, nameIndex, (name, o) -> o.writeInt(string(name)));
+
+        // Sizes, then the file ordinals they point to
+        long sizesOffset = filesOffset + out.size();
+        writeFileIndex(out, sizeIndex, (size, o) -> o.writeLong(size));
+
+        long stringsOffset = filesOffset + out.size();
+        long postingsOffset = stringsOffset + strings.size();
+        if (postingsOffset + postingsPosition > Integer.MAX_VALUE) {
+            throw new IOException("Index too large for a single segment");
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            file.writeInt(MappedSegment.MAGIC);
+            file.writeInt(MappedSegment.VERSION);
+            file.writeLong(fingerprint);
+            file.writeInt(files.size());
+            file.writeInt(documents.size());
+            file.writeInt(contentIndex.size());
+            file.writeInt(nameIndex.size());
+            file.writeInt(sizeIndex.size());
+            boolean positional = contentIndex.values().stream().anyMatch(PostingList::isPositional);
+            file.writeInt(positional ? MappedSegment.FLAG_POSITIONS : 0);
+            file.writeLong(totalDocLength);
+            file.writeLong(filesOffset);
+            file.writeLong(docsOffset);
+            file.writeLong(termsOffset);
+            file.writeLong(namesOffset);
+            file.writeLong(sizesOffset);
+            file.writeLong(stringsOffset);
+            file.writeLong(postingsOffset);
+            sections.writeTo(file);
+            strings.writeTo(file);
+            for (PostingList postingList : contentIndex.values()) {
+                ByteBuffer encoded = postingList.encoded();
+                byte[] bytes = new byte[encoded.remaining()];
+                encoded.get(bytes);
+                file.write(bytes);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes one record per key, followed by the ordinals of the files listed under each key.
+     */
+    private <K> void writeFileIndex(DataOutputStream out, SortedMap<K, List<FileInfo>> index,
+                                    KeyWriter<K> keyWriter) throws IOException {
+        int first = 0;
+        for (Map.Entry<K, List<FileInfo>> entry : index.entrySet()) {
+            keyWriter.write(entry.getKey(), out);
+            out.writeInt(first);
+            out.writeInt(entry.getValue().size());
+            first += entry.getValue().size();
+        }
+        for (List<FileInfo> list : index.values()) {
+            for (FileInfo file : list) {
+                out.writeInt(fileOrdinals.get(file));
+            }
+        }
+    }
+
+    private int fileOrdinal(FileInfo file) {
+        return fileOrdinals.computeIfAbsent(file, f -> {
+            files.add(f);
+            return files.size() - 1;
+        });
+    }
+
+    private int string(String value) {
+        if (value == null) {
+            return MappedSegment.NO_STRING;
+        }
+        int reference = strings.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        strings.writeBytes(bytes);
+        return reference;
+    }
+
+    @FunctionalInterface
+    private interface KeyWriter<K> {
+        void write(K key, DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.File_Retrieval_Engine.index;
+
+/**
+ * Sorted, random-access list of the distinct keys of an index, such as content terms or file names.
+ * Expansions of prefixes, wildcards and misspellings into exact keys work over this list.
+ */
+public interface TermDictionary {
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return The dictionary size.
+     */
+    int size();
+
+    /**
+     * Gets a key by its rank.
+     *
+     * @param ordinal The rank of the key, from 0 to {@link #size()} - 1.
+     * @return The key.
+     */
+    String term(int ordinal);
+
+    /**
+     * Finds the rank of the first key greater than or equal to the given one.
+     *
+     * @param key The key to look for.
+     * @return The rank, or {@link #size()} if every key is smaller.
+     */
+    default int lowerBound(String key) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (term(mid).compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Wraps a sorted array.
+     *
+     * @param terms The distinct keys, sorted.
+     * @return The dictionary over the array.
+     */
+    static TermDictionary of(String[] terms) {
+        return new TermDictionary() {
+            @Override
+            public int size() {
+                return terms.length;
+            }
+
+            @Override
+            public String term(int ordinal) {
+                return terms[ordinal];
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.File_Retrieval_Engine.index;
+
+/**
+ * Variable-byte codec for non-negative integers.
+ * Each byte carries 7 bits of payload; the high bit is set on every byte except the last one,
+ * so small values (such as doc-id deltas and term frequencies) take a single byte.
+ */
+public final class VByte {
+
+    /**
+     * Maximum number of bytes needed to encode a single int.
+     */
+    public static final int MAX_BYTES = 5;
+
+    private VByte() {}
+
+    /**
+     * Computes the number of bytes a non-negative value is encoded in.
+     *
+     * @param value The value.
+     * @return The encoded size, between 1 and {@link #MAX_BYTES}.
+     */
+    public static int size(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a non-negative value into the buffer at the given offset.
+     *
+     * @param value  The value to encode.
+     * @param buffer The destination buffer, which must have room for {@link #MAX_BYTES} bytes.
+     * @param offset The position to start writing at.
+     * @return The position right after the last written byte.
+     */
+    public static int write(int value, byte[] buffer, int offset) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.File_Retrieval_Engine.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, updated without contention by many threads.
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param amount The amount to add, not negative.
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Reads the count.
+     *
+     * @return The sum of everything added so far.
+     */
+    public long count() {
+        return count.sum();
+    }
+}
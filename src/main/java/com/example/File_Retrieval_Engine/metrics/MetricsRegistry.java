@@ -0,0 +1,114 @@
+package com.example.File_Retrieval_Engine.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the engine's meters: counters, gauges and timers, identified by a name and tags as in Micrometer.
+ * <p>
+ * The indexing and search hot paths only touch {@link Counter} and {@link Timer} instances, which are
+ * lock-free; the registry map is read once per meter lookup. Meters live as long as the application,
+ * and {@link #snapshot()} reads all of them for the metrics endpoint.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final Map<MeterId, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<MeterId, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterId, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the registry shared by the whole application.
+     *
+     * @return The registry.
+     */
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The meter name, such as {@code index.files}.
+     * @param tags Alternating tag keys and values.
+     * @return The counter.
+     */
+    public Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(new MeterId(name, tags(tags)), id -> new Counter());
+    }
+
+    /**
+     * Gets or creates a timer.
+     *
+     * @param name The meter name, such as {@code search.latency}.
+     * @param tags Alternating tag keys and values.
+     * @return The timer.
+     */
+    public Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(new MeterId(name, tags(tags)), id -> new Timer());
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge registered earlier under the same name and tags.
+     *
+     * @param name  The meter name.
+     * @param value Reads the current value of the gauge.
+     * @param tags  Alternating tag keys and values.
+     */
+    public void gauge(String name, DoubleSupplier value, String... tags) {
+        gauges.put(new MeterId(name, tags(tags)), value);
+    }
+
+    /**
+     * Reads every meter.
+     *
+     * @return The current values of all meters, sorted by name and tags.
+     */
+    public List<MeterSnapshot> snapshot() {
+        List<MeterSnapshot> meters = new ArrayList<>();
+        counters.forEach((id, counter) -> meters.add(new MeterSnapshot(id.name(), id.tags(), "counter",
+                Map.of("count", counter.count()))));
+        gauges.forEach((id, gauge) -> meters.add(new MeterSnapshot(id.name(), id.tags(), "gauge",
+                Map.of("value", gauge.getAsDouble()))));
+        timers.forEach((id, timer) -> meters.add(new MeterSnapshot(id.name(), id.tags(), "timer", timer.snapshot())));
+        meters.sort(Comparator.comparing(MeterSnapshot::name).thenComparing(meter -> meter.tags().toString()));
+        return meters;
+    }
+
+    private static Map<String, String> tags(String[] keyValues) {
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be given as key and value pairs");
+        }
+        Map<String, String> tags = new TreeMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            tags.put(keyValues[i], keyValues[i + 1]);
+        }
+        return tags;
+    }
+
+    private record MeterId(String name, Map<String, String> tags) {
+    }
+
+    /**
+     * The current value of a meter.
+     *
+     * @param name   The meter name.
+     * @param tags   The meter tags.
+     * @param type   "counter", "gauge" or "timer".
+     * @param values The measurements: the count of a counter, the value of a gauge, the count, total,
+     *               maximum and estimated percentiles of a timer.
+     */
+    public record MeterSnapshot(String name, Map<String, String> tags, String type, Map<String, ? extends Number> values) {
+
+        public MeterSnapshot {
+            tags = new LinkedHashMap<>(tags);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.File_Retrieval_Engine.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into a fixed histogram, from which percentiles are estimated.
+ * <p>
+ * Bucket bounds follow a 1-2.5-5 progression from 10 microseconds to 1 minute. A percentile is
+ * reported as the upper bound of the bucket holding it (or the maximum, if lower), so it is never
+ * underestimated by more than one bucket.
+ */
+public class Timer {
+
+    private static final long[] BUCKET_BOUNDS = bounds();
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    private static long[] bounds() {
+        long[] bounds = new long[22];
+        long decade = TimeUnit.MICROSECONDS.toNanos(10);
+        for (int i = 0; i < bounds.length; i += 3) {
+            bounds[i] = decade;
+            if (i + 1 < bounds.length) {
+                bounds[i + 1] = decade * 5 / 2;
+            }
+            if (i + 2 < bounds.length) {
+                bounds[i + 2] = decade * 5;
+            }
+            decade *= 10;
+        }
+        bounds[bounds.length - 1] = TimeUnit.MINUTES.toNanos(1);
+        return bounds;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        int bucket = Arrays.binarySearch(BUCKET_BOUNDS, nanos);
+        buckets.incrementAndGet(bucket >= 0 ? bucket : -bucket - 1);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     *
+     * @param startNanos The start, as given by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The count.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of the recorded durations.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations.
+     *
+     * @param quantile The quantile, between 0 and 1.
+     * @return The estimated duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double quantile) {
+        long total = 0;
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(BUCKET_BOUNDS[i], maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Reads the timer for the metrics endpoint.
+     *
+     * @return The count, and the total, maximum, mean and estimated 50th, 95th and 99th percentiles in milliseconds.
+     */
+    Map<String, Number> snapshot() {
+        long n = count();
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("count", n);
+        values.put("totalMillis", millis(totalNanos()));
+        values.put("maxMillis", millis(maxNanos.get()));
+        values.put("meanMillis", n > 0 ? millis(totalNanos()) / n : 0.0);
+        values.put("p50Millis", millis(percentile(0.50)));
+        values.put("p95Millis", millis(percentile(0.95)));
+        values.put("p99Millis", millis(percentile(0.99)));
+        return values;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.File_Retrieval_Engine.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -88,4 +89,15 @@ public class FileInfo {
     public String getType() {
         return type;
     }
+
+    /**
+     * Gets the file this document belongs to.
+     * A whole file is its own document; sub-documents such as messages return their enclosing file.
+     *
+     * @return The enclosing file.
+     */
+    @JsonIgnore
+    public FileInfo getFile() {
+        return this;
+    }
 }
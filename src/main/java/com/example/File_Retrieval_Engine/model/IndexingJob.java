@@ -0,0 +1,142 @@
+package com.example.File_Retrieval_Engine.model;
+
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An indexing run over one folder, started through the API, with its progress.
+ * The file and byte counters are updated by the worker threads as files are found and indexed; once
+ * every file was found, the estimated time left extrapolates the bytes indexed so far over the bytes left.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IndexingJob implements IndexingProgress {
+
+    /**
+     * The states of a job. A cancelled job stops once its running tasks are interrupted.
+     */
+    public enum State {
+        RUNNING, CANCELLING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final long id;
+    private final String path;
+    private final Date startedAt = new Date();
+    private volatile Date finishedAt;
+    private volatile String error;
+    private volatile boolean discovering = true;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger filesTotal = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger filesIndexed = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong bytesTotal = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong bytesIndexed = new AtomicLong();
+
+    /**
+     * Constructs a running job.
+     *
+     * @param id   The identifier of the job.
+     * @param path The folder being indexed.
+     */
+    public IndexingJob(long id, String path) {
+        this.id = id;
+        this.path = path;
+    }
+
+    @Override
+    public void fileFound(long bytes) {
+        filesTotal.incrementAndGet();
+        bytesTotal.addAndGet(bytes);
+    }
+
+    @Override
+    public void discoveryFinished() {
+        discovering = false;
+    }
+
+    /**
+     * Counts an indexed file, unless the job was cancelled: tasks still finishing then index nothing.
+     */
+    @Override
+    public void fileIndexed(long bytes) {
+        if (state.get() != State.RUNNING) {
+            return;
+        }
+        filesIndexed.incrementAndGet();
+        bytesIndexed.addAndGet(bytes);
+    }
+
+    /**
+     * Asks a running job to stop.
+     *
+     * @return Whether the job was running.
+     */
+    public boolean requestCancel() {
+        return state.compareAndSet(State.RUNNING, State.CANCELLING);
+    }
+
+    /**
+     * Records the end of the job.
+     *
+     * @param finalState The state the job ended in.
+     * @param error      The reason of a failure, or null.
+     */
+    public void finish(State finalState, String error) {
+        this.error = error;
+        this.finishedAt = new Date();
+        state.set(finalState);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    @JsonIgnore
+    public boolean isActive() {
+        State current = state.get();
+        return current == State.RUNNING || current == State.CANCELLING;
+    }
+
+    public int getFilesTotal() {
+        return filesTotal.get();
+    }
+
+    public int getFilesIndexed() {
+        return filesIndexed.get();
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal.get();
+    }
+
+    public long getBytesIndexed() {
+        return bytesIndexed.get();
+    }
+
+    /**
+     * Estimates the time left to index the remaining bytes at the rate observed so far.
+     *
+     * @return The estimated milliseconds left, or null if the job is not running, files are still being
+     * found or nothing was indexed yet.
+     */
+    public Long getEtaMillis() {
+        long indexed = bytesIndexed.get();
+        if (state.get() != State.RUNNING || discovering || indexed == 0) {
+            return null;
+        }
+        long elapsed = System.currentTimeMillis() - startedAt.getTime();
+        return Math.max(0, (long) ((double) elapsed * (bytesTotal.get() - indexed) / indexed));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.File_Retrieval_Engine.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * Represents a single message of a file made of concatenated newsgroup posts.
+ * A message is indexed as its own document; it carries the metadata of its enclosing file
+ * together with its byte range in that file and its newsgroup document id.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageInfo extends FileInfo {
+
+    @JsonIgnore
+    private final FileInfo file;
+    private final long offset;
+    private final long length;
+    private final Long documentId;
+    private final String subject;
+
+    /**
+     * Constructs a new MessageInfo object.
+     *
+     * @param file       The file containing the message.
+     * @param offset     The byte offset of the message in the file.
+     * @param length     The length of the message in bytes.
+     * @param documentId The newsgroup document id of the message, or null if unknown.
+     * @param subject    The subject header of the message, or null if it has none.
+     */
+    public MessageInfo(FileInfo file, long offset, long length, Long documentId, String subject) {
+        super(file.getName(), file.getPath(), file.getSize(), file.getLast_modification());
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.documentId = documentId;
+        this.subject = subject;
+    }
+
+    /**
+     * Gets the file containing the message.
+     *
+     * @return The enclosing file.
+     */
+    @Override
+    @JsonIgnore
+    public FileInfo getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.File_Retrieval_Engine.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * One step of an explained search plan: a clause evaluated against one index segment.
+ * The clause with the smallest estimated cardinality drives the plan and lists its matches; the
+ * others filter those candidates in order of selectivity, and are skipped once none is left.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanStage {
+
+    private final int segment;
+    private final String clause;
+    private final String role;
+    private final long estimate;
+    private final Integer matches;
+    private final long micros;
+
+    /**
+     * Constructs a new PlanStage.
+     *
+     * @param segment  The index of the segment in the searched generation.
+     * @param clause   A description of the clause.
+     * @param role     How the clause was used: "drive", "filter", "skipped" or "rank".
+     * @param estimate The estimated number of documents (or files, for file-only searches) matching the clause.
+     * @param matches  The number of candidates left after the stage, or null if it was skipped.
+     * @param micros   The time spent in the stage, in microseconds.
+     */
+    public PlanStage(int segment, String clause, String role, long estimate, Integer matches, long micros) {
+        this.segment = segment;
+        this.clause = clause;
+        this.role = role;
+        this.estimate = estimate;
+        this.matches = matches;
+        this.micros = micros;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.File_Retrieval_Engine.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Represents a single search result: the matching file and, for ranked searches, its relevance score.
+ * The file metadata is serialized inline, so unranked results keep the plain {@link FileInfo} shape.
+ * When snippets are asked for, the result also holds the passages of the file containing the query terms.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchHit {
+
+    @JsonUnwrapped
+    private final FileInfo fileInfo;
+    private final Double score;
+    private final List<Snippet> snippets;
+
+    /**
+     * Constructs a new SearchHit.
+     *
+     * @param fileInfo The matching file.
+     * @param score    The BM25 score of the file, or null for unranked searches.
+     */
+    public SearchHit(FileInfo fileInfo, Double score) {
+        this(fileInfo, score, null);
+    }
+
+    /**
+     * Constructs a new SearchHit with snippets.
+     *
+     * @param fileInfo The matching file.
+     * @param score    The BM25 score of the file, or null for unranked searches.
+     * @param snippets The passages of the file containing query terms, or null if none were asked for.
+     */
+    public SearchHit(FileInfo fileInfo, Double score, List<Snippet> snippets) {
+        this.fileInfo = fileInfo;
+        this.score = score;
+        this.snippets = snippets;
+    }
+
+    /**
+     * Gets a copy of this result with snippets, leaving this one, which may be cached, unchanged.
+     *
+     * @param snippets The passages of the file containing query terms.
+     * @return The result with its snippets.
+     */
+    public SearchHit withSnippets(List<Snippet> snippets) {
+        return new SearchHit(fileInfo, score, snippets);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.File_Retrieval_Engine.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Represents the results of a search, together with the index generation they were read from,
+ * the cursor of the next page when the results were cut by a limit and, for explained searches,
+ * the plan that produced them. A search of a batch that failed holds its error instead of results.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchResult {
+
+    private final long generation;
+    private final List<SearchHit> hits;
+    private final List<PlanStage> plan;
+    private final String nextCursor;
+    private final String error;
+
+    /**
+     * Constructs a new SearchResult.
+     *
+     * @param generation The number of the index generation the search read.
+     * @param hits       The matching files.
+     */
+    public SearchResult(long generation, List<SearchHit> hits) {
+        this(generation, hits, null);
+    }
+
+    /**
+     * Constructs a new SearchResult with its search plan.
+     *
+     * @param generation The number of the index generation the search read.
+     * @param hits       The matching files.
+     * @param plan       The stages of the search plan, or null if the search was not explained.
+     */
+    public SearchResult(long generation, List<SearchHit> hits, List<PlanStage> plan) {
+        this(generation, hits, plan, null);
+    }
+
+    /**
+     * Constructs a new SearchResult that is one page of the matching files.
+     *
+     * @param generation The number of the index generation the search read.
+     * @param hits       The matching files of the page.
+     * @param plan       The stages of the search plan, or null if the search was not explained.
+     * @param nextCursor The cursor the next page starts after, or null if this page is the last one.
+     */
+    public SearchResult(long generation, List<SearchHit> hits, List<PlanStage> plan, String nextCursor) {
+        this(generation, hits, plan, nextCursor, null);
+    }
+
+    private SearchResult(long generation, List<SearchHit> hits, List<PlanStage> plan, String nextCursor, String error) {
+        this.generation = generation;
+        this.hits = hits;
+        this.plan = plan;
+        this.nextCursor = nextCursor;
+        this.error = error;
+    }
+
+    /**
+     * Gets a copy of this result with other hits, such as the same hits with their snippets, leaving
+     * this one, which may be cached, unchanged.
+     *
+     * @param hits The hits of the copy.
+     * @return The result with the given hits.
+     */
+    public SearchResult withHits(List<SearchHit> hits) {
+        return hits == this.hits ? this : new SearchResult(generation, hits, plan, nextCursor, error);
+    }
+
+    /**
+     * Constructs the result of a search of a batch that failed, without hits.
+     *
+     * @param generation The number of the index generation the batch read.
+     * @param error      The reason of the failure.
+     * @return The failed result.
+     */
+    public static SearchResult failed(long generation, String error) {
+        return new SearchResult(generation, null, null, null, error);
+    }
+}
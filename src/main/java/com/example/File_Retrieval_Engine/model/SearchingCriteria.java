@@ -1,5 +1,7 @@
 package com.example.File_Retrieval_Engine.model;
 
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -17,9 +19,17 @@ public class SearchingCriteria {
     private Long minSize;
     private Long maxSize;
     private String contentSearchTerm;
+    private String query;
     private Date createdAfter;
     private Date createdBefore;
     private String fileType;
+    private Integer limit;
+    private String after;
+    private boolean ranked;
+    private boolean explain;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)  // Read from requests, not forwarded to remote shards
+    private Integer snippets;
+    private CollectionStatistics statistics;
 
     /**
      * Gets the file name that is being searched for.
@@ -57,8 +67,19 @@ public class SearchingCriteria {
         return contentSearchTerm;
     }
 
+    /**
+     * Gets the boolean content query, combining terms, phrases and groups with AND, OR and NOT.
+     * Documents must match it in addition to the content search term.
+     *
+     * @return The boolean query, or null.
+     */
+    public String getQuery() {
+        return query;
+    }
+
     /**
      * Gets the date after which the files must have been created.
+     * Files are matched on their last modification time, the only time that is indexed; the bound is inclusive.
      *
      * @return The date after which files should be created.
      */
@@ -68,6 +89,7 @@ public class SearchingCriteria {
 
     /**
      * Gets the date before which the files must have been created.
+     * Files are matched on their last modification time; the bound is exclusive.
      *
      * @return The date before which files should be created.
      */
@@ -76,11 +98,71 @@ public class SearchingCriteria {
     }
 
     /**
-     * Gets the file type (extension) to filter files by their type.
+     * Gets the file type (extension) to filter files by their type, compared case-insensitively.
      *
      * @return The file type to filter, e.g., "txt", "jpg".
      */
     public String getFileType() {
         return fileType;
     }
+
+    /**
+     * Gets the maximum number of results to return.
+     *
+     * @return The result limit, or null for no limit (ranked searches default to the top 10).
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the cursor returned with the previous page of results, after which this page starts.
+     * Cursors page unranked searches, in the index generation the first page was read from.
+     *
+     * @return The opaque cursor, or null for the first page.
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * Indicates whether the results should be ranked by BM25 relevance of the content search term.
+     *
+     * @return true for a ranked search.
+     */
+    public boolean isRanked() {
+        return ranked;
+    }
+
+    /**
+     * Indicates whether the search plan should be returned with the results, along with the
+     * estimated and actual matches and the time of each stage. Explained searches bypass the result cache.
+     *
+     * @return true for an explained search.
+     */
+    public boolean isExplain() {
+        return explain;
+    }
+
+    /**
+     * Gets the maximum number of snippets to return with each result: the lines around the query terms
+     * the file contains, with the spans of the terms. Snippets are read from the files when the results
+     * are returned, and never cached with them.
+     *
+     * @return The number of snippets per result, or null (or 0) for none.
+     */
+    public Integer getSnippets() {
+        return snippets;
+    }
+
+    /**
+     * Gets the statistics a ranked search scores with instead of those of the index it reads. A sharded
+     * engine sets the statistics of all its shards, so that every shard scores like a single index would.
+     * Searches given statistics bypass the result cache.
+     *
+     * @return The collection statistics, or null to use those of the index.
+     */
+    public CollectionStatistics getStatistics() {
+        return statistics;
+    }
 }
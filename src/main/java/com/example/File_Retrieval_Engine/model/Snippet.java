@@ -0,0 +1,39 @@
+package com.example.File_Retrieval_Engine.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A passage of a matching document shown with a search result: the lines around the query terms it
+ * contains, with the spans of those terms so clients can highlight them.
+ */
+@Getter
+public class Snippet {
+
+    private final long offset;
+    private final String text;
+    private final List<Highlight> highlights;
+
+    /**
+     * A query term in the text of a snippet.
+     *
+     * @param start The index of the first character of the term in the text.
+     * @param end   The index after the last character of the term.
+     */
+    public record Highlight(int start, int end) {
+    }
+
+    /**
+     * Constructs a new Snippet.
+     *
+     * @param offset     The byte offset in the file of the first line of the snippet.
+     * @param text       The lines of the snippet, separated by newlines; long lines are shortened around their first term.
+     * @param highlights The spans of the query terms in the text, in order.
+     */
+    public Snippet(long offset, String text, List<Highlight> highlights) {
+        this.offset = offset;
+        this.text = text;
+        this.highlights = List.copyOf(highlights);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.index.DocIdBitmap;
+import com.example.File_Retrieval_Engine.index.IndexView;
+import com.example.File_Retrieval_Engine.index.PostingList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A boolean combination of content matches, evaluated to a {@link DocIdBitmap} per index.
+ * <p>
+ * Syntax: {@code AND}, {@code OR} and {@code NOT} (upper case) combine words, prefix, wildcard and fuzzy
+ * terms, quoted phrases and NEAR clauses, with parentheses for grouping. {@code NOT} binds tightest,
+ * then {@code AND}, then {@code OR}; operands written next to each other are ANDed. For example
+ * {@code (graphics OR video) AND NOT "mac os" card NEAR/3 memory}.
+ * <p>
+ * Every operand becomes a bitmap of the documents it matches, and the operators combine bitmaps
+ * container by container. {@code NOT} under an {@code AND} subtracts from the other operands, so
+ * only a query made of negations alone is evaluated against the set of all documents.
+ */
+public sealed interface BooleanQuery permits BooleanQuery.And, BooleanQuery.Or, BooleanQuery.Not, BooleanQuery.Match {
+
+    /**
+     * Parses a boolean query.
+     *
+     * @param text The query.
+     * @return The parsed query.
+     * @throws IllegalArgumentException if the query is empty or malformed.
+     */
+    static BooleanQuery parse(String text) {
+        return new BooleanQueryParser(text).parse();
+    }
+
+    /**
+     * Finds the documents of an index matching the query, live or not.
+     *
+     * @param view     The index to search.
+     * @param expander The expander of prefix, wildcard and fuzzy terms.
+     * @return The matching doc ids.
+     */
+    DocIdBitmap evaluate(IndexView view, TermExpander expander);
+
+    /**
+     * Estimates the number of documents of an index matching the query, without reading any posting list.
+     *
+     * @param view     The index to search.
+     * @param expander The expander of prefix and wildcard terms.
+     * @return The estimated number of matches, live or not.
+     */
+    long estimate(IndexView view, TermExpander expander);
+
+    /**
+     * Documents matching every operand.
+     *
+     * @param operands The operands, at least two.
+     */
+    record And(List<BooleanQuery> operands) implements BooleanQuery {
+
+        public And {
+            operands = List.copyOf(operands);
+        }
+
+        @Override
+        public DocIdBitmap evaluate(IndexView view, TermExpander expander) {
+            DocIdBitmap result = null;
+            List<BooleanQuery> negated = new ArrayList<>();
+            for (BooleanQuery operand : operands) {
+                if (operand instanceof Not not) {
+                    negated.add(not.operand());
+                    continue;
+                }
+                DocIdBitmap matches = operand.evaluate(view, expander);
+                result = result == null ? matches : result.and(matches);
+                if (result.isEmpty()) {
+                    return result;
+                }
+            }
+            if (result == null) {
+                result = DocIdBitmap.range(0, view.documents().size());
+            }
+            for (BooleanQuery operand : negated) {
+                result = result.andNot(operand.evaluate(view, expander));
+            }
+            return result;
+        }
+
+        @Override
+        public long estimate(IndexView view, TermExpander expander) {
+            long estimate = view.documents().size();
+            for (BooleanQuery operand : operands) {
+                if (!(operand instanceof Not)) {
+                    estimate = Math.min(estimate, operand.estimate(view, expander));
+                }
+            }
+            return estimate;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + String.join(" AND ", operands.stream().map(Object::toString).sorted().toList()) + ")";
+        }
+    }
+
+    /**
+     * Documents matching any operand.
+     *
+     * @param operands The operands, at least two.
+     */
+    record Or(List<BooleanQuery> operands) implements BooleanQuery {
+
+        public Or {
+            operands = List.copyOf(operands);
+        }
+
+        @Override
+        public DocIdBitmap evaluate(IndexView view, TermExpander expander) {
+            DocIdBitmap result = DocIdBitmap.empty();
+            for (BooleanQuery operand : operands) {
+                result = result.or(operand.evaluate(view, expander));
+            }
+            return result;
+        }
+
+        @Override
+        public long estimate(IndexView view, TermExpander expander) {
+            long estimate = 0;
+            for (BooleanQuery operand : operands) {
+                estimate += operand.estimate(view, expander);
+            }
+            return Math.min(estimate, view.documents().size());
+        }
+
+        @Override
+        public String toString() {
+            return "(" + String.join(" OR ", operands.stream().map(Object::toString).sorted().toList()) + ")";
+        }
+    }
+
+    /**
+     * Documents not matching the operand.
+     *
+     * @param operand The negated query.
+     */
+    record Not(BooleanQuery operand) implements BooleanQuery {
+
+        @Override
+        public DocIdBitmap evaluate(IndexView view, TermExpander expander) {
+            return DocIdBitmap.range(0, view.documents().size()).andNot(operand.evaluate(view, expander));
+        }
+
+        @Override
+        public long estimate(IndexView view, TermExpander expander) {
+            return Math.max(0, view.documents().size() - operand.estimate(view, expander));
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    /**
+     * Documents containing a term, any expansion of a term pattern, or a phrase or NEAR clause.
+     *
+     * @param pattern The single term or pattern, or null for a clause.
+     * @param clause  The phrase or NEAR clause, or null for a term.
+     */
+    record Match(TermPattern pattern, SpanQuery clause) implements BooleanQuery {
+
+        @Override
+        public DocIdBitmap evaluate(IndexView view, TermExpander expander) {
+            if (clause != null) {
+                return DocIdBitmap.of(PositionalMatcher.matching(view, List.of(clause)));
+            }
+            DocIdBitmap result = DocIdBitmap.empty();
+            for (String term : expander.expand(view.contentTerms(), pattern)) {
+                PostingList postingList = view.postings(term);
+                if (postingList != null) {
+                    result = result.or(DocIdBitmap.of(postingList.docIds()));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Estimates a clause by its rarest term, and a pattern by the sum of the document frequencies of
+         * its expansions. Fuzzy terms are not expanded for an estimate and count as matching everything.
+         */
+        @Override
+        public long estimate(IndexView view, TermExpander expander) {
+            if (clause != null) {
+                return clause.terms().stream().mapToLong(term -> documentFrequency(view, term)).min().orElse(0);
+            }
+            if (pattern.kind() == TermPattern.Kind.FUZZY) {
+                return view.documents().size();
+            }
+            long estimate = 0;
+            for (String term : expander.expand(view.contentTerms(), pattern)) {
+                estimate += documentFrequency(view, term);
+            }
+            return Math.min(estimate, view.documents().size());
+        }
+
+        private static long documentFrequency(IndexView view, String term) {
+            PostingList postingList = view.postings(term);
+            return postingList != null ? postingList.size() : 0;
+        }
+
+        @Override
+        public String toString() {
+            return clause != null ? clause.toString() : pattern.toString();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.File_Retrieval_Engine.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recursive descent parser of the {@link BooleanQuery} syntax, one method per precedence level:
+ * query = and (OR and)*, and = unary (AND? unary)*, unary = NOT unary | ( query ) | operand (NEAR/n operand)*.
+ */
+final class BooleanQueryParser {
+
+    private static final Pattern TOKEN = Pattern.compile("\\s*(\\(|\\)|\"[^\"]*\"?|[^\\s()\"]+)");
+    private static final Pattern NEAR = Pattern.compile("NEAR/(\\d+)");
+
+    private final String text;
+    private final List<String> tokens = new ArrayList<>();
+    private int next;
+
+    BooleanQueryParser(String text) {
+        this.text = text;
+        Matcher matcher = TOKEN.matcher(text);
+        while (matcher.lookingAt()) {
+            tokens.add(matcher.group(1));
+            matcher.region(matcher.end(), text.length());
+        }
+    }
+
+    BooleanQuery parse() {
+        if (tokens.isEmpty()) {
+            throw error("Empty boolean query");
+        }
+        BooleanQuery query = parseOr();
+        if (next < tokens.size()) {
+            throw error("Unexpected '" + tokens.get(next) + "'");
+        }
+        return query;
+    }
+
+    private BooleanQuery parseOr() {
+        List<BooleanQuery> operands = new ArrayList<>(List.of(parseAnd()));
+        while (accept("OR")) {
+            operands.add(parseAnd());
+        }
+        return operands.size() == 1 ? operands.getFirst() : new BooleanQuery.Or(operands);
+    }
+
+    private BooleanQuery parseAnd() {
+        List<BooleanQuery> operands = new ArrayList<>(List.of(parseUnary()));
+        while (accept("AND") || startsOperand()) {
+            operands.add(parseUnary());
+        }
+        return operands.size() == 1 ? operands.getFirst() : new BooleanQuery.And(operands);
+    }
+
+    private BooleanQuery parseUnary() {
+        if (accept("NOT")) {
+            return new BooleanQuery.Not(parseUnary());
+        }
+        if (accept("(")) {
+            BooleanQuery group = parseOr();
+            if (!accept(")")) {
+                throw error("Missing ')'");
+            }
+            return group;
+        }
+
+        BooleanQuery.Match operand = parseOperand();
+        while (next < tokens.size() && NEAR.matcher(tokens.get(next)).matches()) {
+            Matcher near = NEAR.matcher(tokens.get(next++));
+            near.matches();
+            int distance = Integer.parseInt(near.group(1));
+            BooleanQuery.Match right = parseOperand();
+            if (distance < 1 || operand.clause() == null && !operand.pattern().isExact()
+                    || right.clause() == null && !right.pattern().isExact()) {
+                throw error("NEAR/n needs a positive distance and a word or phrase on each side");
+            }
+            operand = new BooleanQuery.Match(null, new SpanQuery.Near(spanOf(operand), spanOf(right), distance));
+        }
+        return operand;
+    }
+
+    private BooleanQuery.Match parseOperand() {
+        if (!startsOperand() || tokens.get(next).equals("NOT") || tokens.get(next).equals("(")) {
+            throw error(next < tokens.size() ? "Unexpected '" + tokens.get(next) + "'" : "Unexpected end of query");
+        }
+        String token = tokens.get(next++);
+        if (token.startsWith("\"")) {
+            SpanQuery phrase = ContentQuery.phrase(token.substring(1, token.length() > 1 && token.endsWith("\"") ? token.length() - 1 : token.length()));
+            if (phrase == null) {
+                throw error("Empty phrase");
+            }
+            return phrase instanceof SpanQuery.Term term
+                    ? new BooleanQuery.Match(TermPattern.parse(term.term()), null)
+                    : new BooleanQuery.Match(null, phrase);
+        }
+        return new BooleanQuery.Match(TermPattern.parse(token.toLowerCase(Locale.ROOT)), null);
+    }
+
+    private static SpanQuery spanOf(BooleanQuery.Match operand) {
+        return operand.clause() != null ? operand.clause() : new SpanQuery.Term(operand.pattern().text());
+    }
+
+    private boolean startsOperand() {
+        if (next >= tokens.size()) {
+            return false;
+        }
+        String token = tokens.get(next);
+        return !token.equals(")") && !token.equals("AND") && !token.equals("OR") && !NEAR.matcher(token).matches();
+    }
+
+    private boolean accept(String token) {
+        if (next < tokens.size() && tokens.get(next).equals(token)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " in boolean query: " + text);
+    }
+}
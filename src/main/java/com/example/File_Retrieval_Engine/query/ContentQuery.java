@@ -0,0 +1,164 @@
+package com.example.File_Retrieval_Engine.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A parsed content search: every term and every positional clause must match a document.
+ * <p>
+ * Syntax: words separated by spaces are single terms, as before. Text between double quotes is an
+ * exact phrase, split into terms like indexed text. {@code a NEAR/5 b} matches documents where
+ * {@code a} and {@code b}, each a word or a phrase, occur in either order at most 5 positions apart;
+ * NEAR operators chain from left to right. A single word may also be a {@link TermPattern}, such as
+ * {@code graph*}, {@code gr?ph*} or {@code graphic~1}, matching documents that contain any of its
+ * expansions; patterns cannot be used in phrases or as NEAR operands.
+ *
+ * @param terms    The single exact terms, lowercased, in query order.
+ * @param patterns The single prefix, wildcard and fuzzy terms, lowercased, in query order.
+ * @param clauses  The phrases and proximity clauses, which need term positions.
+ */
+public record ContentQuery(List<String> terms, List<TermPattern> patterns, List<SpanQuery> clauses) {
+
+    private static final Pattern NEAR = Pattern.compile("NEAR/(\\d+)");
+    private static final Pattern NON_TERM = Pattern.compile("[^A-Za-z0-9_]+");
+
+    public ContentQuery {
+        terms = List.copyOf(terms);
+        patterns = List.copyOf(patterns);
+        clauses = List.copyOf(clauses);
+    }
+
+    /**
+     * Parses a content search.
+     *
+     * @param text The content search term of the criteria.
+     * @return The parsed query.
+     * @throws IllegalArgumentException if a NEAR operator is misplaced or has no positive distance,
+     *                                  if a pattern is a NEAR operand, or if a fuzzy term allows too many edits.
+     */
+    public static ContentQuery parse(String text) {
+        List<SpanQuery> operands = new ArrayList<>();
+        List<TermPattern> patterns = new ArrayList<>();
+        Integer pendingDistance = null;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                i++;
+                continue;
+            }
+
+            SpanQuery operand;
+            if (c == '"') {
+                int close = text.indexOf('"', i + 1);
+                int end = close >= 0 ? close : text.length();
+                operand = phrase(text.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < text.length() && text.charAt(end) != ' ' && text.charAt(end) != '"') {
+                    end++;
+                }
+                String word = text.substring(i, end);
+                i = end;
+                Matcher near = NEAR.matcher(word);
+                if (near.matches()) {
+                    int distance = Integer.parseInt(near.group(1));
+                    if (operands.isEmpty() || pendingDistance != null || distance < 1) {
+                        throw new IllegalArgumentException("NEAR/n needs a positive distance and a term or phrase on each side: " + text);
+                    }
+                    pendingDistance = distance;
+                    continue;
+                }
+                TermPattern pattern = TermPattern.parse(word.toLowerCase(Locale.ROOT));
+                if (!pattern.isExact()) {
+                    if (pendingDistance != null || (i < text.length() && NEAR.matcher(nextWord(text, i)).matches())) {
+                        throw new IllegalArgumentException("Prefix, wildcard and fuzzy terms cannot be NEAR operands: " + text);
+                    }
+                    patterns.add(pattern);
+                    continue;
+                }
+                operand = new SpanQuery.Term(pattern.text());
+            }
+
+            if (operand == null) {
+                continue; // A phrase without any term
+            }
+            if (pendingDistance != null) {
+                operands.add(new SpanQuery.Near(operands.removeLast(), operand, pendingDistance));
+                pendingDistance = null;
+            } else {
+                operands.add(operand);
+            }
+        }
+        if (pendingDistance != null) {
+            throw new IllegalArgumentException("NEAR/n needs a positive distance and a term or phrase on each side: " + text);
+        }
+
+        List<String> terms = new ArrayList<>();
+        List<SpanQuery> clauses = new ArrayList<>();
+        for (SpanQuery operand : operands) {
+            if (operand instanceof SpanQuery.Term term) {
+                terms.add(term.term());
+            } else {
+                clauses.add(operand);
+            }
+        }
+        return new ContentQuery(terms, patterns, clauses);
+    }
+
+    private static String nextWord(String text, int from) {
+        String rest = text.substring(from).stripLeading();
+        int end = rest.indexOf(' ');
+        return end >= 0 ? rest.substring(0, end) : rest;
+    }
+
+    /**
+     * Splits the text of a phrase into terms like indexed text.
+     *
+     * @param text The text between the quotes.
+     * @return The phrase, a single term, or null if the text has no term.
+     */
+    static SpanQuery phrase(String text) {
+        List<String> terms = Arrays.stream(NON_TERM.split(text))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term.toLowerCase(Locale.ROOT))
+                .toList();
+        return switch (terms.size()) {
+            case 0 -> null;
+            case 1 -> new SpanQuery.Term(terms.getFirst());
+            default -> new SpanQuery.Phrase(terms);
+        };
+    }
+
+    /**
+     * Gets every exact term of the query, from single terms and clauses alike.
+     *
+     * @return The distinct terms, in query order.
+     */
+    public List<String> allTerms() {
+        Set<String> all = new LinkedHashSet<>(terms);
+        clauses.forEach(clause -> all.addAll(clause.terms()));
+        return List.copyOf(all);
+    }
+
+    /**
+     * Gets a canonical form of the query: queries with the same canonical form match the same documents.
+     *
+     * @return The sorted distinct single terms and patterns followed by the sorted clauses.
+     */
+    public String normalized() {
+        return Stream.concat(
+                        Stream.concat(terms.stream(), patterns.stream().map(TermPattern::toString)).distinct().sorted(),
+                        clauses.stream().map(SpanQuery::toString).distinct().sorted())
+                .reduce((a, b) -> a + " " + b)
+                .orElse("");
+    }
+}
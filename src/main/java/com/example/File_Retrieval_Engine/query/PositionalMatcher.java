@@ -0,0 +1,118 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.index.IndexView;
+import com.example.File_Retrieval_Engine.index.PostingList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks positional clauses against candidate documents.
+ * <p>
+ * The candidates come from a doc id intersection, which skips positions entirely. The posting lists
+ * of the clause terms are then walked once with cursors, and positions are only decoded for the
+ * candidates, where the clauses are joined on them.
+ */
+public final class PositionalMatcher {
+
+    private PositionalMatcher() {}
+
+    /**
+     * Keeps the candidates matching every clause.
+     *
+     * @param view       The index holding the candidates.
+     * @param candidates Sorted doc ids containing every clause term.
+     * @param clauses    The phrases and proximity clauses.
+     * @return The sorted doc ids matching all clauses.
+     * @throws IllegalArgumentException if the index was built without term positions.
+     */
+    public static int[] filter(IndexView view, int[] candidates, List<SpanQuery> clauses) {
+        if (clauses.isEmpty()) {
+            return candidates;
+        }
+        Map<String, PostingList.Cursor> cursors = cursors(view, clauses);
+        return cursors != null ? filter(cursors, candidates, clauses) : new int[0];
+    }
+
+    /**
+     * Opens a cursor on the posting list of every term of the clauses, for
+     * {@link #filter(Map, int[], List)} to check candidates one block after the other.
+     *
+     * @param view    The index to search.
+     * @param clauses The phrases and proximity clauses.
+     * @return The cursors by term, or null if the index does not hold some term.
+     * @throws IllegalArgumentException if the index was built without term positions.
+     */
+    public static Map<String, PostingList.Cursor> cursors(IndexView view, List<SpanQuery> clauses) {
+        Set<String> terms = new LinkedHashSet<>();
+        clauses.forEach(clause -> terms.addAll(clause.terms()));
+        Map<String, PostingList.Cursor> cursors = new HashMap<>();
+        for (String term : terms) {
+            PostingList postingList = view.postings(term);
+            if (postingList == null) {
+                return null;
+            }
+            if (!postingList.isPositional()) {
+                throw new IllegalArgumentException("Phrase and proximity queries need an index built with term positions (app.index.positions=true)");
+            }
+            cursors.put(term, postingList.cursor());
+        }
+        return cursors;
+    }
+
+    /**
+     * Keeps the candidates matching every clause, resuming the cursors where the previous candidates
+     * left them.
+     *
+     * @param cursors    The cursors of the clause terms, positioned before the candidates.
+     * @param candidates Sorted doc ids following those checked before with the same cursors.
+     * @param clauses    The phrases and proximity clauses.
+     * @return The sorted doc ids matching all clauses.
+     */
+    public static int[] filter(Map<String, PostingList.Cursor> cursors, int[] candidates, List<SpanQuery> clauses) {
+        List<Integer> matches = new ArrayList<>();
+        Map<String, int[]> positions = new HashMap<>();
+        candidates:
+        for (int docId : candidates) {
+            for (Map.Entry<String, PostingList.Cursor> entry : cursors.entrySet()) {
+                PostingList.Cursor cursor = entry.getValue();
+                if (!cursor.advance(docId) || cursor.docId() != docId) {
+                    continue candidates;
+                }
+                positions.put(entry.getKey(), cursor.positions());
+            }
+            for (SpanQuery clause : clauses) {
+                if (clause.spans(positions).length == 0) {
+                    continue candidates;
+                }
+            }
+            matches.add(docId);
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds the documents of an index matching every clause.
+     *
+     * @param view    The index to search.
+     * @param clauses The phrases and proximity clauses.
+     * @return The sorted doc ids matching all clauses.
+     */
+    public static int[] matching(IndexView view, List<SpanQuery> clauses) {
+        List<PostingList> postingLists = new ArrayList<>();
+        for (SpanQuery clause : clauses) {
+            for (String term : clause.terms()) {
+                PostingList postingList = view.postings(term);
+                if (postingList == null) {
+                    return new int[0];
+                }
+                postingLists.add(postingList);
+            }
+        }
+        return filter(view, PostingList.intersect(postingLists), clauses);
+    }
+}
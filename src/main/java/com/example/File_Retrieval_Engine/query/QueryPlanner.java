@@ -0,0 +1,594 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.index.DocIdBitmap;
+import com.example.File_Retrieval_Engine.index.IndexView;
+import com.example.File_Retrieval_Engine.index.MetadataColumns;
+import com.example.File_Retrieval_Engine.index.PostingList;
+import com.example.File_Retrieval_Engine.model.PlanStage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Orders the clauses of a search by estimated selectivity before evaluating them against an index.
+ * <p>
+ * Every clause estimates the number of documents it matches from statistics the index already holds:
+ * document frequencies for terms, the sum over their expansions for patterns, the rarest term for
+ * phrases and NEAR clauses, and the number of documents of the matching files for file-level filters.
+ * The clause with the smallest estimate drives the search and lists its matches a block at a time;
+ * every other clause then only checks those candidates, most selective first, by skipping its posting
+ * lists forward with cursors or testing a bit. Evaluation stops as soon as no candidate is left, so a term the
+ * index does not hold ends the search before anything is decoded.
+ * <p>
+ * Each evaluated or skipped clause is recorded as a {@link PlanStage}, so that a search can explain
+ * the plan it ran.
+ */
+public class QueryPlanner {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private final TermExpander termExpander;
+
+    /**
+     * Constructs a planner.
+     *
+     * @param termExpander The expander of prefix, wildcard and fuzzy terms.
+     */
+    public QueryPlanner(TermExpander termExpander) {
+        this.termExpander = termExpander;
+    }
+
+    /**
+     * Finds the documents of an index matching every clause of a search.
+     *
+     * @param view         The index to search.
+     * @param segment      The index of the view in its generation, reported in the stages.
+     * @param query        The parsed content search, or null.
+     * @param booleanQuery The parsed boolean query, or null.
+     * @param fileFilters  The file ordinals matching each file-level filter, by description.
+     * @param stages       The list receiving the stages of the plan.
+     * @return The sorted ids of the matching documents, live or not.
+     */
+    public int[] matchDocuments(IndexView view, int segment, ContentQuery query, BooleanQuery booleanQuery,
+                                Map<String, BitSet> fileFilters, List<PlanStage> stages) {
+        IntStream.Builder matches = IntStream.builder();
+        matchDocuments(view, segment, query, booleanQuery, fileFilters, -1, stages, docId -> {
+            matches.add(docId);
+            return true;
+        });
+        return matches.build().toArray();
+    }
+
+    /**
+     * Streams the documents of an index matching every clause of a search, in doc id order.
+     * <p>
+     * The driving clause lists its matches {@value #BLOCK_SIZE} at a time, skipping its cursors straight
+     * to the doc id resumed after; the other clauses then check each block, resuming their posting list
+     * cursors from one block to the next, and the documents left in a block are handed over before the
+     * next block is listed. Neither the time to the first match nor the cost of resuming a page therefore
+     * grows with the number of matches, and a sink that stops early leaves the remaining blocks unlisted
+     * and unchecked. The stages then report the matches of the blocks listed so far. Only a boolean query
+     * evaluates its whole bitmap before listing it, when it is the most selective clause.
+     *
+     * @param view         The index to search.
+     * @param segment      The index of the view in its generation, reported in the stages.
+     * @param query        The parsed content search, or null.
+     * @param booleanQuery The parsed boolean query, or null.
+     * @param fileFilters  The file ordinals matching each file-level filter, by description.
+     * @param after        The doc id to resume after, or -1 to start with the first document.
+     * @param stages       The list receiving the stages of the plan.
+     * @param sink         Receives the ids of the matching documents, live or not, and returns false to stop.
+     * @return Whether every match was handed over, false if the sink stopped the search.
+     */
+    public boolean matchDocuments(IndexView view, int segment, ContentQuery query, BooleanQuery booleanQuery,
+                                  Map<String, BitSet> fileFilters, int after, List<PlanStage> stages, IntPredicate sink) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query != null) {
+            query.terms().forEach(term -> clauses.add(new TermClause(view, term)));
+            query.patterns().forEach(pattern -> clauses.add(new PatternClause(view, pattern, termExpander.expand(view.contentTerms(), pattern))));
+            query.clauses().forEach(clause -> clauses.add(new PositionalClause(view, clause)));
+        }
+        if (booleanQuery != null) {
+            clauses.add(new QueryClause(view, booleanQuery, termExpander));
+        }
+        fileFilters.forEach((description, files) -> clauses.add(new FileClause(view.metadata(), description, files)));
+        clauses.sort(Comparator.comparingLong(Clause::estimate).thenComparingInt(Clause::cost));
+        if (clauses.isEmpty()) {
+            return true;
+        }
+
+        int[] matches = new int[clauses.size()];
+        long[] nanos = new long[clauses.size()];
+        boolean[] evaluated = new boolean[clauses.size()];
+        long start = System.nanoTime();
+        Driver driver = clauses.getFirst().drive(after);
+        nanos[0] = System.nanoTime() - start;
+        evaluated[0] = true;
+
+        boolean complete = true;
+        blocks:
+        while (true) {
+            start = System.nanoTime();
+            int[] candidates = driver.next();
+            nanos[0] += System.nanoTime() - start;
+            if (candidates == null) {
+                break;
+            }
+            matches[0] += candidates.length;
+            for (int i = 1; i < clauses.size() && candidates.length > 0; i++) {
+                start = System.nanoTime();
+                candidates = clauses.get(i).filter(candidates);
+                nanos[i] += System.nanoTime() - start;
+                matches[i] += candidates.length;
+                evaluated[i] = true;
+            }
+            for (int docId : candidates) {
+                if (!sink.test(docId)) {
+                    complete = false;
+                    break blocks;
+                }
+            }
+        }
+
+        for (int i = 0; i < clauses.size(); i++) {
+            Clause clause = clauses.get(i);
+            if (!evaluated[i]) {
+                stages.add(new PlanStage(segment, clause.toString(), "skipped", clause.estimate(), null, 0));
+            } else {
+                stages.add(new PlanStage(segment, clause.toString(), i == 0 ? "drive" : "filter", clause.estimate(),
+                        matches[i], nanos[i] / 1000));
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Finds the files matching every file-level filter of a search, intersecting the smallest sets first.
+     *
+     * @param segment     The index of the view in its generation, reported in the stages.
+     * @param fileFilters The file ordinals matching each filter, by description.
+     * @param stages      The list receiving the stages of the plan.
+     * @return The ordinals of the files matching every filter, live or not.
+     */
+    public BitSet matchFiles(int segment, Map<String, BitSet> fileFilters, List<PlanStage> stages) {
+        List<Map.Entry<String, BitSet>> filters = new ArrayList<>(fileFilters.entrySet());
+        filters.sort(Comparator.comparingInt(filter -> filter.getValue().cardinality()));
+
+        BitSet files = null;
+        for (Map.Entry<String, BitSet> filter : filters) {
+            long estimate = filter.getValue().cardinality();
+            if (files != null && files.isEmpty()) {
+                stages.add(new PlanStage(segment, filter.getKey(), "skipped", estimate, null, 0));
+                continue;
+            }
+            long start = System.nanoTime();
+            String role = files == null ? "drive" : "filter";
+            if (files == null) {
+                files = (BitSet) filter.getValue().clone();
+            } else {
+                files.and(filter.getValue());
+            }
+            stages.add(new PlanStage(segment, filter.getKey(), role, estimate, files.cardinality(),
+                    (System.nanoTime() - start) / 1000));
+        }
+        return files != null ? files : new BitSet();
+    }
+
+    /**
+     * A conjunct of a search.
+     */
+    private interface Clause {
+
+        /**
+         * Estimates the number of documents matching the clause.
+         */
+        long estimate();
+
+        /**
+         * Ranks the cost of checking one candidate, to order clauses with equal estimates.
+         */
+        int cost();
+
+        /**
+         * Starts listing the ids of the documents matching the clause, a block at a time.
+         *
+         * @param after The doc id to list the documents after, or -1 for all of them.
+         */
+        Driver drive(int after);
+
+        /**
+         * Keeps the sorted candidates matching the clause. The candidates of a call all follow the
+         * candidates of the previous call, so posting list cursors may resume where they stopped.
+         */
+        int[] filter(int[] candidates);
+    }
+
+    /**
+     * The matches of a driving clause, listed in doc id order.
+     */
+    private interface Driver {
+
+        Driver EXHAUSTED = () -> null;
+
+        /**
+         * Lists the next matches, at most {@value QueryPlanner#BLOCK_SIZE}.
+         *
+         * @return The sorted doc ids, possibly none while more follow, or null once every match is listed.
+         */
+        int[] next();
+    }
+
+    /**
+     * Lists the documents of a posting list from a cursor, skipped to the first document after the
+     * one resumed after.
+     */
+    private static final class CursorDriver implements Driver {
+
+        private final PostingList.Cursor cursor;
+        private final int after;
+        private boolean started;
+        private boolean exhausted;
+
+        CursorDriver(PostingList.Cursor cursor, int after) {
+            this.cursor = cursor;
+            this.after = after;
+        }
+
+        @Override
+        public int[] next() {
+            if (exhausted) {
+                return null;
+            }
+            boolean found = started ? cursor.next() : cursor.advance(after + 1);
+            started = true;
+            int[] block = new int[BLOCK_SIZE];
+            int n = 0;
+            while (found) {
+                block[n++] = cursor.docId();
+                if (n == BLOCK_SIZE) {
+                    return block;
+                }
+                found = cursor.next();
+            }
+            exhausted = true;
+            return n > 0 ? Arrays.copyOf(block, n) : null;
+        }
+    }
+
+    /**
+     * Lists the union of several posting lists, merging their cursors by doc id.
+     */
+    private static final class UnionDriver implements Driver {
+
+        private final PriorityQueue<PostingList.Cursor> heads = new PriorityQueue<>(Comparator.comparingInt(PostingList.Cursor::docId));
+        private int last;  // The last doc id listed, which other cursors may still be on
+
+        UnionDriver(List<PostingList> postingLists, int after) {
+            this.last = after;
+            for (PostingList postingList : postingLists) {
+                PostingList.Cursor cursor = postingList.cursor();
+                if (cursor.advance(after + 1)) {
+                    heads.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public int[] next() {
+            int[] block = new int[BLOCK_SIZE];
+            int n = 0;
+            while (n < BLOCK_SIZE && !heads.isEmpty()) {
+                PostingList.Cursor cursor = heads.poll();
+                if (cursor.docId() != last) {
+                    last = cursor.docId();
+                    block[n++] = last;
+                }
+                if (cursor.next()) {
+                    heads.add(cursor);
+                }
+            }
+            return n == BLOCK_SIZE ? block : n > 0 ? Arrays.copyOf(block, n) : null;
+        }
+    }
+
+    /**
+     * Keeps the candidates found by skipping a posting list cursor forward.
+     */
+    private static int[] probe(int[] candidates, PostingList.Cursor cursor) {
+        int kept = 0;
+        int[] matches = new int[candidates.length];
+        for (int docId : candidates) {
+            if (!cursor.advance(docId)) {
+                break;
+            }
+            if (cursor.docId() == docId) {
+                matches[kept++] = docId;
+            }
+        }
+        return Arrays.copyOf(matches, kept);
+    }
+
+    private static final class TermClause implements Clause {
+
+        private final String term;
+        private final PostingList postingList;
+        private PostingList.Cursor cursor;
+
+        TermClause(IndexView view, String term) {
+            this.term = term;
+            this.postingList = view.postings(term);
+        }
+
+        @Override
+        public long estimate() {
+            return postingList != null ? postingList.size() : 0;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public Driver drive(int after) {
+            return postingList != null ? new CursorDriver(postingList.cursor(), after) : Driver.EXHAUSTED;
+        }
+
+        @Override
+        public int[] filter(int[] candidates) {
+            if (postingList == null) {
+                return new int[0];
+            }
+            if (cursor == null) {
+                cursor = postingList.cursor();
+            }
+            return probe(candidates, cursor);
+        }
+
+        @Override
+        public String toString() {
+            return "term " + term;
+        }
+    }
+
+    private static final class PatternClause implements Clause {
+
+        private final TermPattern pattern;
+        private final List<PostingList> expansions = new ArrayList<>();
+        private final long estimate;
+        private PostingList.Cursor[] cursors;
+
+        PatternClause(IndexView view, TermPattern pattern, List<String> terms) {
+            this.pattern = pattern;
+            long frequencies = 0;
+            for (String term : terms) {
+                PostingList postingList = view.postings(term);
+                if (postingList != null) {
+                    expansions.add(postingList);
+                    frequencies += postingList.size();
+                }
+            }
+            this.estimate = Math.min(frequencies, view.documents().size());
+        }
+
+        @Override
+        public long estimate() {
+            return estimate;
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+
+        @Override
+        public Driver drive(int after) {
+            return switch (expansions.size()) {
+                case 0 -> Driver.EXHAUSTED;
+                case 1 -> new CursorDriver(expansions.getFirst().cursor(), after);
+                default -> new UnionDriver(expansions, after);
+            };
+        }
+
+        @Override
+        public int[] filter(int[] candidates) {
+            if (cursors == null) {
+                cursors = expansions.stream().map(PostingList::cursor).toArray(PostingList.Cursor[]::new);
+            }
+            int kept = 0;
+            int[] matches = new int[candidates.length];
+            for (int docId : candidates) {
+                for (PostingList.Cursor cursor : cursors) {
+                    if (cursor.advance(docId) && cursor.docId() == docId) {
+                        matches[kept++] = docId;
+                        break;
+                    }
+                }
+            }
+            return Arrays.copyOf(matches, kept);
+        }
+
+        @Override
+        public String toString() {
+            return "pattern " + pattern + " (" + expansions.size() + " terms)";
+        }
+    }
+
+    private static final class PositionalClause implements Clause {
+
+        private final IndexView view;
+        private final SpanQuery clause;
+        private final PostingList rarest;  // Null if the index lacks a term of the clause
+        private Map<String, PostingList.Cursor> cursors;
+
+        PositionalClause(IndexView view, SpanQuery clause) {
+            this.view = view;
+            this.clause = clause;
+            PostingList rarest = null;
+            for (String term : clause.terms()) {
+                PostingList postingList = view.postings(term);
+                if (postingList == null) {
+                    rarest = null;
+                    break;
+                }
+                if (rarest == null || postingList.size() < rarest.size()) {
+                    rarest = postingList;
+                }
+            }
+            this.rarest = rarest;
+        }
+
+        @Override
+        public long estimate() {
+            return rarest != null ? rarest.size() : 0;
+        }
+
+        @Override
+        public int cost() {
+            return 3;
+        }
+
+        /**
+         * Lists the documents of the rarest term of the clause, keeping those where the clause matches.
+         */
+        @Override
+        public Driver drive(int after) {
+            if (rarest == null) {
+                return Driver.EXHAUSTED;
+            }
+            Driver candidates = new CursorDriver(rarest.cursor(), after);
+            return () -> {
+                int[] block = candidates.next();
+                return block != null ? filter(block) : null;
+            };
+        }
+
+        @Override
+        public int[] filter(int[] candidates) {
+            if (rarest == null) {
+                return new int[0];
+            }
+            if (cursors == null) {
+                cursors = PositionalMatcher.cursors(view, List.of(clause));
+            }
+            return PositionalMatcher.filter(cursors, candidates, List.of(clause));
+        }
+
+        @Override
+        public String toString() {
+            return (clause instanceof SpanQuery.Near ? "near " : "phrase ") + clause;
+        }
+    }
+
+    private static final class QueryClause implements Clause {
+
+        private final IndexView view;
+        private final BooleanQuery query;
+        private final TermExpander termExpander;
+        private final long estimate;
+        private DocIdBitmap matches;
+
+        QueryClause(IndexView view, BooleanQuery query, TermExpander termExpander) {
+            this.view = view;
+            this.query = query;
+            this.termExpander = termExpander;
+            this.estimate = query.estimate(view, termExpander);
+        }
+
+        @Override
+        public long estimate() {
+            return estimate;
+        }
+
+        @Override
+        public int cost() {
+            return 4;
+        }
+
+        /**
+         * Evaluates the query into a bitmap, then lists it from the doc id resumed after.
+         */
+        @Override
+        public Driver drive(int after) {
+            int[] from = {after + 1};
+            return () -> {
+                int[] block = matches().toArray(from[0], BLOCK_SIZE);
+                if (block.length == 0) {
+                    return null;
+                }
+                from[0] = block[block.length - 1] + 1;
+                return block;
+            };
+        }
+
+        @Override
+        public int[] filter(int[] candidates) {
+            DocIdBitmap matches = matches();
+            return Arrays.stream(candidates).filter(matches::contains).toArray();
+        }
+
+        private DocIdBitmap matches() {
+            if (matches == null) {
+                matches = query.evaluate(view, termExpander);
+            }
+            return matches;
+        }
+
+        @Override
+        public String toString() {
+            return "query " + query;
+        }
+    }
+
+    private static final class FileClause implements Clause {
+
+        private final MetadataColumns metadata;
+        private final String description;
+        private final BitSet files;
+        private final long estimate;
+
+        FileClause(MetadataColumns metadata, String description, BitSet files) {
+            this.metadata = metadata;
+            this.description = description;
+            this.files = files;
+            this.estimate = metadata.documentCount(files);
+        }
+
+        @Override
+        public long estimate() {
+            return estimate;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+
+        @Override
+        public Driver drive(int after) {
+            IntFunction<int[]> documents = metadata.documentsOf(files, after);
+            return () -> {
+                int[] block = documents.apply(BLOCK_SIZE);
+                return block.length > 0 ? block : null;
+            };
+        }
+
+        @Override
+        public int[] filter(int[] candidates) {
+            return Arrays.stream(candidates).filter(docId -> files.get(metadata.fileOf(docId))).toArray();
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
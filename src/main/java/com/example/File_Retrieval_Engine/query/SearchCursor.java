@@ -0,0 +1,55 @@
+package com.example.File_Retrieval_Engine.query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of the last result of a page of unranked search results, from which the next page resumes.
+ * <p>
+ * Unranked results are listed segment by segment in doc id order, or file ordinal order for searches
+ * without content clauses, so a position within a generation is a segment and an id. Clients handle the
+ * cursor as an opaque string; it stays valid as long as its generation is readable, whatever was
+ * published since.
+ *
+ * @param generation The number of the index generation the results were read from.
+ * @param segment    The index of the segment holding the last result.
+ * @param position   The doc id or file ordinal of the last result within its segment.
+ */
+public record SearchCursor(long generation, int segment, int position) {
+
+    /**
+     * Reads a cursor returned with a previous page.
+     *
+     * @param cursor The encoded cursor.
+     * @return The cursor, or null if none is given.
+     * @throws IllegalArgumentException if the cursor was not issued by a search.
+     */
+    public static SearchCursor parse(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            SearchCursor parsed = new SearchCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            if (parsed.segment < 0 || parsed.position < 0) {
+                throw new IllegalArgumentException();
+            }
+            return parsed;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Encodes the cursor for a client.
+     *
+     * @return The opaque form of the cursor, safe in URLs.
+     */
+    public String encode() {
+        String plain = generation + ":" + segment + ":" + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.File_Retrieval_Engine.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A part of a content query matched against term positions: a term, an exact phrase, or two parts
+ * occurring near each other.
+ * <p>
+ * Matching a document yields spans, the [start, end] token ranges where the query occurs, each packed
+ * into a long as {@code start << 32 | end} and sorted. A document matches when there is at least one span.
+ */
+public sealed interface SpanQuery permits SpanQuery.Term, SpanQuery.Phrase, SpanQuery.Near {
+
+    /**
+     * Gets the terms whose positions are needed to match the query.
+     *
+     * @return The terms, possibly repeated.
+     */
+    List<String> terms();
+
+    /**
+     * Finds where the query occurs in a document.
+     *
+     * @param positions The sorted positions of each of the query's terms in the document.
+     * @return The sorted spans; empty if the query does not occur.
+     */
+    long[] spans(Map<String, int[]> positions);
+
+    private static long span(int start, int end) {
+        return (long) start << 32 | end;
+    }
+
+    private static int start(long span) {
+        return (int) (span >>> 32);
+    }
+
+    private static int end(long span) {
+        return (int) span;
+    }
+
+    /**
+     * A single term, occurring anywhere.
+     *
+     * @param term The lowercase term.
+     */
+    record Term(String term) implements SpanQuery {
+
+        @Override
+        public List<String> terms() {
+            return List.of(term);
+        }
+
+        @Override
+        public long[] spans(Map<String, int[]> positions) {
+            return Arrays.stream(positions.get(term)).mapToLong(position -> span(position, position)).toArray();
+        }
+
+        @Override
+        public String toString() {
+            return term;
+        }
+    }
+
+    /**
+     * Terms occurring at consecutive positions, in order.
+     *
+     * @param terms The lowercase terms, at least two.
+     */
+    record Phrase(List<String> terms) implements SpanQuery {
+
+        public Phrase {
+            terms = List.copyOf(terms);
+        }
+
+        /**
+         * Walks the positions of every term once: a position p of the first term starts a match when
+         * each following term i has position p + i.
+         */
+        @Override
+        public long[] spans(Map<String, int[]> positions) {
+            int[][] termPositions = terms.stream().map(positions::get).toArray(int[][]::new);
+            int[] cursors = new int[terms.size()];
+            List<Long> spans = new ArrayList<>();
+            candidates:
+            for (int start : termPositions[0]) {
+                for (int i = 1; i < termPositions.length; i++) {
+                    int[] next = termPositions[i];
+                    while (cursors[i] < next.length && next[cursors[i]] < start + i) {
+                        cursors[i]++;
+                    }
+                    if (cursors[i] == next.length) {
+                        break candidates;
+                    }
+                    if (next[cursors[i]] != start + i) {
+                        continue candidates;
+                    }
+                }
+                spans.add(span(start, start + terms.size() - 1));
+            }
+            return spans.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        @Override
+        public String toString() {
+            return '"' + String.join(" ", terms) + '"';
+        }
+    }
+
+    /**
+     * Two parts occurring in either order, at most a given number of positions apart:
+     * the gap between the end of the first occurrence and the start of the second is at most the distance.
+     *
+     * @param left     The first part.
+     * @param right    The second part.
+     * @param distance The maximum distance, at least 1 (adjacent).
+     */
+    record Near(SpanQuery left, SpanQuery right, int distance) implements SpanQuery {
+
+        @Override
+        public List<String> terms() {
+            List<String> terms = new ArrayList<>(left.terms());
+            terms.addAll(right.terms());
+            return terms;
+        }
+
+        /**
+         * Joins the sorted spans of both parts: for each left span, only the right spans starting within
+         * reach of it are examined, found by binary search.
+         */
+        @Override
+        public long[] spans(Map<String, int[]> positions) {
+            long[] lefts = left.spans(positions);
+            long[] rights = right.spans(positions);
+            if (lefts.length == 0 || rights.length == 0) {
+                return new long[0];
+            }
+            int maxRightLength = 0;
+            for (long r : rights) {
+                maxRightLength = Math.max(maxRightLength, end(r) - start(r));
+            }
+
+            List<Long> spans = new ArrayList<>();
+            for (long l : lefts) {
+                int leftStart = start(l);
+                int leftEnd = end(l);
+                int from = Arrays.binarySearch(rights, span(Math.max(0, leftStart - distance - maxRightLength), 0));
+                for (int j = from >= 0 ? from : -from - 1; j < rights.length && start(rights[j]) <= leftEnd + distance; j++) {
+                    int rightStart = start(rights[j]);
+                    int rightEnd = end(rights[j]);
+                    boolean after = rightStart > leftEnd && rightStart - leftEnd <= distance;
+                    boolean before = leftStart > rightEnd && leftStart - rightEnd <= distance;
+                    if (after || before) {
+                        spans.add(span(Math.min(leftStart, rightStart), Math.max(leftEnd, rightEnd)));
+                    }
+                }
+            }
+            return spans.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " NEAR/" + distance + " " + right + ")";
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.index.TermDictionary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Expands prefix, wildcard and fuzzy terms into the matching terms of a sorted {@link TermDictionary}.
+ * <p>
+ * Prefixes and wildcard patterns only visit the range of the dictionary starting with their literal
+ * prefix. Fuzzy terms walk the whole dictionary as if it were a trie: the edit distance rows computed
+ * for a term are reused for the next term's shared prefix, and once every entry of a row exceeds the
+ * allowed distance, all the terms sharing that prefix are skipped with a binary search.
+ * <p>
+ * At most a configured number of terms is returned, so that a very broad pattern cannot make a
+ * search decode thousands of posting lists: the first ones in dictionary order for prefixes and
+ * wildcards, the closest ones for fuzzy terms.
+ */
+@Component
+public class TermExpander {
+
+    public static final int DEFAULT_MAX_EXPANSIONS = 64;
+
+    private final int maxExpansions;
+
+    /**
+     * Constructs an expander.
+     *
+     * @param maxExpansions The maximum number of terms a pattern expands to.
+     */
+    public TermExpander(@Value("${app.query.max-expansions:" + DEFAULT_MAX_EXPANSIONS + "}") int maxExpansions) {
+        if (maxExpansions < 1) {
+            throw new IllegalArgumentException("A pattern must be allowed to expand to at least one term");
+        }
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Finds the terms of a dictionary matching a pattern.
+     *
+     * @param dictionary The sorted terms of an index.
+     * @param pattern    The pattern.
+     * @return The matching terms, at most the configured maximum; an exact pattern gives its own text,
+     * whether the dictionary holds it or not.
+     */
+    public List<String> expand(TermDictionary dictionary, TermPattern pattern) {
+        return switch (pattern.kind()) {
+            case EXACT -> List.of(pattern.text());
+            case PREFIX, WILDCARD -> matchGlob(dictionary, pattern);
+            case FUZZY -> matchFuzzy(dictionary, pattern.text(), pattern.maxEdits());
+        };
+    }
+
+    private List<String> matchGlob(TermDictionary dictionary, TermPattern pattern) {
+        String prefix = pattern.literalPrefix();
+        boolean prefixOnly = pattern.kind() == TermPattern.Kind.PREFIX;
+        List<String> matches = new ArrayList<>();
+        for (int i = dictionary.lowerBound(prefix); i < dictionary.size() && matches.size() < maxExpansions; i++) {
+            String term = dictionary.term(i);
+            if (!term.startsWith(prefix)) {
+                break;
+            }
+            if (prefixOnly || globMatches(pattern.text(), term)) {
+                matches.add(term);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Matches a whole text against a glob, backtracking to the last {@code *} on a mismatch.
+     */
+    static boolean globMatches(String glob, String text) {
+        int g = 0;
+        int t = 0;
+        int star = -1;
+        int starText = 0;
+        while (t < text.length()) {
+            if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == text.charAt(t))) {
+                g++;
+                t++;
+            } else if (g < glob.length() && glob.charAt(g) == '*') {
+                star = g++;
+                starText = t;
+            } else if (star >= 0) {
+                g = star + 1;
+                t = ++starText;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == glob.length();
+    }
+
+    private List<String> matchFuzzy(TermDictionary dictionary, String target, int maxEdits) {
+        List<Match> matches = new ArrayList<>();
+        // rows[k] holds the edit distances between the first k characters of the current term and every prefix of the target
+        int[][] rows = new int[16][];
+        rows[0] = new int[target.length() + 1];
+        for (int j = 0; j <= target.length(); j++) {
+            rows[0][j] = j;
+        }
+        String previous = "";
+        int validRows = 0;
+
+        int i = 0;
+        while (i < dictionary.size()) {
+            String term = dictionary.term(i);
+            int depth = Math.min(commonPrefix(previous, term), validRows);
+            int pruned = -1;
+            while (depth < term.length()) {
+                if (depth + 1 == rows.length) {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                }
+                rows[depth + 1] = nextRow(rows[depth], rows[depth + 1], term.charAt(depth), target);
+                depth++;
+                if (min(rows[depth]) > maxEdits) {
+                    pruned = depth;
+                    break;
+                }
+            }
+            previous = term;
+            validRows = depth;
+
+            if (pruned >= 0) {
+                i = endOfPrefix(dictionary, term.substring(0, pruned), i);
+                continue;
+            }
+            int distance = rows[term.length()][target.length()];
+            if (distance <= maxEdits) {
+                matches.add(new Match(term, distance));
+            }
+            i++;
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::distance).thenComparing(Match::term))
+                .limit(maxExpansions)
+                .map(Match::term)
+                .toList();
+    }
+
+    private static int[] nextRow(int[] previous, int[] reuse, char c, String target) {
+        int[] row = reuse != null ? reuse : new int[previous.length];
+        row[0] = previous[0] + 1;
+        for (int j = 1; j < row.length; j++) {
+            int substitution = previous[j - 1] + (target.charAt(j - 1) == c ? 0 : 1);
+            row[j] = Math.min(substitution, Math.min(previous[j], row[j - 1]) + 1);
+        }
+        return row;
+    }
+
+    private static int min(int[] row) {
+        int min = Integer.MAX_VALUE;
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the rank of the first term after a given one that does not start with a prefix the given term starts with.
+     */
+    private static int endOfPrefix(TermDictionary dictionary, String prefix, int from) {
+        int low = from + 1;
+        int high = dictionary.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dictionary.term(mid).startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Match(String term, int distance) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.File_Retrieval_Engine.query;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A query term that may stand for several indexed terms: a prefix such as {@code graph*}, a wildcard
+ * pattern where {@code *} matches any characters and {@code ?} a single one, or a fuzzy term such as
+ * {@code graphic~1} matching the terms at most 1 or 2 edits (insertions, deletions or substitutions) away.
+ * {@link TermExpander} turns it into the matching terms of an index.
+ *
+ * @param kind     How the text is matched.
+ * @param text     The exact term, the prefix without its {@code *}, the wildcard pattern, or the fuzzy term without its {@code ~}.
+ * @param maxEdits The maximum edit distance of a fuzzy term; 0 for the other kinds.
+ */
+public record TermPattern(Kind kind, String text, int maxEdits) {
+
+    private static final Pattern FUZZY = Pattern.compile("(.+)~(\\d?)");
+    private static final int MAX_EDITS = 2;
+
+    public enum Kind {
+        EXACT, PREFIX, WILDCARD, FUZZY
+    }
+
+    /**
+     * Parses a query word, which is fuzzy when it ends with {@code ~}, {@code ~1} or {@code ~2}
+     * ({@code ~} alone allows 2 edits), and a prefix or wildcard pattern when it contains {@code *} or {@code ?}.
+     *
+     * @param word The word, already lowercased for content terms.
+     * @return The pattern.
+     * @throws IllegalArgumentException if a fuzzy term allows more than 2 edits.
+     */
+    public static TermPattern parse(String word) {
+        Matcher fuzzy = FUZZY.matcher(word);
+        if (fuzzy.matches()) {
+            int maxEdits = fuzzy.group(2).isEmpty() ? MAX_EDITS : Integer.parseInt(fuzzy.group(2));
+            if (maxEdits > MAX_EDITS) {
+                throw new IllegalArgumentException("Fuzzy terms allow at most " + MAX_EDITS + " edits: " + word);
+            }
+            return new TermPattern(Kind.FUZZY, fuzzy.group(1), maxEdits);
+        }
+        return glob(word);
+    }
+
+    /**
+     * Parses a glob, such as a file name pattern, where {@code ~} has no special meaning.
+     *
+     * @param glob The exact text, or a pattern with {@code *} and {@code ?} wildcards.
+     * @return The pattern.
+     */
+    public static TermPattern glob(String glob) {
+        int wildcard = firstWildcard(glob);
+        if (wildcard < 0) {
+            return new TermPattern(Kind.EXACT, glob, 0);
+        }
+        if (wildcard == glob.length() - 1 && glob.charAt(wildcard) == '*') {
+            return new TermPattern(Kind.PREFIX, glob.substring(0, wildcard), 0);
+        }
+        return new TermPattern(Kind.WILDCARD, glob, 0);
+    }
+
+    /**
+     * Gets the text every matching term starts with.
+     *
+     * @return The literal prefix; empty for fuzzy terms, whose first characters may be edited too.
+     */
+    public String literalPrefix() {
+        return switch (kind) {
+            case EXACT, PREFIX -> text;
+            case WILDCARD -> text.substring(0, firstWildcard(text));
+            case FUZZY -> "";
+        };
+    }
+
+    /**
+     * Checks whether the pattern only matches its own text.
+     *
+     * @return true for an exact term.
+     */
+    public boolean isExact() {
+        return kind == Kind.EXACT;
+    }
+
+    /**
+     * Checks whether a term is one of the expansions of the pattern, however many terms the pattern
+     * would expand to in an index.
+     *
+     * @param term The lowercased term.
+     * @return true if the pattern matches the term.
+     */
+    public boolean matches(String term) {
+        return switch (kind) {
+            case EXACT -> text.equals(term);
+            case PREFIX -> term.startsWith(text);
+            case WILDCARD -> TermExpander.globMatches(text, term);
+            case FUZZY -> Math.abs(term.length() - text.length()) <= maxEdits && editDistance(text, term) <= maxEdits;
+        };
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(substitution, Math.min(previous[j], row[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()];
+    }
+
+    static int firstWildcard(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '*' || text.charAt(i) == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case EXACT, WILDCARD -> text;
+            case PREFIX -> text + "*";
+            case FUZZY -> text + "~" + maxEdits;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.File_Retrieval_Engine.ranking;
+
+import com.example.File_Retrieval_Engine.index.PostingList;
+
+/**
+ * Okapi BM25 relevance function computed from term frequencies, document lengths
+ * and document frequencies.
+ */
+public class Bm25 {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final int docCount;
+    private final double averageLength;
+
+    /**
+     * Constructs a scorer for a collection of documents.
+     *
+     * @param docCount      The number of documents in the collection.
+     * @param averageLength The average document length in tokens.
+     */
+    public Bm25(int docCount, double averageLength) {
+        this.docCount = docCount;
+        this.averageLength = averageLength > 0 ? averageLength : 1;
+    }
+
+    /**
+     * Computes the inverse document frequency of a term.
+     *
+     * @param docFrequency The number of documents containing the term.
+     * @return The idf weight, always positive.
+     */
+    public double idf(int docFrequency) {
+        return Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    /**
+     * Scores one term occurrence in one document.
+     *
+     * @param idf       The idf weight of the term.
+     * @param frequency The frequency of the term in the document.
+     * @param docLength The length of the document in tokens.
+     * @return The contribution of the term to the document score.
+     */
+    public double score(double idf, int frequency, int docLength) {
+        double norm = K1 * (1 - B + B * docLength / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * Computes an upper bound of the score any document of the posting list can get for its term.
+     * The score grows with the frequency and shrinks with the document length, so the bound
+     * combines the highest frequency with the shortest document of the list.
+     *
+     * @param idf         The idf weight of the term.
+     * @param postingList The posting list of the term.
+     * @return The maximum possible contribution of the term.
+     */
+    public double upperBound(double idf, PostingList postingList) {
+        return score(idf, postingList.maxFrequency(), postingList.minDocLength());
+    }
+}
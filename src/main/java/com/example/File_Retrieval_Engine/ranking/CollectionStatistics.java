@@ -0,0 +1,44 @@
+package com.example.File_Retrieval_Engine.ranking;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics BM25 scores a ranked search with: the number of documents of the collection, their
+ * total length and the document frequency of the terms searched. The statistics of the shards of an
+ * index add up to those of the whole index, so shards scoring with the sum give comparable scores.
+ *
+ * @param docCount       The number of documents in the collection.
+ * @param totalLength    The total length of the documents in tokens.
+ * @param docFrequencies The number of documents containing each term searched.
+ */
+public record CollectionStatistics(int docCount, double totalLength, Map<String, Integer> docFrequencies) {
+
+    /**
+     * Adds up the statistics of several parts of a collection, such as the shards of an index.
+     *
+     * @param parts The statistics of each part, for the same search.
+     * @return The statistics of the whole collection.
+     */
+    public static CollectionStatistics sum(List<CollectionStatistics> parts) {
+        int docCount = 0;
+        double totalLength = 0;
+        Map<String, Integer> docFrequencies = new HashMap<>();
+        for (CollectionStatistics part : parts) {
+            docCount += part.docCount;
+            totalLength += part.totalLength;
+            part.docFrequencies.forEach((term, frequency) -> docFrequencies.merge(term, frequency, Integer::sum));
+        }
+        return new CollectionStatistics(docCount, totalLength, docFrequencies);
+    }
+
+    /**
+     * Creates the scorer of the collection.
+     *
+     * @return The BM25 scorer with the document count and average length of the collection.
+     */
+    public Bm25 bm25() {
+        return new Bm25(docCount, docCount > 0 ? totalLength / docCount : 0);
+    }
+}
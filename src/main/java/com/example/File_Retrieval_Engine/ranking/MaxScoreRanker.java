@@ -0,0 +1,155 @@
+package com.example.File_Retrieval_Engine.ranking;
+
+import com.example.File_Retrieval_Engine.index.DocumentTable;
+import com.example.File_Retrieval_Engine.index.PostingList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Document-at-a-time top-k retrieval over posting lists using the MaxScore algorithm.
+ * <p>
+ * Terms are sorted by the upper bound of their BM25 contribution. Once the top-k heap is full,
+ * the terms whose summed upper bounds cannot beat the current k-th score become non-essential:
+ * they no longer produce candidates and are only probed for documents found through the
+ * essential terms, and only while the document can still enter the heap.
+ */
+public class MaxScoreRanker {
+
+    private static final Comparator<ScoredDoc> WORST_FIRST = Comparator
+            .comparingDouble(ScoredDoc::score)
+            .thenComparing(ScoredDoc::docId, Comparator.reverseOrder());
+
+    private final Bm25 bm25;
+    private final DocumentTable documents;
+
+    /**
+     * Constructs a ranker over the documents of a doc id table.
+     *
+     * @param documents The table providing document lengths.
+     * @param bm25      The scorer, built from the statistics of the whole collection.
+     */
+    public MaxScoreRanker(DocumentTable documents, Bm25 bm25) {
+        this.documents = documents;
+        this.bm25 = bm25;
+    }
+
+    /**
+     * Retrieves the k best scoring documents containing at least one of the terms.
+     *
+     * @param postingLists   The posting lists of the query terms.
+     * @param docFrequencies The document frequency of each term in the whole collection, in the same order.
+     * @param filter         Predicate a document must satisfy to be ranked.
+     * @param k              The number of documents to return.
+     * @return The top documents, best first.
+     */
+    public List<ScoredDoc> topK(List<PostingList> postingLists, int[] docFrequencies, IntPredicate filter, int k) {
+        if (k <= 0 || postingLists.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        TermScorer[] terms = new TermScorer[postingLists.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = new TermScorer(postingLists.get(i), docFrequencies[i]);
+        }
+        Arrays.sort(terms, Comparator.comparingDouble(term -> term.upperBound));
+        double[] cumulativeBounds = new double[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            cumulativeBounds[i] = terms[i].upperBound + (i > 0 ? cumulativeBounds[i - 1] : 0);
+        }
+
+        PriorityQueue<ScoredDoc> heap = new PriorityQueue<>(k, WORST_FIRST);
+        double threshold = 0;
+        int firstEssential = 0;
+
+        while (true) {
+            int candidate = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < terms.length; i++) {
+                if (terms[i].live && terms[i].docId() < candidate) {
+                    candidate = terms[i].docId();
+                }
+            }
+            if (candidate == Integer.MAX_VALUE) {
+                break;
+            }
+
+            boolean accepted = filter.test(candidate);
+            double score = 0;
+            for (int i = firstEssential; i < terms.length; i++) {
+                if (terms[i].live && terms[i].docId() == candidate) {
+                    if (accepted) {
+                        score += terms[i].score();
+                    }
+                    terms[i].next();
+                }
+            }
+            if (!accepted) {
+                continue;
+            }
+
+            for (int i = firstEssential - 1; i >= 0 && score + cumulativeBounds[i] > threshold; i--) {
+                if (terms[i].advance(candidate) && terms[i].docId() == candidate) {
+                    score += terms[i].score();
+                }
+            }
+
+            if (heap.size() < k) {
+                heap.add(new ScoredDoc(candidate, score));
+            } else if (score > threshold) {
+                heap.poll();
+                heap.add(new ScoredDoc(candidate, score));
+            }
+            if (heap.size() == k) {
+                threshold = heap.peek().score();
+                while (firstEssential < terms.length && cumulativeBounds[firstEssential] <= threshold) {
+                    firstEssential++;
+                }
+            }
+        }
+
+        ScoredDoc[] ranked = heap.toArray(new ScoredDoc[0]);
+        Arrays.sort(ranked, WORST_FIRST.reversed());
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Cursor over the posting list of one query term, with its BM25 weights.
+     */
+    private class TermScorer {
+
+        private final PostingList.Cursor cursor;
+        private final double idf;
+        private final double upperBound;
+        private boolean live;
+
+        private TermScorer(PostingList postingList, int docFrequency) {
+            this.cursor = postingList.cursor();
+            this.idf = bm25.idf(docFrequency);
+            this.upperBound = bm25.upperBound(idf, postingList);
+            this.live = cursor.next();
+        }
+
+        private int docId() {
+            return cursor.docId();
+        }
+
+        private double score() {
+            return bm25.score(idf, cursor.frequency(), documents.length(cursor.docId()));
+        }
+
+        private void next() {
+            live = cursor.next();
+        }
+
+        private boolean advance(int target) {
+            if (live) {
+                live = cursor.advance(target);
+            }
+            return live;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.File_Retrieval_Engine.ranking;
+
+/**
+ * A document id together with its relevance score.
+ *
+ * @param docId The document id.
+ * @param score The relevance score.
+ */
+public record ScoredDoc(int docId, double score) {
+}
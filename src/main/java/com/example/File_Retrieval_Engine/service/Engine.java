@@ -1,14 +1,35 @@
 package com.example.File_Retrieval_Engine.service;
 
 import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
-import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.model.SearchResult;
 import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface Engine {
 
     void index(String path) throws EmptyDataSetException;
 
-    List<FileInfo> search(SearchingCriteria criteria);
+    void index(String path, IndexingProgress progress) throws EmptyDataSetException, InterruptedException;
+
+    void update(Collection<String> paths);
+
+    void remove(Collection<String> paths);
+
+    Collection<String> indexedPaths();
+
+    long generation();
+
+    IndexGeneration.Stats indexStats();
+
+    CollectionStatistics statistics(SearchingCriteria criteria);
+
+    SearchResult search(SearchingCriteria criteria);
+
+    SearchResult search(SearchingCriteria criteria, SearchHitSink sink);
+
+    List<SearchResult> search(List<SearchingCriteria> batch);
 }
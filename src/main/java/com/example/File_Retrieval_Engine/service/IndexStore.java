@@ -1,111 +1,353 @@
 package com.example.File_Retrieval_Engine.service;
 
+import com.example.File_Retrieval_Engine.analysis.TermVector;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.index.LocalSegment;
+import com.example.File_Retrieval_Engine.index.MappedSegment;
+import com.example.File_Retrieval_Engine.index.MaskedView;
+import com.example.File_Retrieval_Engine.index.MemorySegment;
+import com.example.File_Retrieval_Engine.index.SegmentMerger;
+import com.example.File_Retrieval_Engine.index.SegmentWriter;
+import com.example.File_Retrieval_Engine.metrics.Counter;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.metrics.Timer;
 import com.example.File_Retrieval_Engine.model.FileInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Singleton class to manage a shared global index over the HTTP server thread.
- * It provides thread-safe updates to the index.
+ * <p>
+ * The index is a sequence of immutable {@link IndexGeneration}s. Searches pin the current generation
+ * through {@link #currentGeneration()} and read it without any locking, however long they take.
+ * Writers never modify a published generation: they derive the next one and publish it with a
+ * single reference swap, so a search sees either all or none of an update.
+ * <p>
+ * Updates are made within a build, between {@link #beginBuild()} and {@link #finishBuild(Build)}: each
+ * worker thread bound to the build through {@link Build#run(Runnable)} fills its own {@link LocalSegment}
+ * without locking, and the local segments are merged into one immutable {@link MemorySegment} when the
+ * build finishes. Files removed during the build are masked in the existing segments by the same
+ * generation that adds the new segment. Several builds may run at the same time, for instance over
+ * separate folders; they are merged concurrently and only their publication is serialized, each
+ * generation being derived from the one published last. An abandoned build publishes nothing.
+ * <p>
+ * Small segments left by incremental updates, and segments with many removed documents, are
+ * compacted into one when a build finishes.
+ * <p>
+ * Updates are counted per index, and the time spent waiting for the publish lock, merging and
+ * compacting is timed, in the {@link MetricsRegistry}.
  */
 @Component
 public class IndexStore {
 
+    private static final int MAX_SEGMENTS = 8;
+
     public static IndexStore indexStore;
-    private final Map<String, Map<FileInfo, Integer>> globalContentIndex = new TreeMap<>();
-    private final Map<Long, List<FileInfo>> globalSizeIndex = new TreeMap<>();
-    private final Map<String, List<FileInfo>> globalNameIndex = new TreeMap<>();
     private static final Logger logger = LoggerFactory.getLogger(IndexStore.class);
-    private final Lock contentIndexLock = new ReentrantLock();
-    private final Lock sizeIndexLock = new ReentrantLock();
-    private final Lock nameIndexLock = new ReentrantLock();
+    private final AtomicReference<IndexGeneration> generation = new AtomicReference<>(IndexGeneration.empty());
+    private static final ThreadLocal<Build> boundBuild = new ThreadLocal<>();
+    private final Lock publishLock = new ReentrantLock();
+
+    private final Counter contentUpdates = MetricsRegistry.getInstance().counter("index.updates", "index", "content");
+    private final Counter sizeUpdates = MetricsRegistry.getInstance().counter("index.updates", "index", "size");
+    private final Counter nameUpdates = MetricsRegistry.getInstance().counter("index.updates", "index", "name");
+    private final Timer lockWait = MetricsRegistry.getInstance().timer("index.build.lock-wait");
+    private final Timer mergeTime = MetricsRegistry.getInstance().timer("index.build.merge");
+    private final Timer compactTime = MetricsRegistry.getInstance().timer("index.build.compact");
 
     private IndexStore(){}
 
+    /**
+     * Creates a store independent of the shared one, for instance to hold one shard of a sharded index.
+     * Builds are bound to threads rather than to a store, so strategies update whichever store began
+     * the build they run in.
+     *
+     * @return a new, empty store
+     */
+    public static IndexStore create() {
+        return new IndexStore();
+    }
+
     public static IndexStore getInstance(){
         synchronized (IndexStore.class){
             if(indexStore == null){
                 indexStore = new IndexStore();
+                MetricsRegistry.getInstance().gauge("index.segments", () -> indexStore.currentGeneration().segments().size());
+                MetricsRegistry.getInstance().gauge("index.generation", () -> indexStore.currentGeneration().number());
             }
             return indexStore;
         }
     }
 
     /**
-     * Updates the global ContentIndex with a local index from a worker thread.
+     * Updates the ContentIndex of the running build with the term frequencies of a document
+     * indexed by a worker thread.
      *
-     * @param localIndex the local index to merge
+     * @param fileInfo   the indexed document
+     * @param localIndex the term frequencies of the document
      */
-    public void updateContentIndex(Map<String, Map<FileInfo, Integer>> localIndex) {
-        contentIndexLock.lock(); // Lock for updating the global index
-        try {
-            localIndex.forEach((term, localDocMap) -> {
-                globalContentIndex.merge(term, localDocMap, (globalDocMap, newLocalDocMap) -> {
-                    newLocalDocMap.forEach((doc, frequency) ->
-                            globalDocMap.merge(doc, frequency, Integer::sum));
-                    return globalDocMap;
-                });
-            });
-        } finally {
-            contentIndexLock.unlock(); // Ensure the lock is released
-        }
+    public void updateContentIndex(FileInfo fileInfo, Map<String, Integer> localIndex) {
+        contentUpdates.increment();
+        runningBuild().localSegment().addDocument(fileInfo, localIndex);
     }
 
     /**
-     * Updates the global SizeIndex with a local index from a worker thread.
+     * Updates the ContentIndex of the running build with the term positions of a document
+     * indexed by a worker thread, in positional posting lists.
+     *
+     * @param fileInfo the indexed document
+     * @param terms    the terms of the document with their positions
+     */
+    public void updateContentIndex(FileInfo fileInfo, TermVector terms) {
+        updateContentIndex(fileInfo, terms, true);
+    }
+
+    /**
+     * Updates the ContentIndex of the running build with the terms of a document indexed by a
+     * worker thread, keeping their positions or only their frequencies.
+     *
+     * @param fileInfo   the indexed document
+     * @param terms      the terms of the document with their positions
+     * @param positional whether the positions are indexed
+     */
+    public void updateContentIndex(FileInfo fileInfo, TermVector terms, boolean positional) {
+        contentUpdates.increment();
+        runningBuild().localSegment().addDocument(fileInfo, terms, positional);
+    }
+
+    /**
+     * Updates the SizeIndex of the running build with a local index from a worker thread.
      *
      * @param localIndex the local index to merge
      */
     public void updateSizeIndex(Map<Long, List<FileInfo>> localIndex) {
-        sizeIndexLock.lock(); // Lock for updating the global index
-        try {
-            localIndex.forEach((term, localList) -> {
-                globalSizeIndex.merge(term, localList, (existingList, newList) -> {
-                    existingList.addAll(newList);
-                    return existingList;
-                });
-            });
-        } finally {
-            sizeIndexLock.unlock(); // Ensure the lock is released
-        }
+        sizeUpdates.increment();
+        runningBuild().localSegment().addSizes(localIndex);
     }
 
     /**
-     * Updates the global ContentIndex with a local index from a worker thread.
+     * Updates the NameIndex of the running build with a local index from a worker thread.
      *
      * @param localIndex the local index to merge
      */
     public void updateNameIndex(Map<String, List<FileInfo>> localIndex) {
-        nameIndexLock.lock(); // Lock for updating the global index
+        nameUpdates.increment();
+        runningBuild().localSegment().addNames(localIndex);
+    }
+
+    /**
+     * Removes a file from the index, before it is re-indexed or after it was deleted from disk.
+     * The removal is published together with the rest of the running build.
+     *
+     * @param path the path of the file
+     */
+    public void removeFile(String path) {
+        runningBuild().removedPaths.add(path);
+    }
+
+    private Build runningBuild() {
+        Build running = boundBuild.get();
+        if (running == null) {
+            throw new IllegalStateException("The index can only be updated during a build");
+        }
+        return running;
+    }
+
+    /**
+     * Starts an index build bound to the calling thread: until {@link #finishBuild(Build)} or
+     * {@link #abandonBuild(Build)} is called, every update made by the calling thread, or by a task
+     * run through {@link Build#run(Runnable)}, is collected in a segment local to the updating thread.
+     *
+     * @return the started build
+     */
+    public Build beginBuild() {
+        Build started = new Build();
+        boundBuild.set(started);
+        return started;
+    }
+
+    /**
+     * Merges the local segments of a build into a new segment and publishes the generation holding it.
+     * Must be called by the thread that began the build, once all its updates have completed.
+     *
+     * @param finished the build to publish
+     */
+    public void finishBuild(Build finished) {
+        boundBuild.remove();
+        long startTime = System.nanoTime();
+        List<LocalSegment> locals = List.copyOf(finished.segments.values());
+        MemorySegment added = MemorySegment.merge(locals, new SegmentMerger(ForkJoinPool.commonPool()));
+        long mergedAt = System.nanoTime();
+        mergeTime.record(mergedAt - startTime);
+
+        publishLock.lock();
+        lockWait.recordSince(mergedAt);
         try {
-            localIndex.forEach((term, localList) -> {
-                globalNameIndex.merge(term, localList, (existingList, newList) -> {
-                    existingList.addAll(newList);
-                    return existingList;
-                });
-            });
+            IndexGeneration current = generation.get();
+            List<MaskedView> segments = new ArrayList<>();
+            for (MaskedView segment : current.segments()) {
+                segments.add(segment.without(finished.removedPaths));
+            }
+            if (!isEmpty(added)) {
+                segments.add(new MaskedView(added));
+            }
+            IndexGeneration next = current.next(compact(segments));
+            generation.set(next);  // Publication is exclusive, so nothing else published since get()
+
+            logger.info("Published index generation {}: merged {} local segments ({} documents, {} terms) in {} ms, {} segments in total",
+                    next.number(), locals.size(), added.documents().size(), added.getPostings().size(),
+                    (mergedAt - startTime) / 1_000_000, next.segments().size());
         } finally {
-            nameIndexLock.unlock(); // Ensure the lock is released
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Discards a build without publishing anything, for instance when its indexing was cancelled.
+     * Must be called by the thread that began the build.
+     *
+     * @param abandoned the build to discard
+     */
+    public void abandonBuild(Build abandoned) {
+        boundBuild.remove();
+        abandoned.segments.clear();
+        logger.info("Abandoned an index build, {} files were not removed", abandoned.removedPaths.size());
+    }
+
+    /**
+     * Compacts the in-memory segments that are heavily deleted, and all but the largest in-memory
+     * segment once there are too many segments.
+     */
+    private List<MaskedView> compact(List<MaskedView> segments) {
+        List<MaskedView> memorySegments = segments.stream()
+                .filter(segment -> segment.getBase() instanceof MemorySegment)
+                .toList();
+        MaskedView largest = memorySegments.stream()
+                .max((a, b) -> Integer.compare(a.documents().size(), b.documents().size()))
+                .orElse(null);
+        Set<MaskedView> compacted = new LinkedHashSet<>();
+        for (MaskedView segment : memorySegments) {
+            boolean heavilyDeleted = segment.deletedDocCount() * 4 >= Math.max(1, segment.documents().size());
+            if (heavilyDeleted || (segments.size() > MAX_SEGMENTS && segment != largest)) {
+                compacted.add(segment);
+            }
+        }
+        if (compacted.isEmpty()) {
+            return segments;
+        }
+
+        List<MaskedView> result = new ArrayList<>();
+        for (MaskedView segment : segments) {
+            if (!compacted.contains(segment)) {
+                result.add(segment);
+            }
+        }
+        long start = System.nanoTime();
+        MemorySegment merged = MemorySegment.compact(List.copyOf(compacted));
+        compactTime.recordSince(start);
+        if (!isEmpty(merged)) {
+            result.add(new MaskedView(merged));
         }
+        logger.info("Compacted {} index segments", compacted.size());
+        return result;
     }
 
-    public Map<String, Map<FileInfo, Integer>> getGlobalContentIndex() {
-        return globalContentIndex;
+    private static boolean isEmpty(MemorySegment segment) {
+        return segment.documents().size() == 0 && segment.getNames().isEmpty() && segment.getSizes().isEmpty();
+    }
+
+    /**
+     * Gets the current index generation. Searches should read a single generation from start to end.
+     *
+     * @return the generation published last
+     */
+    public IndexGeneration currentGeneration() {
+        return generation.get();
     }
 
-    public Map<Long, List<FileInfo>> getGlobalSizeIndex() {
-        return globalSizeIndex;
+    /**
+     * Writes the index to a segment file, once the initial build has finished.
+     *
+     * @param path        the segment file to write
+     * @param fingerprint the fingerprint of the indexed dataset
+     * @throws IOException if the segment cannot be written
+     */
+    public void writeSegment(Path path, long fingerprint) throws IOException {
+        List<MaskedView> segments = generation.get().segments();
+        if (segments.isEmpty()) {
+            return;
+        }
+        if (segments.size() != 1 || !(segments.getFirst().getBase() instanceof MemorySegment segment)
+                || segments.getFirst().deletedDocCount() > 0) {
+            throw new IllegalStateException("Only a freshly built index can be written to a segment file");
+        }
+        new SegmentWriter().write(path, fingerprint, segment.getPostings(), segment.documents(), segment.getNames(), segment.getSizes());
     }
 
-    public Map<String, List<FileInfo>> getGlobalNameIndex() {
-        return globalNameIndex;
+    /**
+     * Publishes a generation serving searches from a memory-mapped segment, opened instead of building the index.
+     *
+     * @param segment the opened segment
+     */
+    public void openSegment(MappedSegment segment) {
+        publishLock.lock();
+        try {
+            IndexGeneration current = generation.get();
+            List<MaskedView> segments = new ArrayList<>(current.segments());
+            segments.addFirst(new MaskedView(segment));
+            generation.set(current.next(segments));
+        } finally {
+            publishLock.unlock();
+        }
     }
 
+    /**
+     * The state of a running build: one local segment per worker thread, and the removed files.
+     */
+    public static class Build {
+
+        private final Map<Thread, LocalSegment> segments = new ConcurrentHashMap<>();
+        private final Collection<String> removedPaths = ConcurrentHashMap.newKeySet();
+
+        private Build() {
+        }
+
+        private LocalSegment localSegment() {
+            return segments.computeIfAbsent(Thread.currentThread(), thread -> new LocalSegment());
+        }
+
+        /**
+         * Runs a task on the calling thread with its index updates going to this build.
+         *
+         * @param task the task updating the index
+         */
+        public void run(Runnable task) {
+            Build previous = boundBuild.get();
+            boundBuild.set(this);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    boundBuild.set(previous);
+                } else {
+                    boundBuild.remove();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.File_Retrieval_Engine.service;
+
+/**
+ * Receives the progress of an indexing run, from the worker threads indexing the files.
+ */
+public interface IndexingProgress {
+
+    /**
+     * Ignores the progress.
+     */
+    IndexingProgress NONE = new IndexingProgress() {
+        @Override
+        public void fileFound(long bytes) {
+        }
+
+        @Override
+        public void discoveryFinished() {
+        }
+
+        @Override
+        public void fileIndexed(long bytes) {
+        }
+    };
+
+    /**
+     * Reports a file found to index. Files are found while earlier ones are being indexed.
+     *
+     * @param bytes The size of the file in bytes.
+     */
+    void fileFound(long bytes);
+
+    /**
+     * Reports that every file to index was found.
+     */
+    void discoveryFinished();
+
+    /**
+     * Reports a file indexed by every strategy.
+     *
+     * @param bytes The size of the file in bytes.
+     */
+    void fileIndexed(long bytes);
+}
@@ -0,0 +1,23 @@
+package com.example.File_Retrieval_Engine.service;
+
+import com.example.File_Retrieval_Engine.model.SearchHit;
+
+/**
+ * Receives the results of a streamed search, on the thread running the search, as they are found.
+ */
+public interface SearchHitSink {
+
+    /**
+     * Reports the index generation the search reads, before any result.
+     *
+     * @param generation The number of the generation.
+     */
+    void start(long generation);
+
+    /**
+     * Receives a result.
+     *
+     * @param hit The matching file.
+     */
+    void accept(SearchHit hit);
+}
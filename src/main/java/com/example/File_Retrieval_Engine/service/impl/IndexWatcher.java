@@ -0,0 +1,155 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.service.Engine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches a dataset folder and its sub-folders and re-indexes the files that are created,
+ * modified or deleted, instead of rebuilding the whole index.
+ * <p>
+ * Events are collected until the folder has been quiet for the debounce window, so that a file
+ * written in several chunks, or a batch of files copied at once, is re-indexed in a single update.
+ */
+public class IndexWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexWatcher.class);
+
+    private final Engine engine;
+    private final Path root;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> folders = new HashMap<>();
+    private final Thread thread;
+
+    /**
+     * Constructs a watcher; call {@link #start()} to begin watching.
+     *
+     * @param engine         The engine re-indexing the changed files.
+     * @param root           The dataset folder.
+     * @param debounceMillis How long the folder must stay quiet before the collected changes are re-indexed.
+     * @throws IOException if the folders cannot be registered.
+     */
+    public IndexWatcher(Engine engine, Path root, long debounceMillis) throws IOException {
+        this.engine = engine;
+        this.root = root;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::watch, "index-watcher");
+        this.thread.setDaemon(true);
+        registerTree(root);
+    }
+
+    /**
+     * Starts watching on a background daemon thread.
+     */
+    public void start() {
+        thread.start();
+        logger.info("Watching {} for changes", root);
+    }
+
+    /**
+     * Stops watching; changes collected but not yet re-indexed are dropped.
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void watch() {
+        Set<String> changed = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Block until something happens, then keep collecting while events keep coming
+                WatchKey key = changed.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    update(changed);
+                    changed = new LinkedHashSet<>();
+                    continue;
+                }
+                collect(key, changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Re-indexes a batch of changed files. A failed batch is logged and dropped, so that the
+     * watcher keeps re-indexing the changes that follow.
+     */
+    private void update(Set<String> changed) {
+        try {
+            engine.update(changed);
+        } catch (RuntimeException e) {
+            logger.error("Failed to re-index {} changed files under {}", changed.size(), root, e);
+        }
+    }
+
+    private void collect(WatchKey key, Set<String> changed) {
+        Path folder = folders.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || folder == null) {
+                logger.warn("Missed file system events under {}, changes may not be indexed", root);
+                continue;
+            }
+            Path path = folder.resolve((Path) event.context());
+            if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    registerNewFolder(path, changed);
+                }
+            } else {
+                changed.add(path.toString());
+            }
+        }
+        if (!key.reset()) {
+            folders.remove(key);
+        }
+    }
+
+    /**
+     * Watches a folder created after startup and queues the files already copied into it.
+     */
+    private void registerNewFolder(Path folder, Set<String> changed) {
+        try {
+            registerTree(folder);
+            try (Stream<Path> files = Files.walk(folder)) {
+                files.filter(Files::isRegularFile).forEach(file -> changed.add(file.toString()));
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot watch folder {}: {}", folder, e.getMessage());
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        try (Stream<Path> paths = Files.walk(start)) {
+            for (Path folder : paths.filter(Files::isDirectory).toList()) {
+                WatchKey key = folder.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                folders.put(key, folder);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.model.IndexingJob;
+import com.example.File_Retrieval_Engine.service.Engine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs indexing jobs started through the API, each on its own virtual thread.
+ * <p>
+ * A job indexes one folder in a build of its own, so jobs over separate folders run at the same time
+ * and publish their generations independently; a folder overlapping the folder of a running job is
+ * refused. Cancelling a job interrupts its thread, which cancels its indexing tasks and publishes
+ * nothing. The most recent finished jobs are kept for their final progress.
+ */
+@Service
+public class IndexingJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingJobManager.class);
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final Engine engine;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final NavigableMap<Long, IndexingJob> jobs = new ConcurrentSkipListMap<>();
+    private final Map<Long, Thread> threads = new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    /**
+     * Constructs a job manager.
+     *
+     * @param engine The engine indexing the folders.
+     */
+    public IndexingJobManager(Engine engine) {
+        this.engine = engine;
+        metrics.gauge("index.jobs.running", () -> jobs.values().stream().filter(IndexingJob::isActive).count());
+    }
+
+    /**
+     * Starts indexing a folder in the background.
+     *
+     * @param path The folder to index.
+     * @return The started job.
+     * @throws IllegalArgumentException if the path is not a folder.
+     * @throws IllegalStateException    if a running job indexes the folder, a folder within it or a folder containing it.
+     */
+    public synchronized IndexingJob start(String path) {
+        if (path == null || !Files.isDirectory(Path.of(path))) {
+            throw new IllegalArgumentException("Not a folder: " + path);
+        }
+        Path root = Path.of(path).toAbsolutePath().normalize();
+        for (IndexingJob job : jobs.values()) {
+            Path running = Path.of(job.getPath()).toAbsolutePath().normalize();
+            if (job.isActive() && (root.startsWith(running) || running.startsWith(root))) {
+                throw new IllegalStateException("Job " + job.getId() + " is already indexing " + job.getPath());
+            }
+        }
+        pruneFinishedJobs();
+
+        IndexingJob job = new IndexingJob(nextId.getAndIncrement(), path);
+        jobs.put(job.getId(), job);
+        executorService.execute(() -> run(job));
+        logger.info("Started indexing job {} over {}", job.getId(), path);
+        return job;
+    }
+
+    private void run(IndexingJob job) {
+        threads.put(job.getId(), Thread.currentThread());
+        try {
+            if (job.getState() != IndexingJob.State.RUNNING) {
+                throw new InterruptedException();  // Cancelled before its thread was registered
+            }
+            engine.index(job.getPath(), job);
+            job.finish(IndexingJob.State.SUCCEEDED, null);
+        } catch (InterruptedException e) {
+            job.finish(IndexingJob.State.CANCELLED, null);
+        } catch (Exception e) {
+            logger.warn("Indexing job {} failed: {}", job.getId(), e.getMessage());
+            job.finish(IndexingJob.State.FAILED, e.getMessage());
+        } finally {
+            threads.remove(job.getId());
+            String state = job.getState().name().toLowerCase(Locale.ROOT);
+            metrics.counter("index.jobs", "state", state).increment();
+            logger.info("Indexing job {} {}", job.getId(), state);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<Long> finished = jobs.values().stream()
+                .filter(job -> !job.isActive())
+                .map(IndexingJob::getId)
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS + 1; i++) {
+            jobs.remove(finished.get(i));
+        }
+    }
+
+    /**
+     * Gets a job.
+     *
+     * @param id The identifier of the job.
+     * @return The job, or null if it is unknown.
+     */
+    public IndexingJob get(long id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Lists the running jobs and the most recent finished ones.
+     *
+     * @return The jobs, oldest first.
+     */
+    public List<IndexingJob> list() {
+        return List.copyOf(jobs.values());
+    }
+
+    /**
+     * Cancels a running job. The job turns cancelled once its thread stopped; if it had already
+     * published its index, it stays succeeded.
+     *
+     * @param id The identifier of the job.
+     * @return The job, or null if it is unknown.
+     */
+    public IndexingJob cancel(long id) {
+        IndexingJob job = jobs.get(id);
+        if (job != null && job.requestCancel()) {
+            Thread thread = threads.get(id);
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        return job;
+    }
+}
@@ -0,0 +1,608 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.archive.Archives;
+import com.example.File_Retrieval_Engine.metrics.Counter;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.metrics.Timer;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.strategy.IndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.MessageIndexingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Indexes files in four stages connected by bounded queues: discover, read, tokenize and merge.
+ * <p>
+ * A discovery thread lists the files and queues them for the read stage. Read threads, sized for
+ * I/O, cut each file into the byte ranges of the tokenizer of the {@link MessageIndexingStrategy}
+ * and read them; tokenize threads, sized for the CPUs, split every range into messages and extract
+ * their terms. Once every range of a file is tokenized, the file is queued for a merge thread, which
+ * joins its messages in file order and runs every strategy into its local segment of the build.
+ * <p>
+ * Every queue is bounded, so a stage that falls behind blocks the stages before it, down to
+ * discovery. Besides, a file is only read once the bytes of the files read but not merged yet leave
+ * room for it, so the memory held by read and tokenized files stays bounded whatever their number
+ * and size; a file larger than that bound is read alone. Archive entries, whose size is unknown until
+ * read, hold room for each of their ranges until it is tokenized instead. The number of threads is fixed by the
+ * configuration.
+ * <p>
+ * Each stage counts the files and bytes it processed, times its work and the time it was blocked by
+ * the next stage, and the length of every queue is exposed as a gauge.
+ */
+@Component
+public class IndexingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingPipeline.class);
+
+    public static final int DEFAULT_IO_THREADS = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final long DEFAULT_MAX_BYTES_IN_FLIGHT = 256L * 1024 * 1024;
+
+    private static final FileWork END_OF_FILES = new FileWork(null, null);
+    private static final RangeWork END_OF_RANGES = new RangeWork(null, -1, 0, null, 0);
+
+    private final MessageIndexingStrategy messageStrategy;
+    private final List<IndexingStrategy> fileStrategies = new ArrayList<>();
+    private final int ioThreads;
+    private final int cpuThreads;
+    private final int mergeThreads;
+    private final int queueCapacity;
+    private final int maxKilobytesInFlight;
+    private final Set<Run> running = ConcurrentHashMap.newKeySet();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Timer tokenizeTime = metrics.timer("index.tokenize");
+    private final Counter tokenizedBytes = metrics.counter("index.tokenize.bytes");
+
+    /**
+     * Constructs a pipeline with the default number of threads, queue capacity and bytes in flight.
+     *
+     * @param strategies The strategies to apply when indexing files.
+     */
+    public IndexingPipeline(List<IndexingStrategy> strategies) {
+        this(strategies, DEFAULT_IO_THREADS, 0, 0, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BYTES_IN_FLIGHT);
+    }
+
+    /**
+     * Constructs a pipeline.
+     *
+     * @param strategies       The strategies to apply when indexing files, at most one of them indexing messages.
+     * @param ioThreads        The number of threads reading files.
+     * @param cpuThreads       The number of threads tokenizing byte ranges, or 0 for one per processor.
+     * @param mergeThreads     The number of threads indexing tokenized files, or 0 for one per two processors.
+     * @param queueCapacity    The capacity of each queue between two stages.
+     * @param maxBytesInFlight The total size of the files read but not merged yet above which reading waits.
+     */
+    @Autowired
+    public IndexingPipeline(List<IndexingStrategy> strategies,
+                            @Value("${app.index.pipeline.io-threads:" + DEFAULT_IO_THREADS + "}") int ioThreads,
+                            @Value("${app.index.pipeline.cpu-threads:0}") int cpuThreads,
+                            @Value("${app.index.pipeline.merge-threads:0}") int mergeThreads,
+                            @Value("${app.index.pipeline.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                            @Value("${app.index.pipeline.max-bytes-in-flight:" + DEFAULT_MAX_BYTES_IN_FLIGHT + "}") long maxBytesInFlight) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.ioThreads = Math.max(1, ioThreads);
+        this.cpuThreads = cpuThreads > 0 ? cpuThreads : processors;
+        this.mergeThreads = mergeThreads > 0 ? mergeThreads : Math.max(1, processors / 2);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxKilobytesInFlight = (int) Math.clamp(maxBytesInFlight / 1024, 1, Integer.MAX_VALUE);
+
+        MessageIndexingStrategy found = null;
+        for (IndexingStrategy strategy : strategies) {
+            if (strategy instanceof MessageIndexingStrategy messages) {
+                if (found != null) {
+                    throw new IllegalArgumentException("At most one strategy may index the messages of files");
+                }
+                found = messages;
+            } else {
+                fileStrategies.add(strategy);
+            }
+        }
+        this.messageStrategy = found;
+
+        registerGauge("read", run -> run.readQueue.size());
+        registerGauge("tokenize", run -> run.tokenizeQueue.size());
+        registerGauge("merge", run -> run.mergeQueue.size());
+        metrics.gauge("index.pipeline.threads", () -> running.stream().mapToInt(run -> run.threads.size()).sum());
+    }
+
+    private void registerGauge(String queue, ToIntFunction<Run> length) {
+        metrics.gauge("index.pipeline.queued", () -> running.stream().mapToInt(length).sum(), "queue", queue);
+    }
+
+    /**
+     * Discovers files, calling a sink for each of them.
+     */
+    @FunctionalInterface
+    public interface FileSource {
+
+        /**
+         * Lists the files to index.
+         *
+         * @param sink The sink receiving the files; blocks while the read stage is full.
+         * @throws IOException          if the files cannot be listed.
+         * @throws InterruptedException if the pipeline was stopped.
+         */
+        void discover(FileSink sink) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Receives the discovered files.
+     */
+    @FunctionalInterface
+    public interface FileSink {
+
+        /**
+         * Queues a file for indexing.
+         *
+         * @param file The file.
+         * @throws InterruptedException if the pipeline was stopped.
+         */
+        void accept(File file) throws InterruptedException;
+    }
+
+    /**
+     * Indexes the files of a source into a build, returning once every file went through every stage.
+     * Files are removed from the index before they are indexed again, so they are never indexed twice.
+     *
+     * @param build    The build receiving the updates.
+     * @param source   The files to index.
+     * @param progress The receiver of the files found and indexed.
+     * @throws InterruptedException if the calling thread is interrupted; the stages are stopped first.
+     */
+    public void run(IndexStore.Build build, FileSource source, IndexingProgress progress) throws InterruptedException {
+        Run run = new Run(build, progress);
+        run.start(source);
+        running.add(run);
+        try {
+            run.await();
+        } finally {
+            running.remove(run);
+        }
+    }
+
+    /**
+     * A file going through the pipeline, with the messages of each of its byte ranges once tokenized.
+     * The file is either a plain file or an entry of an archive, read as it is decompressed.
+     */
+    private static final class FileWork {
+
+        private final File file;
+        private final FileInfo fileInfo;
+        private final Archives.Format format;
+        private final OpenArchive archive;
+        private final ZipEntry entry;
+        private final long foundBytes;
+        private final AtomicInteger remainingRanges = new AtomicInteger(1);  // The ranges being tokenized, plus one while reading
+        private final List<ParallelMessageTokenizer.Chunk> chunks = new ArrayList<>();  // Guarded by itself
+        private int kilobytes;
+        private volatile boolean failed;
+
+        private FileWork(File file, FileInfo fileInfo) {
+            this(file, fileInfo, null, null, null, fileInfo != null ? fileInfo.getSize() : 0);
+        }
+
+        private FileWork(File file, FileInfo fileInfo, Archives.Format format, OpenArchive archive, ZipEntry entry, long foundBytes) {
+            this.file = file;
+            this.fileInfo = fileInfo;
+            this.format = format;
+            this.archive = archive;
+            this.entry = entry;
+            this.foundBytes = foundBytes;
+        }
+
+        /**
+         * Gets the file given to the strategies: the file itself, or for an archive entry a file named
+         * after the entry in the folder of the archive, where the newsgroup catalog of the entry lives.
+         */
+        private File strategyFile() {
+            return format == null ? file : new File(file.getAbsoluteFile().getParentFile(), fileInfo.getName());
+        }
+    }
+
+    /**
+     * A zip file open while its entries are read, closed once the last one is read.
+     */
+    private static final class OpenArchive {
+
+        private final ZipFile zip;
+        private final AtomicInteger holders = new AtomicInteger(1);  // The entries left to read, plus one while listing
+
+        private OpenArchive(ZipFile zip) {
+            this.zip = zip;
+        }
+
+        private void release() {
+            if (holders.decrementAndGet() == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                logger.warn("Error closing archive {}: {}", zip.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A byte range of a file, read and waiting to be tokenized, with the kilobytes in flight it releases
+     * once tokenized (those of archive entries; a file holds its own until merged).
+     */
+    private record RangeWork(FileWork file, int index, long start, ByteBuffer bytes, int kilobytes) {
+    }
+
+    /**
+     * The queues and threads of one run of the pipeline.
+     */
+    private final class Run {
+
+        private final IndexStore.Build build;
+        private final IndexingProgress progress;
+        private final BlockingQueue<FileWork> readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<RangeWork> tokenizeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<FileWork> mergeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger readersLeft = new AtomicInteger(ioThreads);
+        private final AtomicInteger tokenizersLeft = new AtomicInteger(cpuThreads);
+        private final Semaphore kilobytesInFlight = new Semaphore(maxKilobytesInFlight);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private final Set<OpenArchive> archives = ConcurrentHashMap.newKeySet();
+
+        private Run(IndexStore.Build build, IndexingProgress progress) {
+            this.build = build;
+            this.progress = progress;
+        }
+
+        private void start(FileSource source) {
+            threads.add(stage("index-discover", () -> discover(source)));
+            for (int i = 1; i <= ioThreads; i++) {
+                threads.add(stage("index-read-" + i, this::read));
+            }
+            for (int i = 1; i <= cpuThreads; i++) {
+                threads.add(stage("index-tokenize-" + i, this::tokenize));
+            }
+            for (int i = 1; i <= mergeThreads; i++) {
+                threads.add(stage("index-merge-" + i, () -> build.run(this::merge)));
+            }
+            threads.forEach(Thread::start);
+        }
+
+        private Thread stage(String name, Stage body) {
+            return Thread.ofPlatform().name(name).daemon(true).unstarted(() -> {
+                try {
+                    body.run();
+                } catch (InterruptedException e) {
+                    // The run was stopped
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    threads.forEach(Thread::interrupt);
+                }
+            });
+        }
+
+        /**
+         * Waits for every stage to finish, stopping all of them if the caller is interrupted.
+         * Archives still open, because the run was stopped, are closed.
+         */
+        private void await() throws InterruptedException {
+            try {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                threads.forEach(Thread::interrupt);
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                throw e;
+            } finally {
+                archives.forEach(OpenArchive::close);
+            }
+            Throwable failed = failure.get();
+            if (failed != null) {
+                throw new IllegalStateException("Indexing pipeline failed: " + failed.getMessage(), failed);
+            }
+        }
+
+        private void discover(FileSource source) throws InterruptedException {
+            try {
+                source.discover(file -> {
+                    Archives.Format format = Archives.formatOf(file.getName());
+                    if (format == Archives.Format.ZIP) {
+                        discoverEntries(file);
+                    } else if (format == Archives.Format.GZIP) {
+                        String name = Archives.gzipEntryName(file.getName());
+                        long size;
+                        try {
+                            size = Archives.gzipSize(file);
+                        } catch (IOException e) {
+                            size = 0;  // Reading the entry reports the error
+                        }
+                        FileInfo fileInfo = new FileInfo(name, Archives.entryPath(file.getPath(), name), size, file.lastModified());
+                        queue(new FileWork(file, fileInfo, format, null, null, file.length()));
+                    } else {
+                        queue(new FileWork(file, new FileInfo(file.getName(), file.getPath(), file.length(), file.lastModified())));
+                    }
+                });
+            } catch (IOException e) {
+                logger.warn("Error listing the files to index: {}", e.getMessage());
+            }
+            progress.discoveryFinished();
+            for (int i = 0; i < ioThreads; i++) {
+                readQueue.put(END_OF_FILES);
+            }
+        }
+
+        /**
+         * Queues every entry of a zip file, listed from its central directory. The entries are read in
+         * parallel by the read stage, each from its own position in the file.
+         */
+        private void discoverEntries(File file) throws InterruptedException {
+            OpenArchive archive;
+            try {
+                archive = new OpenArchive(new ZipFile(file));
+            } catch (IOException e) {
+                logger.warn("Error opening archive {}: {}", file.getName(), e.getMessage());
+                return;
+            }
+            archives.add(archive);
+            try {
+                for (Enumeration<? extends ZipEntry> entries = archive.zip.entries(); entries.hasMoreElements(); ) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                    FileInfo fileInfo = new FileInfo(name, Archives.entryPath(file.getPath(), entry.getName()),
+                            Math.max(entry.getSize(), 0), entry.getTime() >= 0 ? entry.getTime() : file.lastModified());
+                    archive.holders.incrementAndGet();
+                    queue(new FileWork(file, fileInfo, Archives.Format.ZIP, archive, entry, Math.max(entry.getCompressedSize(), 0)));
+                }
+            } finally {
+                archive.release();
+            }
+        }
+
+        private void queue(FileWork work) throws InterruptedException {
+            progress.fileFound(work.foundBytes);
+            metrics.counter("index.pipeline.files", "stage", "discover").increment();
+            metrics.counter("index.pipeline.bytes", "stage", "discover").add(work.foundBytes);
+            long start = System.nanoTime();
+            readQueue.put(work);
+            metrics.timer("index.pipeline.blocked", "stage", "discover").recordSince(start);
+        }
+
+        private void read() throws InterruptedException {
+            for (FileWork work = readQueue.take(); work != END_OF_FILES; work = readQueue.take()) {
+                if (messageStrategy != null) {
+                    read(work);
+                } else {
+                    if (work.archive != null) {
+                        work.archive.release();
+                    }
+                    mergeQueue.put(work);
+                }
+            }
+            if (readersLeft.decrementAndGet() == 0) {
+                for (int i = 0; i < cpuThreads; i++) {
+                    tokenizeQueue.put(END_OF_RANGES);
+                }
+            }
+        }
+
+        /**
+         * Reads the byte ranges of a file and queues them for tokenization. A file that cannot be
+         * read is still queued for merging, so that the strategies not reading its content index it.
+         */
+        private void read(FileWork work) throws InterruptedException {
+            try {
+                if (work.format == null) {
+                    readFile(work);
+                } else {
+                    readEntry(work);
+                }
+                metrics.counter("index.pipeline.files", "stage", "read").increment();
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                logger.warn("Error processing file {}: {}", work.fileInfo.getPath(), e.getMessage());
+                work.failed = true;
+            } finally {
+                if (work.archive != null) {
+                    work.archive.release();
+                }
+            }
+            rangeDone(work);
+        }
+
+        private void readFile(FileWork work) throws IOException, InterruptedException {
+            Timer busy = metrics.timer("index.pipeline.busy", "stage", "read");
+            Timer blocked = metrics.timer("index.pipeline.blocked", "stage", "read");
+            long waitStart = System.nanoTime();
+            work.kilobytes = (int) Math.min(maxKilobytesInFlight, work.fileInfo.getSize() / 1024 + 1);
+            kilobytesInFlight.acquire(work.kilobytes);
+            blocked.recordSince(waitStart);
+            try (FileChannel channel = FileChannel.open(work.file.toPath(), StandardOpenOption.READ)) {
+                long start = System.nanoTime();
+                long[] boundaries = messageStrategy.tokenizer().chunkBoundaries(channel);
+                busy.recordSince(start);
+                for (int i = 0; i < boundaries.length - 1; i++) {
+                    start = System.nanoTime();
+                    ByteBuffer bytes = ParallelMessageTokenizer.readRange(channel, boundaries[i], boundaries[i + 1]);
+                    busy.recordSince(start);
+                    queueRange(work, boundaries[i], bytes, 0);
+                }
+            }
+        }
+
+        /**
+         * Reads an archive entry as it is decompressed, a range at a time, so neither the entry nor the
+         * archive is ever held whole. The size of the entry is only known once it is read, so the bytes of
+         * each range count towards the bytes in flight until the range is tokenized, rather than until
+         * the entry is merged: entries larger than the bound, read together, would otherwise wait for
+         * each other to be merged.
+         */
+        private void readEntry(FileWork work) throws IOException, InterruptedException {
+            Timer busy = metrics.timer("index.pipeline.busy", "stage", "read");
+            Timer blocked = metrics.timer("index.pipeline.blocked", "stage", "read");
+            try (InputStream in = work.format == Archives.Format.ZIP
+                    ? work.archive.zip.getInputStream(work.entry)
+                    : Archives.openGzip(work.file)) {
+                long[] readStart = {System.nanoTime()};
+                long size = messageStrategy.tokenizer().readRanges(in, (start, bytes) -> {
+                    busy.recordSince(readStart[0]);
+                    int kilobytes = Math.min(bytes.position() / 1024 + 1, maxKilobytesInFlight);
+                    long waitStart = System.nanoTime();
+                    kilobytesInFlight.acquire(kilobytes);
+                    blocked.recordSince(waitStart);
+                    queueRange(work, start, bytes, kilobytes);
+                    readStart[0] = System.nanoTime();
+                });
+                busy.recordSince(readStart[0]);
+                work.fileInfo.setSize(size);
+            }
+        }
+
+        private void queueRange(FileWork work, long start, ByteBuffer bytes, int kilobytes) throws InterruptedException {
+            int index;
+            synchronized (work.chunks) {
+                index = work.chunks.size();
+                work.chunks.add(null);
+            }
+            work.remainingRanges.incrementAndGet();
+            metrics.counter("index.pipeline.bytes", "stage", "read").add(bytes.position());
+            long blockedStart = System.nanoTime();
+            tokenizeQueue.put(new RangeWork(work, index, start, bytes, kilobytes));
+            metrics.timer("index.pipeline.blocked", "stage", "read").recordSince(blockedStart);
+        }
+
+        /**
+         * Queues a file for merging once it is read and all its ranges are tokenized.
+         */
+        private void rangeDone(FileWork work) throws InterruptedException {
+            if (work.remainingRanges.decrementAndGet() == 0) {
+                if (!work.failed) {
+                    metrics.counter("index.pipeline.files", "stage", "tokenize").increment();
+                }
+                long start = System.nanoTime();
+                mergeQueue.put(work);
+                metrics.timer("index.pipeline.blocked", "stage", "tokenize").recordSince(start);
+            }
+        }
+
+        private void tokenize() throws InterruptedException {
+            for (RangeWork range = tokenizeQueue.take(); range != END_OF_RANGES; range = tokenizeQueue.take()) {
+                long start = System.nanoTime();
+                int length = range.bytes().position();
+                ParallelMessageTokenizer.Chunk chunk = messageStrategy.tokenizer().tokenizeRange(range.bytes().array(), length, range.start());
+                synchronized (range.file().chunks) {
+                    range.file().chunks.set(range.index(), chunk);
+                }
+                kilobytesInFlight.release(range.kilobytes());
+                tokenizeTime.recordSince(start);
+                metrics.timer("index.pipeline.busy", "stage", "tokenize").recordSince(start);
+                metrics.counter("index.pipeline.bytes", "stage", "tokenize").add(length);
+                tokenizedBytes.add(length);
+                rangeDone(range.file());
+            }
+            if (tokenizersLeft.decrementAndGet() == 0) {
+                for (int i = 0; i < mergeThreads; i++) {
+                    mergeQueue.put(END_OF_FILES);
+                }
+            }
+        }
+
+        private void merge() {
+            try {
+                for (FileWork work = mergeQueue.take(); work != END_OF_FILES; work = mergeQueue.take()) {
+                    long start = System.nanoTime();
+                    merge(work);
+                    kilobytesInFlight.release(work.kilobytes);
+                    metrics.timer("index.pipeline.busy", "stage", "merge").recordSince(start);
+                    metrics.counter("index.pipeline.files", "stage", "merge").increment();
+                    metrics.counter("index.pipeline.bytes", "stage", "merge").add(work.fileInfo.getSize());
+                    progress.fileIndexed(work.foundBytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();  // Ends the stage thread
+            }
+        }
+
+        /**
+         * Runs every strategy on a file. The files, bytes and time each strategy processed are recorded per strategy.
+         * Indexing an archive entry removes every entry indexed from the archive before, including those
+         * it no longer holds.
+         */
+        private void merge(FileWork work) {
+            IndexStore.getInstance().removeFile(work.file.getPath());
+            File file = work.strategyFile();
+            if (messageStrategy != null && !work.failed) {
+                index(messageStrategy, work.fileInfo, () -> {
+                    List<ParallelMessageTokenizer.Chunk> chunks;
+                    synchronized (work.chunks) {
+                        chunks = List.copyOf(work.chunks);
+                    }
+                    ParallelMessageTokenizer.Chunk joined = chunks.getFirst();
+                    for (int i = 1; i < chunks.size(); i++) {
+                        joined = joined.join(chunks.get(i));
+                    }
+                    messageStrategy.indexMessages(file, work.fileInfo, joined.messages());
+                });
+            }
+            for (IndexingStrategy strategy : fileStrategies) {
+                index(strategy, work.fileInfo, () -> strategy.indexFile(file, work.fileInfo));
+            }
+        }
+
+        private void index(IndexingStrategy strategy, FileInfo fileInfo, Runnable task) {
+            String name = strategy.getClass().getSimpleName();
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.warn("Error processing file {}: {}", fileInfo.getName(), e.getMessage());
+            } finally {
+                metrics.timer("index.file", "strategy", name).recordSince(start);
+                metrics.counter("index.files", "strategy", name).increment();
+                metrics.counter("index.bytes", "strategy", name).add(fileInfo.getSize());
+            }
+        }
+    }
+
+    /**
+     * The body of a stage thread.
+     */
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+}
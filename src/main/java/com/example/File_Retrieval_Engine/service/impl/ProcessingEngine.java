@@ -1,20 +1,53 @@
 package com.example.File_Retrieval_Engine.service.impl;
 
+import com.example.File_Retrieval_Engine.archive.Archives;
+import com.example.File_Retrieval_Engine.cache.QueryKey;
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.exception.CursorExpiredException;
 import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
+import com.example.File_Retrieval_Engine.index.BatchView;
+import com.example.File_Retrieval_Engine.index.DocumentTable;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.index.IndexView;
+import com.example.File_Retrieval_Engine.index.MetadataColumns;
+import com.example.File_Retrieval_Engine.index.PostingList;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
 import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.PlanStage;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchResult;
 import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.BooleanQuery;
+import com.example.File_Retrieval_Engine.query.ContentQuery;
+import com.example.File_Retrieval_Engine.query.PositionalMatcher;
+import com.example.File_Retrieval_Engine.query.QueryPlanner;
+import com.example.File_Retrieval_Engine.query.SearchCursor;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.query.TermPattern;
 import com.example.File_Retrieval_Engine.service.Engine;
+import com.example.File_Retrieval_Engine.ranking.Bm25;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.ranking.MaxScoreRanker;
 import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
 import com.example.File_Retrieval_Engine.strategy.IndexingStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * ProcessingEngine is responsible for indexing files and folders
@@ -23,22 +56,66 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class ProcessingEngine implements Engine {
 
-    private final List<IndexingStrategy> strategies;
+    private static final int DEFAULT_RANKED_LIMIT = 10;
+    private static final int PAGED_GENERATIONS = 8;
+
     private static final Logger logger = LoggerFactory.getLogger(ProcessingEngine.class);
-    private final ExecutorService executorService;
+    private final IndexingPipeline pipeline;
+    private final IndexStore indexStore;
+    private final QueryResultCache resultCache;
+    private final TermExpander termExpander;
+    private final QueryPlanner queryPlanner;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Map<Long, SoftReference<IndexGeneration>> pagedGenerations = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SoftReference<IndexGeneration>> eldest) {
+            return size() > PAGED_GENERATIONS;
+        }
+    };
 
     /**
-     * Constructs a ProcessingEngine with a list of indexing strategies.
+     * Constructs a ProcessingEngine with a list of indexing strategies run by a pipeline with the
+     * default settings, without caching search results.
      *
      * @param strategies List of indexing strategies to apply when indexing files.
      */
     public ProcessingEngine(List<IndexingStrategy> strategies) {
-        this.strategies = strategies;
-        this.executorService = Executors.newCachedThreadPool();
+        this(new IndexingPipeline(strategies), new QueryResultCache(0, 0), new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS));
+    }
+
+    /**
+     * Constructs a ProcessingEngine with the pipeline indexing files, a search result cache
+     * and the expander of prefix, wildcard and fuzzy terms.
+     *
+     * @param pipeline     The pipeline running the indexing strategies.
+     * @param resultCache  The cache of search results.
+     * @param termExpander The expander of term and file name patterns.
+     */
+    @Autowired
+    public ProcessingEngine(IndexingPipeline pipeline, QueryResultCache resultCache, TermExpander termExpander) {
+        this(pipeline, resultCache, termExpander, IndexStore.getInstance());
+    }
+
+    /**
+     * Constructs a ProcessingEngine over a store of its own, such as one shard of a sharded index.
+     *
+     * @param pipeline     The pipeline running the indexing strategies.
+     * @param resultCache  The cache of search results, used by this engine only.
+     * @param termExpander The expander of term and file name patterns.
+     * @param indexStore   The store holding the index.
+     */
+    public ProcessingEngine(IndexingPipeline pipeline, QueryResultCache resultCache, TermExpander termExpander,
+                            IndexStore indexStore) {
+        this.pipeline = pipeline;
+        this.indexStore = indexStore;
+        this.resultCache = resultCache;
+        this.termExpander = termExpander;
+        this.queryPlanner = new QueryPlanner(termExpander);
     }
 
     /**
      * Indexes files from the specified path.
+     * The pipeline threads only live for the run, so the engine can index again later.
      *
      * @param path The directory path to index.
      * @throws EmptyDataSetException if the provided dataset is empty.
@@ -46,77 +123,189 @@ public class ProcessingEngine implements Engine {
     @Override
     public void index(String path) throws EmptyDataSetException {
         try {
-            long startTime = System.currentTimeMillis();
-            logger.info("Start indexing...");
+            index(path, IndexingProgress.NONE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            File[] files = getFolders(path);
+    /**
+     * Indexes files from the specified path, reporting the files found and indexed.
+     * Files indexed earlier under the same path are replaced rather than indexed twice. The files are
+     * indexed in a build of their own, so other paths can be indexed at the same time; an interrupted
+     * run stops its pipeline and publishes nothing.
+     *
+     * @param path     The directory path to index.
+     * @param progress The receiver of the progress.
+     * @throws EmptyDataSetException if the provided dataset is empty.
+     * @throws InterruptedException  if the calling thread is interrupted before the index is published.
+     */
+    @Override
+    public void index(String path, IndexingProgress progress) throws EmptyDataSetException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Start indexing {}...", path);
+        String[] entries = new File(path).list();
+        if (entries == null || entries.length == 0) {
+            logger.warn("No files found in the specified path: {}", path);
+            throw new EmptyDataSetException("Provided dataset is empty!");
+        }
 
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    indexFolder(file);
-                } else {
-                    indexFile(file);
-                }
+        IndexStore.Build build = indexStore.beginBuild();
+        boolean published = false;
+        try {
+            pipeline.run(build, sink -> discover(Path.of(path), sink), progress);
+            indexStore.finishBuild(build);
+            published = true;
+        } finally {
+            if (!published) {
+                indexStore.abandonBuild(build);
             }
+        }
 
-            executorService.shutdown();
-            if (!executorService.awaitTermination(1, TimeUnit.HOURS)) {
-                logger.warn("Executor did not terminate in the given time.");
-                executorService.shutdownNow();
-            }
+        long endTime = System.currentTimeMillis();
+        metrics.timer("index.duration", "operation", "index").record(TimeUnit.MILLISECONDS.toNanos(endTime - startTime));
+        logger.info("Finished indexing {}! Time taken: {} seconds", path, (endTime - startTime) / 1000.0);
+    }
 
-            long endTime = System.currentTimeMillis();
-            logger.info("Finished indexing! Time taken: {} seconds", (endTime - startTime) / 1000.0);
+    /**
+     * Re-indexes a batch of changed files.
+     * Every file is removed from the index and the ones still present on disk are indexed again;
+     * searches see the whole batch change at once, when the build is published.
+     *
+     * @param paths The paths of the created, modified or deleted files.
+     */
+    @Override
+    public void update(Collection<String> paths) {
+        try {
+            update(paths, IndexingProgress.NONE);
         } catch (InterruptedException e) {
-            executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
 
     /**
-     * Retrieves the list of files and folders in a given directory.
+     * Re-indexes a batch of changed files like {@link #update(Collection)}, reporting the files found
+     * and indexed. The entry of an archive is re-indexed with the whole archive.
+     * An interrupted update stops its pipeline and publishes nothing.
      *
-     * @param path The directory path.
-     * @return An array of files and folders.
-     * @throws EmptyDataSetException if the directory is empty.
+     * @param paths    The paths of the created, modified or deleted files.
+     * @param progress The receiver of the progress.
+     * @throws InterruptedException if the calling thread is interrupted before the index is published.
      */
-    private File[] getFolders(String path) throws EmptyDataSetException {
-        File[] files = new File(path).listFiles();
-        if (files == null || files.length == 0) {
-            logger.warn("No files found in the specified path: {}", path);
-            throw new EmptyDataSetException("Provided dataset is empty!");
+    public void update(Collection<String> paths, IndexingProgress progress) throws InterruptedException {
+        List<String> files = paths.stream().map(Archives::fileOf).distinct().toList();
+        long startTime = System.currentTimeMillis();
+        IndexStore.Build build = indexStore.beginBuild();
+        boolean published = false;
+        try {
+            for (String path : files) {
+                indexStore.removeFile(path);
+            }
+            pipeline.run(build, sink -> {
+                for (String path : files) {
+                    File file = new File(path);
+                    if (file.isFile()) {
+                        sink.accept(file);
+                    }
+                }
+            }, progress);
+            indexStore.finishBuild(build);
+            published = true;
+        } finally {
+            if (!published) {
+                indexStore.abandonBuild(build);
+            }
         }
-        return files;
+
+        long endTime = System.currentTimeMillis();
+        metrics.timer("index.duration", "operation", "update").record(TimeUnit.MILLISECONDS.toNanos(endTime - startTime));
+        logger.info("Re-indexed {} changed files in {} seconds", files.size(), (endTime - startTime) / 1000.0);
+    }
+
+    /**
+     * Removes files from the index, whether or not they still exist on disk, for instance when they
+     * move to another shard. Nothing is published if none of the files is indexed.
+     *
+     * @param paths The paths of the files to remove.
+     */
+    @Override
+    public void remove(Collection<String> paths) {
+        boolean indexed = indexStore.currentGeneration().segments().stream()
+                .anyMatch(segment -> segment.without(paths) != segment);
+        if (!indexed) {
+            return;
+        }
+        IndexStore.Build build = indexStore.beginBuild();
+        for (String path : paths) {
+            indexStore.removeFile(path);
+        }
+        indexStore.finishBuild(build);
     }
 
     /**
-     * Recursively indexes the files in a given folder.
+     * Lists the paths of the files in the index.
      *
-     * @param folder The folder to index.
+     * @return The paths of the live files, in index order.
      */
-    private void indexFolder(File folder) {
-        File[] files = folder.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                indexFile(file);
+    @Override
+    public Collection<String> indexedPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (IndexView view : indexStore.currentGeneration().views()) {
+            MetadataColumns metadata = view.metadata();
+            for (int ordinal = 0; ordinal < metadata.fileCount(); ordinal++) {
+                if (view.isLiveFile(ordinal)) {
+                    paths.add(metadata.file(ordinal).getPath());
+                }
             }
         }
+        return paths;
+    }
+
+    /**
+     * Gets the number of the index generation searches currently read.
+     *
+     * @return The generation number.
+     */
+    @Override
+    public long generation() {
+        return indexStore.currentGeneration().number();
     }
 
     /**
-     * Indexes a single file.
+     * Gets the size statistics of the current index generation.
      *
-     * @param file The file to index.
+     * @return The statistics of every segment and their totals.
      */
-    private void indexFile(File file) {
-        FileInfo fileInfo = new FileInfo(
-                file.getName(),
-                file.getPath(),
-                file.length(),
-                file.lastModified());
+    @Override
+    public IndexGeneration.Stats indexStats() {
+        return indexStore.currentGeneration().stats();
+    }
 
-        for (IndexingStrategy strategy : strategies) {
-            executorService.submit(() -> strategy.indexFile(file, fileInfo));
+    /**
+     * Streams the files to index in a given directory to the pipeline: its files, and the files of its folders.
+     *
+     * @param root The directory path.
+     * @param sink The sink of the pipeline, blocking while it is full.
+     * @throws IOException          if the directory cannot be listed.
+     * @throws InterruptedException if the pipeline was stopped.
+     */
+    static void discover(Path root, IndexingPipeline.FileSink sink) throws IOException, InterruptedException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) {
+                    try (DirectoryStream<Path> children = Files.newDirectoryStream(entry)) {
+                        for (Path child : children) {
+                            if (Files.isRegularFile(child)) {
+                                sink.accept(child.toFile());
+                            }
+                        }
+                    } catch (IOException e) {
+                        logger.warn("Error listing folder {}: {}", entry, e.getMessage());
+                    }
+                } else if (Files.isRegularFile(entry)) {
+                    sink.accept(entry.toFile());
+                }
+            }
         }
     }
 
@@ -125,88 +314,489 @@ public class ProcessingEngine implements Engine {
      * The search combines results from multiple filtering conditions:
      * - File name search
      * - File size range search
+     * - File modification time range and file type search
      * - File content search
      * <p>
      * The method works as follows:
-     * 1. It initializes a list (`resultSet`) to store sets of matching files from different criteria.
-     * 2. It applies each search filter (file name, size, and content) and adds the matching file sets to `resultSet`.
-     * 3. It finds the common files among all search results using set intersection.
-     * 4. Finally, it returns a list of files that match all the specified criteria.
+     * 1. Each file-level filter (name, size, time and type) yields the set of matching file ordinals
+     *    of a segment, as a bitset read from its metadata columns.
+     * 2. Without content terms or boolean query, the bitsets are intersected, smallest first, and
+     *    the files left are the result.
+     * 3. Otherwise a {@link QueryPlanner} estimates how many documents each term, pattern, phrase,
+     *    boolean query and file-level filter matches, lists the matches of the most selective one
+     *    and checks them against the others in order, stopping once no candidate is left.
+     * <p>
+     * Content terms match documents, which are either whole files or single messages of a newsgroup file;
+     * the file-level conditions keep the documents whose enclosing file satisfies them.
+     * Prefix, wildcard and fuzzy terms match the documents containing any of their expansions, and
+     * file names may be glob patterns. A boolean query, evaluated to a doc id bitmap, further
+     * restricts the documents matched by the content terms.
+     * An explained search returns the stages of its plan with the results and bypasses the cache.
+     * Ranked searches instead score the documents containing any of the content terms with BM25,
+     * using the file-level conditions as a filter, and return the best documents first.
+     * <p>
+     * The search reads a single index generation from start to end, without locking, so it is not
+     * affected by indexing running at the same time. Each file lives in exactly one of the generation's
+     * segments, so the segments are searched independently and their results concatenated
+     * (or merged by score for ranked searches). Results are cached per generation, so repeated
+     * criteria are only evaluated again once the index changed.
+     * <p>
+     * Unranked results are listed segment by segment in doc id order (file ordinal order without content
+     * clauses). When the limit cuts them, the result holds the cursor of the last one, and a search
+     * given that cursor as {@code after} lists the following ones from the same generation. The most
+     * recent generations that issued cursors are kept softly referenced, so that their pages stay
+     * consistent while newer generations are published; pages after the first bypass the cache.
      *
      * @param criteria The criteria containing file name, size range, and content search terms.
-     * @return A list of files that match all provided search conditions.
+     * @return The files that match all provided search conditions, and the generation they were found in.
+     * @throws IllegalArgumentException if the cursor is invalid or given to a ranked search.
+     * @throws CursorExpiredException   if the generation of the cursor is no longer kept.
      */
     @Override
-    public List<FileInfo> search(SearchingCriteria criteria) {
-        List<Set<FileInfo>> resultSet = new ArrayList<>();
+    public SearchResult search(SearchingCriteria criteria) {
+        SearchCursor after = SearchCursor.parse(criteria.getAfter());
+        IndexGeneration generation = generation(after);
+        if (bypassesCache(criteria) || after != null) {
+            return page(generation, generation.views(), criteria, after);
+        }
+        QueryKey key = QueryKey.of(criteria);
+        SearchResult cached = resultCache.get(key, generation.number());
+        if (cached != null) {
+            return cached;
+        }
+        SearchResult result = page(generation, generation.views(), criteria, after);
+        resultCache.put(key, result);
+        return result;
+    }
 
-        if (criteria.getFileName() != null && !criteria.getFileName().isEmpty()) {
-            resultSet.add(nameCriteria(criteria.getFileName()));
+    /**
+     * Searches for files like {@link #search(SearchingCriteria)}, handing each result over as soon as
+     * the planner confirms it instead of collecting them, so the first results are delivered before the
+     * later ones are even checked. Results of ranked searches are handed over once ranked. A cached first
+     * page is replayed, but streamed results are not cached.
+     *
+     * @param criteria The search criteria.
+     * @param sink     The receiver of the generation read and of the results.
+     * @return The generation read, the cursor following the last result when the limit cut the results,
+     * and the plan of explained searches; the results are only given to the sink.
+     * @throws IllegalArgumentException if the cursor is invalid or given to a ranked search.
+     * @throws CursorExpiredException   if the generation of the cursor is no longer kept.
+     */
+    @Override
+    public SearchResult search(SearchingCriteria criteria, SearchHitSink sink) {
+        SearchCursor after = SearchCursor.parse(criteria.getAfter());
+        IndexGeneration generation = generation(after);
+        if (!bypassesCache(criteria) && after == null) {
+            SearchResult cached = resultCache.get(QueryKey.of(criteria), generation.number());
+            if (cached != null) {
+                sink.start(cached.getGeneration());
+                cached.getHits().forEach(sink::accept);
+                return new SearchResult(cached.getGeneration(), List.of(), null, cached.getNextCursor());
+            }
         }
-        if (criteria.getMinSize() != null || criteria.getMaxSize() != null) {
-            resultSet.add(sizeCriteria(criteria.getMinSize(), criteria.getMaxSize()));
+        return search(generation, generation.views(), criteria, after, sink);
+    }
+
+    /**
+     * Runs a batch of searches in parallel against the current index generation, pinned for the whole batch.
+     * <p>
+     * The searches read the segments through {@link BatchView}s, so a term or file-level filter that
+     * several searches of the batch use is looked up, and its doc ids decoded, only once. Each search
+     * is otherwise evaluated like {@link #search(SearchingCriteria)}, cache included; a search resuming
+     * after a cursor reads the generation of its cursor instead. The lookups asked and those answered
+     * by an earlier search of the batch are counted under {@code search.batch.lookups}.
+     *
+     * @param batch The criteria of the searches.
+     * @return The result of every search, in the order of the criteria; a search that failed holds its error.
+     */
+    @Override
+    public List<SearchResult> search(List<SearchingCriteria> batch) {
+        IndexGeneration generation = indexStore.currentGeneration();
+        List<BatchView> batchViews = generation.views().stream().map(BatchView::new).toList();
+        List<IndexView> views = List.copyOf(batchViews);
+        List<SearchResult> results = IntStream.range(0, batch.size())
+                .parallel()
+                .mapToObj(i -> searchInBatch(generation, views, batch.get(i)))
+                .toList();
+        long lookups = batchViews.stream().mapToLong(BatchView::lookups).sum();
+        long fetches = batchViews.stream().mapToLong(BatchView::fetches).sum();
+        metrics.counter("search.batch.lookups", "source", "index").add(fetches);
+        metrics.counter("search.batch.lookups", "source", "shared").add(lookups - fetches);
+        return results;
+    }
+
+    private SearchResult searchInBatch(IndexGeneration generation, List<IndexView> views, SearchingCriteria criteria) {
+        try {
+            if (criteria.getAfter() != null && !criteria.getAfter().isEmpty()) {
+                return search(criteria);
+            }
+            if (bypassesCache(criteria)) {
+                return page(generation, views, criteria, null);
+            }
+            QueryKey key = QueryKey.of(criteria);
+            SearchResult cached = resultCache.get(key, generation.number());
+            if (cached != null) {
+                return cached;
+            }
+            SearchResult result = page(generation, views, criteria, null);
+            resultCache.put(key, result);
+            return result;
+        } catch (RuntimeException e) {
+            return SearchResult.failed(generation.number(), String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks whether the results of a search must not be cached: explained searches, and searches scored
+     * with statistics other than those of the index.
+     */
+    private static boolean bypassesCache(SearchingCriteria criteria) {
+        return criteria.isExplain() || criteria.getStatistics() != null;
+    }
+
+    /**
+     * Gets the statistics a ranked search of the current generation would score with: the documents of
+     * the generation, their total length, and the document frequency of the content terms, patterns
+     * expanded. A sharded engine adds up those of its shards before searching them.
+     *
+     * @param criteria The criteria of a ranked search.
+     * @return The statistics of the current generation.
+     * @throws IllegalArgumentException if the criteria have no content search term.
+     */
+    @Override
+    public CollectionStatistics statistics(SearchingCriteria criteria) {
+        if (criteria.getContentSearchTerm() == null || criteria.getContentSearchTerm().isEmpty()) {
+            throw new IllegalArgumentException("Only searches with content terms are ranked");
+        }
+        List<IndexView> views = indexStore.currentGeneration().views();
+        return statistics(views, rankedTerms(views, ContentQuery.parse(criteria.getContentSearchTerm())));
+    }
+
+    /**
+     * Lists the terms a ranked search scores: its terms and the expansions of its patterns in every view.
+     */
+    private List<String> rankedTerms(List<IndexView> views, ContentQuery query) {
+        Set<String> expandedTerms = new LinkedHashSet<>(query.allTerms());
+        for (TermPattern pattern : query.patterns()) {
+            for (IndexView view : views) {
+                expandedTerms.addAll(termExpander.expand(view.contentTerms(), pattern));
+            }
+        }
+        return List.copyOf(expandedTerms);
+    }
+
+    private static CollectionStatistics statistics(List<IndexView> views, List<String> terms) {
+        int docCount = 0;
+        double totalLength = 0;
+        Map<String, Integer> docFrequencies = HashMap.newHashMap(terms.size());
+        for (IndexView view : views) {
+            docCount += view.documents().size();
+            totalLength += view.documents().averageLength() * view.documents().size();
+            for (String term : terms) {
+                PostingList postingList = view.postings(term);
+                docFrequencies.merge(term, postingList != null ? postingList.size() : 0, Integer::sum);
+            }
+        }
+        return new CollectionStatistics(docCount, totalLength, docFrequencies);
+    }
+
+    /**
+     * Gets the generation a search reads: the current one, or the one a cursor was issued from.
+     *
+     * @param after The cursor of the previous page, or null.
+     * @return The generation to read.
+     */
+    private IndexGeneration generation(SearchCursor after) {
+        IndexGeneration current = indexStore.currentGeneration();
+        if (after == null || after.generation() == current.number()) {
+            return current;
+        }
+        SoftReference<IndexGeneration> kept;
+        synchronized (pagedGenerations) {
+            kept = pagedGenerations.get(after.generation());
+        }
+        IndexGeneration generation = kept != null ? kept.get() : null;
+        if (generation == null) {
+            throw new CursorExpiredException("Index generation " + after.generation()
+                    + " of the cursor is no longer kept, the search must start again");
+        }
+        return generation;
+    }
+
+    /**
+     * Evaluates a search against one index generation, collecting the results.
+     *
+     * @param generation The generation to read.
+     * @param views      The segments of the generation, possibly shared by a batch.
+     * @param criteria   The search criteria.
+     * @param after      The cursor to resume after, or null.
+     * @return The matching files.
+     */
+    private SearchResult page(IndexGeneration generation, List<IndexView> views, SearchingCriteria criteria,
+                              SearchCursor after) {
+        List<SearchHit> hits = new ArrayList<>();
+        SearchResult result = search(generation, views, criteria, after, new SearchHitSink() {
+            @Override
+            public void start(long generation) {
+            }
+
+            @Override
+            public void accept(SearchHit hit) {
+                hits.add(hit);
+            }
+        });
+        return new SearchResult(result.getGeneration(), List.copyOf(hits), result.getPlan(), result.getNextCursor());
+    }
+
+    /**
+     * Evaluates a search against one index generation, handing the results over as they are found.
+     *
+     * @param generation The generation to read.
+     * @param views      The segments of the generation, possibly shared by a batch.
+     * @param criteria   The search criteria.
+     * @param after      The cursor to resume after, or null.
+     * @param sink       The receiver of the results.
+     * @return The generation, the cursor of the next page and the plan, without the results.
+     */
+    private SearchResult search(IndexGeneration generation, List<IndexView> views, SearchingCriteria criteria,
+                                SearchCursor after, SearchHitSink sink) {
+        boolean hasContent = criteria.getContentSearchTerm() != null && !criteria.getContentSearchTerm().isEmpty();
+        ContentQuery query = hasContent ? ContentQuery.parse(criteria.getContentSearchTerm()) : null;
+        BooleanQuery booleanQuery = criteria.getQuery() != null && !criteria.getQuery().isEmpty()
+                ? BooleanQuery.parse(criteria.getQuery())
+                : null;
+        if (criteria.getLimit() != null && criteria.getLimit() < 0) {
+            throw new IllegalArgumentException("The limit must not be negative: " + criteria.getLimit());
         }
-        if (criteria.getContentSearchTerm() != null && !criteria.getContentSearchTerm().isEmpty()) {
-            resultSet.add(contentCriteria(criteria.getContentSearchTerm()));
+        List<PlanStage> plan = new ArrayList<>();
+        if (criteria.isRanked() && hasContent) {
+            if (after != null) {
+                throw new IllegalArgumentException("Cursors only page unranked searches");
+            }
+            int limit = criteria.getLimit() != null ? criteria.getLimit() : DEFAULT_RANKED_LIMIT;
+            List<SearchHit> hits = rankedContentSearch(views, criteria, query, booleanQuery, limit, plan);
+            sink.start(generation.number());
+            hits.forEach(sink::accept);
+            return new SearchResult(generation.number(), List.of(), criteria.isExplain() ? plan : null);
         }
 
-        Set<FileInfo> commonFiles = new HashSet<>(resultSet.getFirst());
-        for (Set<FileInfo> fileInfos : resultSet) {
-            commonFiles.retainAll(fileInfos);
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : Integer.MAX_VALUE;
+        int[] found = new int[1];
+        int[] last = {-1, -1};
+        sink.start(generation.number());
+        boolean complete = scan(views, criteria, query, booleanQuery, after, plan, (segment, position, fileInfo) -> {
+            if (found[0] == limit) {
+                return false;
+            }
+            sink.accept(new SearchHit(fileInfo, null));
+            found[0]++;
+            last[0] = segment;
+            last[1] = position;
+            return true;
+        });
+        String nextCursor = null;
+        if (!complete && found[0] > 0) {
+            synchronized (pagedGenerations) {
+                pagedGenerations.put(generation.number(), new SoftReference<>(generation));
+            }
+            nextCursor = new SearchCursor(generation.number(), last[0], last[1]).encode();
+        } else if (!complete) {
+            nextCursor = criteria.getAfter();  // A zero limit returns no result and stays where it was
+        }
+        return new SearchResult(generation.number(), List.of(), criteria.isExplain() ? plan : null, nextCursor);
+    }
+
+    /**
+     * Lists the unranked results of the views in order, segment by segment.
+     *
+     * @param views        The indexes to search.
+     * @param criteria     The search criteria.
+     * @param query        The parsed content search, or null without content terms.
+     * @param booleanQuery The parsed boolean query, or null without one.
+     * @param after        The cursor to resume after, or null.
+     * @param plan         The list receiving the stages of the search plan.
+     * @param visitor      Receives the results, documents when content terms or a boolean query are
+     *                     given and files otherwise, and returns false to stop.
+     * @return Whether every result was visited, false if the visitor stopped the search.
+     */
+    private boolean scan(List<IndexView> views, SearchingCriteria criteria, ContentQuery query,
+                         BooleanQuery booleanQuery, SearchCursor after, List<PlanStage> plan, ResultVisitor visitor) {
+        for (int segment = after != null ? after.segment() : 0; segment < views.size(); segment++) {
+            IndexView view = views.get(segment);
+            int from = after != null && segment == after.segment() ? after.position() : -1;
+            Map<String, BitSet> fileFilters = fileCriteria(view, criteria);
+            int current = segment;
+            boolean complete = true;
+            if (query != null || booleanQuery != null) {
+                // Content matches are documents (whole files or messages); the file-level filters apply to their file
+                complete = queryPlanner.matchDocuments(view, segment, query, booleanQuery, fileFilters, from, plan,
+                        docId -> !view.isLive(docId) || visitor.visit(current, docId, view.documents().get(docId)));
+            } else if (!fileFilters.isEmpty()) {
+                BitSet files = queryPlanner.matchFiles(segment, fileFilters, plan);
+                MetadataColumns metadata = view.metadata();
+                for (int ordinal = files.nextSetBit(from + 1); ordinal >= 0 && complete; ordinal = files.nextSetBit(ordinal + 1)) {
+                    complete = !view.isLiveFile(ordinal) || visitor.visit(segment, ordinal, metadata.file(ordinal));
+                }
+            }
+            if (!complete) {
+                return false;
+            }
         }
-        return new ArrayList<>(commonFiles);
+        return true;
     }
 
     /**
-     * Searches for files by name.
+     * Receives the unranked results of a search in order.
+     */
+    private interface ResultVisitor {
+
+        /**
+         * Receives a result.
+         *
+         * @param segment  The index of the view holding the result.
+         * @param position The doc id or file ordinal of the result in its view.
+         * @param fileInfo The matching file or document.
+         * @return Whether to continue with the next result.
+         */
+        boolean visit(int segment, int position, FileInfo fileInfo);
+    }
+
+    /**
+     * Applies the file-level criteria (name, size, modification time and type) to a view.
+     * Every given criterion gives a bitset of file ordinals, described for search plans.
      *
-     * @param fileName The file name to search for.
-     * @return A set of matching FileInfo objects.
+     * @param view     The index to search.
+     * @param criteria The search criteria.
+     * @return The ordinals of the files matching each given criterion, live or not, by description.
+     */
+    private Map<String, BitSet> fileCriteria(IndexView view, SearchingCriteria criteria) {
+        MetadataColumns metadata = view.metadata();
+        Map<String, BitSet> filters = new LinkedHashMap<>();
+        if (criteria.getFileName() != null && !criteria.getFileName().isEmpty()) {
+            addFilter(filters, view, "fileName " + criteria.getFileName(), () -> nameCriteria(view, criteria.getFileName()));
+        }
+        if (criteria.getMinSize() != null || criteria.getMaxSize() != null) {
+            addFilter(filters, view, "size [" + criteria.getMinSize() + ", " + criteria.getMaxSize() + "]",
+                    () -> metadata.sizeBetween(criteria.getMinSize(), criteria.getMaxSize()));
+        }
+        if (criteria.getCreatedAfter() != null || criteria.getCreatedBefore() != null) {
+            Long from = criteria.getCreatedAfter() != null ? criteria.getCreatedAfter().getTime() : null;
+            Long until = criteria.getCreatedBefore() != null ? criteria.getCreatedBefore().getTime() : null;
+            addFilter(filters, view, "modified [" + from + ", " + until + ")", () -> metadata.modifiedBetween(from, until));
+        }
+        if (criteria.getFileType() != null && !criteria.getFileType().isEmpty()) {
+            addFilter(filters, view, "fileType " + criteria.getFileType(), () -> metadata.ofType(criteria.getFileType()));
+        }
+        return filters;
+    }
+
+    /**
+     * Adds a file-level filter, computed once for every search of a batch reading the view.
      */
-    private Set<FileInfo> nameCriteria(String fileName) {
-        List<FileInfo> fileInfos = IndexStore.getInstance().getGlobalNameIndex().get(fileName);
-        return fileInfos != null ? new HashSet<>(fileInfos) : new HashSet<>();
+    private static void addFilter(Map<String, BitSet> filters, IndexView view, String description, Supplier<BitSet> lookup) {
+        filters.put(description, view instanceof BatchView batchView ? batchView.fileFilter(description, lookup) : lookup.get());
     }
 
     /**
-     * Searches for files within a given size range.
+     * Intersects the file-level criteria of a view.
      *
-     * @param minSize The minimum file size.
-     * @param maxSize The maximum file size.
-     * @return A set of matching FileInfo objects.
+     * @param view     The index to search.
+     * @param criteria The search criteria.
+     * @return The ordinals of the files matching every given criterion, live or not, or null if no criterion is given.
      */
-    private Set<FileInfo> sizeCriteria(Long minSize, Long maxSize) {
-        Set<FileInfo> fileInfos = new HashSet<>();
-        for (Map.Entry<Long, List<FileInfo>> entry : IndexStore.getInstance().getGlobalSizeIndex().entrySet()) {
-            Long fileSize = entry.getKey();
-            boolean matchesMin = minSize == null || fileSize >= minSize;
-            boolean matchesMax = maxSize == null || fileSize <= maxSize;
-            if (matchesMin && matchesMax) {
-                fileInfos.addAll(entry.getValue());
+    private BitSet allFileCriteria(IndexView view, SearchingCriteria criteria) {
+        BitSet files = null;
+        for (BitSet filter : fileCriteria(view, criteria).values()) {
+            if (files == null) {
+                files = filter;
+            } else {
+                files.and(filter);
             }
         }
-        return fileInfos;
+        return files;
     }
 
     /**
-     * Searches for files containing specific content terms.
+     * Ranks the documents containing any of the content terms by BM25 and keeps the best ones.
+     * Phrases and proximity clauses must match; their terms are scored like the single terms, and so
+     * are the expansions of prefix, wildcard and fuzzy terms found in any view.
+     * Document frequencies and lengths are summed over all views, so that scores from different
+     * views are comparable and can be merged into one top list, unless the criteria carry the
+     * statistics of a larger index this one is a shard of.
      *
-     * @param words The words to search for.
-     * @return A set of matching FileInfo objects.
+     * @param views        The indexes to search.
+     * @param criteria     The search criteria; file-level conditions filter the ranked documents' files.
+     * @param query        The parsed content search.
+     * @param booleanQuery The parsed boolean query the ranked documents must match, or null.
+     * @param limit        The maximum number of documents to return.
+     * @param plan         The list receiving one ranking stage per view.
+     * @return The best matching documents with their scores, best first.
      */
-    private Set<FileInfo> contentCriteria(String words) {
-        List<Set<FileInfo>> fileInfos = new ArrayList<>();
-        String[] params = words.split(" ");
-        for (String param : params) {
-            Map<FileInfo, Integer> entry = IndexStore.getInstance().getGlobalContentIndex().get(param.toLowerCase());
-            if (entry != null) {
-                fileInfos.add(entry.keySet());
+    private List<SearchHit> rankedContentSearch(List<IndexView> views, SearchingCriteria criteria, ContentQuery query,
+                                                BooleanQuery booleanQuery, int limit, List<PlanStage> plan) {
+        List<String> terms = rankedTerms(views, query);
+        CollectionStatistics statistics = criteria.getStatistics() != null
+                ? criteria.getStatistics()
+                : statistics(views, terms);
+        Bm25 bm25 = statistics.bm25();
+
+        List<SearchHit> hits = new ArrayList<>();
+        for (int segment = 0; segment < views.size(); segment++) {
+            IndexView view = views.get(segment);
+            long start = System.nanoTime();
+            DocumentTable documents = view.documents();
+            List<PostingList> postingLists = new ArrayList<>();
+            List<Integer> frequencies = new ArrayList<>();
+            long postings = 0;
+            for (int i = 0; i < terms.size(); i++) {
+                PostingList postingList = view.postings(terms.get(i));
+                if (postingList != null) {
+                    postingLists.add(postingList);
+                    // Terms the given statistics miss were added since they were gathered
+                    frequencies.add(statistics.docFrequencies().getOrDefault(terms.get(i), postingList.size()));
+                    postings += postingList.size();
+                }
+            }
+
+            BitSet files = allFileCriteria(view, criteria);
+            MetadataColumns metadata = view.metadata();
+            IntPredicate filter = docId -> view.isLive(docId) && (files == null || files.get(metadata.fileOf(docId)));
+            if (!query.clauses().isEmpty()) {
+                BitSet positionalMatches = new BitSet();
+                for (int docId : PositionalMatcher.matching(view, query.clauses())) {
+                    positionalMatches.set(docId);
+                }
+                filter = filter.and(positionalMatches::get);
+            }
+            if (booleanQuery != null) {
+                filter = filter.and(booleanQuery.evaluate(view, termExpander)::contains);
             }
+            int found = hits.size();
+            new MaxScoreRanker(documents, bm25)
+                    .topK(postingLists, frequencies.stream().mapToInt(Integer::intValue).toArray(), filter, limit)
+                    .forEach(doc -> hits.add(new SearchHit(documents.get(doc.docId()), doc.score())));
+            plan.add(new PlanStage(segment, "BM25 top " + limit + " of " + postingLists.size() + " terms", "rank",
+                    postings, hits.size() - found, (System.nanoTime() - start) / 1000));
         }
-        Set<FileInfo> commonFiles = new HashSet<>(fileInfos.getFirst());
-        for (Set<FileInfo> file : fileInfos) {
-            commonFiles.retainAll(file);
+        hits.sort(Comparator.comparing(SearchHit::getScore).reversed());
+        return hits.subList(0, Math.min(limit, hits.size()));
+    }
+
+    /**
+     * Searches for files by name, or by a glob such as {@code comp.*} matching several names.
+     *
+     * @param view     The index to search.
+     * @param fileName The file name or glob to search for.
+     * @return The ordinals of the matching files.
+     */
+    private BitSet nameCriteria(IndexView view, String fileName) {
+        BitSet files = new BitSet(view.metadata().fileCount());
+        for (String name : termExpander.expand(view.fileNames(), TermPattern.glob(fileName))) {
+            for (FileInfo file : view.filesByName(name)) {
+                files.set(view.metadata().ordinalOf(file));
+            }
         }
-        return commonFiles;
+        return files;
     }
+
 }
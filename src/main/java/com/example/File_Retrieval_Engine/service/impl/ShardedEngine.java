@@ -0,0 +1,691 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.archive.Archives;
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.exception.CursorExpiredException;
+import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.model.PlanStage;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.service.Engine;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+import com.example.File_Retrieval_Engine.shard.LocalShard;
+import com.example.File_Retrieval_Engine.shard.RemoteShard;
+import com.example.File_Retrieval_Engine.shard.Shard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ShardedEngine partitions the indexed files across shards and answers searches by asking every shard
+ * and gathering their results.
+ * <p>
+ * Each file belongs to one shard, chosen by rendezvous hashing of its path over the names of the shards:
+ * the shard whose name mixed with the path hashes highest. Adding a shard therefore only moves the files
+ * that now hash highest on it, which {@link #rebalance()} moves. Shards are engines of this process over
+ * index stores of their own (the first one being the usual store, read by the startup snapshot and the
+ * statistics endpoint), or engine processes reached over HTTP.
+ * <p>
+ * Indexing discovers the files once and indexes every shard's files in parallel. Ranked searches first
+ * gather the BM25 statistics of every shard (document count, total length and document frequencies of
+ * the terms), then ask the shards in parallel to score with their sum and merge their best results by
+ * score, so that the ranking is the one of a single index at the cost of a second call per shard.
+ * Unranked searches without limit ask the shards in parallel and concatenate their results in shard
+ * order; limited ones walk the shards in order until the limit is reached, and their cursor is the shard
+ * to resume from with that shard's own cursor.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${app.shards.count:1} > 1 or '${app.shards.remote:}' != ''")
+public class ShardedEngine implements Engine {
+
+    private static final int DEFAULT_RANKED_LIMIT = 10;
+    private static final Logger logger = LoggerFactory.getLogger(ShardedEngine.class);
+
+    private final IndexingPipeline pipeline;
+    private final TermExpander termExpander;
+    private final ObjectMapper objectMapper;
+    private final int cacheEntries;
+    private final long cacheBytes;
+    private final List<Shard> shards = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    /**
+     * Constructs a sharded engine with its local and remote shards.
+     *
+     * @param primary      The engine over the usual index store, serving the first local shard.
+     * @param pipeline     The pipeline running the indexing strategies of the other local shards.
+     * @param termExpander The expander of term and file name patterns.
+     * @param objectMapper The mapper of the requests sent to remote shards.
+     * @param localShards  The number of shards in this process, at least one.
+     * @param remoteShards The base URLs of the engine processes serving the remote shards.
+     * @param cacheEntries The maximum number of results cached by each other local shard.
+     * @param cacheBytes   The maximum estimated size of the results cached by each other local shard.
+     */
+    public ShardedEngine(ProcessingEngine primary, IndexingPipeline pipeline, TermExpander termExpander,
+                         ObjectMapper objectMapper,
+                         @Value("${app.shards.count:1}") int localShards,
+                         @Value("${app.shards.remote:}") List<String> remoteShards,
+                         @Value("${app.cache.max-entries:10000}") int cacheEntries,
+                         @Value("${app.cache.max-bytes:67108864}") long cacheBytes) {
+        this.pipeline = pipeline;
+        this.termExpander = termExpander;
+        this.objectMapper = objectMapper;
+        this.cacheEntries = cacheEntries;
+        this.cacheBytes = cacheBytes;
+        shards.add(new LocalShard("local-0", primary));
+        for (int i = 1; i < localShards; i++) {
+            shards.add(localShard(i));
+        }
+        for (String url : remoteShards) {
+            if (!url.isBlank()) {
+                shards.add(new RemoteShard(url.trim(), objectMapper));
+            }
+        }
+        logger.info("Sharding the index over {}", shards.stream().map(Shard::name).toList());
+    }
+
+    private LocalShard localShard(int number) {
+        return new LocalShard("local-" + number, new ProcessingEngine(pipeline,
+                new QueryResultCache(cacheEntries, cacheBytes), termExpander, IndexStore.create()));
+    }
+
+    /**
+     * Indexes files from the specified path into their shards.
+     *
+     * @param path The directory path to index.
+     * @throws EmptyDataSetException if the provided dataset is empty.
+     */
+    @Override
+    public void index(String path) throws EmptyDataSetException {
+        try {
+            index(path, IndexingProgress.NONE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Indexes files from the specified path, reporting the files found and indexed.
+     * The files are listed first, then every shard indexes its own files in parallel and publishes them
+     * on its own, so searches may see some shards' files before the others'. An interrupted run
+     * interrupts the shards still indexing, which publish nothing.
+     *
+     * @param path     The directory path to index.
+     * @param progress The receiver of the progress.
+     * @throws EmptyDataSetException if the provided dataset is empty.
+     * @throws InterruptedException  if the calling thread is interrupted before every shard published.
+     */
+    @Override
+    public void index(String path, IndexingProgress progress) throws EmptyDataSetException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        logger.info("Start indexing {} over {} shards...", path, shards.size());
+        String[] entries = new File(path).list();
+        if (entries == null || entries.length == 0) {
+            logger.warn("No files found in the specified path: {}", path);
+            throw new EmptyDataSetException("Provided dataset is empty!");
+        }
+
+        List<String> paths = new ArrayList<>();
+        try {
+            ProcessingEngine.discover(Path.of(path), file -> {
+                progress.fileFound(file.length());
+                paths.add(file.getPath());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        progress.discoveryFinished();
+
+        IndexingProgress indexed = new IndexingProgress() {
+            @Override
+            public void fileFound(long bytes) {
+            }
+
+            @Override
+            public void discoveryFinished() {
+            }
+
+            @Override
+            public void fileIndexed(long bytes) {
+                progress.fileIndexed(bytes);
+            }
+        };
+        List<Shard> current = List.copyOf(shards);
+        Map<Shard, List<String>> assigned = assign(paths, current);
+        fanOut(List.copyOf(assigned.keySet()), shard -> {
+            shard.update(assigned.get(shard), indexed);
+            return null;
+        });
+
+        long endTime = System.currentTimeMillis();
+        metrics.timer("index.duration", "operation", "index").record(TimeUnit.MILLISECONDS.toNanos(endTime - startTime));
+        logger.info("Finished indexing {}! Time taken: {} seconds", path, (endTime - startTime) / 1000.0);
+    }
+
+    /**
+     * Re-indexes a batch of changed files: each shard indexes its own files again, and the others remove
+     * them in case they held them before the shards changed. The entries of an archive stay together on
+     * the shard of the archive.
+     *
+     * @param paths The paths of the created, modified or deleted files.
+     */
+    @Override
+    public void update(Collection<String> paths) {
+        List<String> files = paths.stream().map(Archives::fileOf).distinct().toList();
+        List<Shard> current = List.copyOf(shards);
+        Map<Shard, List<String>> assigned = assign(files, current);
+        try {
+            fanOut(current, shard -> {
+                Set<String> own = new LinkedHashSet<>(assigned.getOrDefault(shard, List.of()));
+                if (!own.isEmpty()) {
+                    shard.update(own, IndexingProgress.NONE);
+                }
+                if (own.size() < files.size()) {
+                    shard.remove(files.stream().filter(path -> !own.contains(path)).toList());
+                }
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes files from every shard.
+     *
+     * @param paths The paths of the files to remove.
+     */
+    @Override
+    public void remove(Collection<String> paths) {
+        try {
+            fanOut(List.copyOf(shards), shard -> {
+                shard.remove(paths);
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lists the paths of the files of every shard.
+     *
+     * @return The paths of the indexed files, shard by shard.
+     */
+    @Override
+    public Collection<String> indexedPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        searchAll(List.copyOf(shards), Shard::paths).forEach(paths::addAll);
+        return paths;
+    }
+
+    /**
+     * Gets the sum of the generation numbers of the shards, which grows whenever one of them publishes.
+     *
+     * @return The combined generation number.
+     */
+    @Override
+    public long generation() {
+        return searchAll(List.copyOf(shards), Shard::generation).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Adds up the size statistics of every shard, remote ones included.
+     *
+     * @return The totals over the shards, with the sum of their generation numbers and all their segments.
+     */
+    @Override
+    public IndexGeneration.Stats indexStats() {
+        return IndexGeneration.Stats.sum(searchAll(List.copyOf(shards), Shard::stats));
+    }
+
+    /**
+     * Adds up the statistics a ranked search of every shard would score with.
+     *
+     * @param criteria The criteria of a ranked search.
+     * @return The statistics of all the shards, as those of a single index holding their files.
+     */
+    @Override
+    public CollectionStatistics statistics(SearchingCriteria criteria) {
+        return statistics(criteria, List.copyOf(shards));
+    }
+
+    private CollectionStatistics statistics(SearchingCriteria criteria, List<Shard> current) {
+        return CollectionStatistics.sum(searchAll(current, shard -> shard.statistics(criteria)));
+    }
+
+    /**
+     * Searches every shard, as described for the engine. The generation of the result is the sum of the
+     * generations of the shards read.
+     *
+     * @param criteria The search criteria.
+     * @return The results of the shards, merged.
+     * @throws IllegalArgumentException if the cursor is invalid or given to a ranked search.
+     * @throws CursorExpiredException   if the generation of the cursor is no longer kept by its shard.
+     */
+    @Override
+    public SearchResult search(SearchingCriteria criteria) {
+        List<Shard> current = List.copyOf(shards);
+        ShardCursor after = ShardCursor.parse(criteria.getAfter(), current.size());
+        if (isRanked(criteria)) {
+            if (after != null) {
+                throw new IllegalArgumentException("Cursors only page unranked searches");
+            }
+            SearchingCriteria ranked = withStatistics(criteria, current);
+            return merge(criteria, searchAll(current, shard -> timed(shard, () -> shard.search(ranked))));
+        }
+        if (criteria.getLimit() == null && after == null) {
+            return concat(searchAll(current, shard -> timed(shard, () -> shard.search(criteria))));
+        }
+        if (criteria.getLimit() != null && criteria.getLimit() < 0) {
+            throw new IllegalArgumentException("The limit must not be negative: " + criteria.getLimit());
+        }
+
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : Integer.MAX_VALUE;
+        if (limit == 0) {
+            return new SearchResult(0, List.of(), criteria.isExplain() ? List.of() : null, criteria.getAfter());
+        }
+        long generation = 0;
+        List<SearchHit> hits = new ArrayList<>();
+        List<PlanStage> plan = criteria.isExplain() ? new ArrayList<>() : null;
+        String nextCursor = null;
+        for (int i = after != null ? after.shard() : 0; i < current.size(); i++) {
+            Shard shard = current.get(i);
+            SearchingCriteria shardCriteria = forShard(criteria, after != null && i == after.shard() ? after.cursor() : null,
+                    limit == Integer.MAX_VALUE ? null : limit - hits.size());
+            SearchResult result = timed(shard, () -> shard.search(shardCriteria));
+            generation += result.getGeneration();
+            hits.addAll(result.getHits());
+            if (plan != null && result.getPlan() != null) {
+                plan.addAll(result.getPlan());
+            }
+            if (result.getNextCursor() != null) {
+                nextCursor = new ShardCursor(i, result.getNextCursor()).encode();
+                break;
+            }
+            if (hits.size() == limit) {
+                if (i + 1 < current.size()) {
+                    nextCursor = new ShardCursor(i + 1, null).encode();
+                }
+                break;
+            }
+        }
+        return new SearchResult(generation, List.copyOf(hits), plan, nextCursor);
+    }
+
+    /**
+     * Searches the shards like {@link #search(SearchingCriteria)}, handing the results over as the shards
+     * find them. Unranked results are read from one shard after the other in shard order; ranked ones are
+     * handed over once merged.
+     *
+     * @param criteria The search criteria.
+     * @param sink     The receiver of the generation read and of the results.
+     * @return The generation read and the cursor following the last result when the limit cut the
+     * results; the results are only given to the sink.
+     */
+    @Override
+    public SearchResult search(SearchingCriteria criteria, SearchHitSink sink) {
+        if (isRanked(criteria) || criteria.getAfter() != null && !criteria.getAfter().isEmpty() || criteria.isExplain()) {
+            SearchResult result = search(criteria);
+            sink.start(result.getGeneration());
+            result.getHits().forEach(sink::accept);
+            return new SearchResult(result.getGeneration(), List.of(), result.getPlan(), result.getNextCursor());
+        }
+        if (criteria.getLimit() != null && criteria.getLimit() < 0) {
+            throw new IllegalArgumentException("The limit must not be negative: " + criteria.getLimit());
+        }
+
+        List<Shard> current = List.copyOf(shards);
+        long generation = generation();
+        sink.start(generation);
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : Integer.MAX_VALUE;
+        int[] found = new int[1];
+        for (int i = 0; i < current.size() && found[0] < limit; i++) {
+            Shard shard = current.get(i);
+            SearchingCriteria shardCriteria = forShard(criteria, null, limit == Integer.MAX_VALUE ? null : limit - found[0]);
+            SearchResult result = timed(shard, () -> shard.search(shardCriteria, new SearchHitSink() {
+                @Override
+                public void start(long generation) {
+                }
+
+                @Override
+                public void accept(SearchHit hit) {
+                    found[0]++;
+                    sink.accept(hit);
+                }
+            }));
+            if (result.getNextCursor() != null) {
+                return new SearchResult(generation, List.of(), null, new ShardCursor(i, result.getNextCursor()).encode());
+            }
+            if (found[0] == limit && i + 1 < current.size()) {
+                return new SearchResult(generation, List.of(), null, new ShardCursor(i + 1, null).encode());
+            }
+        }
+        return new SearchResult(generation, List.of());
+    }
+
+    /**
+     * Runs a batch of searches in parallel, each one over every shard. Shards do not share the lookups
+     * of the searches of a batch between them.
+     *
+     * @param batch The criteria of the searches.
+     * @return The result of every search, in the order of the criteria; a search that failed holds its error.
+     */
+    @Override
+    public List<SearchResult> search(List<SearchingCriteria> batch) {
+        long generation = generation();
+        return searchAll(batch, criteria -> {
+            try {
+                return search(criteria);
+            } catch (RuntimeException e) {
+                return SearchResult.failed(generation, String.valueOf(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Lists the shards.
+     *
+     * @return The shards, in the order their results are listed.
+     */
+    public List<Shard> shards() {
+        return List.copyOf(shards);
+    }
+
+    /**
+     * Adds a shard. Files stay where they are until {@link #rebalance()} moves the ones the new shard
+     * should hold.
+     *
+     * @param url The base URL of the engine process serving the shard, or null for a shard in this process.
+     * @return The added shard.
+     * @throws IllegalArgumentException if the engine at the URL already serves a shard.
+     */
+    public synchronized Shard addShard(String url) {
+        Shard shard;
+        if (url == null || url.isBlank()) {
+            shard = localShard((int) shards.stream().filter(LocalShard.class::isInstance).count());
+        } else {
+            shard = new RemoteShard(url.trim(), objectMapper);
+            if (shards.stream().anyMatch(existing -> existing.name().equals(shard.name()))) {
+                throw new IllegalArgumentException("The engine at " + url + " already serves a shard");
+            }
+        }
+        shards.add(shard);
+        logger.info("Added shard {}", shard.name());
+        return shard;
+    }
+
+    /**
+     * Moves the files held by a shard other than the one they are assigned to; an archive moves with all its entries.
+     * Files are indexed by their new shard before being removed from the old one, so searches briefly
+     * see them in both rather than in none.
+     *
+     * @return The moves made, one per pair of shards.
+     * @throws InterruptedException if the calling thread is interrupted between two moves.
+     */
+    public synchronized List<Move> rebalance() throws InterruptedException {
+        List<Shard> current = List.copyOf(shards);
+        List<Collection<String>> held = fanOut(current, Shard::paths);
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            Shard source = current.get(i);
+            List<String> files = held.get(i).stream().map(Archives::fileOf).distinct().toList();
+            Map<Shard, List<String>> assigned = assign(files, current);
+            for (Map.Entry<Shard, List<String>> entry : assigned.entrySet()) {
+                Shard target = entry.getKey();
+                if (target == source) {
+                    continue;
+                }
+                target.update(entry.getValue(), IndexingProgress.NONE);
+                source.remove(entry.getValue());
+                moves.add(new Move(source.name(), target.name(), entry.getValue().size()));
+                logger.info("Moved {} files from shard {} to shard {}", entry.getValue().size(), source.name(), target.name());
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Files moved from one shard to another by a rebalance.
+     *
+     * @param from  The name of the shard the files left.
+     * @param to    The name of the shard the files joined.
+     * @param files The number of files moved.
+     */
+    public record Move(String from, String to, int files) {
+    }
+
+    /**
+     * Chooses the shard of a file by rendezvous hashing: the shard whose name, mixed with the path,
+     * hashes highest.
+     *
+     * @param path   The path of the file.
+     * @param shards The shards.
+     * @return The index of the file's shard.
+     */
+    static int shardOf(String path, List<Shard> shards) {
+        long pathHash = path.hashCode() & 0xffffffffL;
+        int best = 0;
+        long bestWeight = Long.MIN_VALUE;
+        for (int i = 0; i < shards.size(); i++) {
+            long weight = mix(((long) shards.get(i).name().hashCode() << 32) ^ pathHash);
+            if (weight > bestWeight) {
+                best = i;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Spreads the bits of a value over the whole long, with the finalizer of MurmurHash3.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static Map<Shard, List<String>> assign(Collection<String> paths, List<Shard> shards) {
+        Map<Shard, List<String>> assigned = new LinkedHashMap<>();
+        for (String path : paths) {
+            assigned.computeIfAbsent(shards.get(shardOf(path, shards)), shard -> new ArrayList<>()).add(path);
+        }
+        return assigned;
+    }
+
+    private static boolean isRanked(SearchingCriteria criteria) {
+        return criteria.isRanked() && criteria.getContentSearchTerm() != null && !criteria.getContentSearchTerm().isEmpty();
+    }
+
+    /**
+     * Copies ranked search criteria with the statistics of all the shards, gathered first unless given,
+     * so that every shard scores like a single index holding the files of all of them.
+     */
+    private SearchingCriteria withStatistics(SearchingCriteria criteria, List<Shard> current) {
+        SearchingCriteria copy = forShard(criteria, null, criteria.getLimit());
+        copy.setSnippets(criteria.getSnippets());
+        copy.setStatistics(criteria.getStatistics() != null ? criteria.getStatistics() : statistics(criteria, current));
+        return copy;
+    }
+
+    /**
+     * Merges the results of ranked searches of the shards, keeping the best ones.
+     */
+    private static SearchResult merge(SearchingCriteria criteria, List<SearchResult> results) {
+        int limit = criteria.getLimit() != null ? criteria.getLimit() : DEFAULT_RANKED_LIMIT;
+        List<SearchHit> hits = results.stream()
+                .flatMap(result -> result.getHits().stream())
+                .sorted(Comparator.comparing(SearchHit::getScore, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit)
+                .toList();
+        SearchResult combined = concat(results);
+        return new SearchResult(combined.getGeneration(), hits, combined.getPlan());
+    }
+
+    /**
+     * Concatenates the results of the shards in shard order.
+     */
+    private static SearchResult concat(List<SearchResult> results) {
+        long generation = 0;
+        List<SearchHit> hits = new ArrayList<>();
+        List<PlanStage> plan = null;
+        for (SearchResult result : results) {
+            generation += result.getGeneration();
+            hits.addAll(result.getHits());
+            if (result.getPlan() != null) {
+                plan = plan != null ? plan : new ArrayList<>();
+                plan.addAll(result.getPlan());
+            }
+        }
+        return new SearchResult(generation, List.copyOf(hits), plan);
+    }
+
+    /**
+     * Copies search criteria for one shard, with the cursor of that shard and the results still wanted.
+     */
+    private static SearchingCriteria forShard(SearchingCriteria criteria, String after, Integer limit) {
+        SearchingCriteria copy = new SearchingCriteria();
+        copy.setFileName(criteria.getFileName());
+        copy.setMinSize(criteria.getMinSize());
+        copy.setMaxSize(criteria.getMaxSize());
+        copy.setContentSearchTerm(criteria.getContentSearchTerm());
+        copy.setQuery(criteria.getQuery());
+        copy.setCreatedAfter(criteria.getCreatedAfter());
+        copy.setCreatedBefore(criteria.getCreatedBefore());
+        copy.setFileType(criteria.getFileType());
+        copy.setRanked(criteria.isRanked());
+        copy.setExplain(criteria.isExplain());
+        copy.setAfter(after);
+        copy.setLimit(limit);
+        return copy;
+    }
+
+    private <T> T timed(Shard shard, Supplier<T> search) {
+        long start = System.nanoTime();
+        try {
+            return search.get();
+        } finally {
+            metrics.timer("search.shard", "shard", shard.name()).recordSince(start);
+        }
+    }
+
+    /**
+     * Calls an operation on several items in parallel, without waiting for interruptions.
+     */
+    private <S, T> List<T> searchAll(List<S> items, Function<S, T> call) {
+        try {
+            return fanOut(items, call::apply);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the shards");
+        }
+    }
+
+    /**
+     * Calls an operation on several items in parallel, one virtual thread each, and waits for all of them.
+     * The first failure is thrown once the calls still running are interrupted, and so is an interruption
+     * of the calling thread.
+     *
+     * @param items The items, such as shards.
+     * @param call  The operation.
+     * @return The result of the operation on every item, in the order of the items.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    private <S, T> List<T> fanOut(List<S> items, ShardCall<S, T> call) throws InterruptedException {
+        if (items.size() == 1) {
+            return Collections.singletonList(call.apply(items.get(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(items.size());
+        for (S item : items) {
+            futures.add(executor.submit(() -> call.apply(item)));
+        }
+        try {
+            List<T> results = new ArrayList<>(items.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case RuntimeException runtime -> throw runtime;
+                case Error error -> throw error;
+                case InterruptedException interrupted -> throw interrupted;
+                default -> throw new IllegalStateException(e.getCause());
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * An operation called on one item of a fan-out.
+     */
+    @FunctionalInterface
+    private interface ShardCall<S, T> {
+
+        T apply(S item) throws InterruptedException;
+    }
+
+    /**
+     * The position of a page of sharded results: the shard to resume from, and that shard's own cursor,
+     * or none to start from its first result.
+     */
+    private record ShardCursor(int shard, String cursor) {
+
+        static ShardCursor parse(String cursor, int shards) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String plain = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+                int separator = plain.indexOf(':');
+                int shard = Integer.parseInt(plain.substring(0, separator));
+                if (shard < 0 || shard >= shards) {
+                    throw new IllegalArgumentException();
+                }
+                String inner = plain.substring(separator + 1);
+                return new ShardCursor(shard, inner.isEmpty() ? null : inner);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        String encode() {
+            String plain = shard + ":" + (cursor != null ? cursor : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
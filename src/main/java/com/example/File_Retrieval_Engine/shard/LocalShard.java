@@ -0,0 +1,76 @@
+package com.example.File_Retrieval_Engine.shard;
+
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+import com.example.File_Retrieval_Engine.service.impl.ProcessingEngine;
+
+import java.util.Collection;
+
+/**
+ * A shard served in this process by an engine over an index store of its own.
+ */
+public class LocalShard implements Shard {
+
+    private final String name;
+    private final ProcessingEngine engine;
+
+    /**
+     * Constructs a shard served by an engine.
+     *
+     * @param name   The name of the shard.
+     * @param engine The engine holding the files of the shard, and only them.
+     */
+    public LocalShard(String name, ProcessingEngine engine) {
+        this.name = name;
+        this.engine = engine;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void update(Collection<String> paths, IndexingProgress progress) throws InterruptedException {
+        engine.update(paths, progress);
+    }
+
+    @Override
+    public void remove(Collection<String> paths) {
+        engine.remove(paths);
+    }
+
+    @Override
+    public Collection<String> paths() {
+        return engine.indexedPaths();
+    }
+
+    @Override
+    public long generation() {
+        return engine.generation();
+    }
+
+    @Override
+    public IndexGeneration.Stats stats() {
+        return engine.indexStats();
+    }
+
+    @Override
+    public CollectionStatistics statistics(SearchingCriteria criteria) {
+        return engine.statistics(criteria);
+    }
+
+    @Override
+    public SearchResult search(SearchingCriteria criteria) {
+        return engine.search(criteria);
+    }
+
+    @Override
+    public SearchResult search(SearchingCriteria criteria, SearchHitSink sink) {
+        return engine.search(criteria, sink);
+    }
+}
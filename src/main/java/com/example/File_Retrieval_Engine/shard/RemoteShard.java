@@ -0,0 +1,228 @@
+package com.example.File_Retrieval_Engine.shard;
+
+import com.example.File_Retrieval_Engine.exception.CursorExpiredException;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+import com.example.File_Retrieval_Engine.model.PlanStage;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A shard served by a separate engine process, reached over HTTP.
+ * <p>
+ * The process is a plain engine started without indexing a dataset of its own: files are indexed,
+ * removed and listed through its {@code /api/shard} endpoints, and searched through its usual search
+ * endpoints, the cursors it issues being passed back as they are. It must see the files under the same
+ * paths as this process, which is the case for a process on the same machine.
+ */
+public class RemoteShard implements Shard {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI baseUri;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+
+    /**
+     * Constructs a shard served by a remote engine.
+     *
+     * @param baseUrl      The base URL of the engine, such as {@code http://localhost:8081}.
+     * @param objectMapper The mapper reading and writing the JSON bodies.
+     */
+    public RemoteShard(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return baseUri.toString();
+    }
+
+    /**
+     * Indexes files into the remote engine, reporting them indexed once the engine published them.
+     */
+    @Override
+    public void update(Collection<String> paths, IndexingProgress progress) throws InterruptedException {
+        send(post("api/shard/update", Map.of("paths", paths)), HttpResponse.BodyHandlers.ofString());
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isFile()) {
+                progress.fileIndexed(file.length());
+            }
+        }
+    }
+
+    @Override
+    public void remove(Collection<String> paths) {
+        call(post("api/shard/remove", Map.of("paths", paths)));
+    }
+
+    @Override
+    public Collection<String> paths() {
+        return read(call(HttpRequest.newBuilder(baseUri.resolve("api/shard/files")).GET().build()).body(),
+                new TypeReference<List<String>>() {
+                });
+    }
+
+    @Override
+    public long generation() {
+        return Long.parseLong(call(HttpRequest.newBuilder(baseUri.resolve("api/shard/generation")).GET().build()).body().trim());
+    }
+
+    @Override
+    public IndexGeneration.Stats stats() {
+        return read(call(HttpRequest.newBuilder(baseUri.resolve("api/metrics/index")).GET().build()).body(),
+                new TypeReference<IndexGeneration.Stats>() {
+                });
+    }
+
+    @Override
+    public CollectionStatistics statistics(SearchingCriteria criteria) {
+        return read(call(post("api/shard/statistics", criteria)).body(), new TypeReference<CollectionStatistics>() {
+        });
+    }
+
+    @Override
+    public SearchResult search(SearchingCriteria criteria) {
+        HttpResponse<String> response = call(post("api/search", criteria));
+        JsonNode body = read(response.body(), new TypeReference<JsonNode>() {
+        });
+        long generation = response.headers().firstValueAsLong("X-Index-Generation").orElse(0);
+        String nextCursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        if (!criteria.isExplain()) {
+            return new SearchResult(generation, hits(body), null, nextCursor);
+        }
+        List<PlanStage> plan = new ArrayList<>();
+        for (JsonNode stage : body.path("plan")) {
+            plan.add(new PlanStage(stage.path("segment").asInt(), stage.path("clause").asText(), stage.path("role").asText(),
+                    stage.path("estimate").asLong(), stage.hasNonNull("matches") ? stage.get("matches").asInt() : null,
+                    stage.path("micros").asLong()));
+        }
+        return new SearchResult(generation, hits(body.path("hits")), plan, nextCursor);
+    }
+
+    /**
+     * Streams the results of the remote engine as it writes them. The engine does not send cursors with
+     * streamed results, so the result never holds one.
+     */
+    @Override
+    public SearchResult search(SearchingCriteria criteria, SearchHitSink sink) {
+        try {
+            HttpResponse<Stream<String>> response = send(post("api/search/stream", criteria), HttpResponse.BodyHandlers.ofLines());
+            long generation = response.headers().firstValueAsLong("X-Index-Generation").orElse(0);
+            sink.start(generation);
+            try (Stream<String> lines = response.body()) {
+                lines.filter(line -> !line.isBlank())
+                        .forEach(line -> sink.accept(hit(read(line, new TypeReference<JsonNode>() {
+                        }))));
+            }
+            return new SearchResult(generation, List.of());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while searching shard " + name()));
+        }
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> call(HttpRequest request) {
+        try {
+            return send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while calling shard " + name()));
+        }
+    }
+
+    /**
+     * Sends a request, turning the errors answered by the engine into the exceptions it raised:
+     * IllegalArgumentException for a bad request, CursorExpiredException for a cursor that is gone.
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws InterruptedException {
+        HttpResponse<T> response;
+        try {
+            response = httpClient.send(request, bodyHandler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + name() + " is unreachable", e);
+        }
+        if (response.statusCode() / 100 == 2) {
+            return response;
+        }
+        String message = response.body() instanceof Stream<?> lines
+                ? String.join("\n", lines.map(String::valueOf).toList())
+                : String.valueOf(response.body());
+        switch (response.statusCode()) {
+            case 400 -> throw new IllegalArgumentException(message);
+            case 410 -> throw new CursorExpiredException(message);
+            default -> throw new UncheckedIOException(new IOException("Shard " + name() + " answered "
+                    + response.statusCode() + ": " + message));
+        }
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Shard " + name() + " answered an unreadable body", e);
+        }
+    }
+
+    private static List<SearchHit> hits(JsonNode hits) {
+        List<SearchHit> parsed = new ArrayList<>();
+        for (JsonNode hit : hits) {
+            parsed.add(hit(hit));
+        }
+        return parsed;
+    }
+
+    /**
+     * Reads a result written by an engine: the fields of a file, those of a message when it is one,
+     * and the score of ranked searches.
+     */
+    private static SearchHit hit(JsonNode hit) {
+        FileInfo fileInfo = new FileInfo(hit.path("name").asText(), hit.path("path").asText(),
+                hit.path("size").asLong(), hit.path("last_modification").asLong());
+        if (hit.has("offset")) {
+            fileInfo = new MessageInfo(fileInfo, hit.path("offset").asLong(), hit.path("length").asLong(),
+                    hit.hasNonNull("documentId") ? hit.get("documentId").asLong() : null,
+                    hit.hasNonNull("subject") ? hit.get("subject").asText() : null);
+        }
+        return new SearchHit(fileInfo, hit.hasNonNull("score") ? hit.get("score").asDouble() : null);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.File_Retrieval_Engine.shard;
+
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+
+import java.util.Collection;
+
+/**
+ * One partition of a sharded index: it holds the files assigned to it and searches them independently
+ * of the other shards. A shard is served either by an engine in this process or by a separate engine
+ * process reached over HTTP, behind the same operations.
+ */
+public interface Shard {
+
+    /**
+     * Gets the name of the shard, which files are assigned by.
+     *
+     * @return The name, stable for the life of the shard.
+     */
+    String name();
+
+    /**
+     * Indexes files into the shard, replacing the ones already indexed; paths missing from disk are removed.
+     *
+     * @param paths    The paths of the files.
+     * @param progress The receiver of the files indexed.
+     * @throws InterruptedException if the calling thread is interrupted before the files are indexed.
+     */
+    void update(Collection<String> paths, IndexingProgress progress) throws InterruptedException;
+
+    /**
+     * Removes files from the shard, whether or not they still exist on disk.
+     *
+     * @param paths The paths of the files.
+     */
+    void remove(Collection<String> paths);
+
+    /**
+     * Lists the files of the shard.
+     *
+     * @return The paths of the indexed files.
+     */
+    Collection<String> paths();
+
+    /**
+     * Gets the number of the index generation the shard currently searches.
+     *
+     * @return The generation number.
+     */
+    long generation();
+
+    /**
+     * Gets the size statistics of the index generation the shard currently searches.
+     *
+     * @return The statistics of every segment of the shard and their totals.
+     */
+    IndexGeneration.Stats stats();
+
+    /**
+     * Gets the statistics a ranked search of the shard would score with, to be added up over all shards.
+     *
+     * @param criteria The criteria of a ranked search.
+     * @return The document count, total length and document frequencies of the shard.
+     */
+    CollectionStatistics statistics(SearchingCriteria criteria);
+
+    /**
+     * Searches the shard.
+     *
+     * @param criteria The search criteria; a cursor must have been issued by this shard.
+     * @return The results of the shard, with their generation and the cursor of the shard's next page.
+     */
+    SearchResult search(SearchingCriteria criteria);
+
+    /**
+     * Searches the shard, handing the results over as they are found.
+     *
+     * @param criteria The search criteria; a cursor must have been issued by this shard.
+     * @param sink     The receiver of the generation read and of the results.
+     * @return The generation read and the cursor of the shard's next page, without the results.
+     */
+    SearchResult search(SearchingCriteria criteria, SearchHitSink sink);
+}
@@ -0,0 +1,412 @@
+package com.example.File_Retrieval_Engine.snippet;
+
+import com.example.File_Retrieval_Engine.cache.PageCache;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.model.Snippet;
+import com.example.File_Retrieval_Engine.query.BooleanQuery;
+import com.example.File_Retrieval_Engine.query.ContentQuery;
+import com.example.File_Retrieval_Engine.query.TermPattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the snippets of search results: the lines of a matching document containing query terms,
+ * with the lines around them and the spans of the terms.
+ * <p>
+ * Only the byte range the index stores for the document is read, the range of a message or the whole
+ * file, page by page through the {@link PageCache}, and reading stops once the wanted snippets are found
+ * or after {@value #MAX_SCAN_BYTES} bytes. Lines are split into terms by the rules of the analyzers, so a
+ * highlighted span is a term the document was indexed under. The pages a request reads from disk are
+ * charged to its {@link Budget}; once it is spent, the remaining results get no snippets.
+ */
+@Component
+public class SnippetExtractor {
+
+    public static final int MAX_SNIPPETS = 20;
+    static final int MAX_SCAN_BYTES = 64 * 1024;
+    static final int MAX_LINE_CHARS = 240;
+
+    private final PageCache pageCache;
+    private final int contextLines;
+    private final long budgetBytes;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Logger logger = LoggerFactory.getLogger(SnippetExtractor.class);
+
+    /**
+     * Constructs a snippet extractor.
+     *
+     * @param pageCache    The cache of the pages of indexed files.
+     * @param contextLines The number of lines shown before and after each line containing a term.
+     * @param budgetBytes  The maximum number of bytes a single request may read from disk for its snippets.
+     */
+    public SnippetExtractor(PageCache pageCache,
+                            @Value("${app.snippets.context-lines:1}") int contextLines,
+                            @Value("${app.snippets.budget-bytes:1048576}") long budgetBytes) {
+        this.pageCache = pageCache;
+        this.contextLines = contextLines;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * The bytes a request may still read from disk for its snippets. A budget is used by one thread at a time.
+     */
+    public static final class Budget {
+
+        private long remaining;
+        private boolean exhausted;
+
+        private Budget(long remaining) {
+            this.remaining = remaining;
+        }
+
+        /**
+         * Indicates whether some snippets were left out because the budget was spent.
+         *
+         * @return true if a page could not be read.
+         */
+        public boolean isExhausted() {
+            return exhausted;
+        }
+    }
+
+    /**
+     * Starts the budget of a request.
+     *
+     * @return A budget of the configured number of bytes.
+     */
+    public Budget budget() {
+        return new Budget(budgetBytes);
+    }
+
+    /**
+     * Checks the number of snippets asked for by a search.
+     *
+     * @param criteria The criteria of the search.
+     * @return The number of snippets per result, 0 for none.
+     * @throws IllegalArgumentException if the number is negative or above {@value #MAX_SNIPPETS}.
+     */
+    public static int requested(SearchingCriteria criteria) {
+        Integer snippets = criteria.getSnippets();
+        if (snippets != null && (snippets < 0 || snippets > MAX_SNIPPETS)) {
+            throw new IllegalArgumentException("Snippets must be between 0 and " + MAX_SNIPPETS + ": " + snippets);
+        }
+        return snippets != null ? snippets : 0;
+    }
+
+    /**
+     * Gets the terms highlighted in the snippets of a search: the terms and patterns of its content search
+     * term and of its boolean query, except those under a NOT.
+     *
+     * @param criteria The criteria of the search.
+     * @return The distinct terms and patterns.
+     */
+    public static List<TermPattern> queryTerms(SearchingCriteria criteria) {
+        Set<TermPattern> patterns = new LinkedHashSet<>();
+        if (criteria.getContentSearchTerm() != null && !criteria.getContentSearchTerm().isEmpty()) {
+            ContentQuery query = ContentQuery.parse(criteria.getContentSearchTerm());
+            query.allTerms().forEach(term -> patterns.add(TermPattern.glob(term)));
+            patterns.addAll(query.patterns());
+        }
+        if (criteria.getQuery() != null && !criteria.getQuery().isEmpty()) {
+            collect(BooleanQuery.parse(criteria.getQuery()), patterns);
+        }
+        return List.copyOf(patterns);
+    }
+
+    private static void collect(BooleanQuery query, Set<TermPattern> patterns) {
+        switch (query) {
+            case BooleanQuery.And and -> and.operands().forEach(operand -> collect(operand, patterns));
+            case BooleanQuery.Or or -> or.operands().forEach(operand -> collect(operand, patterns));
+            case BooleanQuery.Not not -> {
+                // Documents do not contain the terms of a negation
+            }
+            case BooleanQuery.Match match -> {
+                if (match.clause() != null) {
+                    match.clause().terms().forEach(term -> patterns.add(TermPattern.glob(term)));
+                } else {
+                    patterns.add(match.pattern());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds snippets to the results of a search, if the search asks for them.
+     *
+     * @param hits     The results, which are left unchanged.
+     * @param criteria The criteria of the search.
+     * @param budget   The budget of the request.
+     * @return The results with their snippets, or the given results if no snippets are asked for.
+     */
+    public List<SearchHit> annotate(List<SearchHit> hits, SearchingCriteria criteria, Budget budget) {
+        int max = requested(criteria);
+        List<TermPattern> patterns = max > 0 && hits != null ? queryTerms(criteria) : List.of();
+        if (patterns.isEmpty()) {
+            return hits;
+        }
+        return hits.stream().map(hit -> annotate(hit, patterns, max, budget)).toList();
+    }
+
+    /**
+     * Adds snippets to a result.
+     *
+     * @param hit      The result, which is left unchanged.
+     * @param patterns The terms to look for, as given by {@link #queryTerms(SearchingCriteria)}.
+     * @param max      The maximum number of snippets.
+     * @param budget   The budget of the request.
+     * @return The result with its snippets.
+     */
+    public SearchHit annotate(SearchHit hit, List<TermPattern> patterns, int max, Budget budget) {
+        long start = System.nanoTime();
+        List<Snippet> snippets = snippets(hit.getFileInfo(), patterns, max, budget);
+        metrics.timer("snippets.latency").recordSince(start);
+        return hit.withSnippets(snippets);
+    }
+
+    /**
+     * Finds the first snippets of a document. Lines containing a term are shown with the configured number
+     * of lines around them, and snippets whose lines overlap or touch are merged.
+     *
+     * @param file     The document: a message, or a whole file.
+     * @param patterns The terms to look for.
+     * @param max      The maximum number of snippets.
+     * @param budget   The budget of the request.
+     * @return The snippets, in document order; none if the file changed since it was indexed or cannot be read.
+     */
+    public List<Snippet> snippets(FileInfo file, List<TermPattern> patterns, int max, Budget budget) {
+        if (max <= 0 || patterns.isEmpty()) {
+            return List.of();
+        }
+        long start = file instanceof MessageInfo message ? message.getOffset() : 0;
+        long length = file instanceof MessageInfo message ? message.getLength() : file.getSize();
+        try (Document document = new Document(file, start, start + Math.min(length, MAX_SCAN_BYTES), budget)) {
+            return scan(document, patterns, max);
+        } catch (IOException e) {
+            logger.debug("Cannot read the snippets of {}: {}", file.getPath(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<Snippet> scan(Document document, List<TermPattern> patterns, int max) throws IOException {
+        int[] lineStarts = new int[64];
+        int[] lineEnds = new int[64];
+        int lines = 0;
+        Map<Integer, List<Snippet.Highlight>> highlights = new HashMap<>();
+        List<int[]> windows = new ArrayList<>();  // First and last line of each snippet
+
+        int lineStart = 0;
+        int scanned = 0;
+        while (true) {
+            int newline = document.indexOf('\n', scanned);
+            if (newline < 0) {
+                scanned = document.size;
+                if (document.more()) {
+                    continue;
+                }
+                if (lineStart == document.size) {
+                    break;
+                }
+                newline = document.size;
+            }
+            if (lines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                lineEnds = Arrays.copyOf(lineEnds, lines * 2);
+            }
+            int line = lines++;
+            lineStarts[line] = lineStart;
+            lineEnds[line] = newline > lineStart && document.bytes[newline - 1] == '\r' ? newline - 1 : newline;
+
+            List<Snippet.Highlight> found = highlight(document.bytes, lineStarts[line], lineEnds[line], patterns);
+            int[] last = windows.isEmpty() ? null : windows.getLast();
+            if (!found.isEmpty()) {
+                highlights.put(line, found);
+                if (last != null && line - contextLines <= last[1] + 1) {
+                    last[1] = line + contextLines;
+                } else if (windows.size() < max) {
+                    windows.add(new int[]{Math.max(0, line - contextLines), line + contextLines});
+                } else {
+                    break;
+                }
+            } else if (windows.size() == max && line >= last[1]) {
+                break;
+            }
+            if (newline == document.size) {
+                break;
+            }
+            lineStart = newline + 1;
+            scanned = lineStart;
+        }
+
+        List<Snippet> snippets = new ArrayList<>(windows.size());
+        for (int[] window : windows) {
+            StringBuilder text = new StringBuilder();
+            List<Snippet.Highlight> spans = new ArrayList<>();
+            for (int line = window[0]; line <= Math.min(window[1], lines - 1); line++) {
+                if (line > window[0]) {
+                    text.append('\n');
+                }
+                appendLine(text, spans, document.bytes, lineStarts[line], lineEnds[line], highlights.getOrDefault(line, List.of()));
+            }
+            snippets.add(new Snippet(document.start + lineStarts[window[0]], text.toString(), spans));
+        }
+        return snippets;
+    }
+
+    /**
+     * Finds the terms of a line matching a pattern, splitting the line into ASCII letters, digits and
+     * underscores like the analyzers do.
+     */
+    static List<Snippet.Highlight> highlight(byte[] bytes, int from, int to, List<TermPattern> patterns) {
+        List<Snippet.Highlight> found = new ArrayList<>(0);
+        int i = from;
+        while (i < to) {
+            while (i < to && !isTermByte(bytes[i])) {
+                i++;
+            }
+            int start = i;
+            while (i < to && isTermByte(bytes[i])) {
+                i++;
+            }
+            if (i > start) {
+                String term = new String(bytes, start, i - start, StandardCharsets.ISO_8859_1).toLowerCase();
+                for (TermPattern pattern : patterns) {
+                    if (pattern.matches(term)) {
+                        found.add(new Snippet.Highlight(start - from, i - from));
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isTermByte(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9' || b == '_';
+    }
+
+    /**
+     * Appends a line to the text of a snippet, keeping {@value #MAX_LINE_CHARS} characters from a little
+     * before its first term when it is longer, and shifts the spans of its terms to the text.
+     */
+    private static void appendLine(StringBuilder text, List<Snippet.Highlight> spans, byte[] bytes, int from, int to,
+                                   List<Snippet.Highlight> lineSpans) {
+        int cut = 0;
+        if (to - from > MAX_LINE_CHARS) {
+            int first = lineSpans.isEmpty() ? 0 : lineSpans.getFirst().start();
+            cut = Math.max(0, Math.min(first - MAX_LINE_CHARS / 4, to - from - MAX_LINE_CHARS));
+            to = from + cut + MAX_LINE_CHARS;
+        }
+        int base = text.length() - cut;
+        text.append(new String(bytes, from + cut, to - from - cut, StandardCharsets.ISO_8859_1));
+        for (Snippet.Highlight span : lineSpans) {
+            if (span.start() >= cut && from + span.end() <= to) {
+                spans.add(new Snippet.Highlight(base + span.start(), base + span.end()));
+            }
+        }
+    }
+
+    /**
+     * The bytes of a document read so far, loaded one page at a time.
+     */
+    private final class Document implements AutoCloseable {
+
+        private final String path;
+        private final long lastModified;
+        private final long start;
+        private final long end;
+        private final Budget budget;
+        private FileChannel channel;
+        private byte[] bytes = new byte[0];
+        private int size;
+        private long next;
+
+        Document(FileInfo file, long start, long end, Budget budget) {
+            this.path = file.getPath();
+            this.lastModified = file.getLast_modification();
+            this.start = start;
+            this.end = end;
+            this.budget = budget;
+            this.next = start;
+        }
+
+        int indexOf(int b, int from) {
+            for (int i = from; i < size; i++) {
+                if (bytes[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Loads the bytes of the document in the next page.
+         *
+         * @return false if the document, the file or the budget is at its end.
+         */
+        boolean more() throws IOException {
+            if (next >= end) {
+                return false;
+            }
+            PageCache.PageKey key = new PageCache.PageKey(path, lastModified, next / PageCache.PAGE_SIZE);
+            byte[] page = pageCache.get(key);
+            if (page == null) {
+                if (budget.remaining <= 0) {
+                    budget.exhausted = true;
+                    return false;
+                }
+                page = pageCache.load(key, channel());
+                budget.remaining -= page.length;
+            }
+            int from = (int) (next - key.page() * PageCache.PAGE_SIZE);
+            int to = (int) Math.min(page.length, end - key.page() * PageCache.PAGE_SIZE);
+            if (to <= from) {
+                next = end;  // The file is shorter than indexed
+                return false;
+            }
+            if (size + to - from > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + to - from));
+            }
+            System.arraycopy(page, from, bytes, size, to - from);
+            size += to - from;
+            next += to - from;
+            return true;
+        }
+
+        private FileChannel channel() throws IOException {
+            if (channel == null) {
+                if (new File(path).lastModified() != lastModified) {
+                    throw new IOException("The file changed since it was indexed");
+                }
+                channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
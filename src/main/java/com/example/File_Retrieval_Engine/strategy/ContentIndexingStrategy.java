@@ -1,79 +1,124 @@
 package com.example.File_Retrieval_Engine.strategy;
 
+import com.example.File_Retrieval_Engine.analysis.AnalyzerType;
+import com.example.File_Retrieval_Engine.analysis.NewsgroupCatalog;
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.analysis.TokenizedMessage;
+import com.example.File_Retrieval_Engine.metrics.Counter;
+import com.example.File_Retrieval_Engine.metrics.MetricsRegistry;
+import com.example.File_Retrieval_Engine.metrics.Timer;
 import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
 import com.example.File_Retrieval_Engine.service.IndexStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Strategy for indexing file content by extracting words and storing their frequencies.
+ * Strategy for indexing file content by extracting words and storing their frequencies,
+ * and optionally their positions for phrase and proximity queries.
+ * The tokenization time, bytes and messages are recorded, along with the resulting rate in bytes per second.
  */
 @Component
-public class ContentIndexingStrategy implements IndexingStrategy {
+public class ContentIndexingStrategy implements MessageIndexingStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(ContentIndexingStrategy.class);
 
+    /**
+     * Approximate size of the byte ranges large files are cut into for parallel tokenization.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final ParallelMessageTokenizer tokenizer;
+    private final boolean positions;
+    private final Timer tokenizeTime = MetricsRegistry.getInstance().timer("index.tokenize");
+    private final Counter tokenizedBytes = MetricsRegistry.getInstance().counter("index.tokenize.bytes");
+    private final Counter tokenizedMessages = MetricsRegistry.getInstance().counter("index.tokenize.messages");
+
+    /**
+     * Constructs a strategy tokenizing large files in chunks of the default size on the common pool,
+     * with the byte-level analyzer, and storing term positions.
+     */
+    public ContentIndexingStrategy() {
+        this(DEFAULT_CHUNK_SIZE, AnalyzerType.BYTE, true);
+    }
+
+    /**
+     * Constructs a strategy tokenizing large files in chunks of the given size on the common pool.
+     *
+     * @param chunkSize    The approximate size of the byte ranges tokenized in parallel.
+     * @param analyzerType The analyzer extracting the terms of each line.
+     * @param positions    Whether term positions are stored next to the frequencies.
+     */
+    @Autowired
+    public ContentIndexingStrategy(@Value("${app.index.chunk-size:" + DEFAULT_CHUNK_SIZE + "}") int chunkSize,
+                                   @Value("${app.index.analyzer:byte}") AnalyzerType analyzerType,
+                                   @Value("${app.index.positions:true}") boolean positions) {
+        this.tokenizer = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), chunkSize, analyzerType);
+        this.positions = positions;
+        MetricsRegistry.getInstance().gauge("index.tokenize.rate", () -> tokenizeTime.totalNanos() > 0
+                ? tokenizedBytes.count() * 1e9 / tokenizeTime.totalNanos()
+                : 0);
+    }
+
+    @Override
+    public ParallelMessageTokenizer tokenizer() {
+        return tokenizer;
+    }
+
     /**
      * Indexes a given file by extracting words and updating their frequencies in the global index.
+     * Large files are tokenized in parallel byte ranges, the documents are then indexed in file order.
      *
      * @param file     The file to be indexed.
      * @param fileInfo Metadata information about the file.
      */
     @Override
     public void indexFile(File file, FileInfo fileInfo) {
-        Map<String, Map<FileInfo, Integer>> localIndex = new TreeMap<>();  // Local index for this file
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-
-            // Read file line by line
-            while ((line = br.readLine()) != null) {
-                String[] words = extractTerms(line);  // Extract words from each line
-
-                for (String word : words) {
-                    String term = word.toLowerCase();  // Normalize to lowercase
-
-                    // If the term is not in the local index, add it with an empty document-frequency map
-                    localIndex.putIfAbsent(term, new HashMap<>());
-
-                    // Get the document-frequency map for this term
-                    Map<FileInfo, Integer> docMap = localIndex.get(term);
-
-                    // Update the frequency of the term in this document (file.getName())
-                    docMap.put(fileInfo, docMap.getOrDefault(fileInfo, 0) + 1);
-                }
-            }
-
-            // Update global index with the local index
-            mergeWithGlobalIndex(localIndex);
+        try {
+            long start = System.nanoTime();
+            List<TokenizedMessage> messages = tokenizer.tokenize(file);
+            tokenizeTime.recordSince(start);
+            tokenizedBytes.add(fileInfo.getSize());
+            indexMessages(file, fileInfo, messages);
         } catch (Exception e) {
             logger.warn("Error processing file {}: {}", file.getName(), e.getMessage());
         }
     }
 
     /**
-     * Extracts words/terms from a line of text, splitting by non-alphanumeric characters.
+     * Indexes the messages of a file in the global index.
+     * Files made of concatenated newsgroup posts are split into messages, and every message is
+     * indexed as its own document; a file without message headers is indexed as a whole.
      *
-     * @param line The input line of text.
-     * @return An array of extracted words.
+     * @param file     The file the messages belong to.
+     * @param fileInfo Metadata information about the file.
+     * @param messages The messages of the file, in file order.
      */
-    private String[] extractTerms(String line) {
-        return line.toLowerCase().split("\\W+");
-    }
+    @Override
+    public void indexMessages(File file, FileInfo fileInfo, List<TokenizedMessage> messages) {
+        NewsgroupCatalog catalog = NewsgroupCatalog.forFolder(file.getAbsoluteFile().getParentFile());
+        tokenizedMessages.add(messages.size());
+        int messageIndex = 0;
+        for (TokenizedMessage message : messages) {
+            FileInfo document;
+            if (message.subject() == null && message.length() == fileInfo.getSize()) {
+                document = fileInfo;  // No message header at all: the file is a single document
+            } else if (message.subject() == null) {
+                document = new MessageInfo(fileInfo, message.offset(), message.length(), null, null);  // Text before the first header
+            } else {
+                document = new MessageInfo(fileInfo, message.offset(), message.length(),
+                        catalog.documentId(file, messageIndex++), message.subject());
+            }
 
-    /**
-     * Merges the local index with the global index stored in IndexStore.
-     *
-     * @param localIndex The local index to merge.
-     */
-    private void mergeWithGlobalIndex(Map<String, Map<FileInfo, Integer>> localIndex) {
-        IndexStore.getInstance().updateContentIndex(localIndex);
+            // Update global index with the term ids of the message, without going through Strings
+            IndexStore.getInstance().updateContentIndex(document, message.terms(), positions);
+        }
     }
 }
@@ -0,0 +1,31 @@
+package com.example.File_Retrieval_Engine.strategy;
+
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.analysis.TokenizedMessage;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A strategy indexing the messages of a file, which an indexing pipeline may read and tokenize
+ * ahead with the strategy's tokenizer instead of calling {@link #indexFile(File, FileInfo)}.
+ */
+public interface MessageIndexingStrategy extends IndexingStrategy {
+
+    /**
+     * Gets the tokenizer splitting files into messages for this strategy.
+     *
+     * @return The tokenizer.
+     */
+    ParallelMessageTokenizer tokenizer();
+
+    /**
+     * Indexes the messages of a file, tokenized by {@link #tokenizer()}.
+     *
+     * @param file     The file.
+     * @param fileInfo Metadata information about the file.
+     * @param messages The messages of the file, in file order.
+     */
+    void indexMessages(File file, FileInfo fileInfo, List<TokenizedMessage> messages);
+}
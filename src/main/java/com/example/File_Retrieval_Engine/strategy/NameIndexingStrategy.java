@@ -4,6 +4,7 @@ import com.example.File_Retrieval_Engine.model.FileInfo;
 import com.example.File_Retrieval_Engine.service.IndexStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -16,6 +17,7 @@ import java.util.TreeMap;
  * This class implements the {@link IndexingStrategy} interface
  * and stores file information in a global name-based index.
  */
+@Component
 public class NameIndexingStrategy implements IndexingStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(NameIndexingStrategy.class);
@@ -4,6 +4,7 @@ import com.example.File_Retrieval_Engine.model.FileInfo;
 import com.example.File_Retrieval_Engine.service.IndexStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.TreeMap;
  * Strategy for indexing files based on their size.
  * This class implements the IndexingStrategy interface and organizes files in an index based on their size.
  */
+@Component
 public class SizeIndexingStrategy implements IndexingStrategy{
 
     private static final Logger logger = LoggerFactory.getLogger(SizeIndexingStrategy.class);
@@ -0,0 +1,52 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteTermAnalyzerTests {
+
+	@Test
+	void countsLowercasedTerms() {
+		TermAnalyzer analyzer = new ByteTermAnalyzer();
+		line(analyzer, "Hello, hello_World! 42x\tHELLO");
+		line(analyzer, "next hello");
+
+		TermVector terms = analyzer.endMessage();
+		assertThat(terms.frequencies()).containsOnly(
+				Map.entry("hello", 3), Map.entry("hello_world", 1), Map.entry("42x", 1), Map.entry("next", 1));
+		assertThat(terms.positions().get("hello")).containsExactly(0, 3, 5);
+		assertThat(terms.length()).isEqualTo(6);
+		assertThat(analyzer.endMessage().positions()).isEmpty();
+	}
+
+	@Test
+	void matchesRegexAnalyzerOnRandomText() {
+		Random random = new Random(7);
+		String alphabet = "abcXYZ019_ -.,;:!?\t@'\"()éÉ";
+		TermAnalyzer bytes = new ByteTermAnalyzer();
+		TermAnalyzer regex = new RegexTermAnalyzer();
+
+		for (int message = 0; message < 200; message++) {
+			for (int line = random.nextInt(5); line >= 0; line--) {
+				StringBuilder text = new StringBuilder();
+				for (int i = random.nextInt(80); i > 0; i--) {
+					text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+				line(bytes, text.toString());
+				line(regex, text.toString());
+			}
+			assertThat(bytes.endMessage()).isEqualTo(regex.endMessage());
+		}
+	}
+
+	private static void line(TermAnalyzer analyzer, String text) {
+		byte[] data = ("#" + text + "#").getBytes(StandardCharsets.ISO_8859_1);
+		analyzer.line(data, 1, data.length - 2);
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageSplitterTests {
+
+	@Test
+	void splitsOnFromSubjectHeaders() throws Exception {
+		String text = "preamble\n"
+				+ "From: a@b.c\r\nSubject: First\n\nFrom: quoted line\nbody\n"
+				+ "From: d@e.f\nSubject: Second\nlast";
+		List<String> messages = new ArrayList<>();
+		new MessageSplitter().split(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1)),
+				new MessageSplitter.MessageHandler() {
+					@Override
+					public void line(byte[] data, int offset, int length) {
+					}
+
+					@Override
+					public void endMessage(long offset, long length, String subject) {
+						messages.add(subject + "@" + offset + "+" + length
+								+ ":" + text.substring((int) offset, (int) (offset + length)).split("\n")[0]);
+					}
+				});
+
+		assertThat(messages).containsExactly(
+				"null@0+9:preamble",
+				"First@9+52:From: a@b.c\r",
+				"Second@61+32:From: d@e.f");
+	}
+
+}
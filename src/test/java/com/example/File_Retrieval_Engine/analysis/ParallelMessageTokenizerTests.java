@@ -0,0 +1,86 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelMessageTokenizerTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void chunkedTokenizationMatchesSinglePass() throws Exception {
+		String text = "preamble text\n"
+				+ "From: a@b.c\r\nSubject: First\n\nFrom: quoted line\nbody body, words\n"
+				+ "From: d@e.f\nSubject: Second\n\nmore words\nFrom:\nSubject: Third\nlast line";
+		File file = write("messages.txt", text);
+		List<TokenizedMessage> expected = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), Integer.MAX_VALUE, AnalyzerType.BYTE).tokenize(file);
+
+		assertThat(expected).extracting(TokenizedMessage::subject).containsExactly(null, "First", "Second", "Third");
+		for (int chunkSize = 1; chunkSize <= text.length(); chunkSize++) {
+			assertThat(new ParallelMessageTokenizer(ForkJoinPool.commonPool(), chunkSize, AnalyzerType.BYTE).tokenize(file))
+					.as("chunk size %d", chunkSize)
+					.isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void fileWithoutHeadersIsOneMessage() throws Exception {
+		File file = write("plain.txt", "one two\nthree one\n");
+
+		List<TokenizedMessage> messages = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), 4, AnalyzerType.BYTE).tokenize(file);
+
+		assertThat(messages).hasSize(1);
+		assertThat(messages.getFirst().length()).isEqualTo(file.length());
+		assertThat(messages.getFirst().termFrequencies()).containsEntry("one", 2).containsEntry("three", 1);
+	}
+
+	@Test
+	void streamedRangesMatchTheRangesOfTheFile() throws Exception {
+		String text = "preamble text\n"
+				+ "From: a@b.c\nSubject: First\n\nFrom: quoted line\nbody body, words\n"
+				+ "From: d@e.f\nSubject: Second\n\nmore words\nFrom:\nSubject: Third\nlast line";
+		File file = write("messages.txt", text);
+		for (int chunkSize = 1; chunkSize <= text.length() + 1; chunkSize++) {
+			ParallelMessageTokenizer tokenizer = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), chunkSize, AnalyzerType.BYTE);
+			List<Long> starts = new ArrayList<>();
+			List<String> ranges = new ArrayList<>();
+			long size;
+			try (InputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1))) {
+				size = tokenizer.readRanges(in, (start, bytes) -> {
+					starts.add(start);
+					ranges.add(new String(bytes.array(), 0, bytes.position(), StandardCharsets.ISO_8859_1));
+				});
+			}
+			long[] boundaries;
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				boundaries = tokenizer.chunkBoundaries(channel);
+			}
+
+			assertThat(size).isEqualTo(text.length());
+			assertThat(starts).as("chunk size %d", chunkSize)
+					.containsExactlyElementsOf(LongStream.of(boundaries).limit(boundaries.length - 1).boxed().toList());
+			assertThat(String.join("", ranges)).isEqualTo(text);
+		}
+	}
+
+	private File write(String name, String text) throws Exception {
+		return Files.write(folder.resolve(name), text.getBytes(StandardCharsets.ISO_8859_1)).toFile();
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.example.File_Retrieval_Engine.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TermIdDictionaryTests {
+
+	@Test
+	void threadsAgreeOnStableIdsForTheSameBytes() {
+		TermIdDictionary dictionary = TermIdDictionary.getInstance();
+		long bytesBefore = dictionary.memoryBytes();
+		List<int[]> ids = IntStream.range(0, 8).parallel()
+				.mapToObj(thread -> IntStream.range(0, 20_000).map(i -> {
+					byte[] term = ("dictionarytest" + i).getBytes(StandardCharsets.ISO_8859_1);
+					byte[] padded = new byte[term.length + 3];
+					System.arraycopy(term, 0, padded, 3, term.length);
+					return dictionary.id(padded, 3, term.length, TermIdDictionary.hash(term, 0, term.length));
+				}).toArray())
+				.toList();
+
+		for (int[] threadIds : ids) {
+			assertThat(threadIds).containsExactly(ids.getFirst());
+		}
+		assertThat(IntStream.of(ids.getFirst()).distinct().count()).isEqualTo(20_000);
+		assertThat(dictionary.id("dictionarytest123")).isEqualTo(ids.getFirst()[123]);
+		assertThat(dictionary.term(ids.getFirst()[123])).isEqualTo("dictionarytest123")
+				.isSameAs(dictionary.term(ids.getFirst()[123]));
+		assertThat(dictionary.size()).isGreaterThanOrEqualTo(20_000);
+		assertThat(dictionary.memoryBytes()).isGreaterThan(bytesBefore);
+	}
+}
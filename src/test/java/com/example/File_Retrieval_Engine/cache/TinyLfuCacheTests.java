@@ -0,0 +1,83 @@
+package com.example.File_Retrieval_Engine.cache;
+
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TinyLfuCacheTests {
+
+	@Test
+	void frequentEntriesSurviveOneOffRequests() {
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, Long.MAX_VALUE, value -> 1);
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 10; i++) {
+				request(cache, "hot" + i);
+			}
+			for (int i = 0; i < 20; i++) {
+				request(cache, "cold" + round + "_" + i);
+			}
+		}
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(cache.get("hot" + i)).isEqualTo("hot" + i);
+		}
+		CacheStats stats = cache.stats();
+		assertThat(stats.entries()).isEqualTo(10);
+		assertThat(stats.rejections()).isGreaterThan(0);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedToStayWithinWeight() {
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 10, String::length);
+		cache.get("a");
+		cache.put("a", "aaaa");
+		cache.get("b");
+		cache.put("b", "bbbb");
+		cache.get("a");
+		cache.get("c");
+		cache.get("c");
+		cache.put("c", "cccc");
+
+		assertThat(cache.get("a")).isEqualTo("aaaa");
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("c")).isEqualTo("cccc");
+		assertThat(cache.stats().evictions()).isEqualTo(1);
+		assertThat(cache.stats().weight()).isEqualTo(8);
+
+		cache.put("d", "d".repeat(11));
+		assertThat(cache.get("d")).isNull();
+	}
+
+	@Test
+	void resultCacheOnlyServesTheLatestGeneration() {
+		QueryResultCache cache = new QueryResultCache(100, Long.MAX_VALUE);
+		QueryKey key = QueryKey.of(criteria("Graphics  card"));
+		assertThat(QueryKey.of(criteria("card graphics"))).isEqualTo(key);
+		assertThat(QueryKey.of(criteria(""))).isEqualTo(QueryKey.of(criteria(null)));
+
+		assertThat(cache.get(key, 1)).isNull();
+		cache.put(key, new SearchResult(1, List.of()));
+		assertThat(cache.get(key, 1)).isNotNull();
+
+		assertThat(cache.get(key, 2)).isNull();
+		cache.put(key, new SearchResult(1, List.of()));
+		assertThat(cache.get(key, 2)).isNull();
+		assertThat(cache.stats().invalidations()).isEqualTo(2);
+	}
+
+	private static void request(TinyLfuCache<String, String> cache, String key) {
+		if (cache.get(key) == null) {
+			cache.put(key, key);
+		}
+	}
+
+	private static SearchingCriteria criteria(String content) {
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm(content);
+		return criteria;
+	}
+}
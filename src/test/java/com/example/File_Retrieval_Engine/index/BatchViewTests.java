@@ -0,0 +1,46 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchViewTests {
+
+	@Test
+	void sharesLookupsAcrossTheSearchesOfABatch() {
+		LocalSegment local = new LocalSegment();
+		for (int d = 0; d < 100; d++) {
+			local.addDocument(new FileInfo("f" + d, "/f" + d, (long) d, 0L), d % 2 == 0 ? Map.of("even", 1) : Map.of("odd", 1));
+		}
+		MemorySegment segment = MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+		BatchView view = new BatchView(segment);
+
+		int[] first = view.postings("even").docIds();
+		first[0] = -1;  // Some callers intersect in place
+		assertThat(view.postings("even").docIds()).containsExactly(segment.postings("even").docIds());
+		assertThat(view.postings("missing")).isNull();
+		assertThat(view.postings("missing")).isNull();
+
+		AtomicInteger computed = new AtomicInteger();
+		BitSet small = view.fileFilter("size [0, 9]", () -> {
+			computed.incrementAndGet();
+			return segment.metadata().sizeBetween(0L, 9L);
+		});
+		small.clear();
+		assertThat(view.fileFilter("size [0, 9]", () -> {
+			computed.incrementAndGet();
+			return new BitSet();
+		}).cardinality()).isEqualTo(10);
+
+		assertThat(computed).hasValue(1);
+		assertThat(view.lookups()).isEqualTo(6);
+		assertThat(view.fetches()).isEqualTo(3);
+	}
+}
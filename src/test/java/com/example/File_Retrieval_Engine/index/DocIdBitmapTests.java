@@ -0,0 +1,58 @@
+package com.example.File_Retrieval_Engine.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocIdBitmapTests {
+
+	@Test
+	void booleanOperationsMatchBitSets() {
+		Random random = new Random(3);
+		for (int round = 0; round < 40; round++) {
+			// Densities from a few ids per container to full bitmap containers, across several containers
+			BitSet a = randomSet(random, random.nextDouble() * random.nextDouble());
+			BitSet b = randomSet(random, random.nextDouble() * random.nextDouble());
+			DocIdBitmap bitmapA = DocIdBitmap.of(a.stream().toArray());
+			DocIdBitmap bitmapB = DocIdBitmap.of(b.stream().toArray());
+
+			BitSet and = (BitSet) a.clone();
+			and.and(b);
+			BitSet or = (BitSet) a.clone();
+			or.or(b);
+			BitSet andNot = (BitSet) a.clone();
+			andNot.andNot(b);
+
+			assertThat(bitmapA.and(bitmapB).toArray()).isEqualTo(and.stream().toArray());
+			assertThat(bitmapA.or(bitmapB).toArray()).isEqualTo(or.stream().toArray());
+			assertThat(bitmapA.andNot(bitmapB).toArray()).isEqualTo(andNot.stream().toArray());
+			assertThat(bitmapA.and(bitmapB).cardinality()).isEqualTo(and.cardinality());
+			assertThat(bitmapA.or(bitmapB).cardinality()).isEqualTo(or.cardinality());
+			int probe = random.nextInt(200_000);
+			assertThat(bitmapA.contains(probe)).isEqualTo(a.get(probe));
+			assertThat(bitmapA.toArray(probe, 100)).isEqualTo(a.stream().filter(docId -> docId >= probe).limit(100).toArray());
+		}
+	}
+
+	@Test
+	void rangesSpanContainers() {
+		assertThat(DocIdBitmap.range(65_530, 131_080).cardinality()).isEqualTo(131_080 - 65_530);
+		assertThat(DocIdBitmap.range(65_530, 131_080).contains(65_529)).isFalse();
+		assertThat(DocIdBitmap.range(65_530, 131_080).contains(131_079)).isTrue();
+		assertThat(DocIdBitmap.range(10, 10).isEmpty()).isTrue();
+		assertThat(DocIdBitmap.range(0, 5).andNot(DocIdBitmap.of(new int[]{1, 3})).toArray()).containsExactly(0, 2, 4);
+	}
+
+	private static BitSet randomSet(Random random, double density) {
+		BitSet set = new BitSet();
+		for (int docId = 0; docId < 200_000; docId++) {
+			if (random.nextDouble() < density) {
+				set.set(docId);
+			}
+		}
+		return set;
+	}
+}
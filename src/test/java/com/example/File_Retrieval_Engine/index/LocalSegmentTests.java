@@ -0,0 +1,39 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.analysis.TermIdDictionary;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalSegmentTests {
+
+	@Test
+	void postingListsAreFoundByTermIdPastGrowth() {
+		TermIdDictionary dictionary = TermIdDictionary.getInstance();
+		LocalSegment segment = new LocalSegment();
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			String term = "local-segment-term" + i;
+			segment.addDocument(new FileInfo("f" + i, "/f" + i, 1L, 0L), Map.of(term, 1 + i % 3));
+			segment.addDocument(new FileInfo("g" + i, "/g" + i, 1L, 0L), Map.of(term, 1));
+			ids.add(dictionary.id(term));
+		}
+		int absent = dictionary.id("local-segment-absent");
+
+		assertThat(segment.termIds()).containsExactly(ids.stream().mapToInt(Integer::intValue).toArray());
+		for (int i = 0; i < ids.size(); i++) {
+			PostingList postingList = segment.postings(ids.get(i));
+			assertThat(postingList).as("term %d", i).isNotNull();
+			assertThat(postingList.size()).isEqualTo(2);
+			assertThat(postingList.maxFrequency()).isEqualTo(1 + i % 3);
+		}
+		assertThat(segment.postings(absent)).isNull();
+		assertThat(segment.getPostings()).hasSize(5000)
+				.allSatisfy((term, postingList) -> assertThat(segment.postings(dictionary.id(term))).isSameAs(postingList));
+	}
+}
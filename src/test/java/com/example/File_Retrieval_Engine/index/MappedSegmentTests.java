@@ -0,0 +1,163 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.analysis.TermVector;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSegmentTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void mappedSegmentReadsBackWhatWasWritten() throws IOException {
+		MemorySegment written = randomSegment(new Random(7));
+		Path path = folder.resolve("index").resolve("index.seg");
+		new SegmentWriter().write(path, 42L, written.getPostings(), written.documents(), written.getNames(), written.getSizes());
+
+		MappedSegment mapped = MappedSegment.open(path);
+
+		assertThat(mapped.fingerprint()).isEqualTo(42L);
+		assertThat(mapped.isPositional()).isTrue();
+		assertThat(terms(mapped.contentTerms())).containsExactlyElementsOf(written.getPostings().keySet());
+		written.getPostings().forEach((term, expected) -> {
+			PostingList actual = mapped.postings(term);
+			assertThat(actual.encoded()).as(term).isEqualTo(expected.encoded());
+			assertThat(actual.size()).isEqualTo(expected.size());
+			assertThat(actual.maxFrequency()).isEqualTo(expected.maxFrequency());
+			assertThat(actual.minDocLength()).isEqualTo(expected.minDocLength());
+			PostingList.Cursor expectedCursor = expected.cursor();
+			PostingList.Cursor actualCursor = actual.cursor();
+			while (expectedCursor.next()) {
+				assertThat(actualCursor.next()).isTrue();
+				assertThat(actualCursor.docId()).isEqualTo(expectedCursor.docId());
+				assertThat(actualCursor.positions()).isEqualTo(expectedCursor.positions());
+			}
+			assertThat(actualCursor.next()).isFalse();
+		});
+		assertThat(mapped.postings("absent")).isNull();
+
+		assertThat(mapped.documents().size()).isEqualTo(written.documents().size());
+		assertThat(mapped.documents().averageLength()).isEqualTo(written.documents().averageLength());
+		for (int docId = 0; docId < written.documents().size(); docId++) {
+			FileInfo expected = written.documents().get(docId);
+			FileInfo actual = mapped.documents().get(docId);
+			assertThat(actual.getPath()).isEqualTo(expected.getPath());
+			assertThat(actual.getSize()).isEqualTo(expected.getSize());
+			assertThat(actual.getLast_modification()).isEqualTo(expected.getLast_modification());
+			assertThat(mapped.documents().length(docId)).isEqualTo(written.documents().length(docId));
+			if (expected instanceof MessageInfo message) {
+				assertThat(actual).isInstanceOfSatisfying(MessageInfo.class, m -> {
+					assertThat(m.getOffset()).isEqualTo(message.getOffset());
+					assertThat(m.getLength()).isEqualTo(message.getLength());
+					assertThat(m.getDocumentId()).isEqualTo(message.getDocumentId());
+					assertThat(m.getSubject()).isEqualTo(message.getSubject());
+				});
+			} else {
+				assertThat(actual).isNotInstanceOf(MessageInfo.class);
+			}
+			// Every document of a file shares the file's single instance
+			assertThat(actual.getFile()).isSameAs(mapped.documents().get(mapped.documentsOf(expected.getPath())[0]).getFile());
+		}
+
+		assertThat(terms(mapped.fileNames())).containsExactlyElementsOf(written.getNames().keySet());
+		for (String name : written.getNames().keySet()) {
+			assertThat(paths(mapped.filesByName(name))).containsExactlyElementsOf(paths(written.filesByName(name)));
+		}
+		assertThat(mapped.filesByName("absent")).isEmpty();
+		assertThat(paths(mapped.filesBySize(100L, 200L))).containsExactlyElementsOf(paths(written.filesBySize(100L, 200L)));
+		assertThat(paths(mapped.filesBySize(null, null))).containsExactlyElementsOf(paths(written.filesBySize(null, null)));
+		assertThat(mapped.metadata().fileCount()).isEqualTo(written.metadata().fileCount());
+	}
+
+	@Test
+	void staleOrIncompatibleSegmentsAreNotOpened() throws IOException {
+		Path data = Files.createDirectories(folder.resolve("data"));
+		Path file = Files.writeString(data.resolve("a.txt"), "some words");
+		Files.writeString(Files.createDirectory(data.resolve("sub")).resolve("b.txt"), "more words");
+		long fingerprint = DataSetFingerprint.of(data.toString());
+		assertThat(DataSetFingerprint.of(data.toString())).isEqualTo(fingerprint);
+
+		MemorySegment written = randomSegment(new Random(3));
+		Path path = folder.resolve("index.seg");
+		new SegmentWriter().write(path, fingerprint, written.getPostings(), written.documents(), written.getNames(), written.getSizes());
+		assertThat(MappedSegment.openIfFresh(path, DataSetFingerprint.of(data.toString()))).isNotNull();
+		assertThat(MappedSegment.openIfFresh(folder.resolve("missing.seg"), fingerprint)).isNull();
+
+		Files.writeString(file, "some other words");
+		assertThat(MappedSegment.openIfFresh(path, DataSetFingerprint.of(data.toString()))).isNull();
+		Files.writeString(data.resolve("sub").resolve("c.txt"), "new file");
+		long changed = DataSetFingerprint.of(data.toString());
+		assertThat(changed).isNotEqualTo(fingerprint);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MappedSegment.VERSION + 1), 4);
+		}
+		assertThatThrownBy(() -> MappedSegment.open(path)).isInstanceOf(IOException.class).hasMessageContaining("version");
+		assertThat(MappedSegment.openIfFresh(path, fingerprint)).isNull();
+	}
+
+	private static MemorySegment randomSegment(Random random) {
+		LocalSegment local = new LocalSegment();
+		TreeMap<String, List<FileInfo>> names = new TreeMap<>();
+		TreeMap<Long, List<FileInfo>> sizes = new TreeMap<>();
+		for (int f = 0; f < 20; f++) {
+			FileInfo file = new FileInfo("file" + f % 7 + ".txt", "/data/" + f + "/file" + f % 7 + ".txt", 50L + random.nextInt(250), 1_000L * f);
+			names.computeIfAbsent(file.getName(), name -> new ArrayList<>()).add(file);
+			sizes.computeIfAbsent(file.getSize(), size -> new ArrayList<>()).add(file);
+			int messages = random.nextInt(4);
+			if (messages == 0) {
+				local.addDocument(file, randomTerms(random));
+			}
+			for (int m = 0; m < messages; m++) {
+				Long documentId = m == 1 ? null : 1000L * f + m;
+				String subject = m == 2 ? null : "Subject " + f + "é" + m;
+				local.addDocument(new MessageInfo(file, 100L * m, 90L, documentId, subject), randomTerms(random));
+			}
+		}
+		local.addNames(names);
+		local.addSizes(sizes);
+		return MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+	}
+
+	private static TermVector randomTerms(Random random) {
+		int length = 1 + random.nextInt(30);
+		Map<String, List<Integer>> positions = new TreeMap<>();
+		for (int position = 0; position < length; position++) {
+			positions.computeIfAbsent("term" + random.nextInt(40), term -> new ArrayList<>()).add(position);
+		}
+		Map<String, int[]> vector = new TreeMap<>();
+		positions.forEach((term, list) -> vector.put(term, list.stream().mapToInt(Integer::intValue).toArray()));
+		return TermVector.of(vector, length);
+	}
+
+	private static List<String> terms(TermDictionary dictionary) {
+		List<String> terms = new ArrayList<>();
+		for (int ordinal = 0; ordinal < dictionary.size(); ordinal++) {
+			terms.add(dictionary.term(ordinal));
+		}
+		return terms;
+	}
+
+	private static List<String> paths(List<FileInfo> files) {
+		return files.stream().map(FileInfo::getPath).toList();
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataColumnsTests {
+
+	@Test
+	void rangeAndTypeFiltersMatchAFullScan() {
+		Random random = new Random(5);
+		String[] types = {"txt", "TXT", "csv", "log"};
+		FileInfo[] files = new FileInfo[300];
+		for (int i = 0; i < files.length; i++) {
+			files[i] = new FileInfo("f" + i + "." + types[random.nextInt(types.length)], "/f" + i,
+					random.nextInt(1000), 1_000_000L + random.nextInt(500));
+		}
+		MetadataColumns columns = new MetadataColumns(files, 2 * files.length, docId -> docId / 2);
+
+		for (int round = 0; round < 50; round++) {
+			long minSize = random.nextInt(1000);
+			long maxSize = minSize + random.nextInt(300);
+			long from = 1_000_000L + random.nextInt(500);
+			long until = from + random.nextInt(100);
+			BitSet expectedSizes = new BitSet();
+			BitSet expectedTimes = new BitSet();
+			for (int i = 0; i < files.length; i++) {
+				expectedSizes.set(i, files[i].getSize() >= minSize && files[i].getSize() <= maxSize);
+				expectedTimes.set(i, files[i].getLast_modification() >= from && files[i].getLast_modification() < until);
+			}
+			assertThat(columns.sizeBetween(minSize, maxSize)).isEqualTo(expectedSizes);
+			assertThat(columns.modifiedBetween(from, until)).isEqualTo(expectedTimes);
+		}
+
+		BitSet text = new BitSet();
+		for (int i = 0; i < files.length; i++) {
+			text.set(i, files[i].getType().equalsIgnoreCase("txt"));
+		}
+		assertThat(columns.ofType("Txt")).isEqualTo(text);
+		assertThat(columns.ofType("pdf").isEmpty()).isTrue();
+		assertThat(columns.sizeBetween(null, null).cardinality()).isEqualTo(files.length);
+		assertThat(columns.fileOf(7)).isEqualTo(3);
+		assertThat(columns.ordinalOf(files[42])).isEqualTo(42);
+
+		BitSet some = new BitSet();
+		some.set(3);
+		some.set(1);
+		assertThat(columns.documentCount(some)).isEqualTo(4);
+		assertThat(columns.documentsOf(some)).containsExactly(2, 3, 6, 7);
+		IntFunction<int[]> resumed = columns.documentsOf(some, 2);
+		assertThat(resumed.apply(2)).containsExactly(3, 6);
+		assertThat(resumed.apply(2)).containsExactly(7);
+		assertThat(resumed.apply(2)).isEmpty();
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostingListTests {
+
+	@Test
+	void decodesWhatWasEncoded() {
+		PostingList postingList = new PostingList();
+		postingList.add(0, 3, 10);
+		postingList.add(7, 1, 1);
+		postingList.add(300, 200, 10);
+		postingList.add(70000, 1, 1);
+		postingList.trim();
+
+		assertThat(postingList.size()).isEqualTo(4);
+		assertThat(postingList.docIds()).containsExactly(0, 7, 300, 70000);
+
+		PostingList.Cursor cursor = postingList.cursor();
+		assertThat(cursor.advance(8)).isTrue();
+		assertThat(cursor.docId()).isEqualTo(300);
+		assertThat(cursor.frequency()).isEqualTo(200);
+		assertThat(cursor.advance(70001)).isFalse();
+		assertThat(cursor.advance(0)).isFalse();
+	}
+
+	@Test
+	void skipsPositionsUnlessAskedFor() {
+		PostingList first = new PostingList(true);
+		first.add(2, new int[]{0, 5, 400}, 500);
+		first.add(9, new int[]{7}, 10);
+		PostingList second = new PostingList(true);
+		second.add(0, new int[]{1, 2}, 3);
+
+		PostingList merged = new PostingList(true);
+		merged.addAll(first, 0);
+		merged.addAll(second, 10);
+		merged.trim();
+
+		assertThat(merged.docIds()).containsExactly(2, 9, 10);
+		PostingList.Cursor cursor = merged.cursor();
+		assertThat(cursor.advance(9)).isTrue();
+		assertThat(cursor.frequency()).isEqualTo(1);
+		assertThat(cursor.positions()).containsExactly(7);
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.positions()).containsExactly(1, 2);
+
+		DocIdTable documents = new DocIdTable();
+		for (int docId = 0; docId <= 10; docId++) {
+			documents.register(new FileInfo("f" + docId, "/f" + docId, 1, 0), 1);
+		}
+		PostingList retained = merged.retain(docId -> docId != 9, documents);
+		PostingList.Cursor retainedCursor = retained.cursor();
+		assertThat(retainedCursor.next()).isTrue();
+		assertThat(retainedCursor.positions()).containsExactly(0, 5, 400);
+		assertThatThrownBy(() -> new PostingList().addAll(merged, 0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsOutOfOrderDocIds() {
+		PostingList postingList = new PostingList();
+		postingList.add(5, 1, 1);
+		assertThatThrownBy(() -> postingList.add(5, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void intersectsOnDocIds() {
+		PostingList first = new PostingList();
+		PostingList second = new PostingList();
+		PostingList third = new PostingList();
+		for (int docId = 0; docId < 100; docId++) {
+			first.add(docId, 1, 1);
+			if (docId % 2 == 0) {
+				second.add(docId, 1, 1);
+			}
+			if (docId % 3 == 0) {
+				third.add(docId, 1, 1);
+			}
+		}
+
+		assertThat(PostingList.intersect(List.of(first, second, third)))
+				.containsExactly(0, 6, 12, 18, 24, 30, 36, 42, 48, 54, 60, 66, 72, 78, 84, 90, 96);
+		assertThat(PostingList.intersect(List.of())).isEmpty();
+	}
+
+}
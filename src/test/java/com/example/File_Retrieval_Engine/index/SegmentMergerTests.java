@@ -0,0 +1,52 @@
+package com.example.File_Retrieval_Engine.index;
+
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentMergerTests {
+
+	@Test
+	void mergeMatchesSingleSegment() {
+		Random random = new Random(11);
+		List<LocalSegment> segments = new ArrayList<>();
+		LocalSegment expected = new LocalSegment();
+		for (int s = 0; s < 5; s++) {
+			LocalSegment segment = new LocalSegment();
+			for (int d = random.nextInt(40); d >= 0; d--) {
+				Map<String, Integer> terms = new HashMap<>();
+				for (int t = random.nextInt(20); t >= 0; t--) {
+					terms.merge("t" + random.nextInt(500), 1 + random.nextInt(3), Integer::sum);
+				}
+				FileInfo document = new FileInfo("f" + s + "_" + d, "/f" + s + "_" + d, 1L, 0L);
+				segment.addDocument(document, terms);
+				expected.addDocument(document, terms);
+			}
+			segments.add(segment);
+		}
+
+		int[] docIdBases = new int[segments.size()];
+		for (int s = 1; s < segments.size(); s++) {
+			docIdBases[s] = docIdBases[s - 1] + segments.get(s - 1).getDocuments().size();
+		}
+		TreeMap<String, PostingList> merged = new SegmentMerger(new ForkJoinPool(3)).mergePostings(segments, docIdBases);
+
+		assertThat(merged.keySet()).containsExactlyInAnyOrderElementsOf(expected.getPostings().keySet());
+		expected.getPostings().forEach((term, postingList) -> {
+			assertThat(merged.get(term).encoded()).as(term).isEqualTo(postingList.encoded());
+			assertThat(merged.get(term).size()).isEqualTo(postingList.size());
+			assertThat(merged.get(term).minDocLength()).isEqualTo(postingList.minDocLength());
+			assertThat(merged.get(term).maxFrequency()).isEqualTo(postingList.maxFrequency());
+		});
+	}
+
+}
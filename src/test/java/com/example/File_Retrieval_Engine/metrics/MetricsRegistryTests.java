@@ -0,0 +1,46 @@
+package com.example.File_Retrieval_Engine.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetricsRegistryTests {
+
+	@Test
+	void metersAreIdentifiedByNameAndTags() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("index.files", "strategy", "a").increment();
+		registry.counter("index.files", "strategy", "a").add(2);
+		registry.counter("index.files", "strategy", "b").increment();
+		registry.gauge("queue", () -> 7);
+
+		List<MetricsRegistry.MeterSnapshot> snapshot = registry.snapshot();
+		assertThat(snapshot).extracting(MetricsRegistry.MeterSnapshot::name).containsExactly("index.files", "index.files", "queue");
+		assertThat(snapshot.get(0).tags()).isEqualTo(Map.of("strategy", "a"));
+		assertThat(snapshot.get(0).values().get("count")).isEqualTo(3L);
+		assertThat(snapshot.get(2).values().get("value")).isEqualTo(7.0);
+		assertThatThrownBy(() -> registry.counter("odd", "tag")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void timerEstimatesPercentilesFromBuckets() {
+		Timer timer = new Timer();
+		assertThat(timer.percentile(0.5)).isZero();
+		for (int i = 0; i < 90; i++) {
+			timer.record(TimeUnit.MICROSECONDS.toNanos(80));
+		}
+		for (int i = 0; i < 10; i++) {
+			timer.record(TimeUnit.MILLISECONDS.toNanos(3));
+		}
+
+		assertThat(timer.count()).isEqualTo(100);
+		assertThat(timer.percentile(0.5)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(100));
+		assertThat(timer.percentile(0.95)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(3)); // capped by the maximum
+		assertThat(timer.totalNanos()).isEqualTo(90 * 80_000L + 10 * 3_000_000L);
+	}
+}
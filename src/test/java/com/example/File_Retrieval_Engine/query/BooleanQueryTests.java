@@ -0,0 +1,24 @@
+package com.example.File_Retrieval_Engine.query;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BooleanQueryTests {
+
+	@Test
+	void parsesOperatorsByPrecedence() {
+		assertThat(BooleanQuery.parse("graphics OR video card AND NOT mac").toString())
+				.isEqualTo("((NOT mac AND card AND video) OR graphics)");
+		assertThat(BooleanQuery.parse("(Graphics OR video) \"Video Card\" NEAR/3 memory NOT (mac OR pc*)").toString())
+				.isEqualTo("((\"video card\" NEAR/3 memory) AND (graphics OR video) AND NOT (mac OR pc*))");
+		assertThat(BooleanQuery.parse("NOT NOT graphic~1").toString()).isEqualTo("NOT NOT graphic~1");
+		assertThat(BooleanQuery.parse("b OR a").toString()).isEqualTo(BooleanQuery.parse("a OR b").toString());
+
+		assertThatThrownBy(() -> BooleanQuery.parse("(graphics OR video")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BooleanQuery.parse("graphics OR")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BooleanQuery.parse("graph* NEAR/2 card")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BooleanQuery.parse(" ")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.File_Retrieval_Engine.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentQueryTests {
+
+	@Test
+	void parsesTermsPhrasesAndProximity() {
+		ContentQuery query = ContentQuery.parse("Graphics \"Virtual-Reality\" card NEAR/5 \"video memory\" \"solo\"");
+
+		assertThat(query.terms()).containsExactly("graphics", "solo");
+		assertThat(query.clauses()).extracting(Object::toString)
+				.containsExactly("\"virtual reality\"", "(card NEAR/5 \"video memory\")");
+		assertThat(query.allTerms()).containsExactly("graphics", "solo", "virtual", "reality", "card", "video", "memory");
+		assertThat(ContentQuery.parse("solo graphics \"virtual reality\" graphics").normalized())
+				.isEqualTo("graphics solo \"virtual reality\"");
+		assertThatThrownBy(() -> ContentQuery.parse("card NEAR/5")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ContentQuery.parse("a NEAR/0 b")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void parsesPrefixWildcardAndFuzzyTerms() {
+		ContentQuery query = ContentQuery.parse("Graph* gr?ph*s graphic~ graphic~1 card");
+
+		assertThat(query.terms()).containsExactly("card");
+		assertThat(query.patterns()).containsExactly(
+				new TermPattern(TermPattern.Kind.PREFIX, "graph", 0),
+				new TermPattern(TermPattern.Kind.WILDCARD, "gr?ph*s", 0),
+				new TermPattern(TermPattern.Kind.FUZZY, "graphic", 2),
+				new TermPattern(TermPattern.Kind.FUZZY, "graphic", 1));
+		assertThat(query.normalized()).isEqualTo("card gr?ph*s graph* graphic~1 graphic~2");
+		assertThat(TermPattern.glob("comp.*.txt~")).isEqualTo(new TermPattern(TermPattern.Kind.WILDCARD, "comp.*.txt~", 0));
+		assertThatThrownBy(() -> ContentQuery.parse("graphic~3")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ContentQuery.parse("graph* NEAR/2 card")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void matchesPhrasesAndProximityOnPositions() {
+		// "the virtual world of reality is virtual reality"
+		Map<String, int[]> positions = Map.of(
+				"the", new int[]{0},
+				"virtual", new int[]{1, 6},
+				"world", new int[]{2},
+				"reality", new int[]{4, 7});
+
+		assertThat(ContentQuery.parse("\"virtual reality\"").clauses().getFirst().spans(positions)).hasSize(1);
+		assertThat(ContentQuery.parse("\"reality virtual\"").clauses().getFirst().spans(positions)).isEmpty();
+		assertThat(ContentQuery.parse("\"the virtual world\"").clauses().getFirst().spans(positions)).hasSize(1);
+		assertThat(ContentQuery.parse("the NEAR/3 reality").clauses().getFirst().spans(positions)).isEmpty();
+		assertThat(ContentQuery.parse("the NEAR/4 reality").clauses().getFirst().spans(positions)).hasSize(1);
+		assertThat(ContentQuery.parse("reality NEAR/1 world").clauses().getFirst().spans(positions)).isEmpty();
+		assertThat(ContentQuery.parse("world NEAR/2 reality").clauses().getFirst().spans(positions)).hasSize(1);
+		assertThat(ContentQuery.parse("\"virtual reality\" NEAR/2 world").clauses().getFirst().spans(positions)).isEmpty();
+		assertThat(ContentQuery.parse("the NEAR/1 virtual NEAR/5 reality").clauses().getFirst().spans(positions)).hasSize(1);
+		assertThat(ContentQuery.parse("the NEAR/1 virtual NEAR/6 reality").clauses().getFirst().spans(positions)).hasSize(2);
+	}
+}
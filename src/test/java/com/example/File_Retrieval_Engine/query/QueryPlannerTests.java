@@ -0,0 +1,159 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.analysis.TermVector;
+import com.example.File_Retrieval_Engine.index.LocalSegment;
+import com.example.File_Retrieval_Engine.index.MemorySegment;
+import com.example.File_Retrieval_Engine.index.SegmentMerger;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.PlanStage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPlannerTests {
+
+	@Test
+	void selectiveClauseDrivesAndMatchesBruteForce() {
+		Random random = new Random(5);
+		LocalSegment local = new LocalSegment();
+		List<Map<String, Integer>> documents = new ArrayList<>();
+		for (int d = 0; d < 2000; d++) {
+			Map<String, Integer> terms = new HashMap<>();
+			terms.put("common", 1);
+			for (int t = random.nextInt(8); t >= 0; t--) {
+				terms.merge("t" + random.nextInt(60), 1, Integer::sum);
+			}
+			if (d % 97 == 0) {
+				terms.put("rare", 1);
+			}
+			documents.add(terms);
+			local.addDocument(new FileInfo("f" + d, "/f" + d, (long) d, 0L), terms);
+		}
+		MemorySegment view = MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+		QueryPlanner planner = new QueryPlanner(new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS));
+		Map<String, BitSet> fileFilters = new LinkedHashMap<>();
+		fileFilters.put("size [500, null]", view.metadata().sizeBetween(500L, null));
+
+		List<PlanStage> stages = new ArrayList<>();
+		int[] matches = planner.matchDocuments(view, 0, ContentQuery.parse("common t1* rare"), null, fileFilters, stages);
+
+		int[] expected = IntStream.range(0, documents.size())
+				.filter(d -> d >= 500 && documents.get(d).containsKey("rare")
+						&& documents.get(d).keySet().stream().anyMatch(term -> term.startsWith("t1")))
+				.toArray();
+		assertThat(matches).containsExactly(expected);
+		assertThat(stages).extracting(PlanStage::getClause)
+				.containsExactly("term rare", "pattern t1* (11 terms)", "size [500, null]", "term common");
+		assertThat(stages).extracting(PlanStage::getRole).containsExactly("drive", "filter", "filter", "filter");
+		assertThat(stages.getFirst().getEstimate()).isEqualTo(21);
+	}
+
+	@Test
+	void streamedMatchesResumeAfterADocIdAcrossBlocks() {
+		LocalSegment local = new LocalSegment();
+		for (int d = 0; d < 5000; d++) {
+			Map<String, Integer> terms = new HashMap<>();
+			terms.put(d % 2 == 0 ? "even" : "odd", 1);
+			if (d % 3 == 0) {
+				terms.put("third", 1);
+			}
+			local.addDocument(new FileInfo("f" + d, "/f" + d, (long) d, 0L), terms);
+		}
+		MemorySegment view = MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+		QueryPlanner planner = new QueryPlanner(new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS));
+		ContentQuery query = ContentQuery.parse("even third");
+
+		List<Integer> resumed = new ArrayList<>();
+		assertThat(planner.matchDocuments(view, 0, query, null, Map.of(), 1234, new ArrayList<>(), resumed::add)).isTrue();
+		assertThat(resumed).containsExactly(IntStream.range(1235, 5000)
+				.filter(d -> d % 6 == 0)
+				.boxed()
+				.toArray(Integer[]::new));
+
+		List<Integer> firstThree = new ArrayList<>();
+		List<PlanStage> stages = new ArrayList<>();
+		assertThat(planner.matchDocuments(view, 0, query, null, Map.of(), -1, stages, docId -> {
+			firstThree.add(docId);
+			return firstThree.size() < 3;
+		})).isFalse();
+		assertThat(firstThree).containsExactly(0, 6, 12);
+		assertThat(stages).extracting(PlanStage::getClause).containsExactly("term third", "term even");
+		assertThat(stages.getLast().getMatches()).isEqualTo(512);  // Only the first block of 1024 candidates was checked
+	}
+
+	@Test
+	void drivingClausesOnlyListTheBlocksHandedOver() {
+		LocalSegment local = new LocalSegment();
+		for (int d = 0; d < 20_000; d++) {
+			Map<String, int[]> positions = new HashMap<>();
+			positions.put("common", new int[]{0});
+			positions.put("t" + d % 40, new int[]{1});
+			if (d % 3 == 0) {
+				positions.put("third", new int[]{2});
+			}
+			local.addDocument(new FileInfo("f" + d, "/f" + d, (long) d, 0L), TermVector.of(positions, positions.size()));
+		}
+		MemorySegment view = MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+		QueryPlanner planner = new QueryPlanner(new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS));
+		Map<String, BitSet> sizeFilter = Map.of("size [100, null]", view.metadata().sizeBetween(100L, null));
+
+		// One driving clause of every kind: term, pattern, phrase, boolean query and file filter
+		record Plan(ContentQuery query, BooleanQuery booleanQuery, Map<String, BitSet> fileFilters, IntPredicate expected) {
+		}
+		List<Plan> plans = List.of(
+				new Plan(ContentQuery.parse("common"), null, Map.of(), d -> true),
+				new Plan(ContentQuery.parse("t1*"), null, Map.of(), d -> d % 40 == 1 || d % 40 >= 10 && d % 40 < 20),
+				new Plan(ContentQuery.parse("\"t3 third\""), null, Map.of(), d -> d % 40 == 3 && d % 3 == 0),
+				new Plan(null, BooleanQuery.parse("third OR t5"), Map.of(), d -> d % 3 == 0 || d % 40 == 5),
+				new Plan(null, null, sizeFilter, d -> d >= 100));
+		for (Plan plan : plans) {
+			int[] expected = IntStream.range(0, 20_000).filter(plan.expected()).toArray();
+
+			List<Integer> resumed = new ArrayList<>();
+			List<PlanStage> stages = new ArrayList<>();
+			assertThat(planner.matchDocuments(view, 0, plan.query(), plan.booleanQuery(), plan.fileFilters(), 15_000, stages,
+					resumed::add)).isTrue();
+			int[] tail = Arrays.stream(expected).filter(d -> d > 15_000).toArray();
+			assertThat(resumed).as(stages.getFirst().getClause()).containsExactly(Arrays.stream(tail).boxed().toArray(Integer[]::new));
+			assertThat(stages.getFirst().getMatches()).as(stages.getFirst().getClause()).isEqualTo(tail.length);
+
+			// A stream stopped at its first hit, from the start or resumed, lists a single block of the driver
+			for (int after : new int[]{-1, 5_000}) {
+				stages.clear();
+				assertThat(planner.matchDocuments(view, 0, plan.query(), plan.booleanQuery(), plan.fileFilters(), after, stages,
+						docId -> false)).isFalse();
+				long left = Arrays.stream(expected).filter(d -> d > after).count();
+				assertThat(stages.getFirst().getMatches()).as(stages.getFirst().getClause()).isEqualTo((int) Math.min(1024, left));
+			}
+		}
+	}
+
+	@Test
+	void unknownTermEndsThePlan() {
+		LocalSegment local = new LocalSegment();
+		local.addDocument(new FileInfo("a", "/a", 1L, 0L), Map.of("graphics", 2, "card", 1));
+		MemorySegment view = MemorySegment.merge(List.of(local), new SegmentMerger(new ForkJoinPool(1)));
+		QueryPlanner planner = new QueryPlanner(new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS));
+
+		List<PlanStage> stages = new ArrayList<>();
+		int[] matches = planner.matchDocuments(view, 0, ContentQuery.parse("graphics nowhere"),
+				BooleanQuery.parse("card OR video"), Map.of(), stages);
+
+		assertThat(matches).isEmpty();
+		assertThat(stages).extracting(PlanStage::getRole).containsExactly("drive", "skipped", "skipped");
+		assertThat(stages.getFirst().getClause()).isEqualTo("term nowhere");
+		assertThat(stages.get(1).getMatches()).isNull();
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.File_Retrieval_Engine.query;
+
+import com.example.File_Retrieval_Engine.index.TermDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TermExpanderTests {
+
+	private static final TermDictionary DICTIONARY = TermDictionary.of(new String[]{
+			"graph", "graphic", "graphical", "graphics", "graphite", "grapple", "great", "photograph", "zebra"});
+
+	@Test
+	void expandsPrefixesAndWildcardsWithinTheirRange() {
+		TermExpander expander = new TermExpander(64);
+
+		assertThat(expander.expand(DICTIONARY, TermPattern.parse("graph*")))
+				.containsExactly("graph", "graphic", "graphical", "graphics", "graphite");
+		assertThat(expander.expand(DICTIONARY, TermPattern.parse("gr*ph?c*")))
+				.containsExactly("graphic", "graphical", "graphics");
+		assertThat(expander.expand(DICTIONARY, TermPattern.parse("*graph"))).containsExactly("graph", "photograph");
+		assertThat(expander.expand(DICTIONARY, TermPattern.parse("graph?"))).isEmpty();
+		assertThat(new TermExpander(2).expand(DICTIONARY, TermPattern.parse("graph*"))).containsExactly("graph", "graphic");
+	}
+
+	@Test
+	void expandsFuzzyTermsClosestFirst() {
+		assertThat(new TermExpander(64).expand(DICTIONARY, TermPattern.parse("grahpic~1"))).isEmpty();
+		assertThat(new TermExpander(64).expand(DICTIONARY, TermPattern.parse("grahpic~2"))).containsExactly("graphic");
+		assertThat(new TermExpander(2).expand(DICTIONARY, TermPattern.parse("graphic~2"))).containsExactly("graphic", "graphics");
+	}
+
+	@Test
+	void findsTheSameFuzzyMatchesAsAFullScan() {
+		Random random = new Random(42);
+		TreeSet<String> terms = new TreeSet<>();
+		while (terms.size() < 2000) {
+			StringBuilder term = new StringBuilder();
+			int length = 1 + random.nextInt(8);
+			for (int i = 0; i < length; i++) {
+				term.append((char) ('a' + random.nextInt(4)));
+			}
+			terms.add(term.toString());
+		}
+		TermDictionary dictionary = TermDictionary.of(terms.toArray(String[]::new));
+		TermExpander expander = new TermExpander(Integer.MAX_VALUE);
+
+		for (String target : List.of("abcd", "dd", "abcabca", "b")) {
+			for (int maxEdits = 1; maxEdits <= 2; maxEdits++) {
+				int edits = maxEdits;
+				assertThat(expander.expand(dictionary, TermPattern.parse(target + "~" + maxEdits)))
+						.containsExactlyInAnyOrderElementsOf(terms.stream().filter(term -> distance(term, target) <= edits).toList());
+			}
+		}
+	}
+
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				d[i][j] = i == 0 ? j : j == 0 ? i : Math.min(d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+						Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+}
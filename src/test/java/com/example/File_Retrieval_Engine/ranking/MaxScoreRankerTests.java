@@ -0,0 +1,65 @@
+package com.example.File_Retrieval_Engine.ranking;
+
+import com.example.File_Retrieval_Engine.index.DocIdTable;
+import com.example.File_Retrieval_Engine.index.PostingList;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MaxScoreRankerTests {
+
+	@Test
+	void matchesExhaustiveScoring() {
+		Random random = new Random(42);
+		int docCount = 2000;
+		DocIdTable docIdTable = new DocIdTable();
+		int[][] frequencies = new int[4][docCount];
+		for (int docId = 0; docId < docCount; docId++) {
+			docIdTable.register(new FileInfo("doc" + docId + ".txt", "doc" + docId + ".txt", 0, 0), 50 + random.nextInt(500));
+		}
+		List<PostingList> postingLists = new ArrayList<>();
+		double[] density = {0.01, 0.05, 0.3, 0.8};
+		for (int term = 0; term < density.length; term++) {
+			PostingList postingList = new PostingList();
+			for (int docId = 0; docId < docCount; docId++) {
+				if (random.nextDouble() < density[term]) {
+					frequencies[term][docId] = 1 + random.nextInt(20);
+					postingList.add(docId, frequencies[term][docId], docIdTable.length(docId));
+				}
+			}
+			postingLists.add(postingList);
+		}
+
+		Bm25 bm25 = new Bm25(docCount, docIdTable.averageLength());
+		List<ScoredDoc> expected = new ArrayList<>();
+		for (int docId = 0; docId < docCount; docId++) {
+			if (docId % 7 == 0) {
+				continue;
+			}
+			double score = 0;
+			for (int term = 0; term < density.length; term++) {
+				if (frequencies[term][docId] > 0) {
+					score += bm25.score(bm25.idf(postingLists.get(term).size()), frequencies[term][docId], docIdTable.length(docId));
+				}
+			}
+			if (score > 0) {
+				expected.add(new ScoredDoc(docId, score));
+			}
+		}
+		expected.sort(Comparator.comparingDouble(ScoredDoc::score).reversed().thenComparingInt(ScoredDoc::docId));
+
+		int[] docFrequencies = postingLists.stream().mapToInt(PostingList::size).toArray();
+		List<ScoredDoc> ranked = new MaxScoreRanker(docIdTable, bm25)
+				.topK(postingLists, docFrequencies, docId -> docId % 7 != 0, 10);
+
+		assertThat(ranked).extracting(ScoredDoc::docId)
+				.containsExactlyElementsOf(expected.subList(0, 10).stream().map(ScoredDoc::docId).toList());
+	}
+
+}
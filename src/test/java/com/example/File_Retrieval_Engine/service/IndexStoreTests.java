@@ -0,0 +1,114 @@
+package com.example.File_Retrieval_Engine.service;
+
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.index.MaskedView;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexStoreTests {
+
+	private final IndexStore store = IndexStore.create();
+
+	@Test
+	void reindexedFilesAreMaskedInOlderSegmentsAndRemovedFilesDisappear() {
+		publish(List.of(), "/a.txt", "/b.txt", "/c.txt", "/d.txt", "/e.txt");
+		IndexGeneration before = store.currentGeneration();
+
+		publish(List.of("/a.txt"), "/a.txt");
+		IndexGeneration reindexed = store.currentGeneration();
+		assertThat(reindexed.number()).isEqualTo(before.number() + 1);
+		assertThat(reindexed.segments()).hasSize(2);
+		assertThat(reindexed.segments().getFirst().deletedDocCount()).isEqualTo(1);
+		assertThat(liveDocuments(reindexed, "/a.txt")).isEqualTo(1);
+		assertThat(liveDocuments(reindexed.segments().getLast(), "/a.txt")).isEqualTo(1);
+		assertThat(filesNamed(reindexed, "/a.txt")).isEqualTo(1);
+
+		publish(List.of("/b.txt", "/not-indexed.txt"));
+		IndexGeneration removed = store.currentGeneration();
+		assertThat(liveDocuments(removed, "/b.txt")).isZero();
+		assertThat(filesNamed(removed, "/b.txt")).isZero();
+		assertThat(liveDocuments(removed, "/c.txt")).isEqualTo(1);
+
+		// A search pinned to an older generation keeps reading its snapshot
+		assertThat(liveDocuments(before, "/a.txt")).isEqualTo(1);
+		assertThat(liveDocuments(before, "/b.txt")).isEqualTo(1);
+		assertThat(before.segments()).hasSize(1).allSatisfy(segment -> assertThat(segment.deletedDocCount()).isZero());
+	}
+
+	@Test
+	void heavilyDeletedSegmentsAreCompacted() {
+		publish(List.of(), "/a.txt", "/b.txt", "/c.txt", "/d.txt", "/e.txt");
+		publish(List.of(), "/f.txt", "/g.txt", "/h.txt", "/i.txt");
+
+		// 1 of 5 documents deleted stays masked
+		publish(List.of("/a.txt"));
+		assertThat(store.currentGeneration().segments()).hasSize(2)
+				.extracting(MaskedView::deletedDocCount).containsExactly(1, 0);
+
+		// 1 of 4 documents deleted is compacted, together with the other heavily deleted segment
+		publish(List.of("/b.txt", "/f.txt"));
+		IndexGeneration compacted = store.currentGeneration();
+		assertThat(compacted.segments()).singleElement().satisfies(segment -> {
+			assertThat(segment.deletedDocCount()).isZero();
+			assertThat(segment.documents().size()).isEqualTo(6);
+		});
+		for (String path : List.of("/c.txt", "/d.txt", "/e.txt", "/g.txt", "/h.txt", "/i.txt")) {
+			assertThat(liveDocuments(compacted, path)).as(path).isEqualTo(1);
+			assertThat(filesNamed(compacted, path)).as(path).isEqualTo(1);
+		}
+		assertThat(liveDocuments(compacted, "/a.txt") + liveDocuments(compacted, "/b.txt") + liveDocuments(compacted, "/f.txt")).isZero();
+	}
+
+	@Test
+	void segmentsBeyondTheLimitAreCompactedIntoTheLargest() {
+		publish(List.of(), "/big1.txt", "/big2.txt", "/big3.txt");
+		for (int i = 0; i < 7; i++) {
+			publish(List.of(), "/small" + i + ".txt");
+		}
+		assertThat(store.currentGeneration().segments()).hasSize(8);
+
+		publish(List.of(), "/small7.txt");
+		IndexGeneration compacted = store.currentGeneration();
+		assertThat(compacted.segments()).hasSize(2);
+		assertThat(compacted.segments().getFirst().documents().size()).isEqualTo(3);
+		assertThat(compacted.segments().getLast().documents().size()).isEqualTo(8);
+		for (int i = 0; i < 8; i++) {
+			assertThat(liveDocuments(compacted, "/small" + i + ".txt")).isEqualTo(1);
+		}
+	}
+
+	/**
+	 * Publishes a build removing some paths and indexing files with a single term each.
+	 */
+	private void publish(List<String> removed, String... paths) {
+		IndexStore.Build build = store.beginBuild();
+		removed.forEach(store::removeFile);
+		for (String path : paths) {
+			FileInfo file = new FileInfo(path.substring(1), path, 10L, 0L);
+			store.updateContentIndex(file, Map.of("word", 1));
+			store.updateNameIndex(Map.of(file.getName(), List.of(file)));
+			store.updateSizeIndex(Map.of(file.getSize(), List.of(file)));
+		}
+		store.finishBuild(build);
+	}
+
+	private static long liveDocuments(IndexGeneration generation, String path) {
+		return generation.segments().stream().mapToLong(segment -> liveDocuments(segment, path)).sum();
+	}
+
+	private static long liveDocuments(MaskedView segment, String path) {
+		return IntStream.of(segment.documentsOf(path)).filter(segment::isLive).count();
+	}
+
+	private static long filesNamed(IndexGeneration generation, String path) {
+		return generation.segments().stream()
+				.mapToLong(segment -> segment.filesByName(path.substring(1)).stream().filter(file -> file.getPath().equals(path)).count())
+				.sum();
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexWatcherTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void changedFilesAreUpdatedInBatchesEvenAfterAFailedBatch() throws Exception {
+		Path file = folder.resolve("a.txt");
+		RecordingEngine engine = new RecordingEngine();
+		try (IndexWatcher watcher = new IndexWatcher(engine, folder, 300)) {
+			watcher.start();
+
+			Files.writeString(file, "first");
+			Files.writeString(folder.resolve("b.txt"), "second");
+			assertThat(engine.nextBatch()).containsExactlyInAnyOrder(file.toString(), folder.resolve("b.txt").toString());
+
+			// The first batch failed; the watcher keeps going
+			Files.writeString(file, "first, modified");
+			assertThat(engine.nextBatch()).containsExactly(file.toString());
+
+			Files.delete(file);
+			assertThat(engine.nextBatch()).containsExactly(file.toString());
+
+			Path sub = Files.createDirectory(folder.resolve("sub"));
+			Files.writeString(sub.resolve("c.txt"), "nested");
+			assertThat(engine.nextBatch()).contains(sub.resolve("c.txt").toString());
+		}
+	}
+
+	private static class RecordingEngine extends StubEngine {
+
+		private final BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<>();
+		private final AtomicInteger updates = new AtomicInteger();
+
+		Set<String> nextBatch() throws InterruptedException {
+			Set<String> batch = batches.poll(10, TimeUnit.SECONDS);
+			assertThat(batch).as("batch of changed files").isNotNull();
+			return batch;
+		}
+
+		@Override
+		public void update(Collection<String> paths) {
+			batches.add(Set.copyOf(paths));
+			if (updates.incrementAndGet() == 1) {
+				throw new IllegalStateException("Indexing pipeline failed");
+			}
+		}
+	}
+}
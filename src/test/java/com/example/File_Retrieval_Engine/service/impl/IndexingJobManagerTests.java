@@ -0,0 +1,118 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
+import com.example.File_Retrieval_Engine.model.IndexingJob;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.strategy.IndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexingJobManagerTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void jobsReportTheirProgressUntilTheyFinish() throws Exception {
+		CountDownLatch halfway = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		IndexingJobManager manager = new IndexingJobManager(new StubEngine() {
+			@Override
+			public void index(String path, IndexingProgress progress) throws EmptyDataSetException, InterruptedException {
+				if (path.endsWith("empty")) {
+					throw new EmptyDataSetException("Provided dataset is empty!");
+				}
+				progress.fileFound(100);
+				progress.fileFound(300);
+				progress.discoveryFinished();
+				progress.fileIndexed(100);
+				halfway.countDown();
+				resume.await();
+				progress.fileIndexed(300);
+			}
+		});
+
+		IndexingJob job = manager.start(folder.toString());
+		assertThat(halfway.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(job.getState()).isEqualTo(IndexingJob.State.RUNNING);
+		assertThat(job.getFilesTotal()).isEqualTo(2);
+		assertThat(job.getFilesIndexed()).isEqualTo(1);
+		assertThat(job.getBytesTotal()).isEqualTo(400);
+		assertThat(job.getBytesIndexed()).isEqualTo(100);
+		assertThat(job.getEtaMillis()).isNotNull();
+		assertThat(manager.get(job.getId())).isSameAs(job);
+
+		Path nested = Files.createDirectory(folder.resolve("nested"));
+		assertThatThrownBy(() -> manager.start(nested.toString())).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> manager.start(folder.resolve("missing").toString())).isInstanceOf(IllegalArgumentException.class);
+
+		resume.countDown();
+		awaitEnd(job);
+		assertThat(job.getState()).isEqualTo(IndexingJob.State.SUCCEEDED);
+		assertThat(job.getFilesIndexed()).isEqualTo(2);
+		assertThat(job.getBytesIndexed()).isEqualTo(400);
+		assertThat(job.getFinishedAt()).isNotNull();
+		assertThat(job.getEtaMillis()).isNull();
+
+		IndexingJob failed = manager.start(Files.createDirectory(folder.resolve("empty")).toString());
+		awaitEnd(failed);
+		assertThat(failed.getState()).isEqualTo(IndexingJob.State.FAILED);
+		assertThat(failed.getError()).isEqualTo("Provided dataset is empty!");
+		assertThat(manager.list()).containsExactly(job, failed);
+	}
+
+	@Test
+	void cancellingAJobStopsItsPipelineAndPublishesNothing() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			Files.writeString(folder.resolve("file" + i + ".txt"), "some words\n");
+		}
+		CountDownLatch indexing = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		IndexingStrategy blocking = (file, fileInfo) -> {
+			indexing.countDown();
+			try {
+				Thread.sleep(60_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				Thread.currentThread().interrupt();
+			}
+		};
+		ProcessingEngine engine = new ProcessingEngine(new IndexingPipeline(List.of(new NameIndexingStrategy(), blocking)),
+				new QueryResultCache(0, 0), new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS), IndexStore.create());
+		long generation = engine.generation();
+		IndexingJobManager manager = new IndexingJobManager(engine);
+
+		IndexingJob job = manager.start(folder.toString());
+		assertThat(indexing.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(manager.cancel(job.getId())).isSameAs(job);
+		assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+		awaitEnd(job);
+
+		assertThat(job.getState()).isEqualTo(IndexingJob.State.CANCELLED);
+		assertThat(job.getFilesIndexed()).isZero();
+		assertThat(engine.generation()).isEqualTo(generation);
+		assertThat(engine.indexedPaths()).isEmpty();
+		assertThat(manager.cancel(job.getId()).getState()).isEqualTo(IndexingJob.State.CANCELLED);
+		assertThat(manager.cancel(-1)).isNull();
+	}
+
+	private static void awaitEnd(IndexingJob job) throws InterruptedException {
+		for (int i = 0; i < 1000 && job.isActive(); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(job.isActive()).as("job %d still running", job.getId()).isFalse();
+	}
+}
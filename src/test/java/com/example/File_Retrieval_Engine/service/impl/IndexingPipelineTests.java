@@ -0,0 +1,230 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.analysis.AnalyzerType;
+import com.example.File_Retrieval_Engine.analysis.ParallelMessageTokenizer;
+import com.example.File_Retrieval_Engine.analysis.TokenizedMessage;
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.IndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.MessageIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class IndexingPipelineTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void everyFileGoesThroughEveryStrategyWithItsMessagesInOrder() throws Exception {
+		List<File> files = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			StringBuilder text = new StringBuilder("preamble " + i + "\n");
+			for (int message = 0; message < i; message++) {
+				text.append("From: a@b.c\nSubject: Message ").append(message).append("\n\nbody ").append(i).append(" words\n");
+			}
+			files.add(Files.write(folder.resolve("file" + i + ".txt"), text.toString().getBytes(StandardCharsets.ISO_8859_1)).toFile());
+		}
+		RecordingStrategy messages = new RecordingStrategy();
+		Set<String> named = ConcurrentHashMap.newKeySet();
+		IndexingStrategy names = (file, fileInfo) -> named.add(fileInfo.getName());
+		// Tiny queues, chunks and byte budget, so that every stage keeps waiting for the next one
+		IndexingPipeline pipeline = new IndexingPipeline(List.of(messages, names), 2, 3, 2, 1, 1024);
+		AtomicLong found = new AtomicLong();
+		AtomicLong indexed = new AtomicLong();
+
+		IndexStore indexStore = IndexStore.getInstance();
+		IndexStore.Build build = indexStore.beginBuild();
+		try {
+			pipeline.run(build, sink -> {
+				for (File file : files) {
+					sink.accept(file);
+				}
+			}, new IndexingProgress() {
+				@Override
+				public void fileFound(long bytes) {
+					found.addAndGet(bytes);
+				}
+
+				@Override
+				public void discoveryFinished() {
+				}
+
+				@Override
+				public void fileIndexed(long bytes) {
+					indexed.addAndGet(bytes);
+				}
+			});
+		} finally {
+			indexStore.abandonBuild(build);
+		}
+
+		ParallelMessageTokenizer singlePass = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), Integer.MAX_VALUE, AnalyzerType.BYTE);
+		assertThat(messages.indexed).hasSize(files.size());
+		for (File file : files) {
+			assertThat(messages.indexed.get(file.getName())).as(file.getName()).isEqualTo(singlePass.tokenize(file));
+		}
+		assertThat(named).hasSize(files.size());
+		assertThat(found.get()).isEqualTo(indexed.get()).isEqualTo(files.stream().mapToLong(File::length).sum());
+	}
+
+	@Test
+	void archiveEntriesAreStreamedLikePlainFiles() throws Exception {
+		Map<String, String> texts = new LinkedHashMap<>();
+		for (int i = 0; i < 6; i++) {
+			StringBuilder text = new StringBuilder("preamble " + i + "\n");
+			for (int message = 0; message < 3 * i; message++) {
+				text.append("From: a@b.c\nSubject: Message ").append(message).append("\n\nbody ").append(i).append(" words\n");
+			}
+			texts.put("entry" + i + ".txt", text.toString());
+		}
+		File zip = writeZip("dump.zip", texts);
+		File gzip = folder.resolve("single.txt.gz").toFile();
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+			out.write(texts.get("entry5.txt").replace("preamble", "gzipped").getBytes(StandardCharsets.ISO_8859_1));
+		}
+		RecordingStrategy messages = new RecordingStrategy();
+		Map<String, FileInfo> files = new ConcurrentHashMap<>();
+		IndexingStrategy paths = (file, fileInfo) -> files.put(fileInfo.getPath(), fileInfo);
+		IndexingPipeline pipeline = new IndexingPipeline(List.of(messages, paths), 3, 2, 2, 1, 1024);
+
+		IndexStore indexStore = IndexStore.getInstance();
+		IndexStore.Build build = indexStore.beginBuild();
+		try {
+			pipeline.run(build, sink -> {
+				sink.accept(zip);
+				sink.accept(gzip);
+			}, IndexingProgress.NONE);
+		} finally {
+			indexStore.abandonBuild(build);
+		}
+
+		ParallelMessageTokenizer singlePass = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), Integer.MAX_VALUE, AnalyzerType.BYTE);
+		for (Map.Entry<String, String> entry : texts.entrySet()) {
+			File plain = Files.writeString(folder.resolve(entry.getKey()), entry.getValue()).toFile();
+			assertThat(messages.indexed.get(entry.getKey())).as(entry.getKey()).isEqualTo(singlePass.tokenize(plain));
+			assertThat(files.get(zip.getPath() + "!/" + entry.getKey()).getSize()).isEqualTo(entry.getValue().length());
+		}
+		assertThat(messages.indexed.get("single.txt")).hasSize(16);
+		assertThat(files).hasSize(texts.size() + 1).containsKey(gzip.getPath() + "!/single.txt");
+	}
+
+	@Test
+	void entriesLargerThanTheBytesInFlightAreReadTogether() throws Exception {
+		Map<String, String> texts = new LinkedHashMap<>();
+		for (int i = 0; i < 4; i++) {
+			StringBuilder text = new StringBuilder();
+			for (int message = 0; message < 1000; message++) {
+				text.append("From: a@b.c\nSubject: Message ").append(message).append("\n\nbody ").append(i).append(" words\n");
+			}
+			texts.put("large" + i + ".txt", text.toString());
+		}
+		File zip = writeZip("large.zip", texts);
+		File gzip = folder.resolve("large.txt.gz").toFile();
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+			out.write(texts.get("large0.txt").getBytes(StandardCharsets.ISO_8859_1));
+		}
+		RecordingStrategy messages = new RecordingStrategy();
+		IndexingPipeline pipeline = new IndexingPipeline(List.of(messages), 4, 2, 1, 4, 8 * 1024);
+
+		IndexStore indexStore = IndexStore.getInstance();
+		IndexStore.Build build = indexStore.beginBuild();
+		try {
+			assertTimeoutPreemptively(Duration.ofSeconds(60), () -> pipeline.run(build, sink -> {
+				sink.accept(zip);
+				sink.accept(gzip);
+			}, IndexingProgress.NONE));
+		} finally {
+			indexStore.abandonBuild(build);
+		}
+
+		assertThat(texts.values()).allSatisfy(text -> assertThat(text.length()).isGreaterThan(4 * 8 * 1024));
+		assertThat(messages.indexed).hasSize(texts.size() + 1)
+				.allSatisfy((name, indexed) -> assertThat(indexed).as(name).hasSize(1000));
+	}
+
+	@Test
+	void archivesAreReplacedAndRemovedWithAllTheirEntries() throws Exception {
+		Path data = Files.createDirectory(folder.resolve("data"));
+		folder = data;
+		File zip = writeZip("news.zip", Map.of("alpha.txt", "alpha words\n", "beta.txt", "beta words\n"));
+		ProcessingEngine engine = new ProcessingEngine(new IndexingPipeline(List.of(new NameIndexingStrategy(),
+				new SizeIndexingStrategy(), new ContentIndexingStrategy())), new QueryResultCache(0, 0),
+				new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS), IndexStore.create());
+		engine.index(data.toString());
+		assertThat(engine.indexedPaths()).containsExactlyInAnyOrder(zip.getPath() + "!/alpha.txt", zip.getPath() + "!/beta.txt");
+
+		writeZip("news.zip", Map.of("beta.txt", "beta words, changed\n"));
+		engine.update(List.of(zip.getPath() + "!/beta.txt"));
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm("words");
+		assertThat(engine.search(criteria).getHits()).singleElement()
+				.satisfies(hit -> assertThat(hit.getFileInfo().getPath()).isEqualTo(zip.getPath() + "!/beta.txt"));
+
+		engine.remove(List.of(zip.getPath()));
+		assertThat(engine.indexedPaths()).isEmpty();
+	}
+
+	private File writeZip(String name, Map<String, String> entries) throws Exception {
+		File zip = folder.resolve(name).toFile();
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				out.putNextEntry(new ZipEntry(entry.getKey()));
+				out.write(entry.getValue().getBytes(StandardCharsets.ISO_8859_1));
+				out.closeEntry();
+			}
+		}
+		return zip;
+	}
+
+	private static class RecordingStrategy implements MessageIndexingStrategy {
+
+		private final ParallelMessageTokenizer tokenizer = new ParallelMessageTokenizer(ForkJoinPool.commonPool(), 16, AnalyzerType.BYTE);
+		private final Map<String, List<TokenizedMessage>> indexed = new ConcurrentHashMap<>();
+
+		@Override
+		public ParallelMessageTokenizer tokenizer() {
+			return tokenizer;
+		}
+
+		@Override
+		public void indexMessages(File file, FileInfo fileInfo, List<TokenizedMessage> messages) {
+			indexed.put(fileInfo.getName(), messages);
+		}
+
+		@Override
+		public void indexFile(File file, FileInfo fileInfo) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
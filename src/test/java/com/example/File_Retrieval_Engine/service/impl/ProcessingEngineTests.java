@@ -0,0 +1,52 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.exception.CursorExpiredException;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.SearchCursor;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessingEngineTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void onlyCursorsOfGenerationsNoLongerKeptAreExpired() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			Files.writeString(folder.resolve("file" + i + ".txt"), "alpha\n");
+		}
+		ProcessingEngine engine = new ProcessingEngine(new IndexingPipeline(List.of(new NameIndexingStrategy(),
+				new SizeIndexingStrategy(), new ContentIndexingStrategy())), new QueryResultCache(0, 0),
+				new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS), IndexStore.create());
+		engine.index(folder.toString());
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm("alpha");
+		criteria.setLimit(2);
+		SearchResult first = engine.search(criteria);
+
+		engine.update(List.of(folder.resolve("file0.txt").toString()));
+		criteria.setAfter(first.getNextCursor());
+		assertThat(engine.search(criteria).getHits()).hasSize(2);
+
+		SearchCursor kept = SearchCursor.parse(first.getNextCursor());
+		criteria.setAfter(new SearchCursor(kept.generation() - 1, kept.segment(), kept.position()).encode());
+		assertThatThrownBy(() -> engine.search(criteria)).isInstanceOf(CursorExpiredException.class);
+		criteria.setAfter("not a cursor");
+		assertThatThrownBy(() -> engine.search(criteria)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.cache.QueryResultCache;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.SearchHit;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.query.TermExpander;
+import com.example.File_Retrieval_Engine.service.IndexStore;
+import com.example.File_Retrieval_Engine.shard.Shard;
+import com.example.File_Retrieval_Engine.strategy.ContentIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.NameIndexingStrategy;
+import com.example.File_Retrieval_Engine.strategy.SizeIndexingStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ShardedEngineTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void shardsHoldEachFileOnceAndPageThroughEveryShard() throws Exception {
+		for (int i = 0; i < 60; i++) {
+			Files.writeString(folder.resolve("file" + i + ".txt"), "alpha word" + i + "\n");
+		}
+		IndexingPipeline pipeline = new IndexingPipeline(List.of(new NameIndexingStrategy(), new SizeIndexingStrategy(),
+				new ContentIndexingStrategy()));
+		TermExpander termExpander = new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS);
+		ProcessingEngine primary = new ProcessingEngine(pipeline, new QueryResultCache(0, 0), termExpander, IndexStore.create());
+		ShardedEngine engine = new ShardedEngine(primary, pipeline, termExpander, new ObjectMapper(), 3, List.of(), 0, 0);
+		engine.index(folder.toString());
+
+		assertThat(engine.indexedPaths()).hasSize(60);
+		assertThat(engine.shards().stream().mapToInt(shard -> shard.paths().size()).sum()).isEqualTo(60);
+		assertThat(engine.shards()).allSatisfy(shard -> assertThat(shard.paths()).isNotEmpty());
+		assertThat(engine.indexStats().liveDocuments()).isEqualTo(60);
+		assertThat(engine.indexStats().generation()).isEqualTo(engine.generation());
+		assertThat(engine.indexStats().segments()).hasSize(3);
+
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm("alpha");
+		assertThat(engine.search(criteria).getHits()).hasSize(60);
+
+		criteria.setLimit(7);
+		Set<String> paged = new HashSet<>();
+		int pages = 0;
+		SearchResult page;
+		do {
+			page = engine.search(criteria);
+			page.getHits().forEach(hit -> paged.add(hit.getFileInfo().getPath()));
+			criteria.setAfter(page.getNextCursor());
+			pages++;
+		} while (page.getNextCursor() != null);
+		assertThat(paged).hasSize(60);
+		assertThat(pages).isBetween(9, 11);
+
+		engine.addShard(null);
+		List<ShardedEngine.Move> moves = engine.rebalance();
+		List<Shard> shards = engine.shards();
+		assertThat(moves).isNotEmpty().allSatisfy(move -> assertThat(move.to()).isEqualTo("local-3"));
+		assertThat(shards.stream().mapToInt(shard -> shard.paths().size()).sum()).isEqualTo(60);
+		for (int i = 0; i < shards.size(); i++) {
+			for (String path : shards.get(i).paths()) {
+				assertThat(ShardedEngine.shardOf(path, shards)).as(path).isEqualTo(i);
+			}
+		}
+		criteria.setLimit(null);
+		criteria.setAfter(null);
+		List<String> hits = engine.search(criteria).getHits().stream().map(SearchHit::getFileInfo).map(FileInfo::getPath).toList();
+		assertThat(hits).hasSize(60).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void shardsRankWithTheStatisticsOfTheWholeIndex() throws Exception {
+		for (int i = 0; i < 40; i++) {
+			String text = "alpha ".repeat(1 + i % 4) + (i % 3 == 0 ? "beta " : "") + "filler".repeat(i % 7) + " word" + i;
+			Files.writeString(folder.resolve("file" + i + ".txt"), text + "\n");
+		}
+		IndexingPipeline pipeline = new IndexingPipeline(List.of(new NameIndexingStrategy(), new SizeIndexingStrategy(),
+				new ContentIndexingStrategy()));
+		TermExpander termExpander = new TermExpander(TermExpander.DEFAULT_MAX_EXPANSIONS);
+		ProcessingEngine single = new ProcessingEngine(pipeline, new QueryResultCache(0, 0), termExpander, IndexStore.create());
+		single.index(folder.toString());
+		ProcessingEngine primary = new ProcessingEngine(pipeline, new QueryResultCache(0, 0), termExpander, IndexStore.create());
+		ShardedEngine engine = new ShardedEngine(primary, pipeline, termExpander, new ObjectMapper(), 3, List.of(), 0, 0);
+		engine.index(folder.toString());
+
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm("alpha beta fill*");
+		criteria.setRanked(true);
+		criteria.setLimit(100);
+		assertThat(engine.statistics(criteria)).isEqualTo(single.statistics(criteria));
+		Map<String, Double> expected = scores(single.search(criteria));
+		assertThat(expected).hasSize(40);
+		assertThat(scores(engine.search(criteria))).containsOnlyKeys(expected.keySet())
+				.allSatisfy((path, score) -> assertThat(score).as(path).isCloseTo(expected.get(path), within(1e-9)));
+		assertThat(criteria.getStatistics()).isNull();
+	}
+
+	private static Map<String, Double> scores(SearchResult result) {
+		return result.getHits().stream().collect(Collectors.toMap(hit -> hit.getFileInfo().getPath(), SearchHit::getScore));
+	}
+}
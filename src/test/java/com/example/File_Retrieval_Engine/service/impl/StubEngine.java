@@ -0,0 +1,74 @@
+package com.example.File_Retrieval_Engine.service.impl;
+
+import com.example.File_Retrieval_Engine.exception.EmptyDataSetException;
+import com.example.File_Retrieval_Engine.index.IndexGeneration;
+import com.example.File_Retrieval_Engine.model.SearchResult;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.ranking.CollectionStatistics;
+import com.example.File_Retrieval_Engine.service.Engine;
+import com.example.File_Retrieval_Engine.service.IndexingProgress;
+import com.example.File_Retrieval_Engine.service.SearchHitSink;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Engine holding nothing, for tests of the classes driving an engine; tests override what they use.
+ */
+class StubEngine implements Engine {
+
+	@Override
+	public void index(String path) throws EmptyDataSetException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void index(String path, IndexingProgress progress) throws EmptyDataSetException, InterruptedException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void update(Collection<String> paths) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void remove(Collection<String> paths) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Collection<String> indexedPaths() {
+		return List.of();
+	}
+
+	@Override
+	public long generation() {
+		return 0;
+	}
+
+	@Override
+	public IndexGeneration.Stats indexStats() {
+		return IndexGeneration.empty().stats();
+	}
+
+	@Override
+	public CollectionStatistics statistics(SearchingCriteria criteria) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public SearchResult search(SearchingCriteria criteria) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public SearchResult search(SearchingCriteria criteria, SearchHitSink sink) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public List<SearchResult> search(List<SearchingCriteria> batch) {
+		throw new UnsupportedOperationException();
+	}
+}
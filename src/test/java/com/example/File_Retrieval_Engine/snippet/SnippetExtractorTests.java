@@ -0,0 +1,68 @@
+package com.example.File_Retrieval_Engine.snippet;
+
+import com.example.File_Retrieval_Engine.cache.PageCache;
+import com.example.File_Retrieval_Engine.model.FileInfo;
+import com.example.File_Retrieval_Engine.model.MessageInfo;
+import com.example.File_Retrieval_Engine.model.SearchingCriteria;
+import com.example.File_Retrieval_Engine.model.Snippet;
+import com.example.File_Retrieval_Engine.query.TermPattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnippetExtractorTests {
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void snippetsHighlightTermsWithTheirContextLines() throws Exception {
+		Path path = folder.resolve("post.txt");
+		Files.writeString(path, "Subject: graphics\n\nfirst line\nWe render Graphics here.\nmiddle\nmore graphs_2d later\n"
+				+ "filler\n".repeat(10) + "last graphic line\n");
+		SearchingCriteria criteria = new SearchingCriteria();
+		criteria.setContentSearchTerm("graph*");
+		criteria.setQuery("render OR NOT filler");
+		List<TermPattern> patterns = SnippetExtractor.queryTerms(criteria);
+		assertThat(patterns).extracting(TermPattern::toString).containsExactly("graph*", "render");
+
+		SnippetExtractor extractor = new SnippetExtractor(new PageCache(1 << 20), 1, 1 << 20);
+		File file = path.toFile();
+		FileInfo message = new MessageInfo(new FileInfo(file.getName(), file.getPath(), file.length(), file.lastModified()),
+				19, file.length() - 19, null, null);
+		List<Snippet> snippets = extractor.snippets(message, patterns, 2, extractor.budget());
+
+		assertThat(snippets).hasSize(2);
+		Snippet first = snippets.getFirst();
+		assertThat(first.getOffset()).isEqualTo(19);
+		assertThat(first.getText()).isEqualTo("first line\nWe render Graphics here.\nmiddle\nmore graphs_2d later\nfiller");
+		assertThat(first.getHighlights()).extracting(span -> first.getText().substring(span.start(), span.end()))
+				.containsExactly("render", "Graphics", "graphs_2d");
+		assertThat(snippets.get(1).getText()).isEqualTo("filler\nlast graphic line");
+	}
+
+	@Test
+	void requestsStopReadingOnceTheirBudgetIsSpent() throws Exception {
+		Path path = folder.resolve("long.txt");
+		Files.writeString(path, "padding line\n".repeat(3000) + "needle\n");
+		File file = path.toFile();
+		FileInfo info = new FileInfo(file.getName(), file.getPath(), file.length(), file.lastModified());
+		List<TermPattern> patterns = List.of(TermPattern.glob("needle"));
+		SnippetExtractor extractor = new SnippetExtractor(new PageCache(1 << 20), 0, PageCache.PAGE_SIZE);
+
+		SnippetExtractor.Budget budget = extractor.budget();
+		assertThat(extractor.snippets(info, patterns, 1, budget)).isEmpty();
+		assertThat(budget.isExhausted()).isTrue();
+
+		SnippetExtractor.Budget larger = new SnippetExtractor(new PageCache(0), 0, 1 << 20).budget();
+		assertThat(new SnippetExtractor(new PageCache(0), 0, 1 << 20).snippets(info, patterns, 1, larger))
+				.singleElement().satisfies(snippet -> assertThat(snippet.getText()).isEqualTo("needle"));
+		assertThat(larger.isExhausted()).isFalse();
+	}
+}